@@ -0,0 +1,297 @@
+package BusinessLogic;
+
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationSerializer.ConfigurationSerializer;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.InterchangeableFeatureDetector;
+import FeatureModelReader.Structures.FeatureModelRead;
+import FeatureModelReader.Structures.InterchangeableFeatures;
+import FeatureModelSlicer.FeatureModelSlicer;
+import FeatureModelSlicer.Structures.FeatureModelSliced;
+import IO.IManagingMeasurement;
+import IO.impl.CompressedFileHandle;
+import IO.impl.ManagingMeasurement;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preprocesses all feature models of a directory in a bounded pipeline. A pool
+ * of readers parses the JSON files, a pool of solvers slices them and calculates
+ * their configurations and a single writer serializes the results. The stages
+ * are connected by bounded queues, so the serialization of one model overlaps
+ * the solving of the next ones while at most {@code queueCapacity} models wait
+ * between two stages. Without slicing, a solver writes the configurations while it
+ * enumerates them, so its solving time includes the serialization.
+ * <p>
+ * The writer adds one line per model to the measurement log with the time of
+ * every stage and the time the model waited in each queue, all in nanoseconds.
+ * A stage that fails passes the model on as failed, so the writer receives
+ * every model and the pipeline finishes.
+ */
+public class BatchPreProcessor {
+    /** default number of models that may wait between two stages */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+    private final Logger _ApplicationLogger;
+    private final PreProcessingOptions _Options;
+    private final int _Readers;
+    private final int _Solvers;
+    private final int _QueueCapacity;
+    private IManagingMeasurement _MeasurementLogger;
+
+    /**
+     * Result of one stage for one model, passed on through the queues.
+     */
+    private static final class BatchItem {
+        final File file;
+        FeatureModelRead featureModel;
+        InterchangeableFeatures interchangeableFeatures = new InterchangeableFeatures();
+        Map<Integer, FeatureModelPartiallyCalculated> calculatedFeatureModels;
+        long readingTime;
+        long slicingTime;
+        long solvingTime;
+        long readQueueWaitTime;
+        long writeQueueWaitTime;
+        long enqueuedAt;
+        boolean failed;
+
+        BatchItem(File file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * Creates a pipeline with the default options, one reader, one solver and the default queue capacity.
+     *
+     * @param applicationLogger logger used for progress and error output
+     */
+    public BatchPreProcessor(Logger applicationLogger) {
+        this(applicationLogger, new PreProcessingOptions(), 1, 1, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a pipeline. The solution cache of the options is shared by all solvers.
+     *
+     * @param applicationLogger logger used for progress and error output
+     * @param options           reading, serialization and solving settings
+     * @param readers           number of reader threads
+     * @param solvers           number of solver threads
+     * @param queueCapacity     number of models that may wait between two stages
+     */
+    public BatchPreProcessor(Logger applicationLogger, PreProcessingOptions options, int readers, int solvers, int queueCapacity) {
+        _ApplicationLogger = applicationLogger;
+        _Options = options;
+        _Readers = Math.max(1, readers);
+        _Solvers = Math.max(1, solvers);
+        _QueueCapacity = Math.max(1, queueCapacity);
+    }
+
+    /**
+     * @param options format and compression of the configuration file
+     * @return path of the configuration file of a feature model for one threshold
+     */
+    public static String configurationPathFor(String outputDirectory, File featureModelFile, int threshold, PreProcessingOptions options) {
+        var extension = ConfigurationSerializer.fileExtensionFor(options.getConfigurationFormat(), options.getCompression());
+        return new File(outputDirectory, featureModelFile.getName() + "_" + threshold + extension).getPath();
+    }
+
+    /**
+     * Preprocesses every JSON feature model in the input directory. The configurations are
+     * written to {@link #configurationPathFor} per model and threshold. With several thresholds
+     * the finest slicing is solved once and joined for every threshold, see
+     * {@link ConfigurationCalculator#calculatePartialConfigurationsForThresholds}.
+     *
+     * @param inputDirectory  directory of the feature model files
+     * @param outputDirectory directory of the configuration files
+     * @param withSlicing     whether the models should be sliced before configuration
+     * @param thresholds      slicing thresholds, ignored without slicing
+     * @return number of models that were processed without an error
+     */
+    public int processDirectory(String inputDirectory, String outputDirectory, boolean withSlicing, int... thresholds) {
+        var files = new File(inputDirectory).listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            _ApplicationLogger.error(inputDirectory + " is not a directory");
+            return 0;
+        }
+        Arrays.sort(files);
+        if (_Options.isCompiling() || _Options.isIncremental()) {
+            _ApplicationLogger.warn("Compilation and incremental processing are not supported for a directory, the models are processed completely");
+        }
+        var effectiveThresholds = withSlicing ? thresholds : new int[]{Integer.MAX_VALUE};
+        _MeasurementLogger = new ManagingMeasurement();
+        _MeasurementLogger.writeLine("file;thresholds;reading;readQueueWait;slicing;solving;writeQueueWait;writing");
+
+        BlockingQueue<BatchItem> readQueue = new ArrayBlockingQueue<>(_QueueCapacity);
+        BlockingQueue<BatchItem> writeQueue = new ArrayBlockingQueue<>(_QueueCapacity);
+        var remainingReads = new AtomicInteger(files.length);
+        ExecutorService readerPool = Executors.newFixedThreadPool(_Readers);
+        ExecutorService solverPool = Executors.newFixedThreadPool(_Solvers);
+        try {
+            // every taken item is handed over, also after an error, so the next stage never waits for a lost model
+            for (var file : files) {
+                readerPool.submit(() -> {
+                    var item = new BatchItem(file);
+                    try {
+                        read(item);
+                    } finally {
+                        handOver(readQueue, item);
+                    }
+                });
+            }
+            for (int i = 0; i < _Solvers; i++) {
+                solverPool.submit(() -> {
+                    while (remainingReads.getAndDecrement() > 0) {
+                        var item = takeFrom(readQueue);
+                        try {
+                            solve(item, outputDirectory, withSlicing, effectiveThresholds);
+                        } finally {
+                            handOver(writeQueue, item);
+                        }
+                    }
+                });
+            }
+            // the calling thread is the writer
+            var processed = 0;
+            for (int i = 0; i < files.length; i++) {
+                if (write(takeFrom(writeQueue), outputDirectory, effectiveThresholds)) {
+                    processed++;
+                }
+            }
+            return processed;
+        } finally {
+            readerPool.shutdownNow();
+            solverPool.shutdownNow();
+            awaitTermination(readerPool);
+            awaitTermination(solverPool);
+        }
+    }
+
+    /**
+     * Reads the model and reduces its interchangeable alternatives if enabled. Errors, also
+     * an {@link Error} such as an {@link OutOfMemoryError}, mark the item as failed.
+     */
+    private void read(BatchItem item) {
+        var start = System.nanoTime();
+        try {
+            item.featureModel = new FeatureModelReader(_ApplicationLogger, _Options.getReadingMode()).readFeatureModelJson(item.file);
+            item.failed = item.featureModel == null;
+            if (!item.failed && _Options.isReducingInterchangeableFeatures()) {
+                item.interchangeableFeatures = new InterchangeableFeatureDetector(_ApplicationLogger).reduce(item.featureModel);
+            }
+        } catch (Throwable e) {
+            _ApplicationLogger.fatal(item.file + ": " + e);
+            item.failed = true;
+        }
+        item.readingTime = System.nanoTime() - start;
+    }
+
+    /**
+     * Slices the model and calculates its configurations with the solving mode and backend of
+     * the options. Without slicing, the configurations are written while they are enumerated, like
+     * in the {@link FeatureModelPreProcessor}, so the full model is never held in memory. Errors,
+     * also an {@link Error}, mark the item as failed.
+     */
+    private void solve(BatchItem item, String outputDirectory, boolean withSlicing, int[] thresholds) {
+        item.readQueueWaitTime = System.nanoTime() - item.enqueuedAt;
+        if (item.failed) {
+            return;
+        }
+        var configurationCalculator = new ConfigurationCalculator(_ApplicationLogger, _Options.toCalculationOptions(_Options.getSolutionCache()));
+        var start = System.nanoTime();
+        try {
+            item.calculatedFeatureModels = new LinkedHashMap<>();
+            if (!withSlicing) {
+                var nonSlicedFM = new FeatureModelPartiallyCalculated(new FeatureModelSliced(item.featureModel));
+                try (var configurations = configurationCalculator.streamConfigurationsForNonSlicedFM(nonSlicedFM)) {
+                    createSerializer().saveConfigurations(nonSlicedFM.crossTreeConstraints, configurations,
+                            configurationPathFor(outputDirectory, item.file, thresholds[0], _Options));
+                }
+            } else if (thresholds.length == 1) {
+                var slicedFeatureModel = new FeatureModelSlicer(_ApplicationLogger).sliceFeatureModel(item.featureModel, thresholds[0]);
+                item.slicingTime = System.nanoTime() - start;
+                item.calculatedFeatureModels.put(thresholds[0], configurationCalculator.calculatePartialConfigurations(slicedFeatureModel));
+            } else {
+                // slicing is part of the joined calculation and measured as solving
+                item.calculatedFeatureModels.putAll(configurationCalculator.calculatePartialConfigurationsForThresholds(item.featureModel, thresholds));
+            }
+        } catch (Throwable e) {
+            _ApplicationLogger.error(item.file + ": " + e);
+            item.failed = true;
+        } finally {
+            item.solvingTime = System.nanoTime() - start - item.slicingTime;
+            // the read model is not needed by the writer
+            item.featureModel = null;
+        }
+    }
+
+    private boolean write(BatchItem item, String outputDirectory, int[] thresholds) {
+        item.writeQueueWaitTime = System.nanoTime() - item.enqueuedAt;
+        var start = System.nanoTime();
+        if (!item.failed) {
+            var configurationSerializer = createSerializer();
+            try {
+                for (var threshold : thresholds) {
+                    var outputPath = configurationPathFor(outputDirectory, item.file, threshold, _Options);
+                    // configurations of a non-sliced model were already written by the solver
+                    var calculatedFeatureModel = item.calculatedFeatureModels.get(threshold);
+                    if (calculatedFeatureModel != null) {
+                        configurationSerializer.saveConfigurations(calculatedFeatureModel, outputPath);
+                    }
+                    ConfigurationSidecars.saveInterchangeableFeatures(_ApplicationLogger, item.interchangeableFeatures, outputPath);
+                    // the batch does not compile, diagrams of an earlier run would not match the configurations
+                    ConfigurationSidecars.deleteStaleDiagrams(outputPath);
+                }
+            } catch (RuntimeException e) {
+                _ApplicationLogger.error(item.file + ": " + e);
+                item.failed = true;
+            }
+        }
+        var writingTime = System.nanoTime() - start;
+        _MeasurementLogger.writeLine(item.file.toString(), Arrays.toString(thresholds), item.readingTime, item.readQueueWaitTime,
+                item.slicingTime, item.solvingTime, item.writeQueueWaitTime, writingTime);
+        if (!item.failed) {
+            _ApplicationLogger.info("Preprocessed " + item.file);
+        }
+        return !item.failed;
+    }
+
+    private ConfigurationSerializer createSerializer() {
+        return new ConfigurationSerializer(_ApplicationLogger, _Options.getConfigurationFormat(), _Options.getCompression(), CompressedFileHandle.DEFAULT_BUFFER_SIZE);
+    }
+
+    private void handOver(BlockingQueue<BatchItem> queue, BatchItem item) {
+        try {
+            item.enqueuedAt = System.nanoTime();
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private BatchItem takeFrom(BlockingQueue<BatchItem> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                _ApplicationLogger.warn("Batch preprocessing threads did not terminate");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
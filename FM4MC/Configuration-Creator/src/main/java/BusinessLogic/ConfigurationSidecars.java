@@ -0,0 +1,39 @@
+package BusinessLogic;
+
+import ConfigurationSerializer.InterchangeableFeaturesSerializer;
+import FeatureModelReader.Structures.InterchangeableFeatures;
+import KnowledgeCompiler.BDDSerializer;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+
+/**
+ * Files that the {@link FeatureModelPreProcessor} and the {@link BatchPreProcessor} keep
+ * next to a configuration file and that have to match the configurations written with it.
+ */
+final class ConfigurationSidecars {
+
+    private ConfigurationSidecars() {
+    }
+
+    /**
+     * Saves the classes of interchangeable alternatives next to the configuration file, a
+     * stale file of an earlier run with reduction is removed.
+     */
+    static void saveInterchangeableFeatures(Logger logger, InterchangeableFeatures interchangeableFeatures, String outputPath) {
+        var classesPath = InterchangeableFeaturesSerializer.classesPathFor(outputPath);
+        if (interchangeableFeatures.isEmpty()) {
+            new File(classesPath).delete();
+            return;
+        }
+        new InterchangeableFeaturesSerializer(logger).saveClasses(interchangeableFeatures, classesPath);
+    }
+
+    /**
+     * Removes the diagrams of an earlier run with compilation next to the configuration file. They
+     * no longer match the new configurations, but the online phase loads every diagram it finds.
+     */
+    static void deleteStaleDiagrams(String outputPath) {
+        new File(BDDSerializer.diagramPathFor(outputPath)).delete();
+    }
+}
@@ -1,17 +1,29 @@
 package BusinessLogic;
 
 import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.IPFMSolutionStore;
+import ConfigurationCalculator.PFMSolutionCache;
+import ConfigurationCalculator.PFMSolutionIndex;
+import ConfigurationCalculator.SamplingMode;
 import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
 import ConfigurationSerializer.ConfigurationSerializer;
+import FeatureModelReader.BinaryFeatureModelSerializer;
 import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.InterchangeableFeatureDetector;
 import FeatureModelSlicer.FeatureModelSlicer;
 import FeatureModelReader.InvalidFeatureModelRelationException;
+import FeatureModelReader.Structures.FeatureModelRead;
+import FeatureModelReader.Structures.InterchangeableFeatures;
 import FeatureModelSlicer.Structures.FeatureModelSliced;
 import IO.IManagingMeasurement;
+import IO.impl.CompressedFileHandle;
+import KnowledgeCompiler.BDDSerializer;
 import IO.impl.ManagingMeasurement;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
+import java.math.BigInteger;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -21,26 +33,42 @@ import java.util.Objects;
  */
 public class FeatureModelPreProcessor {
     private final Logger _ApplicationLogger;
+    private final PreProcessingOptions _Options;
+    private final PFMSolutionCache _SolutionCache;
     private IManagingMeasurement _MeasurementLogger;
     private long _StartTime;
 
     /**
-     * Creates a new pre processor with the given logger.
+     * Creates a new pre processor with the default options.
      *
      * @param applicationLogger logger used for progress and error output
      */
     public FeatureModelPreProcessor(Logger applicationLogger) {
+        this(applicationLogger, new PreProcessingOptions());
+    }
+
+    /**
+     * Creates a new pre processor with the given options.
+     *
+     * @param applicationLogger logger used for progress and error output
+     * @param options           reading, serialization and solving settings
+     */
+    public FeatureModelPreProcessor(Logger applicationLogger, PreProcessingOptions options) {
         _ApplicationLogger = applicationLogger;
+        _Options = options;
+        _SolutionCache = options.getSolutionCache();
     }
 
 
     /**
-     * Processes a single feature model file.
+     * Processes a single feature model file. Compilation and incremental processing are
+     * taken from the options, see {@link PreProcessingOptions#withCompilation(boolean)} and
+     * {@link PreProcessingOptions#withIncrementalProcessing(boolean)}.
      *
-     * @param fileName   path to the feature model file
-     * @param threshold  slicing threshold for estimated configurations
+     * @param fileName    path to the feature model file
+     * @param threshold   slicing threshold for estimated configurations
      * @param withSlicing whether the model should be sliced before configuration
-     * @param outputPath destination directory for serialized configurations
+     * @param outputPath  destination directory for serialized configurations
      */
     public void startTestForFile(String fileName, int threshold, boolean withSlicing, String outputPath) {
         setupMeasurementLogger();
@@ -49,12 +77,160 @@ public class FeatureModelPreProcessor {
         preprocessApplicationFeatureModel(file, threshold, withSlicing, outputPath);
     }
 
+    /**
+     * Converts a JSON feature model into the binary format of the
+     * {@link BinaryFeatureModelSerializer}, which the online phase can map into
+     * memory instead of parsing the JSON file again.
+     *
+     * @param fileName   path to the JSON feature model file
+     * @param outputPath path of the binary file
+     * @return {@code true} if the feature model was converted
+     */
+    public boolean convertToBinary(String fileName, String outputPath) {
+        var fmReader = new FeatureModelReader(_ApplicationLogger, _Options.getReadingMode());
+        try {
+            var featureModel = fmReader.readFeatureModelJson(new File(fileName));
+            if (featureModel == null) {
+                return false;
+            }
+            new BinaryFeatureModelSerializer(_ApplicationLogger).saveFeatureModel(featureModel, outputPath);
+            _ApplicationLogger.info("Converted " + fileName + " to " + outputPath);
+            return true;
+        } catch (InvalidFeatureModelRelationException e) {
+            _ApplicationLogger.fatal(e);
+            return false;
+        }
+    }
+
+    /**
+     * Counts the valid configurations of a single feature model file without
+     * enumerating them. The count is written to the application log and the
+     * measurement log.
+     *
+     * @param fileName    path to the feature model file
+     * @param threshold   slicing threshold for estimated configurations
+     * @param withSlicing whether the model should be sliced before counting
+     * @return number of valid configurations or {@code null} if the model is invalid
+     */
+    public BigInteger startCountForFile(String fileName, int threshold, boolean withSlicing) {
+        _MeasurementLogger = new ManagingMeasurement();
+        _MeasurementLogger.writeLine("file;reading;slicing;counting;configurations");
+        var file = new File(fileName);
+        _StartTime = System.currentTimeMillis();
+
+        var fmReader = new FeatureModelReader(_ApplicationLogger, _Options.getReadingMode());
+        var fmSlicer = new FeatureModelSlicer(_ApplicationLogger);
+        var configurationCalculator = new ConfigurationCalculator(_ApplicationLogger, _Options.toCalculationOptions(null));
+        try {
+            var featureModel = fmReader.readFeatureModelJson(file);
+            var interchangeableFeatures = reduceInterchangeableFeatures(file, featureModel);
+            var readingTime = System.currentTimeMillis() - _StartTime;
+
+            var slicingTime = 0L;
+            BigInteger configurations;
+            if (withSlicing) {
+                var slicedFeatureModel = fmSlicer.sliceFeatureModel(featureModel, threshold);
+                slicingTime = System.currentTimeMillis() - _StartTime - readingTime;
+                reportSliceBoundaries(file, threshold, slicedFeatureModel);
+                configurations = configurationCalculator.countPartialConfigurations(slicedFeatureModel, interchangeableFeatures);
+            } else {
+                configurations = configurationCalculator.countConfigurationsForNonSlicedFM(featureModel, interchangeableFeatures);
+            }
+            var countingTime = System.currentTimeMillis() - _StartTime - readingTime - slicingTime;
+
+            _ApplicationLogger.info(file + " has " + configurations + " valid configurations");
+            _MeasurementLogger.writeLine(file.toString(), readingTime, slicingTime, countingTime, configurations);
+            return configurations;
+        } catch (InvalidFeatureModelRelationException e) {
+            _ApplicationLogger.fatal(e);
+            return null;
+        }
+    }
+
+    /**
+     * Samples a bounded number of valid configurations per PFM of a single feature model
+     * file instead of enumerating all of them, for models whose full enumeration is
+     * infeasible. The sampled configurations are written in the regular configuration
+     * format, so the online phase runs unchanged on the file.
+     *
+     * @param fileName     path to the feature model file
+     * @param threshold    slicing threshold for estimated configurations
+     * @param outputPath   destination of the serialized configurations
+     * @param samples      maximum number of configurations per PFM
+     * @param samplingMode how the configurations of a PFM are selected
+     * @param seed         seed of the random source
+     */
+    public void startSamplingForFile(String fileName, int threshold, String outputPath, int samples, SamplingMode samplingMode, long seed) {
+        _MeasurementLogger = new ManagingMeasurement();
+        _MeasurementLogger.writeLine("file;reading;slicing;sampling;confSaving;configurations");
+        var file = new File(fileName);
+        _StartTime = System.currentTimeMillis();
+
+        var fmReader = new FeatureModelReader(_ApplicationLogger, _Options.getReadingMode());
+        var fmSlicer = new FeatureModelSlicer(_ApplicationLogger);
+        var configurationCalculator = new ConfigurationCalculator(_ApplicationLogger, _Options.toCalculationOptions(null));
+        var configurationSerializer = new ConfigurationSerializer(_ApplicationLogger, _Options.getConfigurationFormat(), _Options.getCompression(), CompressedFileHandle.DEFAULT_BUFFER_SIZE);
+        try {
+            var featureModel = fmReader.readFeatureModelJson(file);
+            var readingTime = System.currentTimeMillis() - _StartTime;
+
+            var slicedFeatureModel = fmSlicer.sliceFeatureModel(featureModel, threshold);
+            var slicingTime = System.currentTimeMillis() - _StartTime - readingTime;
+            reportSliceBoundaries(file, threshold, slicedFeatureModel);
+
+            var sampledFM = configurationCalculator.samplePartialConfigurations(slicedFeatureModel, samples, samplingMode, seed);
+            var samplingTime = System.currentTimeMillis() - _StartTime - readingTime - slicingTime;
+
+            configurationSerializer.saveConfigurations(sampledFM, outputPath);
+            // the samples are not reduced, classes of an earlier run would expand and weight them in the online phase
+            ConfigurationSidecars.saveInterchangeableFeatures(_ApplicationLogger, new InterchangeableFeatures(), outputPath);
+            ConfigurationSidecars.deleteStaleDiagrams(outputPath);
+            var configurationSavingTime = System.currentTimeMillis() - _StartTime - readingTime - slicingTime - samplingTime;
+
+            var configurations = sampledFM.configurationsPerPartialFeatureModel.stream().mapToLong(List::size).sum();
+            _MeasurementLogger.writeLine(file.toString(), readingTime, slicingTime, samplingTime, configurationSavingTime, configurations);
+        } catch (InvalidFeatureModelRelationException e) {
+            _ApplicationLogger.fatal(e);
+        }
+    }
+
+    /**
+     * Writes the slices chosen by the cost model to the measurement logger, one
+     * line per PFM with its first and last abstract feature and the estimated configurations.
+     */
+    private void reportSliceBoundaries(File file, int threshold, FeatureModelSliced slicedFeatureModel) {
+        if (threshold != FeatureModelSlicer.AUTOMATIC_THRESHOLD) {
+            return;
+        }
+        var partialFeatureModels = slicedFeatureModel.partialConcreteFeatureModels;
+        for (int i = 0; i < partialFeatureModels.size(); i++) {
+            var partialFeatureModel = partialFeatureModels.get(i);
+            _MeasurementLogger.writeLine(file.toString(), "slice", i, partialFeatureModel.getFirst().getName(), partialFeatureModel.getLast().getName(),
+                    partialFeatureModel.size(), slicedFeatureModel.estimatedConfigurationsPerPartialFeatureModel.get(i));
+        }
+    }
+
+    /**
+     * Replaces every class of interchangeable alternatives by its representative if
+     * reduction is enabled and writes the classes to the measurement logger.
+     *
+     * @return classes of the removed features, empty without reduction
+     */
+    private InterchangeableFeatures reduceInterchangeableFeatures(File file, FeatureModelRead featureModel) {
+        if (!_Options.isReducingInterchangeableFeatures() || featureModel == null) {
+            return new InterchangeableFeatures();
+        }
+        var interchangeableFeatures = new InterchangeableFeatureDetector(_ApplicationLogger).reduce(featureModel);
+        _MeasurementLogger.writeLine(file.toString(), "interchangeable", interchangeableFeatures.getClasses().size(), interchangeableFeatures.getRepresentedFeatureCount());
+        return interchangeableFeatures;
+    }
+
     /**
      * Initializes the measurement logger used to record processing times.
      */
     private void setupMeasurementLogger() {
         _MeasurementLogger = new ManagingMeasurement();
-        _MeasurementLogger.writeLine("file;reading;slicing;cnfClauseGeneration;confCreation;confSaving");
+        _MeasurementLogger.writeLine("file;reading;slicing;cnfClauseGeneration;confCreation;confSaving;compilation");
     }
 
     /**
@@ -62,28 +238,60 @@ public class FeatureModelPreProcessor {
      * optional slicing, configuration calculation and serialization.
      */
     private void preprocessApplicationFeatureModel(File file, int threshold, boolean withSlicing, String outputPath) {
-        var fmReader = new FeatureModelReader(_ApplicationLogger);
+        var compile = _Options.isCompiling();
+        var incremental = _Options.isIncremental();
+        var fmReader = new FeatureModelReader(_ApplicationLogger, _Options.getReadingMode());
         var fmSlicer = new FeatureModelSlicer(_ApplicationLogger);
-        var configurationCalculator = new ConfigurationCalculator(_ApplicationLogger);
-        var configurationSerializer = new ConfigurationSerializer(_ApplicationLogger);
+        IPFMSolutionStore solutionStore = _SolutionCache;
+        PFMSolutionIndex solutionIndex = null;
+        if (incremental && withSlicing) {
+            // without a shared cache the PFMs of the previous run are kept in a cache next to the configuration file
+            solutionIndex = new PFMSolutionIndex(_SolutionCache != null ? _SolutionCache
+                    : new PFMSolutionCache(_ApplicationLogger, PFMSolutionIndex.indexPathFor(outputPath), Long.MAX_VALUE));
+            solutionStore = solutionIndex;
+        }
+        var configurationCalculator = new ConfigurationCalculator(_ApplicationLogger, _Options.toCalculationOptions(solutionStore));
+        var configurationSerializer = new ConfigurationSerializer(_ApplicationLogger, _Options.getConfigurationFormat(), _Options.getCompression(), CompressedFileHandle.DEFAULT_BUFFER_SIZE);
 
         try {
             // read json file and create objects for splitting.
             var featureModel = fmReader.readFeatureModelJson(file);
+            var interchangeableFeatures = reduceInterchangeableFeatures(file, featureModel);
             var readingTime = System.currentTimeMillis() - _StartTime;
 
             var slicingTime = 0L;
             var cnfClauseGenerationTime = 0L;
             var slicedFeatureModels = new FeatureModelSliced(featureModel);
 
-            FeatureModelPartiallyCalculated partiallyCalculatedFM;
-            if (withSlicing) {
-                // splits the feature model into smaller feature models.
-                slicedFeatureModels = fmSlicer.sliceFeatureModel(featureModel, threshold);
-                slicingTime = System.currentTimeMillis() - _StartTime - readingTime;
-                partiallyCalculatedFM = configurationCalculator.calculatePartialConfigurations(slicedFeatureModels);
-            } else {
-                partiallyCalculatedFM = configurationCalculator.calculatedConfigurationForNonSlicedFM(featureModel);
+            if (!withSlicing) {
+                // the configurations of the full model are written while they are enumerated, so creation and saving share one time
+                var nonSlicedFM = new FeatureModelPartiallyCalculated(slicedFeatureModels);
+                try (var configurations = configurationCalculator.streamConfigurationsForNonSlicedFM(nonSlicedFM)) {
+                    configurationSerializer.saveConfigurations(nonSlicedFM.crossTreeConstraints, configurations, outputPath);
+                }
+                ConfigurationSidecars.saveInterchangeableFeatures(_ApplicationLogger, interchangeableFeatures, outputPath);
+                ConfigurationSidecars.deleteStaleDiagrams(outputPath);
+                var configurationCreationTime = System.currentTimeMillis() - _StartTime - readingTime;
+                if (compile) {
+                    _ApplicationLogger.warn("Compiling the partial feature models requires slicing, no diagrams are created");
+                }
+                if (incremental) {
+                    _ApplicationLogger.warn("Incremental processing requires slicing, the feature model was processed completely");
+                }
+                _MeasurementLogger.writeLine(file.toString(), readingTime, slicingTime, cnfClauseGenerationTime, configurationCreationTime, 0L, 0L);
+                return;
+            }
+
+            // splits the feature model into smaller feature models.
+            slicedFeatureModels = fmSlicer.sliceFeatureModel(featureModel, threshold);
+            slicingTime = System.currentTimeMillis() - _StartTime - readingTime;
+            reportSliceBoundaries(file, threshold, slicedFeatureModels);
+            var cacheHits = _SolutionCache == null ? 0L : _SolutionCache.getHits();
+            var cacheMisses = _SolutionCache == null ? 0L : _SolutionCache.getMisses();
+            var partiallyCalculatedFM = configurationCalculator.calculatePartialConfigurations(slicedFeatureModels);
+            if (_SolutionCache != null) {
+                _MeasurementLogger.writeLine(file.toString(), "cache", _SolutionCache.getHits() - cacheHits, _SolutionCache.getMisses() - cacheMisses,
+                        _SolutionCache.getEvictions(), _SolutionCache.getSizeInBytes());
             }
 
             // calculating the configurations for the partial feature models (can only be one)
@@ -91,9 +299,26 @@ public class FeatureModelPreProcessor {
 
             // save configurations to file
             configurationSerializer.saveConfigurations(partiallyCalculatedFM, outputPath);
+            ConfigurationSidecars.saveInterchangeableFeatures(_ApplicationLogger, interchangeableFeatures, outputPath);
             var configurationSavingTime = System.currentTimeMillis() - _StartTime - readingTime - slicingTime - cnfClauseGenerationTime - configurationCreationTime;
+            if (solutionIndex != null) {
+                if (_SolutionCache == null) {
+                    solutionIndex.retainCurrentPFMs();
+                }
+                _MeasurementLogger.writeLine(file.toString(), "incremental", solutionIndex.getReused(), solutionIndex.getSolved());
+            }
+
+            // compile the PFMs into diagrams that are conditioned on the available hardware online
+            var compilationTime = 0L;
+            if (compile) {
+                configurationCalculator.compilePartialFeatureModels(partiallyCalculatedFM);
+                new BDDSerializer(_ApplicationLogger).saveDiagrams(partiallyCalculatedFM.partialFeatureModelDiagrams, BDDSerializer.diagramPathFor(outputPath));
+                compilationTime = System.currentTimeMillis() - _StartTime - readingTime - slicingTime - cnfClauseGenerationTime - configurationCreationTime - configurationSavingTime;
+            } else {
+                ConfigurationSidecars.deleteStaleDiagrams(outputPath);
+            }
 
-            _MeasurementLogger.writeLine(file.toString(), readingTime, slicingTime, cnfClauseGenerationTime, configurationCreationTime, configurationSavingTime);
+            _MeasurementLogger.writeLine(file.toString(), readingTime, slicingTime, cnfClauseGenerationTime, configurationCreationTime, configurationSavingTime, compilationTime);
         }  catch (InvalidFeatureModelRelationException e) {
             _ApplicationLogger.fatal(e);
         }
@@ -0,0 +1,178 @@
+package BusinessLogic;
+
+import ConfigurationCalculator.CalculationOptions;
+import ConfigurationCalculator.IPFMSolutionStore;
+import ConfigurationCalculator.PFMSolutionCache;
+import ConfigurationCalculator.PFMSolutionIndex;
+import ConfigurationCalculator.Solver.SolverBackendType;
+import ConfigurationCalculator.SolvingMode;
+import ConfigurationSerializer.ConfigurationFormat;
+import ConfigurationSerializer.InterchangeableFeaturesSerializer;
+import FeatureModelReader.InterchangeableFeatureDetector;
+import FeatureModelReader.ReadingMode;
+import IO.impl.Compression;
+import KnowledgeCompiler.BDDSerializer;
+
+/**
+ * Settings shared by the {@link FeatureModelPreProcessor} and the {@link BatchPreProcessor}.
+ * The defaults read the models as a tree, write uncompressed CSV configurations and
+ * solve every PFM with the default sat4j backend. Every setter returns the options,
+ * so they can be chained.
+ */
+public class PreProcessingOptions {
+    private ReadingMode _ReadingMode = ReadingMode.TREE;
+    private ConfigurationFormat _ConfigurationFormat = ConfigurationFormat.CSV;
+    private Compression _Compression = Compression.NONE;
+    private PFMSolutionCache _SolutionCache;
+    private boolean _ReduceInterchangeableFeatures;
+    private SolvingMode _SolvingMode = SolvingMode.RESET;
+    private SolverBackendType _SolverBackendType = SolverBackendType.SAT4J_DEFAULT;
+    private boolean _Compiling;
+    private boolean _Incremental;
+
+    /**
+     * @param readingMode how the feature model files are tokenized
+     * @return these options
+     */
+    public PreProcessingOptions withReadingMode(ReadingMode readingMode) {
+        _ReadingMode = readingMode;
+        return this;
+    }
+
+    /**
+     * @param configurationFormat file format of the serialized configurations
+     * @return these options
+     */
+    public PreProcessingOptions withConfigurationFormat(ConfigurationFormat configurationFormat) {
+        _ConfigurationFormat = configurationFormat;
+        return this;
+    }
+
+    /**
+     * @param compression compression of serialized CSV configurations
+     * @return these options
+     */
+    public PreProcessingOptions withCompression(Compression compression) {
+        _Compression = compression;
+        return this;
+    }
+
+    /**
+     * @param solutionCache persistent cache of PFM configurations, {@code null} solves every PFM
+     * @return these options
+     */
+    public PreProcessingOptions withSolutionCache(PFMSolutionCache solutionCache) {
+        _SolutionCache = solutionCache;
+        return this;
+    }
+
+    /**
+     * With reduction, every class of interchangeable alternatives is replaced by its
+     * representative before slicing, see {@link InterchangeableFeatureDetector}. The classes
+     * are saved next to the configuration file, see
+     * {@link InterchangeableFeaturesSerializer#classesPathFor(String)}, and counts are weighted
+     * with the size of the classes, so they stay exact.
+     *
+     * @param reduceInterchangeableFeatures whether interchangeable alternatives are reduced to representatives
+     * @return these options
+     */
+    public PreProcessingOptions withInterchangeableReduction(boolean reduceInterchangeableFeatures) {
+        _ReduceInterchangeableFeatures = reduceInterchangeableFeatures;
+        return this;
+    }
+
+    /**
+     * @param solvingMode how the solver is used for the PFMs, e.g. with simplified clauses
+     * @return these options
+     */
+    public PreProcessingOptions withSolvingMode(SolvingMode solvingMode) {
+        _SolvingMode = solvingMode;
+        return this;
+    }
+
+    /**
+     * @param solverBackendType solver backend used for the enumeration
+     * @return these options
+     */
+    public PreProcessingOptions withSolverBackend(SolverBackendType solverBackendType) {
+        _SolverBackendType = solverBackendType;
+        return this;
+    }
+
+    /**
+     * Compiled PFMs are stored as binary decision diagrams next to the configuration file, see
+     * {@link BDDSerializer#diagramPathFor(String)}. Compiling requires slicing and is only done
+     * by the {@link FeatureModelPreProcessor}.
+     *
+     * @param compiling whether the PFMs are compiled into diagrams
+     * @return these options
+     */
+    public PreProcessingOptions withCompilation(boolean compiling) {
+        _Compiling = compiling;
+        return this;
+    }
+
+    /**
+     * In incremental mode the configurations of the previous run are read from the
+     * {@link PFMSolutionIndex} next to the configuration file, only the PFMs whose features,
+     * local CTCs or boundaries changed are solved again. Incremental processing requires
+     * slicing and is only done by the {@link FeatureModelPreProcessor}.
+     *
+     * @param incremental whether the PFMs of the previous run are reused
+     * @return these options
+     */
+    public PreProcessingOptions withIncrementalProcessing(boolean incremental) {
+        _Incremental = incremental;
+        return this;
+    }
+
+    public ReadingMode getReadingMode() {
+        return _ReadingMode;
+    }
+
+    public ConfigurationFormat getConfigurationFormat() {
+        return _ConfigurationFormat;
+    }
+
+    public Compression getCompression() {
+        return _Compression;
+    }
+
+    public PFMSolutionCache getSolutionCache() {
+        return _SolutionCache;
+    }
+
+    public boolean isReducingInterchangeableFeatures() {
+        return _ReduceInterchangeableFeatures;
+    }
+
+    public SolvingMode getSolvingMode() {
+        return _SolvingMode;
+    }
+
+    public SolverBackendType getSolverBackendType() {
+        return _SolverBackendType;
+    }
+
+    public boolean isCompiling() {
+        return _Compiling;
+    }
+
+    public boolean isIncremental() {
+        return _Incremental;
+    }
+
+    /**
+     * Creates the settings of a sequential {@link ConfigurationCalculator.ConfigurationCalculator}
+     * with the solving mode and backend of these options.
+     *
+     * @param solutionStore store of PFM configurations used by the calculator, e.g. the solution cache
+     * @return settings of the calculator
+     */
+    public CalculationOptions toCalculationOptions(IPFMSolutionStore solutionStore) {
+        return new CalculationOptions()
+                .withSolvingMode(_SolvingMode)
+                .withSolverBackend(_SolverBackendType)
+                .withSolutionStore(solutionStore);
+    }
+}
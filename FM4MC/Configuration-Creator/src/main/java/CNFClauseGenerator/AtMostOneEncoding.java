@@ -0,0 +1,54 @@
+package CNFClauseGenerator;
+
+/**
+ * Encodings for the at-most-one part of alternative groups. All encodings except
+ * {@link #PAIRWISE} introduce auxiliary variables, every auxiliary variable is
+ * defined as the disjunction of some children, so it is determined by the
+ * children and the number of (projected) models does not change.
+ */
+public enum AtMostOneEncoding {
+    /**
+     * One binary clause per pair of children, quadratic in the group size.
+     */
+    PAIRWISE,
+    /**
+     * Sequential counter, a chain of k-2 auxiliary variables with about 3k clauses.
+     */
+    SEQUENTIAL,
+    /**
+     * Commander encoding, children are split into groups of three whose
+     * commanders are constrained recursively.
+     */
+    COMMANDER,
+    /**
+     * Product encoding, children are placed in a grid and the rows and columns
+     * are constrained recursively, about 2k + 4 sqrt(k) clauses.
+     */
+    PRODUCT,
+    /**
+     * Chooses one of the encodings above by the size of the group.
+     */
+    AUTOMATIC;
+
+    private static final int PAIRWISE_LIMIT = 6;
+    private static final int SEQUENTIAL_LIMIT = 32;
+    private static final int COMMANDER_LIMIT = 256;
+
+    /**
+     * @param groupSize number of children of the alternative group
+     * @return encoding used for a group of the given size
+     */
+    public AtMostOneEncoding forGroupSize(int groupSize) {
+        if (this != AUTOMATIC) {
+            return this;
+        }
+        if (groupSize <= PAIRWISE_LIMIT) {
+            return PAIRWISE;
+        } else if (groupSize <= SEQUENTIAL_LIMIT) {
+            return SEQUENTIAL;
+        } else if (groupSize <= COMMANDER_LIMIT) {
+            return COMMANDER;
+        }
+        return PRODUCT;
+    }
+}
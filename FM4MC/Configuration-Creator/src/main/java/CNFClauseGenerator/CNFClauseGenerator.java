@@ -5,7 +5,9 @@ import FeatureModelSlicer.Structures.FeatureModelSliced;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Builds conjunctive normal form (CNF) clauses for feature models and their
@@ -14,15 +16,41 @@ import java.util.List;
  * deselected features.
  */
 public class CNFClauseGenerator {
+    /**
+     * Auxiliary variables are numbered from this offset while the clauses are
+     * created and renumbered behind the features in {@link #updateHeader}.
+     */
+    private static final int AUXILIARY_OFFSET = 1 << 30;
+    private static final int COMMANDER_GROUP_SIZE = 3;
     private final Logger _Logger;
+    private final AtMostOneEncoding _AtMostOneEncoding;
 
     /**
-     * Creates a new generator.
+     * Creates a new generator that chooses the encoding of alternative groups by their size.
      *
      * @param logger logger for debug or error output
      */
     public CNFClauseGenerator(Logger logger) {
+        this(logger, AtMostOneEncoding.AUTOMATIC);
+    }
+
+    /**
+     * Creates a new generator.
+     *
+     * @param logger            logger for debug or error output
+     * @param atMostOneEncoding encoding of the at-most-one part of alternative groups
+     */
+    public CNFClauseGenerator(Logger logger, AtMostOneEncoding atMostOneEncoding) {
         _Logger = logger;
+        _AtMostOneEncoding = atMostOneEncoding;
+    }
+
+    /**
+     * @param header DIMACS header created by this generator
+     * @return number of variables of the clauses including auxiliary variables
+     */
+    public static int variableCount(int[] header) {
+        return header.length > 2 ? header[0] + header[2] : header[0];
     }
 
     /**
@@ -41,20 +69,45 @@ public class CNFClauseGenerator {
      * @param crossTreeConstraints list of CTCs
      */
     private void addLocalCTC(List<Feature> features, List<int[]> featureModelClausesCNF, List<CrossTreeConstraint> crossTreeConstraints) {
+        var featureIndices = CrossTreeConstraintIndex.toBitSet(features);
         var itr = crossTreeConstraints.iterator();
         while (itr.hasNext()) {
             var constraint = itr.next();
-            if (features.contains(constraint.getSource()) && features.contains(constraint.getTarget())) {
-                if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES) {
-                    featureModelClausesCNF.add(new int[]{-constraint.getSource().getIndex(), -constraint.getTarget().getIndex()});
-                } else if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES) {
-                    featureModelClausesCNF.add(new int[]{-constraint.getSource().getIndex(), constraint.getTarget().getIndex()});
-                }
+            if (featureIndices.get(constraint.getSource().getIndex()) && featureIndices.get(constraint.getTarget().getIndex())) {
+                addCTCClause(constraint, featureModelClausesCNF);
                 itr.remove();
             }
         }
     }
 
+    /**
+     * Thread-safe counterpart of {@link #addLocalCTC(List, List, List)}. The index of global
+     * CTCs is only read, all local CTCs are collected in the given set so that the caller can
+     * remove them from the global list once all partial feature models are processed.
+     *
+     * @param features all features of a PFM
+     * @param featureModelClausesCNF existing clauses
+     * @param crossTreeConstraints index of the CTCs
+     * @param localCrossTreeConstraints receives all CTCs that were added as clauses
+     */
+    private void collectLocalCTC(List<Feature> features, List<int[]> featureModelClausesCNF, CrossTreeConstraintIndex crossTreeConstraints, Set<CrossTreeConstraint> localCrossTreeConstraints) {
+        for (var constraint : crossTreeConstraints.getLocalConstraints(CrossTreeConstraintIndex.toBitSet(features))) {
+            addCTCClause(constraint, featureModelClausesCNF);
+            localCrossTreeConstraints.add(constraint);
+        }
+    }
+
+    /**
+     * Adds the clause representing a single CTC.
+     */
+    private void addCTCClause(CrossTreeConstraint constraint, List<int[]> featureModelClausesCNF) {
+        if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES) {
+            featureModelClausesCNF.add(new int[]{-constraint.getSource().getIndex(), -constraint.getTarget().getIndex()});
+        } else if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES) {
+            featureModelClausesCNF.add(new int[]{-constraint.getSource().getIndex(), constraint.getTarget().getIndex()});
+        }
+    }
+
     /**
      * Creates an empty clause list with a placeholder header.
      *
@@ -62,7 +115,7 @@ public class CNFClauseGenerator {
      */
     private List<int[]> initializeCNFClauses() {
         var featureModelClausesCNF = new ArrayList<int[]>();
-        featureModelClausesCNF.add(new int[]{0, 0});    //empty header
+        featureModelClausesCNF.add(new int[]{0, 0, 0});    //empty header
         return featureModelClausesCNF;
     }
 
@@ -71,12 +124,18 @@ public class CNFClauseGenerator {
      *
      * @param childFeatures all children of the parent feature
      * @param parentIndex index of parent feature
+     * @param auxiliaryVariables allocates auxiliary variables of the clause list
      * @return list of CNF clauses
      */
-    private List<int[]> createChildFeatureClauses(List<Feature> childFeatures, int parentIndex) {
+    private List<int[]> createChildFeatureClauses(List<Feature> childFeatures, int parentIndex, AuxiliaryVariables auxiliaryVariables) {
         var childFeatureClauses = new ArrayList<int[]>();
         if (childFeatures.size() > 1 && childFeatures.get(0).getRelation() == FeatureModelRelation.ALTERNATIVE) {
-            childFeatureClauses.addAll(createAlternativeClauses(childFeatures, parentIndex));
+            var encoding = _AtMostOneEncoding.forGroupSize(childFeatures.size());
+            if (encoding == AtMostOneEncoding.PAIRWISE) {
+                childFeatureClauses.addAll(createAlternativeClauses(childFeatures, parentIndex));
+            } else {
+                childFeatureClauses.addAll(createCompactAlternativeClauses(childFeatures, parentIndex, encoding, auxiliaryVariables));
+            }
         } else if (childFeatures.size() > 1 && childFeatures.get(0).getRelation() == FeatureModelRelation.OR) {
             childFeatureClauses.addAll(createOrClauses(childFeatures, parentIndex));
         } else {
@@ -120,6 +179,125 @@ public class CNFClauseGenerator {
         return alternativeClauses;
     }
 
+    /**
+     * Generates CNF clauses for an alternative group with a linear-size at-most-one encoding.
+     * The group is encoded as (A v B v C v -ROOT), (-A v ROOT), (-B v ROOT), (-C v ROOT)
+     * and at most one of A, B, C.
+     */
+    private List<int[]> createCompactAlternativeClauses(List<Feature> childFeatures, int parentIndex, AtMostOneEncoding encoding, AuxiliaryVariables auxiliaryVariables) {
+        var alternativeClauses = createOrClauses(childFeatures, parentIndex);
+        var featureIndices = childFeatures.stream().map(Feature::getIndex).toList();
+        addAtMostOne(featureIndices, encoding, alternativeClauses, auxiliaryVariables);
+        return alternativeClauses;
+    }
+
+    /**
+     * Adds clauses allowing at most one of the given variables to be selected.
+     */
+    private void addAtMostOne(List<Integer> variables, AtMostOneEncoding encoding, List<int[]> clauses, AuxiliaryVariables auxiliaryVariables) {
+        switch (encoding) {
+            case SEQUENTIAL -> addSequentialAtMostOne(variables, clauses, auxiliaryVariables);
+            case COMMANDER -> addCommanderAtMostOne(variables, clauses, auxiliaryVariables);
+            case PRODUCT -> addProductAtMostOne(variables, clauses, auxiliaryVariables);
+            default -> addPairwiseAtMostOne(variables, clauses);
+        }
+    }
+
+    /**
+     * Example (-A v -B), (-A v -C), (-B v -C)
+     */
+    private void addPairwiseAtMostOne(List<Integer> variables, List<int[]> clauses) {
+        for (var i = 0; i < variables.size(); i++) {
+            for (var j = i + 1; j < variables.size(); j++) {
+                clauses.add(new int[]{-variables.get(i), -variables.get(j)});
+            }
+        }
+    }
+
+    /**
+     * Sequential counter: s_i is true iff one of the first i variables is selected,
+     * variable i must not be selected if s_(i-1) is already true.
+     */
+    private void addSequentialAtMostOne(List<Integer> variables, List<int[]> clauses, AuxiliaryVariables auxiliaryVariables) {
+        var previous = variables.getFirst();
+        for (var i = 1; i < variables.size(); i++) {
+            var variable = variables.get(i);
+            clauses.add(new int[]{-variable, -previous});
+            if (i < variables.size() - 1) {
+                var counter = auxiliaryVariables.next();
+                clauses.add(new int[]{-variable, counter});
+                clauses.add(new int[]{-previous, counter});
+                clauses.add(new int[]{-counter, previous, variable});
+                previous = counter;
+            }
+        }
+    }
+
+    /**
+     * Commander encoding: at most one variable per group of three and at most one
+     * commander, each commander being the disjunction of its group.
+     */
+    private void addCommanderAtMostOne(List<Integer> variables, List<int[]> clauses, AuxiliaryVariables auxiliaryVariables) {
+        if (variables.size() <= COMMANDER_GROUP_SIZE + 1) {
+            addPairwiseAtMostOne(variables, clauses);
+            return;
+        }
+        var commanders = new ArrayList<Integer>();
+        for (var start = 0; start < variables.size(); start += COMMANDER_GROUP_SIZE) {
+            var group = variables.subList(start, Math.min(start + COMMANDER_GROUP_SIZE, variables.size()));
+            commanders.add(defineDisjunction(group, clauses, auxiliaryVariables));
+            addPairwiseAtMostOne(group, clauses);
+        }
+        addCommanderAtMostOne(commanders, clauses, auxiliaryVariables);
+    }
+
+    /**
+     * Product encoding: the variables are placed in a grid, at most one row and at
+     * most one column may contain a selected variable.
+     */
+    private void addProductAtMostOne(List<Integer> variables, List<int[]> clauses, AuxiliaryVariables auxiliaryVariables) {
+        if (variables.size() <= 4) {
+            addPairwiseAtMostOne(variables, clauses);
+            return;
+        }
+        var columns = (int) Math.ceil(Math.sqrt(variables.size()));
+        var rows = (variables.size() + columns - 1) / columns;
+        var rowVariables = new ArrayList<Integer>();
+        for (var row = 0; row < rows; row++) {
+            rowVariables.add(defineDisjunction(variables.subList(row * columns, Math.min((row + 1) * columns, variables.size())), clauses, auxiliaryVariables));
+        }
+        var columnVariables = new ArrayList<Integer>();
+        for (var column = 0; column < columns; column++) {
+            var columnMembers = new ArrayList<Integer>();
+            for (var index = column; index < variables.size(); index += columns) {
+                columnMembers.add(variables.get(index));
+            }
+            columnVariables.add(defineDisjunction(columnMembers, clauses, auxiliaryVariables));
+        }
+        addProductAtMostOne(rowVariables, clauses, auxiliaryVariables);
+        addProductAtMostOne(columnVariables, clauses, auxiliaryVariables);
+    }
+
+    /**
+     * Defines an auxiliary variable that is true iff one of the given variables is selected.
+     *
+     * @return the auxiliary variable or the variable itself for a single variable
+     */
+    private int defineDisjunction(List<Integer> variables, List<int[]> clauses, AuxiliaryVariables auxiliaryVariables) {
+        if (variables.size() == 1) {
+            return variables.getFirst();
+        }
+        var disjunction = auxiliaryVariables.next();
+        var definition = new int[variables.size() + 1];
+        definition[0] = -disjunction;
+        for (var i = 0; i < variables.size(); i++) {
+            clauses.add(new int[]{-variables.get(i), disjunction});
+            definition[i + 1] = variables.get(i);
+        }
+        clauses.add(definition);
+        return disjunction;
+    }
+
     /**
      * Generates CNF clauses for an OR group of child features.
      */
@@ -164,18 +342,29 @@ public class CNFClauseGenerator {
 
     /**
      * updates the header of the CNF clauses
-     * the first element is the highest existing literal
+     * the first element is the highest existing feature literal
      * the second element is the number of clauses
+     * the third element is the number of auxiliary variables, they are renumbered to follow the highest feature literal
      */
-    private void updateHeader(List<int[]> featureModelClausesCNF) {
+    private void updateHeader(List<int[]> featureModelClausesCNF, AuxiliaryVariables auxiliaryVariables) {
         var max = 0;
-        for (var clause : featureModelClausesCNF) {
-            for (int j : clause) {
-                if (Math.abs(j) > max)
+        for (int i = 1; i < featureModelClausesCNF.size(); i++) {
+            for (int j : featureModelClausesCNF.get(i)) {
+                if (Math.abs(j) > max && Math.abs(j) < AUXILIARY_OFFSET)
                     max = Math.abs(j);
             }
         }
-        var header = new int[]{max, featureModelClausesCNF.size() - 1};
+        if (auxiliaryVariables.count() > 0) {
+            for (int i = 1; i < featureModelClausesCNF.size(); i++) {
+                var clause = featureModelClausesCNF.get(i);
+                for (int j = 0; j < clause.length; j++) {
+                    if (Math.abs(clause[j]) >= AUXILIARY_OFFSET) {
+                        clause[j] = Integer.signum(clause[j]) * (max + 1 + Math.abs(clause[j]) - AUXILIARY_OFFSET);
+                    }
+                }
+            }
+        }
+        var header = new int[]{max, featureModelClausesCNF.size() - 1, auxiliaryVariables.count()};
         featureModelClausesCNF.set(0, header);
     }
 
@@ -189,13 +378,14 @@ public class CNFClauseGenerator {
     public List<int[]> createAbstractLayerClauses(FeatureModelSliced fm) {
         List<Feature> abstractLayer = fm.abstractLayerFeatureModels;
         var abstractLayerCNF = initializeCNFClauses();
+        var auxiliaryVariables = new AuxiliaryVariables();
         createCNFForRoot(abstractLayerCNF);
         abstractLayer.stream().filter(f -> f.getChildren().stream().noneMatch(child -> child.getChildren().isEmpty())).forEach(f -> {
-            abstractLayerCNF.addAll(createChildFeatureClauses(f.getChildren(), f.getIndex()));
+            abstractLayerCNF.addAll(createChildFeatureClauses(f.getChildren(), f.getIndex(), auxiliaryVariables));
         });
 
         addLocalCTC(abstractLayer, abstractLayerCNF, fm.crossTreeConstraints);
-        updateHeader(abstractLayerCNF);
+        updateHeader(abstractLayerCNF, auxiliaryVariables);
         return abstractLayerCNF;
     }
 
@@ -209,16 +399,58 @@ public class CNFClauseGenerator {
      */
     public List<int[]> createConcretePFMClauses(List<Feature> abstractParentFeatures, List<CrossTreeConstraint> crossTreeConstraints) {
         var concreteConfigurationClauses = initializeCNFClauses();
+        var auxiliaryVariables = new AuxiliaryVariables();
+        var featuresInConfiguration = addConcretePFMRelations(abstractParentFeatures, concreteConfigurationClauses, auxiliaryVariables);
+        addLocalCTC(featuresInConfiguration, concreteConfigurationClauses, crossTreeConstraints);
+        updateHeader(concreteConfigurationClauses, auxiliaryVariables);
+        return concreteConfigurationClauses;
+    }
+
+    /**
+     * creates CNF clauses for a partial feature model with concrete features without modifying the list of CTCs.
+     * Can be called concurrently for different PFMs of the same feature model.
+     *
+     * @param abstractParentFeatures list of abstract parent features
+     * @param crossTreeConstraints list of CTCs, only read
+     * @param localCrossTreeConstraints thread-safe set receiving all CTCs that are local to the PFM
+     * @return CNF clauses
+     */
+    public List<int[]> createConcretePFMClauses(List<Feature> abstractParentFeatures, Collection<CrossTreeConstraint> crossTreeConstraints, Set<CrossTreeConstraint> localCrossTreeConstraints) {
+        return createConcretePFMClauses(abstractParentFeatures, new CrossTreeConstraintIndex(crossTreeConstraints), localCrossTreeConstraints);
+    }
+
+    /**
+     * creates CNF clauses for a partial feature model with concrete features without modifying the CTCs.
+     * Can be called concurrently for different PFMs of the same feature model, the index is shared by all of them.
+     *
+     * @param abstractParentFeatures list of abstract parent features
+     * @param crossTreeConstraints index of the CTCs, only read
+     * @param localCrossTreeConstraints thread-safe set receiving all CTCs that are local to the PFM
+     * @return CNF clauses
+     */
+    public List<int[]> createConcretePFMClauses(List<Feature> abstractParentFeatures, CrossTreeConstraintIndex crossTreeConstraints, Set<CrossTreeConstraint> localCrossTreeConstraints) {
+        var concreteConfigurationClauses = initializeCNFClauses();
+        var auxiliaryVariables = new AuxiliaryVariables();
+        var featuresInConfiguration = addConcretePFMRelations(abstractParentFeatures, concreteConfigurationClauses, auxiliaryVariables);
+        collectLocalCTC(featuresInConfiguration, concreteConfigurationClauses, crossTreeConstraints, localCrossTreeConstraints);
+        updateHeader(concreteConfigurationClauses, auxiliaryVariables);
+        return concreteConfigurationClauses;
+    }
+
+    /**
+     * Adds the clauses of all abstract parents and their concrete children.
+     *
+     * @return all features of the PFM (parents and children)
+     */
+    private List<Feature> addConcretePFMRelations(List<Feature> abstractParentFeatures, List<int[]> concreteConfigurationClauses, AuxiliaryVariables auxiliaryVariables) {
         List<Feature> featuresInConfiguration = new ArrayList<>();
         for (Feature abstractParentFeature : abstractParentFeatures) {
             concreteConfigurationClauses.add(new int[]{abstractParentFeature.getIndex()});
-            concreteConfigurationClauses.addAll(createChildFeatureClauses(abstractParentFeature.getChildren(), abstractParentFeature.getIndex()));
+            concreteConfigurationClauses.addAll(createChildFeatureClauses(abstractParentFeature.getChildren(), abstractParentFeature.getIndex(), auxiliaryVariables));
             featuresInConfiguration.add(abstractParentFeature);
             featuresInConfiguration.addAll(abstractParentFeature.getChildren());
         }
-        addLocalCTC(featuresInConfiguration, concreteConfigurationClauses, crossTreeConstraints);
-        updateHeader(concreteConfigurationClauses);
-        return concreteConfigurationClauses;
+        return featuresInConfiguration;
     }
 
     /**
@@ -229,12 +461,29 @@ public class CNFClauseGenerator {
      */
     public List<int[]> createClausesForNonSlicedFM(FeatureModelRead featureModelRead) {
         var clauses = initializeCNFClauses();
+        var auxiliaryVariables = new AuxiliaryVariables();
         createCNFForRoot(clauses);
         featureModelRead.features.forEach(feature -> {
-            clauses.addAll(createChildFeatureClauses(feature.getChildren(), feature.getIndex()));
+            clauses.addAll(createChildFeatureClauses(feature.getChildren(), feature.getIndex(), auxiliaryVariables));
         });
         addLocalCTC(featureModelRead.features, clauses, featureModelRead.crossTreeConstraints);
-        updateHeader(clauses);
+        updateHeader(clauses, auxiliaryVariables);
         return clauses;
     }
+
+    /**
+     * Allocates the auxiliary variables of a single clause list, so the generator
+     * can be used concurrently for different lists.
+     */
+    private static final class AuxiliaryVariables {
+        private int _Count = 0;
+
+        int next() {
+            return AUXILIARY_OFFSET + _Count++;
+        }
+
+        int count() {
+            return _Count;
+        }
+    }
 }
@@ -2,79 +2,134 @@ package CNFClauseGenerator;
 
 import FeatureModelReader.Structures.CrossTreeConstraintRelation;
 import FeatureModelSlicer.Structures.FeatureModelSliced;
-import IO.impl.DriveHandle;
+import IO.impl.CompressedFileHandle;
+import IO.impl.Compression;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.IntStream;
 
 /**
- * Utility to serialize CNF clauses to the DIMACS format.
+ * Utility to serialize CNF clauses to the DIMACS format. The clauses are
+ * written while they are iterated through a buffered file channel, optionally
+ * DEFLATE or GZIP compressed. The clauses of every PFM can be simplified before
+ * they are written, the file then has the same models over all features, see
+ * {@link SimplifiedCNF#toEquivalentClauses()}.
  */
 public class CNFClauseSerializer {
 
     private final String _DELIMITER = " ";
+    private final Compression _Compression;
+    private final int _BufferSize;
+    private final boolean _Simplify;
 
     /**
-     * Writes the clauses of a sliced feature model in DIMACS CNF format.
+     * Creates a serializer that writes uncompressed files.
+     */
+    public CNFClauseSerializer() {
+        this(Compression.NONE, CompressedFileHandle.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a serializer with the given compression.
+     *
+     * @param compression compression of the written files
+     * @param bufferSize  size of the write buffer in bytes
+     */
+    public CNFClauseSerializer(Compression compression, int bufferSize) {
+        this(compression, bufferSize, false);
+    }
+
+    /**
+     * Creates a serializer with the given compression.
+     *
+     * @param compression compression of the written files
+     * @param bufferSize  size of the write buffer in bytes
+     * @param simplify    whether the clauses of every PFM are simplified by the {@link CNFSimplifier}
+     */
+    public CNFClauseSerializer(Compression compression, int bufferSize, boolean simplify) {
+        _Compression = compression;
+        _BufferSize = bufferSize;
+        _Simplify = simplify;
+    }
+
+    /**
+     * Writes the clauses of a sliced feature model in DIMACS CNF format. The auxiliary
+     * variables of the partial feature models are renumbered behind the highest feature
+     * of the model, so the PFMs do not share them.
      *
      * @param featureModelConfigurations sliced feature model with generated clauses
      * @param filePath                   destination file path
      */
     public void saveClausesAsDIMACS(FeatureModelSliced featureModelConfigurations, String filePath) {
-        var stringBuilder = new StringBuilder();
-        addHeader(stringBuilder, featureModelConfigurations.partialFeatureModelClauses.getFirst().getFirst(), featureModelConfigurations.crossTreeConstraints.size());
+        var partialFeatureModelClauses = _Simplify
+                ? featureModelConfigurations.partialFeatureModelClauses.stream().map(this::simplify).toList()
+                : featureModelConfigurations.partialFeatureModelClauses;
+        var maxFeature = 0;
+        var auxiliaryVariables = 0;
+        var clauses = 0;
+        for (var pfmClauses : partialFeatureModelClauses) {
+            var header = pfmClauses.getFirst();
+            maxFeature = Math.max(maxFeature, header[0]);
+            auxiliaryVariables += CNFClauseGenerator.variableCount(header) - header[0];
+            clauses += header[1];
+        }
 
-        for (var Clauses : featureModelConfigurations.partialFeatureModelClauses) {
-            var clauseIterator = Clauses.iterator();
-            clauseIterator.next(); //skip header
-            while (clauseIterator.hasNext()) {
-                var clause = clauseIterator.next();
-                for (var literal : clause) {
-                    stringBuilder.append(literal).append(_DELIMITER);
+        try (var writer = new CompressedFileHandle().openWriter(filePath, _BufferSize, _Compression)) {
+            addHeader(writer, maxFeature + auxiliaryVariables, clauses + featureModelConfigurations.crossTreeConstraints.size());
+
+            var nextAuxiliaryVariable = maxFeature + 1;
+            for (var Clauses : partialFeatureModelClauses) {
+                var clauseIterator = Clauses.iterator();
+                var header = clauseIterator.next();
+                var auxiliaryShift = nextAuxiliaryVariable - header[0] - 1;
+                while (clauseIterator.hasNext()) {
+                    var clause = clauseIterator.next();
+                    for (var literal : clause) {
+                        if (Math.abs(literal) > header[0]) {
+                            literal += Integer.signum(literal) * auxiliaryShift;
+                        }
+                        writer.append(String.valueOf(literal)).append(_DELIMITER);
+                    }
+                    writer.append("0").append("\n");
                 }
-                stringBuilder.append("0").append("\n");
+                nextAuxiliaryVariable += CNFClauseGenerator.variableCount(header) - header[0];
             }
-        }
 
-        for (var constraint : featureModelConfigurations.crossTreeConstraints) {
-            if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES) {
-                stringBuilder.append(-constraint.getSource().getIndex()).append(_DELIMITER)
-                        .append(-constraint.getTarget().getIndex()).append(_DELIMITER)
-                        .append("0").append("\n");
-            } else if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES) {
-                stringBuilder.append(-constraint.getSource().getIndex()).append(_DELIMITER)
-                        .append(constraint.getTarget().getIndex()).append(_DELIMITER)
-                        .append("0").append("\n");
+            for (var constraint : featureModelConfigurations.crossTreeConstraints) {
+                if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES) {
+                    writer.append(String.valueOf(-constraint.getSource().getIndex())).append(_DELIMITER)
+                            .append(String.valueOf(-constraint.getTarget().getIndex())).append(_DELIMITER)
+                            .append("0").append("\n");
+                } else if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES) {
+                    writer.append(String.valueOf(-constraint.getSource().getIndex())).append(_DELIMITER)
+                            .append(String.valueOf(constraint.getTarget().getIndex())).append(_DELIMITER)
+                            .append("0").append("\n");
+                }
             }
-
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        saveToFile(filePath, stringBuilder);
     }
 
     /**
-     * Stores the generated DIMACS content to disk.
+     * Simplifies the clauses of a PFM, all features keep their models and only auxiliary
+     * variables are eliminated completely.
      */
-    private void saveToFile(String filePath, StringBuilder stringBuilder) {
-        try {
-            new DriveHandle().createFolderFromFile(filePath);
-            var writer = new BufferedWriter(new FileWriter(filePath));
-            writer.write(stringBuilder.toString());
-            writer.flush();
-            writer.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    private List<int[]> simplify(List<int[]> clauses) {
+        var features = IntStream.rangeClosed(1, clauses.getFirst()[0]).toArray();
+        return new CNFSimplifier().simplify(clauses, features).toEquivalentClauses();
     }
 
     /**
      * Adds the DIMACS header line describing literal and clause counts.
      */
-    private void addHeader(StringBuilder stringBuilder, int[] header, int constraints) {
-        stringBuilder.append("p").append(_DELIMITER)
+    private void addHeader(Writer writer, int variables, int clauses) throws IOException {
+        writer.append("p").append(_DELIMITER)
                 .append("cnf").append(_DELIMITER)
-                .append(header[0]).append(_DELIMITER)
-                .append(header[1] + constraints)
+                .append(String.valueOf(variables)).append(_DELIMITER)
+                .append(String.valueOf(clauses))
                 .append("\n");
     }
 }
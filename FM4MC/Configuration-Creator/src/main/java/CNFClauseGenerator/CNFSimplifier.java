@@ -0,0 +1,379 @@
+package CNFClauseGenerator;
+
+import java.util.*;
+
+/**
+ * Simplifies the CNF of a (partial) feature model before it is loaded into a
+ * solver. The generator emits the clauses of every relation mechanically, so the
+ * root and parent units, the equivalences of mandatory chains and CTCs that are
+ * already implied by group clauses reach the solver unchanged. The simplifier
+ * repeats until nothing changes:
+ * <ul>
+ *     <li>unit propagation, which also removes the features fixed false by excludes,</li>
+ *     <li>substitution of equivalent literals, found as pairs of binary clauses (-a v b), (a v -b),</li>
+ *     <li>subsumption and self-subsuming resolution,</li>
+ *     <li>elimination of pure literals of variables outside the projection.</li>
+ * </ul>
+ * All steps keep the models projected onto the projection variables, the
+ * {@link SimplifiedCNF} maps the models of the simplified clauses back to them.
+ */
+public class CNFSimplifier {
+
+    /**
+     * Simplifies the given clauses.
+     *
+     * @param clauses    CNF clauses, the first entry is the DIMACS header, they are not modified
+     * @param projection variables whose models have to be kept
+     * @return simplified clauses and the mapping back to the projection variables
+     */
+    public SimplifiedCNF simplify(List<int[]> clauses, int[] projection) {
+        var header = clauses.getFirst();
+        var variables = CNFClauseGenerator.variableCount(header);
+        for (int i = 1; i < clauses.size(); i++) {
+            for (var literal : clauses.get(i)) {
+                variables = Math.max(variables, Math.abs(literal));
+            }
+        }
+        for (var variable : projection) {
+            variables = Math.max(variables, variable);
+        }
+        return new Simplification(variables, clauses.subList(1, clauses.size())).run(header, projection);
+    }
+
+    /**
+     * State of a single simplification.
+     */
+    private static final class Simplification {
+        private final int _Variables;
+        // literal of the parent in the union-find forest of equivalent literals
+        private final int[] _Parent;
+        private final byte[] _Values;
+        private List<int[]> _Clauses;
+        private boolean _Unsatisfiable;
+
+        Simplification(int variables, List<int[]> clauses) {
+            _Variables = variables;
+            _Parent = new int[variables + 1];
+            for (int variable = 0; variable <= variables; variable++) {
+                _Parent[variable] = variable;
+            }
+            _Values = new byte[variables + 1];
+            _Clauses = new ArrayList<>(clauses);
+        }
+
+        SimplifiedCNF run(int[] header, int[] projection) {
+            boolean changed;
+            do {
+                changed = propagateUnits();
+                if (_Unsatisfiable) {
+                    break;
+                }
+                if (changed) {
+                    continue;
+                }
+                changed = substituteEquivalentLiterals() || strengthen() || eliminatePureLiterals(projection);
+            } while (changed && !_Unsatisfiable);
+            return createResult(header, projection);
+        }
+
+        /**
+         * Rewrites all clauses with the representatives and fixed values of their literals,
+         * drops satisfied clauses and tautologies and fixes the literals of unit clauses.
+         *
+         * @return {@code true} if a variable was fixed
+         */
+        private boolean propagateUnits() {
+            var fixed = false;
+            boolean fixedInPass;
+            do {
+                fixedInPass = false;
+                var clauses = new ArrayList<int[]>(_Clauses.size());
+                for (var clause : _Clauses) {
+                    var normalized = normalize(clause);
+                    if (normalized == null) {
+                        continue;
+                    }
+                    if (normalized.length == 0) {
+                        _Unsatisfiable = true;
+                        return fixed;
+                    }
+                    if (normalized.length == 1) {
+                        if (!assign(normalized[0])) {
+                            _Unsatisfiable = true;
+                            return fixed;
+                        }
+                        fixedInPass = true;
+                        continue;
+                    }
+                    clauses.add(normalized);
+                }
+                _Clauses = clauses;
+                fixed |= fixedInPass;
+            } while (fixedInPass);
+            return fixed;
+        }
+
+        /**
+         * @return sorted literals of the clause without false and duplicate literals, {@code null} if it is satisfied
+         */
+        private int[] normalize(int[] clause) {
+            var literals = new int[clause.length];
+            var size = 0;
+            for (var literal : clause) {
+                var representative = find(literal);
+                var value = valueOf(representative);
+                if (value > 0) {
+                    return null;
+                }
+                if (value == 0) {
+                    literals[size++] = representative;
+                }
+            }
+            Arrays.sort(literals, 0, size);
+            var distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct > 0 && literals[distinct - 1] == literals[i]) {
+                    continue;
+                }
+                literals[distinct++] = literals[i];
+            }
+            // sorted by value, so x and -x are found by a lookup
+            for (int i = 0; i < distinct && literals[i] < 0; i++) {
+                if (Arrays.binarySearch(literals, 0, distinct, -literals[i]) >= 0) {
+                    return null;
+                }
+            }
+            return distinct == literals.length ? literals : Arrays.copyOf(literals, distinct);
+        }
+
+        /**
+         * Finds pairs of binary clauses (a v b), (-a v -b), i.e. a is equivalent to -b, and
+         * merges the classes of both literals.
+         *
+         * @return {@code true} if two classes were merged
+         */
+        private boolean substituteEquivalentLiterals() {
+            var binaryClauses = new HashSet<Long>();
+            for (var clause : _Clauses) {
+                if (clause.length == 2) {
+                    binaryClauses.add(pairOf(clause[0], clause[1]));
+                }
+            }
+            var merged = false;
+            for (var clause : _Clauses) {
+                if (clause.length == 2 && binaryClauses.contains(pairOf(-clause[0], -clause[1]))) {
+                    var first = find(clause[0]);
+                    var second = find(-clause[1]);
+                    if (first == -second) {
+                        _Unsatisfiable = true;
+                        return true;
+                    }
+                    if (first != second) {
+                        union(first, second);
+                        merged = true;
+                    }
+                }
+            }
+            return merged;
+        }
+
+        /**
+         * Removes clauses that are subsumed by another clause and removes a literal -l from
+         * every clause D for which a clause C = (l v R) with R a subset of D exists.
+         *
+         * @return {@code true} if a clause was shortened
+         */
+        private boolean strengthen() {
+            var clauses = _Clauses.toArray(new int[0][]);
+            Arrays.sort(clauses, Comparator.comparingInt(clause -> clause.length));
+            var occurrences = new ArrayList<List<Integer>>(2 * _Variables + 1);
+            for (int i = 0; i <= 2 * _Variables; i++) {
+                occurrences.add(new ArrayList<>(0));
+            }
+            for (int i = 0; i < clauses.length; i++) {
+                for (var literal : clauses[i]) {
+                    occurrences.get(literal + _Variables).add(i);
+                }
+            }
+
+            var removed = new boolean[clauses.length];
+            var shortened = false;
+            for (int i = 0; i < clauses.length; i++) {
+                if (removed[i]) {
+                    continue;
+                }
+                var clause = clauses[i];
+                if (clause.length == 0) {
+                    // an empty clause after strengthening, the next propagation reports the conflict
+                    continue;
+                }
+                var rarest = clause[0];
+                for (var literal : clause) {
+                    if (occurrences.get(literal + _Variables).size() < occurrences.get(rarest + _Variables).size()) {
+                        rarest = literal;
+                    }
+                }
+                for (var other : occurrences.get(rarest + _Variables)) {
+                    if (other != i && !removed[other] && isSubset(clause, clauses[other], 0)) {
+                        removed[other] = true;
+                    }
+                }
+                for (var literal : clause) {
+                    for (var other : occurrences.get(-literal + _Variables)) {
+                        var otherClause = clauses[other];
+                        if (other != i && !removed[other] && Arrays.binarySearch(otherClause, -literal) >= 0 && isSubset(clause, otherClause, literal)) {
+                            clauses[other] = without(otherClause, -literal);
+                            shortened = true;
+                        }
+                    }
+                }
+            }
+
+            var remaining = new ArrayList<int[]>(clauses.length);
+            for (int i = 0; i < clauses.length; i++) {
+                if (!removed[i]) {
+                    remaining.add(clauses[i]);
+                }
+            }
+            _Clauses = remaining;
+            return shortened;
+        }
+
+        /**
+         * Fixes variables outside the projection that occur with one polarity only, their
+         * clauses are satisfied by that polarity.
+         *
+         * @return {@code true} if a variable was fixed
+         */
+        private boolean eliminatePureLiterals(int[] projection) {
+            var kept = new BitSet();
+            for (var variable : projection) {
+                kept.set(Math.abs(find(variable)));
+            }
+            var positive = new BitSet();
+            var negative = new BitSet();
+            for (var clause : _Clauses) {
+                for (var literal : clause) {
+                    (literal > 0 ? positive : negative).set(Math.abs(literal));
+                }
+            }
+            var pure = (BitSet) positive.clone();
+            pure.xor(negative);
+            pure.andNot(kept);
+            for (var variable = pure.nextSetBit(0); variable >= 0; variable = pure.nextSetBit(variable + 1)) {
+                assign(positive.get(variable) ? variable : -variable);
+            }
+            return !pure.isEmpty();
+        }
+
+        private SimplifiedCNF createResult(int[] header, int[] projection) {
+            var clauses = new ArrayList<int[]>(_Clauses.size() + 1);
+            clauses.add(new int[]{header[0], _Unsatisfiable ? 0 : _Clauses.size(), header.length > 2 ? header[2] : 0});
+            if (!_Unsatisfiable) {
+                clauses.addAll(_Clauses);
+            }
+
+            var occurring = new BitSet();
+            _Clauses.forEach(clause -> Arrays.stream(clause).forEach(literal -> occurring.set(Math.abs(literal))));
+            var projectionLiterals = new int[projection.length];
+            var solverProjection = new LinkedHashSet<Integer>();
+            var freeVariables = new LinkedHashSet<Integer>();
+            for (int i = 0; i < projection.length; i++) {
+                projectionLiterals[i] = find(projection[i]);
+                var variable = Math.abs(projectionLiterals[i]);
+                if (_Values[variable] != 0) {
+                    continue;
+                }
+                (occurring.get(variable) ? solverProjection : freeVariables).add(variable);
+            }
+            return new SimplifiedCNF(clauses, projection.clone(), projectionLiterals, _Values,
+                    solverProjection.stream().mapToInt(Integer::intValue).toArray(),
+                    freeVariables.stream().mapToInt(Integer::intValue).toArray(), _Unsatisfiable);
+        }
+
+        /**
+         * @return the representative literal that is equivalent to the given literal
+         */
+        private int find(int literal) {
+            var root = Math.abs(literal);
+            var sign = literal < 0 ? -1 : 1;
+            while (_Parent[root] != root) {
+                var parent = _Parent[root];
+                sign *= parent < 0 ? -1 : 1;
+                root = Math.abs(parent);
+            }
+            var representative = sign * root;
+            // path compression, every variable on the path points to the representative directly
+            var variable = Math.abs(literal);
+            var variableSign = literal < 0 ? -1 : 1;
+            while (_Parent[variable] != variable) {
+                var parent = _Parent[variable];
+                _Parent[variable] = variableSign * representative;
+                variableSign *= parent < 0 ? -1 : 1;
+                variable = Math.abs(parent);
+            }
+            return representative;
+        }
+
+        /**
+         * Merges the classes of two equivalent representatives, the lower variable stays representative.
+         */
+        private void union(int first, int second) {
+            if (Math.abs(first) < Math.abs(second)) {
+                _Parent[Math.abs(second)] = second > 0 ? first : -first;
+            } else {
+                _Parent[Math.abs(first)] = first > 0 ? second : -second;
+            }
+        }
+
+        private int valueOf(int literal) {
+            var value = _Values[Math.abs(literal)];
+            return literal > 0 ? value : -value;
+        }
+
+        /**
+         * @return {@code false} if the literal is already fixed to false
+         */
+        private boolean assign(int literal) {
+            var representative = find(literal);
+            var value = valueOf(representative);
+            if (value != 0) {
+                return value > 0;
+            }
+            _Values[Math.abs(representative)] = (byte) (representative > 0 ? 1 : -1);
+            return true;
+        }
+
+        /**
+         * @return {@code true} if every literal of the clause except the skipped one is contained in the other clause
+         */
+        private static boolean isSubset(int[] clause, int[] other, int skippedLiteral) {
+            if (clause.length - (skippedLiteral == 0 ? 0 : 1) > other.length) {
+                return false;
+            }
+            for (var literal : clause) {
+                if (literal != skippedLiteral && Arrays.binarySearch(other, literal) < 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int[] without(int[] clause, int literal) {
+            var result = new int[clause.length - 1];
+            var position = 0;
+            for (var current : clause) {
+                if (current != literal) {
+                    result[position++] = current;
+                }
+            }
+            return result;
+        }
+
+        private static long pairOf(int first, int second) {
+            var low = Math.min(first, second);
+            var high = Math.max(first, second);
+            return ((long) low << 32) | (high & 0xFFFFFFFFL);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package CNFClauseGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * CNF created by the {@link CNFSimplifier} together with the information to map
+ * its models back to the variables of the original CNF. The variables keep their
+ * numbers, eliminated variables are either fixed or equivalent to a literal of a
+ * remaining variable. Projected variables that no longer occur in any clause are
+ * free and expanded during reconstruction.
+ */
+public class SimplifiedCNF {
+    private final List<int[]> _Clauses;
+    private final int[] _Projection;
+    private final int[] _ProjectionLiterals;
+    private final byte[] _Values;
+    private final int[] _SolverProjection;
+    private final int[] _FreeVariables;
+    private final boolean _Unsatisfiable;
+
+    /**
+     * @param clauses            simplified clauses with the DIMACS header as first element
+     * @param projection         projection variables of the original CNF
+     * @param projectionLiterals literal of a remaining variable that is equivalent to each projection variable
+     * @param values             fixed value per variable, 1 for true, -1 for false and 0 if not fixed
+     * @param solverProjection   remaining variables the models of the simplified clauses are projected onto
+     * @param freeVariables      remaining projection variables without clauses
+     * @param unsatisfiable      whether a conflict was found during simplification
+     */
+    SimplifiedCNF(List<int[]> clauses, int[] projection, int[] projectionLiterals, byte[] values, int[] solverProjection, int[] freeVariables, boolean unsatisfiable) {
+        _Clauses = clauses;
+        _Projection = projection;
+        _ProjectionLiterals = projectionLiterals;
+        _Values = values;
+        _SolverProjection = solverProjection;
+        _FreeVariables = freeVariables;
+        _Unsatisfiable = unsatisfiable;
+    }
+
+    /**
+     * @return simplified clauses, the first entry is the DIMACS header of the original CNF with the new clause count
+     */
+    public List<int[]> getClauses() {
+        return _Clauses;
+    }
+
+    /**
+     * @return variables the models of the simplified clauses have to be projected onto
+     */
+    public int[] getProjection() {
+        return _SolverProjection;
+    }
+
+    /**
+     * @return {@code true} if the original CNF has no model
+     */
+    public boolean isUnsatisfiable() {
+        return _Unsatisfiable;
+    }
+
+    /**
+     * @return number of clauses without the header
+     */
+    public int getClauseCount() {
+        return _Clauses.size() - 1;
+    }
+
+    /**
+     * Maps the projected models of the simplified clauses to the projected models of the
+     * original CNF. Every free projection variable doubles the models.
+     *
+     * @param models positive literals of the models of the simplified clauses projected onto {@link #getProjection()}
+     * @return positive projection variables of every model of the original CNF
+     */
+    public List<int[]> reconstruct(List<int[]> models) {
+        if (_Unsatisfiable) {
+            return List.of();
+        }
+        if (_FreeVariables.length >= Integer.SIZE - 1) {
+            throw new IllegalStateException(_FreeVariables.length + " free variables cannot be enumerated");
+        }
+        var combinations = 1 << _FreeVariables.length;
+        var reconstructedModels = new ArrayList<int[]>(models.size() * combinations);
+        var selected = new BitSet();
+        var positive = new int[_Projection.length];
+        for (var model : models) {
+            selected.clear();
+            for (var literal : model) {
+                if (literal > 0) {
+                    selected.set(literal);
+                }
+            }
+            for (int combination = 0; combination < combinations; combination++) {
+                for (int i = 0; i < _FreeVariables.length; i++) {
+                    selected.set(_FreeVariables[i], (combination & (1 << i)) != 0);
+                }
+                var count = 0;
+                for (int i = 0; i < _Projection.length; i++) {
+                    if (isTrue(_ProjectionLiterals[i], selected)) {
+                        positive[count++] = _Projection[i];
+                    }
+                }
+                reconstructedModels.add(Arrays.copyOf(positive, count));
+            }
+        }
+        return reconstructedModels;
+    }
+
+    /**
+     * Creates clauses over the original variables that have the same models projected onto the
+     * projection variables: the simplified clauses, a unit clause for every fixed projection
+     * variable and two binary clauses for every projection variable that was replaced by an
+     * equivalent literal.
+     *
+     * @return clauses with the DIMACS header as first element
+     */
+    public List<int[]> toEquivalentClauses() {
+        var header = _Clauses.getFirst();
+        if (_Unsatisfiable) {
+            // x and -x for the lowest variable keep the file a valid, unsatisfiable DIMACS CNF
+            return List.of(new int[]{header[0], 2, header.length > 2 ? header[2] : 0}, new int[]{1}, new int[]{-1});
+        }
+        var clauses = new ArrayList<int[]>(_Clauses.size() + _Projection.length);
+        clauses.add(null);
+        clauses.addAll(_Clauses.subList(1, _Clauses.size()));
+        for (int i = 0; i < _Projection.length; i++) {
+            var variable = _Projection[i];
+            var literal = _ProjectionLiterals[i];
+            var value = _Values[Math.abs(literal)];
+            if (value != 0) {
+                clauses.add(new int[]{(value > 0) == (literal > 0) ? variable : -variable});
+            } else if (Math.abs(literal) != variable) {
+                clauses.add(new int[]{-variable, literal});
+                clauses.add(new int[]{variable, -literal});
+            }
+        }
+        clauses.set(0, new int[]{header[0], clauses.size() - 1, header.length > 2 ? header[2] : 0});
+        return clauses;
+    }
+
+    private boolean isTrue(int literal, BitSet selected) {
+        var variable = Math.abs(literal);
+        var value = _Values[variable] != 0 ? _Values[variable] > 0 : selected.get(variable);
+        return literal > 0 == value;
+    }
+}
@@ -0,0 +1,86 @@
+package ConfigurationCalculator;
+
+import ConfigurationCalculator.Solver.SolverBackendType;
+
+/**
+ * Settings of a {@link ConfigurationCalculator}. The defaults calculate the PFMs
+ * sequentially in {@link SolvingMode#RESET} with the default sat4j backend and
+ * without a store of solved PFMs. Every setter returns the options, so they can
+ * be chained.
+ */
+public class CalculationOptions {
+    private int _Parallelism = 1;
+    private SolvingMode _SolvingMode = SolvingMode.RESET;
+    private SolverBackendType _SolverBackendType = SolverBackendType.SAT4J_DEFAULT;
+    private IPFMSolutionStore _SolutionStore;
+
+    /**
+     * @param parallelism number of threads used for the partial feature models, 1 calculates them sequentially
+     * @return these options
+     */
+    public CalculationOptions withParallelism(int parallelism) {
+        _Parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * The incremental mode shares one solver between the abstract layer and all PFMs and is
+     * only used for the sequential calculation, in parallel every PFM keeps its own solver,
+     * see {@link #getEffectiveSolvingMode()}.
+     *
+     * @param solvingMode how the solver is set up for the abstract layer and the PFMs
+     * @return these options
+     */
+    public CalculationOptions withSolvingMode(SolvingMode solvingMode) {
+        _SolvingMode = solvingMode;
+        return this;
+    }
+
+    /**
+     * The backend is used for the abstract layer and the PFMs, the incremental mode relies on
+     * the assumptions of sat4j and always uses its default configuration.
+     *
+     * @param solverBackendType solver backend used for the enumeration
+     * @return these options
+     */
+    public CalculationOptions withSolverBackend(SolverBackendType solverBackendType) {
+        _SolverBackendType = solverBackendType;
+        return this;
+    }
+
+    /**
+     * The configurations of every PFM that needs the solver are looked up in the store before
+     * they are enumerated, enumerated configurations are stored in it.
+     *
+     * @param solutionStore store of PFM configurations, e.g. a {@link PFMSolutionCache}, {@code null} disables the lookup
+     * @return these options
+     */
+    public CalculationOptions withSolutionStore(IPFMSolutionStore solutionStore) {
+        _SolutionStore = solutionStore;
+        return this;
+    }
+
+    public int getParallelism() {
+        return _Parallelism;
+    }
+
+    public SolvingMode getSolvingMode() {
+        return _SolvingMode;
+    }
+
+    /**
+     * @return solving mode the calculator uses, {@link SolvingMode#INCREMENTAL} falls back to
+     * {@link SolvingMode#RESET} when the PFMs are calculated in parallel
+     */
+    public SolvingMode getEffectiveSolvingMode() {
+        return _SolvingMode == SolvingMode.INCREMENTAL && _Parallelism > 1 ? SolvingMode.RESET : _SolvingMode;
+    }
+
+    public SolverBackendType getSolverBackendType() {
+        return _SolverBackendType;
+    }
+
+    public IPFMSolutionStore getSolutionStore() {
+        return _SolutionStore;
+    }
+}
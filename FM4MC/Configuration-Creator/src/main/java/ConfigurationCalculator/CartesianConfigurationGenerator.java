@@ -0,0 +1,114 @@
+package ConfigurationCalculator;
+
+import FeatureModelReader.Structures.CrossTreeConstraint;
+import FeatureModelReader.Structures.CrossTreeConstraintIndex;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRelation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Generates the configurations of partial feature models without a SAT solver.
+ * A PFM qualifies if every abstract parent either has an alternative group or
+ * only mandatory and optional children and no cross-tree constraint is local to
+ * the PFM. Its configurations are then the Cartesian product of the independent
+ * choices, which are enumerated with a mixed-radix counter.
+ */
+public class CartesianConfigurationGenerator {
+
+    /**
+     * Checks whether the configurations of the PFM defined by the given parents
+     * can be generated structurally.
+     *
+     * @param abstractParentFeatures abstract parent features defining the PFM
+     * @param crossTreeConstraints   remaining CTCs of the feature model
+     * @return {@code true} if no SAT solver is needed for this PFM
+     */
+    public boolean isApplicable(List<Feature> abstractParentFeatures, Collection<CrossTreeConstraint> crossTreeConstraints) {
+        return isApplicable(abstractParentFeatures, new CrossTreeConstraintIndex(crossTreeConstraints));
+    }
+
+    /**
+     * Checks whether the configurations of the PFM defined by the given parents
+     * can be generated structurally.
+     *
+     * @param abstractParentFeatures abstract parent features defining the PFM
+     * @param crossTreeConstraints   index of the remaining CTCs of the feature model
+     * @return {@code true} if no SAT solver is needed for this PFM
+     */
+    public boolean isApplicable(List<Feature> abstractParentFeatures, CrossTreeConstraintIndex crossTreeConstraints) {
+        var featuresInConfiguration = new ArrayList<Feature>();
+        for (var parent : abstractParentFeatures) {
+            var children = parent.getChildren();
+            if (!isAlternativeGroup(children) && !children.stream().allMatch(child -> child.getRelation() == FeatureModelRelation.MANDATORY || child.getRelation() == FeatureModelRelation.OPTIONAL)) {
+                return false;
+            }
+            featuresInConfiguration.add(parent);
+            featuresInConfiguration.addAll(children);
+        }
+        return !crossTreeConstraints.hasLocalConstraint(CrossTreeConstraintIndex.toBitSet(featuresInConfiguration));
+    }
+
+    /**
+     * Generates all configurations of a PFM for which {@link #isApplicable(List, Collection)} holds.
+     * The features of every configuration follow the order of the parents and their children.
+     *
+     * @param abstractParentFeatures abstract parent features defining the PFM
+     * @return list of valid concrete feature configurations
+     */
+    public List<List<Feature>> generate(List<Feature> abstractParentFeatures) {
+        var digits = createDigits(abstractParentFeatures);
+        var counter = new int[digits.size()];
+        var configurations = new ArrayList<List<Feature>>();
+
+        while (true) {
+            var configuration = new ArrayList<Feature>();
+            for (int i = 0; i < digits.size(); i++) {
+                configuration.addAll(digits.get(i).get(counter[i]));
+            }
+            configurations.add(configuration);
+
+            var position = digits.size() - 1;
+            while (position >= 0 && ++counter[position] == digits.get(position).size()) {
+                counter[position] = 0;
+                position--;
+            }
+            if (position < 0) {
+                return configurations;
+            }
+        }
+    }
+
+    /**
+     * Creates one digit per independent choice. Each digit holds the feature
+     * selections it can take, an alternative group has one per child, an
+     * optional child two and a mandatory child one.
+     */
+    private List<List<List<Feature>>> createDigits(List<Feature> abstractParentFeatures) {
+        var digits = new ArrayList<List<List<Feature>>>();
+        for (var parent : abstractParentFeatures) {
+            var children = parent.getChildren();
+            if (isAlternativeGroup(children)) {
+                digits.add(children.stream().map(List::of).toList());
+            } else {
+                for (var child : children) {
+                    if (child.getRelation() == FeatureModelRelation.OPTIONAL) {
+                        digits.add(List.of(List.of(), List.of(child)));
+                    } else {
+                        digits.add(List.of(List.of(child)));
+                    }
+                }
+            }
+        }
+        return digits;
+    }
+
+    /**
+     * Mirrors the group detection of the CNF clause generator.
+     */
+    private boolean isAlternativeGroup(List<Feature> children) {
+        return children.size() > 1 && children.getFirst().getRelation() == FeatureModelRelation.ALTERNATIVE;
+    }
+}
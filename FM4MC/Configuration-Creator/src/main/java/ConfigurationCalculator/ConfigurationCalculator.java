@@ -1,30 +1,69 @@
 package ConfigurationCalculator;
 
 import CNFClauseGenerator.CNFClauseGenerator;
+import CNFClauseGenerator.CNFSimplifier;
+import CNFClauseGenerator.SimplifiedCNF;
+import ConfigurationCalculator.Structures.FeatureIndexTable;
 import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
 import ConfigurationCalculator.Structures.PartialConfiguration;
+import ConfigurationCalculator.Solver.ISolverBackend;
+import ConfigurationCalculator.Solver.SolverBackendType;
+import FeatureModelReader.InterchangeableFeatureDetector;
 import FeatureModelReader.Structures.CrossTreeConstraint;
+import FeatureModelReader.Structures.CrossTreeConstraintIndex;
 import FeatureModelReader.Structures.CrossTreeConstraintRelation;
 import FeatureModelReader.Structures.Feature;
 import FeatureModelReader.Structures.FeatureModelRead;
+import FeatureModelReader.Structures.InterchangeableFeatures;
+import FeatureModelSlicer.FeatureModelSlicer;
 import FeatureModelSlicer.Structures.FeatureModelSliced;
+import KnowledgeCompiler.BDDCompiler;
+import KnowledgeCompiler.BinaryDecisionDiagram;
 import org.apache.logging.log4j.Logger;
-import org.sat4j.core.VecInt;
 import org.sat4j.minisat.SolverFactory;
 import org.sat4j.specs.ISolver;
-import org.sat4j.tools.ModelIterator;
 
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ConfigurationCalculator {
     private final Logger _ApplicationLogger;
     private final CNFClauseGenerator cnfClauseGenerator;
-    private final ModelIterator solver = new ModelIterator(SolverFactory.newDefault());
+    private final CartesianConfigurationGenerator cartesianConfigurationGenerator = new CartesianConfigurationGenerator();
+    private final CNFSimplifier cnfSimplifier = new CNFSimplifier();
+    private final ISolver solver = SolverFactory.newDefault();
+    private final int _Parallelism;
+    private final SolvingMode _SolvingMode;
+    private final SolverBackendType _SolverBackendType;
+    private final IPFMSolutionStore _SolutionCache;
 
     public ConfigurationCalculator(Logger logger) {
+        this(logger, new CalculationOptions());
+    }
+
+    /**
+     * Creates a calculator with the given settings.
+     *
+     * @param logger  application logger
+     * @param options parallelism, solving mode, solver backend and store of solved PFMs
+     */
+    public ConfigurationCalculator(Logger logger, CalculationOptions options) {
         _ApplicationLogger = logger;
         cnfClauseGenerator = new CNFClauseGenerator(_ApplicationLogger);
+        _Parallelism = options.getParallelism();
+        _SolvingMode = options.getEffectiveSolvingMode();
+        if (_SolvingMode != options.getSolvingMode()) {
+            _ApplicationLogger.warn("The " + options.getSolvingMode() + " solving mode is not used with " + _Parallelism + " threads, the PFMs are solved in " + _SolvingMode + " mode");
+        }
+        _SolverBackendType = options.getSolverBackendType();
+        _SolutionCache = options.getSolutionStore();
     }
 
     /**
@@ -39,17 +78,324 @@ public class ConfigurationCalculator {
     public FeatureModelPartiallyCalculated calculatePartialConfigurations(FeatureModelSliced featureModelSliced) {
 
         var fm = new FeatureModelPartiallyCalculated(featureModelSliced);
+        var parents = findAbstractParents(featureModelSliced);
+        if (_SolvingMode == SolvingMode.INCREMENTAL) {
+            calculateIncrementally(fm, parents);
+            return fm;
+        }
+        try (var solverBackend = _SolverBackendType.create(_ApplicationLogger)) {
+            calculateAbstractLayer(fm, parents, solverBackend);
+            passCrossTreeConstraintsToChildren(fm);
+            calculateConcreteConfigurations(fm, parents, solverBackend);
+        }
+
+        return fm;
+    }
+
+    /**
+     * calculates the configurations of the FM for several slicing thresholds
+     * the finest slicing (threshold 0, one abstract feature per PFM) is solved once,
+     * the PFMs of every other threshold are concatenations of these PFMs, see {@link #joinPartialConfigurations}
+     *
+     * @param featureModel FM to slice and calculate
+     * @param thresholds   slicing thresholds, see {@link FeatureModelSlicer#sliceFeatureModel(FeatureModelRead, int)}
+     * @return calculated FM per threshold in the order of the thresholds
+     */
+    public Map<Integer, FeatureModelPartiallyCalculated> calculatePartialConfigurationsForThresholds(FeatureModelRead featureModel, int... thresholds) {
+        var slicer = new FeatureModelSlicer(_ApplicationLogger);
+        var finest = calculatePartialConfigurations(slicer.sliceFeatureModel(featureModel, 0));
+        var result = new LinkedHashMap<Integer, FeatureModelPartiallyCalculated>();
+        for (var threshold : thresholds) {
+            result.put(threshold, threshold == 0 ? finest : joinPartialConfigurations(finest, slicer.sliceFeatureModel(featureModel, threshold)));
+        }
+        return result;
+    }
+
+    /**
+     * builds the configurations of a coarser slicing from the configurations of the finest slicing without a solver
+     * every coarse PFM is a concatenation of finest PFMs, its configurations are the product of their configurations
+     * filtered by the CTCs that become local to the coarse PFM; CTCs local to a finest PFM are already satisfied
+     *
+     * @param finest calculated FM sliced with threshold 0, is not modified
+     * @param coarse the same FM sliced with a larger threshold
+     * @return FM with the configurations of the coarse PFMs
+     */
+    public FeatureModelPartiallyCalculated joinPartialConfigurations(FeatureModelPartiallyCalculated finest, FeatureModelSliced coarse) {
+        var parents = findAbstractParents(finest);
+        var finestPositions = new IdentityHashMap<Feature, Integer>();
+        for (int i = 0; i < finest.partialConcreteFeatureModels.size(); i++) {
+            var partialModel = finest.partialConcreteFeatureModels.get(i);
+            if (partialModel.size() != 1) {
+                throw new IllegalArgumentException("The finest slicing must contain one abstract feature per partial feature model");
+            }
+            finestPositions.put(partialModel.getFirst(), i);
+        }
+
+        var fm = new FeatureModelPartiallyCalculated(coarse);
+        fm.abstractConfigurations = new ArrayList<>(finest.abstractConfigurations);
+        fm.crossTreeConstraints = new ArrayList<>(finest.crossTreeConstraints);
+        var crossTreeConstraints = new CrossTreeConstraintIndex(fm.crossTreeConstraints);
+        var localCrossTreeConstraints = new HashSet<CrossTreeConstraint>();
+        for (var partialModel : coarse.partialConcreteFeatureModels) {
+            List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
+            var parts = new ArrayList<List<PartialConfiguration>>();
+            for (var parent : currentParents) {
+                var position = finestPositions.get(parent);
+                if (position == null) {
+                    throw new IllegalArgumentException(parent.getName() + " is not part of the finest slicing");
+                }
+                parts.add(finest.configurationsPerPartialFeatureModel.get(position));
+            }
+            var localConstraints = new HashSet<CrossTreeConstraint>();
+            var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, crossTreeConstraints, localConstraints);
+            var concreteConfigurations = joinConfigurations(currentParents, parts, localConstraints);
+            localCrossTreeConstraints.addAll(localConstraints);
+            fm.partialFeatureModelClauses.add(clauses);
+            fm.configurationsPerPartialFeatureModel.add(createPartialConfigurations(fm, currentParents, concreteConfigurations));
+        }
+        fm.crossTreeConstraints.removeIf(localCrossTreeConstraints::contains);
+        return fm;
+    }
+
+    /**
+     * Builds the product of the configurations of consecutive parents. Every constraint is checked as soon
+     * as the parents of its source and target are joined, so violating prefixes are not extended.
+     *
+     * @param currentParents    parents of the coarse PFM, one finest PFM per parent
+     * @param parts             configurations of the finest PFM of each parent
+     * @param localConstraints  constraints local to the coarse PFM
+     * @return concrete configurations of the coarse PFM
+     */
+    private List<List<Feature>> joinConfigurations(List<Feature> currentParents, List<List<PartialConfiguration>> parts, Set<CrossTreeConstraint> localConstraints) {
+        var parentPositions = new IdentityHashMap<Feature, Integer>();
+        for (int i = 0; i < currentParents.size(); i++) {
+            parentPositions.put(currentParents.get(i), i);
+        }
+        // constraints grouped by the parent after which both of their features are known
+        var constraintsPerPart = new ArrayList<List<CrossTreeConstraint>>(Collections.nCopies(parts.size(), List.of()));
+        for (var constraint : localConstraints) {
+            var position = Math.max(partOf(constraint.getSource(), parentPositions), partOf(constraint.getTarget(), parentPositions));
+            if (constraintsPerPart.get(position).isEmpty()) {
+                constraintsPerPart.set(position, new ArrayList<>());
+            }
+            constraintsPerPart.get(position).add(constraint);
+        }
+
+        var joined = List.of(new PartialConfiguration());
+        for (int i = 0; i < parts.size(); i++) {
+            var next = new ArrayList<PartialConfiguration>(joined.size() * parts.get(i).size());
+            for (var prefix : joined) {
+                for (var configuration : parts.get(i)) {
+                    var candidate = new PartialConfiguration(prefix.getFeatures());
+                    configuration.getFeatures().forEach(candidate::addFeature);
+                    if (isSatisfied(candidate, constraintsPerPart.get(i), parentPositions)) {
+                        next.add(candidate);
+                    }
+                }
+            }
+            joined = next;
+        }
+        return joined.stream().map(PartialConfiguration::getFeatures).toList();
+    }
+
+    /**
+     * @return position of the parent the feature belongs to, a feature is a parent or a child of one
+     */
+    private int partOf(Feature feature, Map<Feature, Integer> parentPositions) {
+        var position = parentPositions.get(feature);
+        return position != null ? position : parentPositions.get(feature.getParentFeature());
+    }
+
+    /**
+     * @return {@code true} if the configuration satisfies all constraints, the parents of a PFM are always selected
+     */
+    private boolean isSatisfied(PartialConfiguration configuration, List<CrossTreeConstraint> constraints, Map<Feature, Integer> parentPositions) {
+        for (var constraint : constraints) {
+            var source = parentPositions.containsKey(constraint.getSource()) || configuration.contains(constraint.getSource());
+            var target = parentPositions.containsKey(constraint.getTarget()) || configuration.contains(constraint.getTarget());
+            if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES ? source && !target : source && target) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * compiles the CNF of every PFM into a binary decision diagram, see {@link BDDCompiler}
+     * the diagrams can be conditioned on unavailable features online instead of filtering the configurations
+     * requires the PFM clauses stored by {@link #calculatePartialConfigurations(FeatureModelSliced)}
+     *
+     * @param fm FM with calculated configurations, receives one diagram per PFM
+     */
+    public void compilePartialFeatureModels(FeatureModelPartiallyCalculated fm) {
+        var parents = findAbstractParents(fm);
+        var compiler = new BDDCompiler();
+        fm.partialFeatureModelDiagrams = new ArrayList<>();
+        for (int i = 0; i < fm.partialConcreteFeatureModels.size() && i < fm.partialFeatureModelClauses.size(); i++) {
+            List<Feature> currentParents = fm.partialConcreteFeatureModels.get(i).stream().filter(parents::contains).toList();
+            fm.partialFeatureModelDiagrams.add(compiler.compile(fm.partialFeatureModelClauses.get(i), currentParents));
+        }
+    }
+
+    /**
+     * enumerates the configurations of a PFM from its diagram, e.g. a diagram conditioned on unavailable features
+     * the configurations have the same features and order as the ones calculated by the solver
+     *
+     * @param fm      FM the diagram belongs to, its features are referenced by the configurations
+     * @param diagram compiled diagram of a single PFM, see {@link #compilePartialFeatureModels(FeatureModelPartiallyCalculated)}
+     * @return one configuration per model of the diagram
+     */
+    public List<PartialConfiguration> calculateConfigurationsFromDiagram(FeatureModelPartiallyCalculated fm, BinaryDecisionDiagram diagram) {
+        var featureIndexTable = new FeatureIndexTable(fm.features);
+        var currentParents = Arrays.stream(diagram.getParents()).mapToObj(featureIndexTable::getFeature).toList();
+        var models = new ArrayList<int[]>();
+        diagram.forEachModel(models::add);
+        return createPartialConfigurations(fm, currentParents, toConfigurations(models, childrenOf(currentParents)));
+    }
+
+    /**
+     * samples a bounded number of valid configurations per PFM instead of enumerating all of them
+     * the abstract layer is enumerated completely, every PFM is compiled into a binary decision diagram
+     * and its configurations are drawn from it, see {@link ConfigurationSampler}
+     * the result has the same structure as {@link #calculatePartialConfigurations(FeatureModelSliced)}
+     *
+     * @param featureModelSliced FM that is sliced into abstract layer and multiple concrete partial feature models
+     * @param samples            maximum number of configurations per PFM
+     * @param samplingMode       how the configurations of a PFM are selected
+     * @param seed               seed of the random source, equal seeds draw equal samples
+     * @return FM with the calculated abstract layer and the sampled configurations of each concrete partial FM
+     */
+    public FeatureModelPartiallyCalculated samplePartialConfigurations(FeatureModelSliced featureModelSliced, int samples, SamplingMode samplingMode, long seed) {
+        var fm = new FeatureModelPartiallyCalculated(featureModelSliced);
+        var parents = findAbstractParents(featureModelSliced);
+        try (var solverBackend = _SolverBackendType.create(_ApplicationLogger)) {
+            calculateAbstractLayer(fm, parents, solverBackend);
+        }
+        passCrossTreeConstraintsToChildren(fm);
+
+        var sampler = new ConfigurationSampler(seed);
+        var compiler = new BDDCompiler();
+        var crossTreeConstraints = new CrossTreeConstraintIndex(fm.crossTreeConstraints);
+        var localCrossTreeConstraints = new HashSet<CrossTreeConstraint>();
+        for (var partialModel : fm.partialConcreteFeatureModels) {
+            List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
+            var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, crossTreeConstraints, localCrossTreeConstraints);
+            var diagram = compiler.compile(clauses, currentParents);
+            var concreteConfigurations = toConfigurations(sampler.sample(diagram, samples, samplingMode), childrenOf(currentParents));
+            fm.partialFeatureModelClauses.add(clauses);
+            fm.configurationsPerPartialFeatureModel.add(createPartialConfigurations(fm, currentParents, concreteConfigurations));
+        }
+        fm.crossTreeConstraints.removeIf(localCrossTreeConstraints::contains);
+        return fm;
+    }
+
+    /**
+     * counts all valid configurations of a sliced FM without enumerating the concrete configurations
+     * the abstract layer is enumerated, every PFM is counted once per combination of its selected parents
+     * and the counts of the PFMs are multiplied for each abstract configuration.
+     * If CTCs between different PFMs remain, the full CNF of the FM is counted instead.
+     *
+     * @param featureModelSliced FM that is sliced into abstract layer and multiple concrete partial feature models
+     * @return number of valid configurations
+     */
+    public BigInteger countPartialConfigurations(FeatureModelSliced featureModelSliced) {
+        return countPartialConfigurations(featureModelSliced, new InterchangeableFeatures());
+    }
+
+    /**
+     * counts all valid configurations of a sliced FM that was reduced to the representatives of interchangeable
+     * alternatives, every selected representative counts once per member of its class
+     *
+     * @param featureModelSliced      reduced FM that is sliced into abstract layer and multiple concrete partial feature models
+     * @param interchangeableFeatures classes of the removed alternatives, see {@link InterchangeableFeatureDetector#reduce}
+     * @return number of valid configurations of the original FM
+     */
+    public BigInteger countPartialConfigurations(FeatureModelSliced featureModelSliced, InterchangeableFeatures interchangeableFeatures) {
+        var fm = new FeatureModelPartiallyCalculated(featureModelSliced);
+        var parents = findAbstractParents(featureModelSliced);
+        try (var solverBackend = _SolverBackendType.create(_ApplicationLogger)) {
+            calculateAbstractLayer(fm, parents, solverBackend);
+        }
+        passCrossTreeConstraintsToChildren(fm);
+
+        var crossTreeConstraints = new CrossTreeConstraintIndex(fm.crossTreeConstraints);
+        Set<CrossTreeConstraint> localCrossTreeConstraints = new HashSet<>();
+        var parentsPerPartialModel = new ArrayList<List<Feature>>();
+        var clausesPerPartialModel = new ArrayList<List<int[]>>();
+        for (var partialModel : fm.partialConcreteFeatureModels) {
+            List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
+            var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, crossTreeConstraints, localCrossTreeConstraints);
+            var parentIndices = currentParents.stream().map(Feature::getIndex).collect(Collectors.toSet());
+            // the parents are fixed per abstract configuration instead of by their unit clauses
+            clauses.removeIf(clause -> clause.length == 1 && parentIndices.contains(clause[0]));
+            parentsPerPartialModel.add(currentParents);
+            clausesPerPartialModel.add(clauses);
+        }
+        if (localCrossTreeConstraints.size() < crossTreeConstraints.size()) {
+            return countConfigurationsForNonSlicedFM(featureModelSliced, interchangeableFeatures);
+        }
+
+        var modelCounter = new ModelCounter(interchangeableFeatures.getWeights());
+        var countsPerPartialModel = new ArrayList<Map<List<Boolean>, BigInteger>>();
+        parentsPerPartialModel.forEach(x -> countsPerPartialModel.add(new HashMap<>()));
+        var configurations = BigInteger.ZERO;
+        for (var abstractConfiguration : fm.abstractConfigurations) {
+            var selectedParents = new HashSet<>(abstractConfiguration);
+            var product = BigInteger.ONE;
+            for (int i = 0; i < parentsPerPartialModel.size() && product.signum() != 0; i++) {
+                var currentParents = parentsPerPartialModel.get(i);
+                var clauses = clausesPerPartialModel.get(i);
+                var selection = currentParents.stream().map(selectedParents::contains).toList();
+                product = product.multiply(countsPerPartialModel.get(i).computeIfAbsent(selection, selected -> {
+                    var assumptions = new int[currentParents.size()];
+                    for (int j = 0; j < assumptions.length; j++) {
+                        assumptions[j] = selected.get(j) ? currentParents.get(j).getIndex() : -currentParents.get(j).getIndex();
+                    }
+                    return modelCounter.count(clauses, assumptions);
+                }));
+            }
+            configurations = configurations.add(product);
+        }
+        return configurations;
+    }
+
+    /**
+     * counts all valid configurations of the full FM with an exact model counter
+     *
+     * @param featureModelRead non-sliced feature model, its CTCs are not modified
+     * @return number of valid configurations
+     */
+    public BigInteger countConfigurationsForNonSlicedFM(FeatureModelRead featureModelRead) {
+        return countConfigurationsForNonSlicedFM(featureModelRead, new InterchangeableFeatures());
+    }
+
+    /**
+     * counts all valid configurations of the full FM that was reduced to the representatives of interchangeable
+     * alternatives, every selected representative counts once per member of its class
+     *
+     * @param featureModelRead        reduced non-sliced feature model, its CTCs are not modified
+     * @param interchangeableFeatures classes of the removed alternatives, see {@link InterchangeableFeatureDetector#reduce}
+     * @return number of valid configurations of the original FM
+     */
+    public BigInteger countConfigurationsForNonSlicedFM(FeatureModelRead featureModelRead, InterchangeableFeatures interchangeableFeatures) {
+        var clauses = cnfClauseGenerator.createClausesForNonSlicedFM(new FeatureModelRead(featureModelRead));
+        return new ModelCounter(interchangeableFeatures.getWeights()).count(clauses);
+    }
+
+    /**
+     * Collects all abstract features whose children are concrete features.
+     *
+     * @param featureModel feature model to search
+     * @return abstract parent features in feature order
+     */
+    private List<Feature> findAbstractParents(FeatureModelRead featureModel) {
         var parents = new ArrayList<Feature>();
-        featureModelSliced.features.stream().filter(f -> !f.getChildren().isEmpty()).forEach(f -> {
+        featureModel.features.stream().filter(f -> !f.getChildren().isEmpty()).forEach(f -> {
             if (f.getChildren().stream().allMatch(child -> child.getChildren().isEmpty())) {
                 parents.add(f);
             }
         });
-        calculateAbstractLayer(fm, parents);
-        passCrossTreeConstraintsToChildren(fm);
-        calculateConcreteConfigurations(fm, parents);
-
-        return fm;
+        return parents;
     }
 
     /**
@@ -62,152 +408,363 @@ public class ConfigurationCalculator {
      * @param fm the feature model for which constraints should be propagated
      */
     private void passCrossTreeConstraintsToChildren(FeatureModelPartiallyCalculated fm) {
-        //pass down ctc source to children
-        while (fm.crossTreeConstraints.stream().anyMatch(constraint -> !constraint.getSource().getChildren().isEmpty())) {
-            var newCrossTreeConstraints = new ArrayList<CrossTreeConstraint>();
-            for (var iter = fm.crossTreeConstraints.iterator(); iter.hasNext(); ) {
-                var constraint = iter.next();
-                var source = constraint.getSource();
-                if (!source.getChildren().isEmpty()) {
-                    source.getChildren().forEach(child -> newCrossTreeConstraints.add(new CrossTreeConstraint(child, constraint.getTarget(), constraint.getRelation())));
-                    iter.remove();
-                }
-            }
-            fm.crossTreeConstraints.addAll(newCrossTreeConstraints);
-        }
-
-        //pass down exclude targets to children
-        while (fm.crossTreeConstraints.stream().filter(crossTreeConstraint -> crossTreeConstraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES).anyMatch(constraint -> !constraint.getTarget().getChildren().isEmpty())) {
-            var newCrossTreeConstraints = new ArrayList<CrossTreeConstraint>();
-            for (var iter = fm.crossTreeConstraints.iterator(); iter.hasNext(); ) {
-                var constraint = iter.next();
-                if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES) {
-                    var target = constraint.getTarget();
-                    if (!target.getChildren().isEmpty()) {
-                        target.getChildren().forEach(child -> newCrossTreeConstraints.add(new CrossTreeConstraint(constraint.getSource(), child, constraint.getRelation())));
-                        iter.remove();
-                    }
-                }
+        // single worklist pass: a constraint is replaced by the constraints of the children until
+        // its source is concrete and, for excludes, its target as well
+        var worklist = new ArrayDeque<CrossTreeConstraint>(fm.crossTreeConstraints);
+        var propagatedCrossTreeConstraints = new ArrayList<CrossTreeConstraint>(fm.crossTreeConstraints.size());
+        while (!worklist.isEmpty()) {
+            var constraint = worklist.poll();
+            var source = constraint.getSource();
+            var target = constraint.getTarget();
+            if (!source.getChildren().isEmpty()) {
+                source.getChildren().forEach(child -> worklist.add(new CrossTreeConstraint(child, target, constraint.getRelation())));
+            } else if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES && !target.getChildren().isEmpty()) {
+                target.getChildren().forEach(child -> worklist.add(new CrossTreeConstraint(source, child, constraint.getRelation())));
+            } else {
+                propagatedCrossTreeConstraints.add(constraint);
             }
-            fm.crossTreeConstraints.addAll(newCrossTreeConstraints);
         }
+        fm.crossTreeConstraints.clear();
+        fm.crossTreeConstraints.addAll(propagatedCrossTreeConstraints);
     }
 
     /**
      * Calculates all valid configurations for the concrete partial feature
-     * models of the given feature model.
+     * models of the given feature model. PFMs without local CTCs whose
+     * configurations are a Cartesian product of their child groups are
+     * generated directly, all others are enumerated with the SAT solver.
+     *
+     * @param fm            the feature model holding the partial concrete models
+     * @param parents       list of abstract parent features used to determine the
+     *                      relevant concrete features
+     * @param solverBackend backend used for the sequential enumeration
+     */
+    private void calculateConcreteConfigurations(FeatureModelPartiallyCalculated fm, List<Feature> parents, ISolverBackend solverBackend) {
+        if (_Parallelism > 1 && fm.partialConcreteFeatureModels.size() > 1) {
+            calculateConcreteConfigurationsInParallel(fm, parents);
+            return;
+        }
+        var crossTreeConstraints = new CrossTreeConstraintIndex(fm.crossTreeConstraints);
+        var localCrossTreeConstraints = new HashSet<CrossTreeConstraint>();
+        for (var partialModel : fm.partialConcreteFeatureModels) {
+            List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
+            var withoutSolver = cartesianConfigurationGenerator.isApplicable(currentParents, crossTreeConstraints);
+            var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, crossTreeConstraints, localCrossTreeConstraints);
+            List<List<Feature>> concreteConfigurations;
+            if (withoutSolver) {
+                concreteConfigurations = cartesianConfigurationGenerator.generate(currentParents);
+            } else {
+                concreteConfigurations = calculateForPFM(currentParents, clauses, solverBackend);
+            }
+            fm.partialFeatureModelClauses.add(clauses);
+            fm.configurationsPerPartialFeatureModel.add(createPartialConfigurations(fm, currentParents, concreteConfigurations));
+        }
+        fm.crossTreeConstraints.removeIf(localCrossTreeConstraints::contains);
+    }
+
+    /**
+     * Calculates the configurations of all partial feature models on a work-stealing pool. Every PFM
+     * gets its own solver instance, the PFMs with the highest estimated configuration count are
+     * scheduled first. CTCs that are local to a PFM are collected and removed from the global list
+     * after all PFMs are calculated, the resulting configurations keep the order of the PFMs.
      *
      * @param fm      the feature model holding the partial concrete models
      * @param parents list of abstract parent features used to determine the
      *                relevant concrete features
      */
-    private void calculateConcreteConfigurations(FeatureModelPartiallyCalculated fm, List<Feature> parents) {
-        for (var partialModel : fm.partialConcreteFeatureModels) {
-            List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
-            var concreteConfigurations = calculateForPFM(fm, currentParents);
+    private void calculateConcreteConfigurationsInParallel(FeatureModelPartiallyCalculated fm, List<Feature> parents) {
+        var partialModels = fm.partialConcreteFeatureModels;
+        var crossTreeConstraints = new CrossTreeConstraintIndex(fm.crossTreeConstraints);
+        Set<CrossTreeConstraint> localCrossTreeConstraints = ConcurrentHashMap.newKeySet();
+        var estimates = fm.estimatedConfigurationsPerPartialFeatureModel;
+        var schedule = IntStream.range(0, partialModels.size()).boxed()
+                .sorted(Comparator.comparing((Integer i) -> i < estimates.size() ? estimates.get(i) : 1L).reversed())
+                .toList();
+
+        var pool = new ForkJoinPool(_Parallelism);
+        try {
+            var tasks = new ArrayList<ForkJoinTask<PartialModelResult>>(Collections.nCopies(partialModels.size(), null));
+            for (var i : schedule) {
+                var partialModel = partialModels.get(i);
+                tasks.set(i, pool.submit(() -> {
+                    List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
+                    var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, crossTreeConstraints, localCrossTreeConstraints);
+                    if (cartesianConfigurationGenerator.isApplicable(currentParents, crossTreeConstraints)) {
+                        return new PartialModelResult(clauses, createPartialConfigurations(fm, currentParents, cartesianConfigurationGenerator.generate(currentParents)));
+                    }
+                    try (var pfmSolverBackend = _SolverBackendType.create(_ApplicationLogger)) {
+                        var concreteConfigurations = calculateForPFM(currentParents, clauses, pfmSolverBackend);
+                        return new PartialModelResult(clauses, createPartialConfigurations(fm, currentParents, concreteConfigurations));
+                    }
+                }));
+            }
+            for (var task : tasks) {
+                var result = task.join();
+                fm.partialFeatureModelClauses.add(result.clauses());
+                fm.configurationsPerPartialFeatureModel.add(result.configurations());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        fm.crossTreeConstraints.removeIf(localCrossTreeConstraints::contains);
+    }
 
-            List<PartialConfiguration> partialConfigurations = new ArrayList<>();
-            concreteConfigurations.forEach(concreteConfiguration -> {
-                    PartialConfiguration partialConfiguration = new PartialConfiguration(concreteConfiguration);
-                    partialConfiguration.setAbstractParent(currentParents);
-                    sortConfiguration(partialConfiguration, fm.featureConnectivityInformation.featureConnectivityMap);
-                    partialConfigurations.add(partialConfiguration);
+    /**
+     * CNF clauses and configurations of a PFM calculated by a parallel task.
+     */
+    private record PartialModelResult(List<int[]> clauses, List<PartialConfiguration> configurations) {
+    }
 
-            });
-            fm.configurationsPerPartialFeatureModel.add(partialConfigurations);
-        }
+    /**
+     * Wraps the concrete configurations of a PFM into sorted partial configurations.
+     * The parent order is calculated once per distinct set of parents within the PFM.
+     */
+    private List<PartialConfiguration> createPartialConfigurations(FeatureModelPartiallyCalculated fm, List<Feature> currentParents, List<List<Feature>> concreteConfigurations) {
+        List<PartialConfiguration> partialConfigurations = new ArrayList<>();
+        var parentOrders = new HashMap<List<String>, List<String>>();
+        concreteConfigurations.forEach(concreteConfiguration -> {
+            PartialConfiguration partialConfiguration = new PartialConfiguration(concreteConfiguration);
+            partialConfiguration.setAbstractParent(currentParents);
+            sortConfiguration(partialConfiguration, fm.featureConnectivityInformation.featureConnectivityMap, parentOrders);
+            partialConfigurations.add(partialConfiguration);
+        });
+        return partialConfigurations;
     }
 
     /**
      * Calculates all valid configurations for a single partial feature model.
      *
-     * @param fm            the overall feature model
      * @param currentParents abstract parent features defining the partial model
+     * @param clauses        CNF clauses of the partial model
+     * @param solverBackend  backend used for the enumeration
      * @return list of valid concrete feature configurations
      */
-    private List<List<Feature>> calculateForPFM(FeatureModelPartiallyCalculated fm, List<Feature> currentParents) {
-        var children = new ArrayList<Feature>();
-        currentParents.forEach(current -> {
-            children.addAll(current.getChildren());
-        });
-        var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, fm.crossTreeConstraints);
-        initSolver(clauses);
-        var configurationIndicesList = calculateModels(solver);
-        var configurationsList = new ArrayList<List<Feature>>();
-        for (var configurationIndices : configurationIndicesList) {
-            var configurationIndicesAsList = Arrays.stream(configurationIndices).boxed().toList();
-            var configurationFeatures = children.stream().filter(x -> configurationIndicesAsList.contains(x.getIndex())).toList();
-            configurationsList.add(configurationFeatures);
+    private List<List<Feature>> calculateForPFM(List<Feature> currentParents, List<int[]> clauses, ISolverBackend solverBackend) {
+        var children = childrenOf(currentParents);
+        var projection = toProjection(children);
+        var key = _SolutionCache == null ? null : PFMSolutionCache.keyOf(clauses, projection);
+        var cachedConfigurations = cachedConfigurations(key, children);
+        if (cachedConfigurations != null) {
+            return cachedConfigurations;
         }
-
-        return configurationsList;
+        List<List<Feature>> configurations;
+        if (_SolvingMode == SolvingMode.SIMPLIFIED) {
+            configurations = toConfigurations(enumerate(cnfSimplifier.simplify(clauses, projection), solverBackend), children);
+        } else {
+            solverBackend.load(clauses);
+            configurations = toConfigurations(solverBackend.enumerate(projection), children);
+        }
+        cacheConfigurations(key, children, configurations);
+        return configurations;
     }
 
     /**
-     * Calculates all valid configurations of the abstract layer of the feature
-     * model. The resulting configurations are stored in the provided model.
+     * Enumerates the models of simplified clauses and maps them back to the projection of the
+     * original clauses. Without remaining clauses the solver is not needed.
      *
-     * @param fm      the feature model
-     * @param parents list of abstract parent features present in the model
+     * @param simplifiedClauses clauses created by the {@link CNFSimplifier}
+     * @param solverBackend     backend used for the enumeration
+     * @return positive projection variables of every model of the original clauses
      */
-    private void calculateAbstractLayer(FeatureModelPartiallyCalculated fm, List<Feature> parents) {
-        var abstractLayerCNF = cnfClauseGenerator.createAbstractLayerClauses(fm);
-        initSolver(abstractLayerCNF);
-        var configurationIndicesList = calculateModels(solver);
-        var configurationsList = new ArrayList<List<Feature>>();
+    private List<int[]> enumerate(SimplifiedCNF simplifiedClauses, ISolverBackend solverBackend) {
+        if (simplifiedClauses.isUnsatisfiable()) {
+            return List.of();
+        }
+        if (simplifiedClauses.getClauseCount() == 0) {
+            return simplifiedClauses.reconstruct(List.of(new int[0]));
+        }
+        solverBackend.load(simplifiedClauses.getClauses());
+        return simplifiedClauses.reconstruct(solverBackend.enumerate(simplifiedClauses.getProjection()));
+    }
 
-        for (var configurationIndices : configurationIndicesList) {
-            var configurationIndicesAsList = Arrays.stream(configurationIndices).boxed().toList();
-            var configurationFeatures = parents.stream().filter(x -> configurationIndicesAsList.contains(x.getIndex())).toList();
-            configurationsList.add(configurationFeatures);
+    /**
+     * @param key      key of the PFM or {@code null} if there is no cache
+     * @param children concrete features of the PFM in projection order
+     * @return configurations of the PFM from the cache or {@code null}
+     */
+    private List<List<Feature>> cachedConfigurations(String key, List<Feature> children) {
+        if (key == null) {
+            return null;
+        }
+        var positions = _SolutionCache.get(key, children.size());
+        if (positions == null) {
+            return null;
         }
+        var configurations = new ArrayList<List<Feature>>(positions.size());
+        for (var configuration : positions) {
+            configurations.add(Arrays.stream(configuration).mapToObj(children::get).toList());
+        }
+        return configurations;
+    }
 
-        fm.abstractConfigurations = configurationsList;
+    /**
+     * Stores the configurations of a PFM as positions of the selected features in the projection.
+     *
+     * @param key            key of the PFM or {@code null} if there is no cache
+     * @param children       concrete features of the PFM in projection order
+     * @param configurations configurations of the PFM
+     */
+    private void cacheConfigurations(String key, List<Feature> children, List<List<Feature>> configurations) {
+        if (key == null) {
+            return;
+        }
+        // features are equal by name, the positions are mapped by identity
+        var positions = new IdentityHashMap<Feature, Integer>(children.size() * 2);
+        for (int i = 0; i < children.size(); i++) {
+            positions.putIfAbsent(children.get(i), i);
+        }
+        var configurationPositions = new ArrayList<int[]>(configurations.size());
+        for (var configuration : configurations) {
+            configurationPositions.add(configuration.stream().mapToInt(positions::get).toArray());
+        }
+        _SolutionCache.put(key, children.size(), configurationPositions);
     }
 
+    /**
+     * @return children of the given parents in the order of the parents
+     */
+    private List<Feature> childrenOf(List<Feature> parents) {
+        var children = new ArrayList<Feature>();
+        parents.forEach(current -> children.addAll(current.getChildren()));
+        return children;
+    }
 
     /**
-     * Initializes the SAT solver with the given CNF clauses.
+     * Calculates all valid configurations of the abstract layer of the feature
+     * model. The resulting configurations are stored in the provided model.
      *
-     * @param cnfClauses CNF clauses encoded as DIMACS integer arrays
+     * @param fm            the feature model
+     * @param parents       list of abstract parent features present in the model
+     * @param solverBackend backend used for the enumeration
      */
-    private void initSolver(List<int[]> cnfClauses) {
-        solver.reset();
-        var headerCnfDIMACS = cnfClauses.getFirst();
+    private void calculateAbstractLayer(FeatureModelPartiallyCalculated fm, List<Feature> parents, ISolverBackend solverBackend) {
+        var abstractLayerCNF = cnfClauseGenerator.createAbstractLayerClauses(fm);
+        solverBackend.load(abstractLayerCNF);
+        fm.abstractConfigurations = toConfigurations(solverBackend.enumerate(toProjection(parents)), parents);
+    }
 
-        solver.newVar(headerCnfDIMACS[0]);
-        solver.setExpectedNumberOfClauses(headerCnfDIMACS[1]);
+    /**
+     * Calculates the abstract layer and all PFMs with a single solver. The clauses of the abstract
+     * layer and of every PFM that needs the solver are loaded once, each group is enumerated under
+     * its activation literal and retired afterwards, see {@link IncrementalSolver}.
+     * Produces the same configurations as the sequential calculation in {@link SolvingMode#RESET}.
+     *
+     * @param fm      the feature model
+     * @param parents list of abstract parent features present in the model
+     */
+    private void calculateIncrementally(FeatureModelPartiallyCalculated fm, List<Feature> parents) {
+        var clauseGroups = new ArrayList<List<int[]>>();
+        clauseGroups.add(cnfClauseGenerator.createAbstractLayerClauses(fm));
+        passCrossTreeConstraintsToChildren(fm);
 
-        try {
-            for (int i = 1; i < cnfClauses.size(); i++) {
-                solver.addClause(new VecInt(cnfClauses.get(i)));
+        var parentsPerPartialModel = new ArrayList<List<Feature>>();
+        var groupPerPartialModel = new ArrayList<Integer>();
+        var keyPerPartialModel = new ArrayList<String>();
+        var cachedPerPartialModel = new ArrayList<List<List<Feature>>>();
+        var crossTreeConstraints = new CrossTreeConstraintIndex(fm.crossTreeConstraints);
+        var localCrossTreeConstraints = new HashSet<CrossTreeConstraint>();
+        for (var partialModel : fm.partialConcreteFeatureModels) {
+            List<Feature> currentParents = partialModel.stream().filter(parents::contains).toList();
+            var withoutSolver = cartesianConfigurationGenerator.isApplicable(currentParents, crossTreeConstraints);
+            var clauses = cnfClauseGenerator.createConcretePFMClauses(currentParents, crossTreeConstraints, localCrossTreeConstraints);
+            fm.partialFeatureModelClauses.add(clauses);
+            parentsPerPartialModel.add(currentParents);
+            var children = childrenOf(currentParents);
+            var key = withoutSolver || _SolutionCache == null ? null : PFMSolutionCache.keyOf(clauses, toProjection(children));
+            var cachedConfigurations = cachedConfigurations(key, children);
+            keyPerPartialModel.add(key);
+            cachedPerPartialModel.add(cachedConfigurations);
+            // cached PFMs are not loaded into the solver
+            var needsSolver = !withoutSolver && cachedConfigurations == null;
+            groupPerPartialModel.add(needsSolver ? clauseGroups.size() : -1);
+            if (needsSolver) {
+                clauseGroups.add(clauses);
             }
-        } catch (Exception e) {
-            _ApplicationLogger.fatal("There was an error setting up the solver with clauses: " + e.getMessage());
+        }
+        fm.crossTreeConstraints.removeIf(localCrossTreeConstraints::contains);
+
+        var incrementalSolver = new IncrementalSolver(solver, clauseGroups, _ApplicationLogger);
+        fm.abstractConfigurations = toConfigurations(calculateModels(incrementalSolver.models(0, toProjection(parents))), parents);
+        incrementalSolver.retire(0);
+
+        for (int i = 0; i < parentsPerPartialModel.size(); i++) {
+            var currentParents = parentsPerPartialModel.get(i);
+            var group = groupPerPartialModel.get(i);
+            List<List<Feature>> concreteConfigurations;
+            if (cachedPerPartialModel.get(i) != null) {
+                concreteConfigurations = cachedPerPartialModel.get(i);
+            } else if (group < 0) {
+                concreteConfigurations = cartesianConfigurationGenerator.generate(currentParents);
+            } else {
+                var children = childrenOf(currentParents);
+                concreteConfigurations = toConfigurations(calculateModels(incrementalSolver.models(group, toProjection(children))), children);
+                incrementalSolver.retire(group);
+                cacheConfigurations(keyPerPartialModel.get(i), children, concreteConfigurations);
+            }
+            fm.configurationsPerPartialFeatureModel.add(createPartialConfigurations(fm, currentParents, concreteConfigurations));
         }
     }
 
     /**
-     * Computes all satisfiable models for the current solver configuration.
+     * Maps every model to the given features that are selected in it.
      *
-     * @param solver the SAT solver configured with CNF clauses
+     * @param models   positive literals of the models
+     * @param features features of interest in their output order
+     * @return selected features per model
+     */
+    private List<List<Feature>> toConfigurations(List<int[]> models, List<Feature> features) {
+        var configurationsList = new ArrayList<List<Feature>>(models.size());
+        for (var configurationIndices : models) {
+            var modelMask = toMask(configurationIndices);
+            configurationsList.add(features.stream().filter(x -> FeatureIndexTable.contains(modelMask, x.getIndex())).toList());
+        }
+        return configurationsList;
+    }
+
+
+    /**
+     * Computes all satisfiable models of the given enumeration. After each model
+     * a blocking clause over the projection variables only is added, so models
+     * that differ just in the remaining variables are returned once.
+     *
+     * @param enumeration models of a solver projected onto the relevant variables
      * @return list of satisfying models represented as index arrays
      */
-    private List<int[]> calculateModels(ISolver solver) {
+    private List<int[]> calculateModels(ModelSpliterator enumeration) {
         var models = new ArrayList<int[]>();
-
         try {
-            while (solver.isSatisfiable()) {
-                var model = solver.model();
-                model = Arrays.stream(model).filter(x -> x > 1).toArray();
-                models.add(model);
-            }
+            enumeration.forEachRemaining(models::add);
         } catch (Exception e) {
             _ApplicationLogger.fatal("There was an error calculating the models: " + e.getMessage());
         }
         return models;
     }
 
+    /**
+     * Converts the positive literals of a model into a bitset over the variable indices.
+     *
+     * @param model positive literals of a model
+     * @return bitset with one bit per selected variable
+     */
+    private long[] toMask(int[] model) {
+        var maxVariable = Arrays.stream(model).max().orElse(0);
+        var mask = new long[(maxVariable >>> 6) + 1];
+        for (var literal : model) {
+            FeatureIndexTable.set(mask, literal);
+        }
+        return mask;
+    }
+
+    /**
+     * Converts the given features into the variables used for projected enumeration.
+     *
+     * @param features features to project onto
+     * @return distinct feature indices
+     */
+    private int[] toProjection(Collection<Feature> features) {
+        return features.stream().mapToInt(Feature::getIndex).distinct().toArray();
+    }
+
     /**
      * Orders the features within the given partial configuration based on the
      * connectivity information between parent features.
@@ -215,18 +772,22 @@ public class ConfigurationCalculator {
      * @param partialConfiguration configuration to sort
      * @param connectivityMap      map describing connectivity between parent
      *                             features
+     * @param parentOrders         cache of already sorted parent feature names
      */
-    private void sortConfiguration(PartialConfiguration partialConfiguration, Map<String, List<Feature>> connectivityMap) {
+    private void sortConfiguration(PartialConfiguration partialConfiguration, Map<String, List<Feature>> connectivityMap, Map<List<String>, List<String>> parentOrders) {
         if (partialConfiguration.getFeatures().size() > 1) {
             var configurationFeatures = partialConfiguration.getFeatures();
-            var uniqueParentFeatures = configurationFeatures.stream().map(Feature::getParentFeatureName).distinct().toList();
-            var sortedParentFeatures = sortParentFeatures(uniqueParentFeatures, connectivityMap);
-            var sortedConfigurationFeatures = new ArrayList<Feature>();
-
+            var featuresPerParent = new LinkedHashMap<String, List<Feature>>();
+            configurationFeatures.forEach(feature -> featuresPerParent.computeIfAbsent(feature.getParentFeatureName(), k -> new ArrayList<>()).add(feature));
+            var uniqueParentFeatures = List.copyOf(featuresPerParent.keySet());
+            var sortedParentFeatures = parentOrders.computeIfAbsent(uniqueParentFeatures, parentNames -> sortParentFeatures(parentNames, connectivityMap));
+            var sortedConfigurationFeatures = new ArrayList<Feature>(configurationFeatures.size());
 
             for (var parentFeatureName : sortedParentFeatures) {
-                var childFeatures = configurationFeatures.stream().filter(x -> x.getParentFeatureName().equals(parentFeatureName)).toList();
-                sortedConfigurationFeatures.addAll(childFeatures);
+                var childFeatures = featuresPerParent.get(parentFeatureName);
+                if (childFeatures != null) {
+                    sortedConfigurationFeatures.addAll(childFeatures);
+                }
             }
             partialConfiguration.setFeatures(sortedConfigurationFeatures);
         }
@@ -291,29 +852,70 @@ public class ConfigurationCalculator {
      * @param clauses precalculated CNF-clauses
      */
     public void calculateConfigurationsForPrecalculatedCNFs(FeatureModelPartiallyCalculated fm, List<int[]> clauses) {
-        initSolver(clauses);
-        var configurationIndicesList = calculateModels(solver);
         var abstractConfigurationSet = new HashSet<List<Feature>>();
-        for (var configurationIndices : configurationIndicesList) {
-            var concreteConfiguration = new PartialConfiguration();
-            var abstractConfiguration = new ArrayList<Feature>();
-            var configurationIndicesAsSet = Arrays.stream(configurationIndices).boxed().collect(Collectors.toSet());
-            fm.features.forEach(feature -> {
-                if (configurationIndicesAsSet.contains(feature.getIndex())) {
-                    if (feature.getChildren().isEmpty()) {
-                        concreteConfiguration.addFeature(feature);
-                    } else if (feature.getChildren().stream().allMatch(child -> child.getChildren().isEmpty())) {
-                        abstractConfiguration.add(feature);
-                        concreteConfiguration.addAbstractParent(feature);
-                    }
+        try (var configurations = streamConfigurationsForPrecalculatedCNFs(fm, clauses)) {
+            configurations.forEach(concreteConfiguration -> {
+                if (!abstractConfigurationSet.contains(concreteConfiguration.getAbstractParent())) {
+                    abstractConfigurationSet.add(new ArrayList<>(concreteConfiguration.getAbstractParent()));
                 }
+                fm.configurationsPerPartialFeatureModel.add(Collections.singletonList(concreteConfiguration));
             });
-            abstractConfigurationSet.add(abstractConfiguration);
-            fm.configurationsPerPartialFeatureModel.add(Collections.singletonList(concreteConfiguration));
         }
         fm.abstractConfigurations.addAll(abstractConfigurationSet);
     }
 
+    /**
+     * Lazily enumerates all valid configurations of the full FM. The clauses are
+     * created immediately, so CTCs that are covered by them are already removed
+     * from the FM when this method returns. Each configuration carries the selected
+     * abstract parents. The stream has to be closed to release its solver backend.
+     *
+     * @param fm non-sliced feature model
+     * @return stream of configurations, produced one at a time while it is consumed
+     */
+    public Stream<PartialConfiguration> streamConfigurationsForNonSlicedFM(FeatureModelPartiallyCalculated fm) {
+        var clauses = cnfClauseGenerator.createClausesForNonSlicedFM(fm);
+        return streamConfigurationsForPrecalculatedCNFs(fm, clauses);
+    }
+
+    /**
+     * Lazily enumerates all valid configurations for an FM based on the given CNF clauses.
+     * The stream uses its own backend of the configured type, so several streams can be
+     * consumed at the same time. Closing the stream closes the backend.
+     *
+     * @param fm the feature model
+     * @param clauses precalculated CNF-clauses
+     * @return stream of configurations, produced one at a time while it is consumed
+     */
+    public Stream<PartialConfiguration> streamConfigurationsForPrecalculatedCNFs(FeatureModelPartiallyCalculated fm, List<int[]> clauses) {
+        var streamSolver = _SolverBackendType.create(_ApplicationLogger);
+        streamSolver.load(clauses);
+        var projection = fm.features.stream()
+                .filter(feature -> feature.getChildren().isEmpty() || feature.getChildren().stream().allMatch(child -> child.getChildren().isEmpty()))
+                .toList();
+        return StreamSupport.stream(streamSolver.models(toProjection(projection)), false)
+                .onClose(streamSolver::close)
+                .map(model -> createNonSlicedConfiguration(fm, model));
+    }
+
+    /**
+     * Converts a model of the full FM into a configuration with concrete features and abstract parents.
+     */
+    private PartialConfiguration createNonSlicedConfiguration(FeatureModelPartiallyCalculated fm, int[] configurationIndices) {
+        var concreteConfiguration = new PartialConfiguration();
+        var modelMask = toMask(configurationIndices);
+        fm.features.forEach(feature -> {
+            if (FeatureIndexTable.contains(modelMask, feature.getIndex())) {
+                if (feature.getChildren().isEmpty()) {
+                    concreteConfiguration.addFeature(feature);
+                } else if (feature.getChildren().stream().allMatch(child -> child.getChildren().isEmpty())) {
+                    concreteConfiguration.addAbstractParent(feature);
+                }
+            }
+        });
+        return concreteConfiguration;
+    }
+
     /*
 
     private List<Feature> sortParentFeatures(List<Feature> uniqueParentFeatures, Map<String, List<Feature>> connectivityMap) {
@@ -0,0 +1,128 @@
+package ConfigurationCalculator;
+
+import KnowledgeCompiler.BinaryDecisionDiagram;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Selects a bounded number of valid configurations of a partial feature model
+ * from its {@link BinaryDecisionDiagram}. The diagram counts the models below
+ * every node, so the configurations are drawn exactly uniformly instead of
+ * enumerating them. A PFM with at most as many configurations as requested keeps
+ * all of them.
+ * <p>
+ * Pairwise sampling draws a uniform pool of candidates and repeatedly takes the
+ * candidate that covers the most uncovered pairs of feature selections (both
+ * selected, both deselected or one of each). It stops at the size bound or when
+ * every pair of the pool is covered, which usually needs far fewer
+ * configurations than the bound.
+ */
+public class ConfigurationSampler {
+    /** size of the candidate pool of pairwise sampling per requested configuration */
+    public static final int CANDIDATES_PER_SAMPLE = 10;
+    private final Random _Random;
+
+    /**
+     * @param seed seed of the random source, equal seeds draw equal samples
+     */
+    public ConfigurationSampler(long seed) {
+        _Random = new Random(seed);
+    }
+
+    /**
+     * Samples distinct configurations of the diagram.
+     *
+     * @param diagram compiled PFM
+     * @param samples maximum number of configurations
+     * @param mode    how the configurations are selected
+     * @return selected variables per configuration in diagram order
+     */
+    public List<int[]> sample(BinaryDecisionDiagram diagram, int samples, SamplingMode mode) {
+        return mode == SamplingMode.PAIRWISE ? samplePairwise(diagram, samples) : sampleUniformly(diagram, samples);
+    }
+
+    /**
+     * @return up to {@code samples} distinct configurations drawn uniformly at random
+     */
+    public List<int[]> sampleUniformly(BinaryDecisionDiagram diagram, int samples) {
+        var count = diagram.count();
+        if (count.compareTo(BigInteger.valueOf(2L * samples)) <= 0) {
+            // few configurations, rejecting duplicates would be slower than enumerating them
+            var all = new ArrayList<int[]>();
+            diagram.forEachModel(all::add);
+            Collections.shuffle(all, _Random);
+            return new ArrayList<>(all.subList(0, Math.min(samples, all.size())));
+        }
+        var distinct = new LinkedHashMap<List<Integer>, int[]>();
+        while (distinct.size() < samples) {
+            for (var model : diagram.sample(samples - distinct.size(), _Random)) {
+                distinct.putIfAbsent(Arrays.stream(model).boxed().toList(), model);
+            }
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
+    /**
+     * @return up to {@code samples} configurations that cover the pairs of feature selections of a uniform candidate pool
+     */
+    public List<int[]> samplePairwise(BinaryDecisionDiagram diagram, int samples) {
+        var candidates = sampleUniformly(diagram, (int) Math.min(Integer.MAX_VALUE, (long) samples * CANDIDATES_PER_SAMPLE));
+        if (candidates.size() <= samples) {
+            return candidates;
+        }
+        var variables = diagram.getVariables();
+        var levels = new HashMap<Integer, Integer>();
+        for (int i = 0; i < variables.length; i++) {
+            levels.put(variables[i], i);
+        }
+        var candidatePairs = new ArrayList<BitSet>(candidates.size());
+        for (var candidate : candidates) {
+            candidatePairs.add(coveredPairs(candidate, levels, variables.length));
+        }
+
+        var covered = new BitSet();
+        var result = new ArrayList<int[]>(samples);
+        while (result.size() < samples) {
+            var best = -1;
+            var bestGain = 0;
+            for (int i = 0; i < candidatePairs.size(); i++) {
+                var pairs = candidatePairs.get(i);
+                if (pairs == null) {
+                    continue;
+                }
+                var uncovered = (BitSet) pairs.clone();
+                uncovered.andNot(covered);
+                var gain = uncovered.cardinality();
+                if (gain > bestGain) {
+                    best = i;
+                    bestGain = gain;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            covered.or(candidatePairs.get(best));
+            candidatePairs.set(best, null);
+            result.add(candidates.get(best));
+        }
+        return result;
+    }
+
+    /**
+     * @return bitset over the pairs (i, value of i, j, value of j) with i < j that the configuration covers
+     */
+    private BitSet coveredPairs(int[] configuration, Map<Integer, Integer> levels, int variables) {
+        var selection = new boolean[variables];
+        for (var variable : configuration) {
+            selection[levels.get(variable)] = true;
+        }
+        var pairs = new BitSet();
+        for (int i = 0; i < variables; i++) {
+            for (int j = i + 1; j < variables; j++) {
+                pairs.set((i * variables + j) * 4 + (selection[i] ? 2 : 0) + (selection[j] ? 1 : 0));
+            }
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,25 @@
+package ConfigurationCalculator;
+
+import java.util.List;
+
+/**
+ * Store of the enumerated configurations of partial feature models, addressed
+ * by the key of {@link PFMSolutionCache#keyOf}. The configurations are stored as
+ * the positions of the selected features in the projection of the PFM.
+ */
+public interface IPFMSolutionStore {
+
+    /**
+     * @param key            key of the PFM
+     * @param projectionSize number of variables the configurations are projected onto
+     * @return positions of the selected features in the projection per configuration, {@code null} if unknown
+     */
+    List<int[]> get(String key, int projectionSize);
+
+    /**
+     * @param key            key of the PFM
+     * @param projectionSize number of variables the configurations are projected onto
+     * @param configurations positions of the selected features in the projection per configuration
+     */
+    void put(String key, int projectionSize, List<int[]> configurations);
+}
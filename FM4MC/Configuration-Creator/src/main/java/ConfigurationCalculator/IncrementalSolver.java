@@ -0,0 +1,93 @@
+package ConfigurationCalculator;
+
+import org.apache.logging.log4j.Logger;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+
+import java.util.List;
+
+/**
+ * Keeps the clauses of several independent CNFs in a single solver instance.
+ * Every clause of group {@code i} is extended by the negated activation literal
+ * of the group, so the group only constrains the solver while its activation
+ * literal is assumed. The blocking clauses of an enumeration are guarded the same
+ * way and a finished group is retired with a unit clause, which also retires all
+ * of its blocking clauses. Learned clauses stay valid across the groups.
+ */
+public class IncrementalSolver {
+    private final ISolver _Solver;
+    private final int[] _ActivationLiterals;
+    private final Logger _ApplicationLogger;
+
+    /**
+     * Resets the solver and loads all clause groups.
+     *
+     * @param solver       solver used for all groups
+     * @param clauseGroups CNF clauses per group, the first entry of each group is the DIMACS header
+     * @param logger       application logger for solver errors
+     */
+    public IncrementalSolver(ISolver solver, List<List<int[]>> clauseGroups, Logger logger) {
+        _Solver = solver;
+        _ApplicationLogger = logger;
+        _ActivationLiterals = new int[clauseGroups.size()];
+
+        var maxVariable = 0;
+        var clauseCount = 0;
+        for (var clauses : clauseGroups) {
+            maxVariable = Math.max(maxVariable, clauses.getFirst()[0]);
+            for (int i = 1; i < clauses.size(); i++) {
+                for (var literal : clauses.get(i)) {
+                    maxVariable = Math.max(maxVariable, Math.abs(literal));
+                }
+            }
+            clauseCount += clauses.size() - 1;
+        }
+        for (int group = 0; group < _ActivationLiterals.length; group++) {
+            _ActivationLiterals[group] = maxVariable + group + 1;
+        }
+
+        _Solver.reset();
+        _Solver.newVar(maxVariable + _ActivationLiterals.length);
+        _Solver.setExpectedNumberOfClauses(clauseCount);
+        try {
+            for (int group = 0; group < clauseGroups.size(); group++) {
+                var clauses = clauseGroups.get(group);
+                for (int i = 1; i < clauses.size(); i++) {
+                    var clause = new VecInt(clauses.get(i).length + 1);
+                    for (var literal : clauses.get(i)) {
+                        clause.push(literal);
+                    }
+                    clause.push(-_ActivationLiterals[group]);
+                    _Solver.addClause(clause);
+                }
+            }
+        } catch (ContradictionException e) {
+            _ApplicationLogger.fatal("There was an error setting up the solver with clauses: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the enumeration of the models of a single group.
+     *
+     * @param group      index of the clause group
+     * @param projection variables the models are projected onto
+     * @return spliterator over the models of the group
+     */
+    public ModelSpliterator models(int group, int[] projection) {
+        return new ModelSpliterator(_Solver, projection, _ApplicationLogger, _ActivationLiterals[group]);
+    }
+
+    /**
+     * Permanently disables the clauses and blocking clauses of a group.
+     *
+     * @param group index of the clause group
+     */
+    public void retire(int group) {
+        try {
+            _Solver.addClause(new VecInt(new int[]{-_ActivationLiterals[group]}));
+        } catch (ContradictionException e) {
+            _ApplicationLogger.fatal("There was an error retiring the clauses of group " + group + ": " + e.getMessage());
+        }
+    }
+}
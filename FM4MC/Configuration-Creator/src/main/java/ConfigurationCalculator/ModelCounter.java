@@ -0,0 +1,264 @@
+package ConfigurationCalculator;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Exact model counter (#SAT) for CNF clauses in the DIMACS integer format used
+ * by the {@link CNFClauseGenerator.CNFClauseGenerator}. The counter propagates
+ * unit clauses, splits the remaining formula into independent components and
+ * branches on the most frequent variable of each component. The counts of
+ * components are cached, so recurring sub-formulas are only counted once.
+ * Only variables that occur in the clauses are counted, which matches the
+ * models enumerated by the solver.
+ * <p>
+ * Optionally a variable stands for several models when it is selected, e.g. the
+ * representative of interchangeable features. A model is then counted with the
+ * product of the weights of its selected variables.
+ */
+public class ModelCounter {
+    private final Map<ComponentKey, BigInteger> _ComponentCache = new HashMap<>();
+    private final Map<Integer, BigInteger> _Weights;
+
+    /**
+     * Creates a counter in which every model counts once.
+     */
+    public ModelCounter() {
+        this(Map.of());
+    }
+
+    /**
+     * Creates a counter with weighted variables.
+     *
+     * @param weights weight of a variable if it is selected, variables without weight count once
+     */
+    public ModelCounter(Map<Integer, BigInteger> weights) {
+        _Weights = weights;
+    }
+
+    /**
+     * Counts the models of the given clauses.
+     *
+     * @param cnfClauses CNF clauses, the first entry is the DIMACS header
+     * @return number of models over all variables occurring in the clauses
+     */
+    public BigInteger count(List<int[]> cnfClauses) {
+        return count(cnfClauses, new int[0]);
+    }
+
+    /**
+     * Counts the models of the given clauses under the given assumptions.
+     *
+     * @param cnfClauses  CNF clauses, the first entry is the DIMACS header
+     * @param assumptions literals that are fixed for the count
+     * @return number of models over all variables occurring in the clauses
+     */
+    public BigInteger count(List<int[]> cnfClauses, int[] assumptions) {
+        var clauses = new ArrayList<int[]>(cnfClauses.size() + assumptions.length);
+        for (int i = 1; i < cnfClauses.size(); i++) {
+            clauses.add(cnfClauses.get(i));
+        }
+        // assumptions on variables outside the clauses do not change the count
+        var variables = variablesOf(clauses);
+        for (var assumption : assumptions) {
+            if (variables.contains(Math.abs(assumption))) {
+                clauses.add(new int[]{assumption});
+            }
+        }
+        return countFormula(clauses);
+    }
+
+    /**
+     * Counts the models of a formula over the variables occurring in it.
+     */
+    private BigInteger countFormula(List<int[]> clauses) {
+        var universe = variablesOf(clauses).size();
+        var assignment = new HashMap<Integer, Boolean>();
+        var remaining = propagate(clauses, assignment);
+        if (remaining == null) {
+            return BigInteger.ZERO;
+        }
+        var remainingVariables = variablesOf(remaining);
+        var freeVariables = universe - assignment.size() - remainingVariables.size();
+
+        var result = BigInteger.ONE.shiftLeft(freeVariables);
+        if (!_Weights.isEmpty()) {
+            result = weightedResult(clauses, assignment, remainingVariables);
+        }
+        for (var component : components(remaining)) {
+            result = result.multiply(countComponent(component));
+            if (result.signum() == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return product of the weights of the selected variables and of (1 + weight) of the free variables
+     */
+    private BigInteger weightedResult(List<int[]> clauses, Map<Integer, Boolean> assignment, Set<Integer> remainingVariables) {
+        var result = BigInteger.ONE;
+        for (var variable : variablesOf(clauses)) {
+            var weight = _Weights.getOrDefault(variable, BigInteger.ONE);
+            var value = assignment.get(variable);
+            if (value == null && !remainingVariables.contains(variable)) {
+                result = result.multiply(weight.add(BigInteger.ONE));
+            } else if (Boolean.TRUE.equals(value)) {
+                result = result.multiply(weight);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts a connected component by branching on its most frequent variable.
+     */
+    private BigInteger countComponent(List<int[]> component) {
+        var key = new ComponentKey(component);
+        var cached = _ComponentCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        var occurrences = new HashMap<Integer, Integer>();
+        for (var clause : component) {
+            for (var literal : clause) {
+                occurrences.merge(Math.abs(literal), 1, Integer::sum);
+            }
+        }
+        var branchVariable = Collections.max(occurrences.entrySet(), Map.Entry.comparingByValue()).getKey();
+
+        var positive = new ArrayList<>(component);
+        positive.add(new int[]{branchVariable});
+        var negative = new ArrayList<>(component);
+        negative.add(new int[]{-branchVariable});
+        var result = countFormula(positive).add(countFormula(negative));
+
+        _ComponentCache.put(key, result);
+        return result;
+    }
+
+    /**
+     * Applies unit propagation until no unit clause is left.
+     *
+     * @param clauses    clauses to simplify
+     * @param assignment receives all propagated variables
+     * @return the simplified clauses or {@code null} on a conflict
+     */
+    private List<int[]> propagate(List<int[]> clauses, Map<Integer, Boolean> assignment) {
+        var current = clauses;
+        while (true) {
+            var unit = current.stream().filter(clause -> clause.length == 1).findFirst();
+            if (unit.isEmpty()) {
+                return current;
+            }
+            var literal = unit.get()[0];
+            assignment.put(Math.abs(literal), literal > 0);
+
+            var simplified = new ArrayList<int[]>(current.size());
+            for (var clause : current) {
+                var satisfied = false;
+                var falseLiterals = 0;
+                for (var clauseLiteral : clause) {
+                    if (clauseLiteral == literal) {
+                        satisfied = true;
+                        break;
+                    } else if (clauseLiteral == -literal) {
+                        falseLiterals++;
+                    }
+                }
+                if (satisfied) {
+                    continue;
+                }
+                if (falseLiterals == 0) {
+                    simplified.add(clause);
+                    continue;
+                }
+                if (falseLiterals == clause.length) {
+                    return null;
+                }
+                var reduced = new int[clause.length - falseLiterals];
+                var position = 0;
+                for (var clauseLiteral : clause) {
+                    if (clauseLiteral != -literal) {
+                        reduced[position++] = clauseLiteral;
+                    }
+                }
+                simplified.add(reduced);
+            }
+            current = simplified;
+        }
+    }
+
+    /**
+     * Splits clauses into groups that do not share variables.
+     */
+    private List<List<int[]>> components(List<int[]> clauses) {
+        var parent = new HashMap<Integer, Integer>();
+        for (var clause : clauses) {
+            var first = find(parent, Math.abs(clause[0]));
+            for (int i = 1; i < clause.length; i++) {
+                var other = find(parent, Math.abs(clause[i]));
+                if (other != first) {
+                    parent.put(other, first);
+                }
+            }
+        }
+        var components = new LinkedHashMap<Integer, List<int[]>>();
+        for (var clause : clauses) {
+            components.computeIfAbsent(find(parent, Math.abs(clause[0])), k -> new ArrayList<>()).add(clause);
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    private int find(Map<Integer, Integer> parent, int variable) {
+        var root = variable;
+        Integer next;
+        while ((next = parent.get(root)) != null && next != root) {
+            root = next;
+        }
+        parent.put(variable, root);
+        return root;
+    }
+
+    private Set<Integer> variablesOf(List<int[]> clauses) {
+        var variables = new HashSet<Integer>();
+        for (var clause : clauses) {
+            for (var literal : clause) {
+                variables.add(Math.abs(literal));
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Canonical, order independent representation of a component used as cache key.
+     */
+    private static final class ComponentKey {
+        private final int[][] _Clauses;
+        private final int _Hash;
+
+        ComponentKey(List<int[]> clauses) {
+            _Clauses = clauses.stream()
+                    .map(clause -> {
+                        var sorted = clause.clone();
+                        Arrays.sort(sorted);
+                        return sorted;
+                    })
+                    .sorted(Arrays::compare)
+                    .toArray(int[][]::new);
+            _Hash = Arrays.deepHashCode(_Clauses);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ComponentKey that && _Hash == that._Hash && Arrays.deepEquals(_Clauses, that._Clauses);
+        }
+
+        @Override
+        public int hashCode() {
+            return _Hash;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ConfigurationCalculator;
+
+import org.apache.logging.log4j.Logger;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ContradictionException;
+import org.sat4j.specs.ISolver;
+import org.sat4j.specs.TimeoutException;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Pull-based enumeration of the models of an initialized solver. Every call
+ * to {@link #tryAdvance(Consumer)} asks the solver for the next model, hands
+ * its positive literals (without the root) to the consumer and blocks it on the
+ * projection variables. Only the current model is held in memory, the number of
+ * models is not known in advance and the spliterator does not split.
+ * With an activation literal the solver is asked under the assumption of that
+ * literal and the blocking clauses are guarded by it, see {@link IncrementalSolver}.
+ */
+public class ModelSpliterator extends Spliterators.AbstractSpliterator<int[]> {
+    private final ISolver _Solver;
+    private final int[] _ProjectedVariables;
+    private final Logger _ApplicationLogger;
+    private final int _ActivationLiteral;
+    private final VecInt _Assumptions;
+    private boolean _Exhausted;
+    private volatile boolean _Cancelled;
+
+    /**
+     * @param solver     solver that already contains all clauses
+     * @param projection variables the models are projected onto
+     * @param logger     application logger for solver errors
+     */
+    public ModelSpliterator(ISolver solver, int[] projection, Logger logger) {
+        this(solver, projection, logger, 0);
+    }
+
+    /**
+     * @param solver            solver that already contains all clauses
+     * @param projection        variables the models are projected onto
+     * @param logger            application logger for solver errors
+     * @param activationLiteral literal that is assumed for the enumeration, 0 for none
+     */
+    public ModelSpliterator(ISolver solver, int[] projection, Logger logger, int activationLiteral) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        _Solver = solver;
+        _ProjectedVariables = Arrays.stream(projection).filter(x -> x <= solver.nVars()).toArray();
+        _ApplicationLogger = logger;
+        _ActivationLiteral = activationLiteral;
+        _Assumptions = activationLiteral == 0 ? new VecInt() : new VecInt(new int[]{activationLiteral});
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        if (_Exhausted || _Cancelled) {
+            return false;
+        }
+        try {
+            if (!_Solver.isSatisfiable(_Assumptions)) {
+                _Exhausted = true;
+                return false;
+            }
+            var model = Arrays.stream(_Solver.model()).filter(x -> x > 1).toArray();
+            blockModel();
+            action.accept(model);
+            return true;
+        } catch (TimeoutException e) {
+            if (!_Cancelled) {
+                _ApplicationLogger.fatal("There was an error calculating the models: " + e.getMessage());
+            }
+            _Exhausted = true;
+            return false;
+        }
+    }
+
+    /**
+     * Stops the enumeration, a running search of the solver is aborted through its timeout.
+     * May be called from another thread.
+     */
+    public void cancel() {
+        _Cancelled = true;
+        _Solver.expireTimeout();
+    }
+
+    /**
+     * Adds the blocking clause of the current model over the projection variables.
+     * A contradiction means that all projected models are found.
+     */
+    private void blockModel() {
+        if (_ProjectedVariables.length == 0) {
+            _Exhausted = true;
+            return;
+        }
+        var blockingClause = new VecInt(_ProjectedVariables.length + 1);
+        for (var variable : _ProjectedVariables) {
+            blockingClause.push(_Solver.model(variable) ? -variable : variable);
+        }
+        if (_ActivationLiteral != 0) {
+            blockingClause.push(-_ActivationLiteral);
+        }
+        try {
+            _Solver.addBlockingClause(blockingClause);
+        } catch (ContradictionException e) {
+            _Exhausted = true;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package ConfigurationCalculator;
+
+import IO.impl.DriveHandle;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Persistent, content addressed cache of the enumerated configurations of
+ * partial feature models. The key is the SHA-256 hash of the normalized CNF of
+ * a PFM: the variables are renumbered in the order of their first occurrence in
+ * the projection and the clauses, the literals of every clause are sorted and
+ * the header is left out. Identical sub-chains of different feature models and
+ * unchanged PFMs of an edited feature model therefore share one entry.
+ * <p>
+ * An entry stores every configuration in index form, as the positions of the
+ * selected features in the projection. Entries are files in the cache directory,
+ * when the directory exceeds its size bound the least recently used entries are
+ * deleted. The last use of an entry is its modification time, so the order
+ * survives between runs.
+ */
+public class PFMSolutionCache implements IPFMSolutionStore {
+
+    /** file extension of a cache entry */
+    public static final String FILE_EXTENSION = ".pfmc";
+    /** "FM4P" */
+    private static final int MAGIC_NUMBER = 0x464D3450;
+    private static final int VERSION = 1;
+    private final Logger _ApplicationLogger;
+    private final File _Directory;
+    private final long _MaxSizeInBytes;
+    // access ordered, the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Long> _EntrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long _SizeInBytes;
+    private long _Hits;
+    private long _Misses;
+    private long _Evictions;
+
+    /**
+     * Opens the cache in the given directory, existing entries are kept.
+     *
+     * @param logger         application logger used for error reporting
+     * @param directory      directory of the cache entries, created if missing
+     * @param maxSizeInBytes upper bound of the size of all entries
+     */
+    public PFMSolutionCache(Logger logger, String directory, long maxSizeInBytes) {
+        _ApplicationLogger = logger;
+        _Directory = new File(directory);
+        _MaxSizeInBytes = maxSizeInBytes;
+        // createFolderFromPath only creates the parents of the given directory
+        if (!_Directory.isDirectory() && !_Directory.mkdirs()) {
+            throw new IllegalStateException("Couldn't create dir: " + _Directory);
+        }
+
+        var entries = _Directory.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (entries != null) {
+            Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+            for (var entry : entries) {
+                var key = entry.getName().substring(0, entry.getName().length() - FILE_EXTENSION.length());
+                _EntrySizes.put(key, entry.length());
+                _SizeInBytes += entry.length();
+            }
+        }
+        evict();
+    }
+
+    /**
+     * Creates the key of a PFM.
+     *
+     * @param clauses    CNF of the PFM with the header as first element, as created by
+     *                   {@link CNFClauseGenerator.CNFClauseGenerator#createConcretePFMClauses}
+     * @param projection variables the configurations are projected onto
+     * @return hex encoded SHA-256 hash of the normalized CNF
+     */
+    public static String keyOf(List<int[]> clauses, int[] projection) {
+        var variables = new HashMap<Integer, Integer>();
+        var buffer = ByteBuffer.allocate(Integer.BYTES * (2 + projection.length));
+        buffer.putInt(projection.length);
+        for (var variable : projection) {
+            buffer.putInt(canonicalLiteral(variables, variable));
+        }
+        buffer.putInt(clauses.size() - 1);
+
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer.array());
+            for (var clause : clauses.subList(1, clauses.size())) {
+                var literals = new int[clause.length];
+                for (int i = 0; i < clause.length; i++) {
+                    literals[i] = canonicalLiteral(variables, clause[i]);
+                }
+                Arrays.sort(literals);
+                var clauseBuffer = ByteBuffer.allocate(Integer.BYTES * (1 + literals.length));
+                clauseBuffer.putInt(literals.length);
+                for (var literal : literals) {
+                    clauseBuffer.putInt(literal);
+                }
+                digest.update(clauseBuffer.array());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static int canonicalLiteral(Map<Integer, Integer> variables, int literal) {
+        var variable = variables.computeIfAbsent(Math.abs(literal), k -> variables.size() + 1);
+        return literal < 0 ? -variable : variable;
+    }
+
+    /**
+     * Looks up the configurations of a PFM and marks the entry as recently used.
+     *
+     * @param key            key of the PFM, see {@link #keyOf}
+     * @param projectionSize number of variables the configurations are projected onto
+     * @return positions of the selected features in the projection per configuration, {@code null} on a miss
+     */
+    @Override
+    public synchronized List<int[]> get(String key, int projectionSize) {
+        // get instead of containsKey, only get updates the access order
+        if (_EntrySizes.get(key) == null) {
+            _Misses++;
+            return null;
+        }
+        var file = entryFile(key);
+        try (var reader = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (reader.readInt() != MAGIC_NUMBER || reader.readInt() != VERSION || reader.readInt() != projectionSize) {
+                throw new IOException(file + " is not a valid cache entry");
+            }
+            var count = reader.readInt();
+            var configurations = new ArrayList<int[]>(count);
+            for (int i = 0; i < count; i++) {
+                var configuration = new int[reader.readInt()];
+                for (int j = 0; j < configuration.length; j++) {
+                    configuration[j] = reader.readInt();
+                }
+                configurations.add(configuration);
+            }
+            _Hits++;
+            file.setLastModified(System.currentTimeMillis());
+            return configurations;
+        } catch (IOException e) {
+            _ApplicationLogger.warn(e);
+            remove(key);
+            _Misses++;
+            return null;
+        }
+    }
+
+    /**
+     * Stores the configurations of a PFM and evicts the least recently used entries
+     * if the cache exceeds its size bound.
+     *
+     * @param key            key of the PFM, see {@link #keyOf}
+     * @param projectionSize number of variables the configurations are projected onto
+     * @param configurations positions of the selected features in the projection per configuration
+     */
+    @Override
+    public synchronized void put(String key, int projectionSize, List<int[]> configurations) {
+        var file = entryFile(key);
+        var temporaryFile = new File(_Directory, key + ".tmp");
+        try {
+            try (var writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+                writer.writeInt(MAGIC_NUMBER);
+                writer.writeInt(VERSION);
+                writer.writeInt(projectionSize);
+                writer.writeInt(configurations.size());
+                for (var configuration : configurations) {
+                    writer.writeInt(configuration.length);
+                    for (var position : configuration) {
+                        writer.writeInt(position);
+                    }
+                }
+            }
+            // other processes only see complete entries
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            _ApplicationLogger.warn(e);
+            temporaryFile.delete();
+            return;
+        }
+        var previousSize = _EntrySizes.put(key, file.length());
+        _SizeInBytes += file.length() - (previousSize == null ? 0 : previousSize);
+        evict();
+    }
+
+    private void evict() {
+        var iterator = _EntrySizes.entrySet().iterator();
+        while (_SizeInBytes > _MaxSizeInBytes && iterator.hasNext()) {
+            var eldest = iterator.next();
+            entryFile(eldest.getKey()).delete();
+            _SizeInBytes -= eldest.getValue();
+            _Evictions++;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Deletes every entry whose key is not given, e.g. the entries of PFMs that were removed
+     * from the feature model.
+     *
+     * @param keys keys of the entries that are kept
+     */
+    public synchronized void retainAll(Collection<String> keys) {
+        var iterator = _EntrySizes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (!keys.contains(entry.getKey())) {
+                entryFile(entry.getKey()).delete();
+                _SizeInBytes -= entry.getValue();
+                iterator.remove();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        var size = _EntrySizes.remove(key);
+        if (size != null) {
+            _SizeInBytes -= size;
+        }
+        entryFile(key).delete();
+    }
+
+    private File entryFile(String key) {
+        return new File(_Directory, key + FILE_EXTENSION);
+    }
+
+    /**
+     * @return number of lookups that found an entry
+     */
+    public synchronized long getHits() {
+        return _Hits;
+    }
+
+    /**
+     * @return number of lookups that found no entry
+     */
+    public synchronized long getMisses() {
+        return _Misses;
+    }
+
+    /**
+     * @return number of entries deleted to keep the size bound
+     */
+    public synchronized long getEvictions() {
+        return _Evictions;
+    }
+
+    /**
+     * @return size of all entries in bytes
+     */
+    public synchronized long getSizeInBytes() {
+        return _SizeInBytes;
+    }
+}
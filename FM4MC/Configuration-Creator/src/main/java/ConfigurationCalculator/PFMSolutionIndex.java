@@ -0,0 +1,79 @@
+package ConfigurationCalculator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental preprocessing on top of a {@link PFMSolutionCache}. The cache key
+ * covers the features, the local CTCs and the boundaries of a PFM, so after an
+ * edit of the feature model only the PFMs with a new key miss the cache and are
+ * solved again; all other PFMs are taken from the previous run.
+ * <p>
+ * The index is the set of keys of the current run over the entries of the cache.
+ * Without a shared cache, the entries live in a cache directory next to the
+ * configuration file, see {@link #indexPathFor}, and {@link #retainCurrentPFMs()}
+ * deletes the entries of PFMs that are no longer part of the feature model.
+ */
+public class PFMSolutionIndex implements IPFMSolutionStore {
+
+    /** extension of the cache directory appended to the path of the configuration file */
+    public static final String FILE_EXTENSION = ".pfmi";
+    private final PFMSolutionCache _Cache;
+    private final Set<String> _CurrentKeys = new HashSet<>();
+    private long _Reused;
+    private long _Solved;
+
+    /**
+     * @param cache cache with the PFMs of the previous run, e.g. opened at {@link #indexPathFor}
+     */
+    public PFMSolutionIndex(PFMSolutionCache cache) {
+        _Cache = cache;
+    }
+
+    /**
+     * @return path of the cache directory that belongs to the given configuration file
+     */
+    public static String indexPathFor(String configurationFilePath) {
+        return configurationFilePath + FILE_EXTENSION;
+    }
+
+    @Override
+    public synchronized List<int[]> get(String key, int projectionSize) {
+        var configurations = _Cache.get(key, projectionSize);
+        if (configurations != null) {
+            _Reused++;
+            _CurrentKeys.add(key);
+        }
+        return configurations;
+    }
+
+    @Override
+    public synchronized void put(String key, int projectionSize, List<int[]> configurations) {
+        _Solved++;
+        _CurrentKeys.add(key);
+        _Cache.put(key, projectionSize, configurations);
+    }
+
+    /**
+     * Deletes the cache entries of all PFMs that were not used in the current run. Only
+     * for a cache that belongs to a single configuration file, not for a shared one.
+     */
+    public synchronized void retainCurrentPFMs() {
+        _Cache.retainAll(_CurrentKeys);
+    }
+
+    /**
+     * @return number of PFMs taken from the previous run
+     */
+    public synchronized long getReused() {
+        return _Reused;
+    }
+
+    /**
+     * @return number of PFMs that were solved in the current run
+     */
+    public synchronized long getSolved() {
+        return _Solved;
+    }
+}
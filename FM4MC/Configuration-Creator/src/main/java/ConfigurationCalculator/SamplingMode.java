@@ -0,0 +1,17 @@
+package ConfigurationCalculator;
+
+/**
+ * Defines how the {@link ConfigurationCalculator} selects the sampled
+ * configurations of a partial feature model, see {@link ConfigurationSampler}.
+ */
+public enum SamplingMode {
+    /**
+     * Distinct configurations drawn uniformly at random from all valid configurations.
+     */
+    UNIFORM,
+    /**
+     * Configurations chosen greedily from a uniform candidate pool until every pair
+     * of feature selections that occurs in the pool is covered.
+     */
+    PAIRWISE
+}
@@ -0,0 +1,71 @@
+package ConfigurationCalculator.Solver;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Abstraction over the SAT solver used by the {@link ConfigurationCalculator.ConfigurationCalculator}:
+ * load the CNF of a (partial) feature model, then enumerate or count its models projected
+ * onto the relevant variables. A backend is used by one thread at a time, only
+ * {@link #cancel()} may be called from another thread.
+ */
+public interface ISolverBackend extends AutoCloseable {
+
+    /**
+     * @return name of the backend and its configuration, e.g. for benchmark results
+     */
+    String getName();
+
+    /**
+     * Replaces the currently loaded clauses and clears a previous cancellation.
+     *
+     * @param cnfClauses CNF clauses, the first entry is the DIMACS header
+     */
+    void load(List<int[]> cnfClauses);
+
+    /**
+     * Enumerates all models of the loaded clauses that differ in the projection variables.
+     *
+     * @param projection variables the models are projected onto
+     * @return positive literals (without the root) of every model
+     * @throws CancellationException if the enumeration was cancelled before it was complete
+     */
+    List<int[]> enumerate(int[] projection);
+
+    /**
+     * Enumerates the models like {@link #enumerate(int[])}, but hands them out while they are
+     * consumed. Backends without a lazy enumeration collect all models first.
+     *
+     * @param projection variables the models are projected onto
+     * @return spliterator over the positive literals of every model
+     */
+    default Spliterator<int[]> models(int[] projection) {
+        return enumerate(projection).spliterator();
+    }
+
+    /**
+     * Counts the models of the loaded clauses that differ in the projection variables.
+     *
+     * @param projection variables the models are projected onto
+     * @return number of projected models
+     * @throws CancellationException if the count was cancelled before it was complete
+     */
+    default BigInteger count(int[] projection) {
+        return BigInteger.valueOf(enumerate(projection).size());
+    }
+
+    /**
+     * Stops a running enumeration as soon as possible, the enumeration then throws a
+     * {@link CancellationException}.
+     */
+    void cancel();
+
+    /**
+     * Releases native resources of the backend.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,119 @@
+package ConfigurationCalculator.Solver;
+
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Races several solver backends on the same CNF. Every member enumerates the
+ * models on its own thread, the result of the first member that finishes is
+ * returned and all other members are cancelled. Since the runtime of hard PFMs
+ * depends strongly on the solver heuristics, the race bounds the worst case by
+ * the fastest member. The members run on a pool that is created once per
+ * portfolio and shut down by {@link #close()}.
+ */
+public class PortfolioSolverBackend implements ISolverBackend {
+    private final List<ISolverBackend> _Members;
+    private final Logger _ApplicationLogger;
+    private final ExecutorService _Executor;
+    private volatile String _LastWinner;
+
+    /**
+     * @param members backends that race against each other, they are owned by the portfolio
+     * @param logger  application logger
+     */
+    public PortfolioSolverBackend(List<ISolverBackend> members, Logger logger) {
+        _Members = List.copyOf(members);
+        _ApplicationLogger = logger;
+        _Executor = Executors.newFixedThreadPool(_Members.size());
+    }
+
+    @Override
+    public String getName() {
+        return _Members.stream().map(ISolverBackend::getName).collect(Collectors.joining(",", "portfolio(", ")"));
+    }
+
+    /**
+     * @return name of the member that won the last race or {@code null}
+     */
+    public String getLastWinner() {
+        return _LastWinner;
+    }
+
+    @Override
+    public void load(List<int[]> cnfClauses) {
+        _Members.forEach(member -> member.load(cnfClauses));
+    }
+
+    /**
+     * @throws IllegalStateException if every member failed, the cause is the failure of the last member
+     */
+    @Override
+    public List<int[]> enumerate(int[] projection) {
+        var completionService = new ExecutorCompletionService<RaceResult>(_Executor);
+        // counted down by every member, also by one that starts after the race was decided
+        var finishedMembers = new CountDownLatch(_Members.size());
+        for (var member : _Members) {
+            completionService.submit(() -> {
+                try {
+                    return new RaceResult(member.getName(), member.enumerate(projection));
+                } finally {
+                    finishedMembers.countDown();
+                }
+            });
+        }
+        try {
+            Throwable lastFailure = null;
+            for (int i = 0; i < _Members.size(); i++) {
+                try {
+                    var winner = completionService.take().get();
+                    _LastWinner = winner.name();
+                    return winner.models();
+                } catch (ExecutionException e) {
+                    lastFailure = e.getCause();
+                }
+            }
+            throw new IllegalStateException("No solver of the portfolio finished", lastFailure);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("portfolio was interrupted");
+        } finally {
+            // the members are reused for the next CNF, so the losers have to stop before this returns
+            _Members.forEach(ISolverBackend::cancel);
+            awaitMembers(finishedMembers);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        _Members.forEach(ISolverBackend::cancel);
+    }
+
+    @Override
+    public void close() {
+        _Executor.shutdownNow();
+        try {
+            if (!_Executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                _ApplicationLogger.warn("Solvers of the portfolio did not terminate");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        _Members.forEach(ISolverBackend::close);
+    }
+
+    private void awaitMembers(CountDownLatch finishedMembers) {
+        try {
+            while (!finishedMembers.await(1, TimeUnit.MINUTES)) {
+                _ApplicationLogger.warn("Waiting for cancelled solvers of the portfolio");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record RaceResult(String name, List<int[]> models) {
+    }
+}
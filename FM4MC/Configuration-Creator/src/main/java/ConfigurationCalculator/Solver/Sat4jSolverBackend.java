@@ -0,0 +1,96 @@
+package ConfigurationCalculator.Solver;
+
+import CNFClauseGenerator.CNFClauseGenerator;
+import ConfigurationCalculator.ModelSpliterator;
+import org.apache.logging.log4j.Logger;
+import org.sat4j.core.VecInt;
+import org.sat4j.specs.ISolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Solver backend on top of a sat4j solver. The solver configuration is chosen by
+ * the caller, see {@link SolverBackendType}.
+ */
+public class Sat4jSolverBackend implements ISolverBackend {
+    private final String _Name;
+    private final ISolver _Solver;
+    private final Logger _ApplicationLogger;
+    private volatile ModelSpliterator _Enumeration;
+    private volatile boolean _Cancelled;
+
+    /**
+     * @param name   name of the solver configuration
+     * @param solver sat4j solver used for all enumerations
+     * @param logger application logger for solver errors
+     */
+    public Sat4jSolverBackend(String name, ISolver solver, Logger logger) {
+        _Name = name;
+        _Solver = solver;
+        _ApplicationLogger = logger;
+    }
+
+    @Override
+    public String getName() {
+        return _Name;
+    }
+
+    @Override
+    public void load(List<int[]> cnfClauses) {
+        _Cancelled = false;
+        _Enumeration = null;
+        _Solver.reset();
+        var headerCnfDIMACS = cnfClauses.getFirst();
+
+        _Solver.newVar(CNFClauseGenerator.variableCount(headerCnfDIMACS));
+        _Solver.setExpectedNumberOfClauses(headerCnfDIMACS[1]);
+
+        try {
+            for (int i = 1; i < cnfClauses.size(); i++) {
+                _Solver.addClause(new VecInt(cnfClauses.get(i)));
+            }
+        } catch (Exception e) {
+            _ApplicationLogger.fatal("There was an error setting up the solver with clauses: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a lazy enumeration of the projected models of the loaded clauses.
+     *
+     * @param projection variables the models are projected onto
+     * @return spliterator over the models
+     */
+    @Override
+    public ModelSpliterator models(int[] projection) {
+        var enumeration = new ModelSpliterator(_Solver, projection, _ApplicationLogger);
+        _Enumeration = enumeration;
+        if (_Cancelled) {
+            enumeration.cancel();
+        }
+        return enumeration;
+    }
+
+    @Override
+    public List<int[]> enumerate(int[] projection) {
+        var models = new ArrayList<int[]>();
+        var enumeration = models(projection);
+        while (!_Cancelled && enumeration.tryAdvance(models::add)) {
+            // models are collected by the consumer
+        }
+        if (_Cancelled) {
+            throw new CancellationException(_Name + " was cancelled");
+        }
+        return models;
+    }
+
+    @Override
+    public void cancel() {
+        _Cancelled = true;
+        var enumeration = _Enumeration;
+        if (enumeration != null) {
+            enumeration.cancel();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package ConfigurationCalculator.Solver;
+
+import org.apache.logging.log4j.Logger;
+import org.sat4j.minisat.SolverFactory;
+
+import java.util.List;
+
+/**
+ * Available solver backends of the {@link ConfigurationCalculator.ConfigurationCalculator}.
+ */
+public enum SolverBackendType {
+    /** sat4j with its default configuration */
+    SAT4J_DEFAULT,
+    /** sat4j with the light configuration for small problems */
+    SAT4J_LIGHT,
+    /** sat4j with the glucose 2.1 configuration */
+    SAT4J_GLUCOSE,
+    /** Z3 */
+    Z3,
+    /** races sat4j default, sat4j glucose and Z3, see {@link PortfolioSolverBackend} */
+    PORTFOLIO;
+
+    /**
+     * Creates a new backend of this type.
+     *
+     * @param logger application logger for solver errors
+     * @return backend that has to be closed after use
+     */
+    public ISolverBackend create(Logger logger) {
+        return switch (this) {
+            case SAT4J_DEFAULT -> new Sat4jSolverBackend("sat4j-default", SolverFactory.newDefault(), logger);
+            case SAT4J_LIGHT -> new Sat4jSolverBackend("sat4j-light", SolverFactory.newLight(), logger);
+            case SAT4J_GLUCOSE -> new Sat4jSolverBackend("sat4j-glucose", SolverFactory.newGlucose21(), logger);
+            case Z3 -> new Z3SolverBackend(logger);
+            case PORTFOLIO -> new PortfolioSolverBackend(List.of(
+                    SAT4J_DEFAULT.create(logger), SAT4J_GLUCOSE.create(logger), Z3.create(logger)), logger);
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package ConfigurationCalculator.Solver;
+
+import com.microsoft.z3.BoolExpr;
+import com.microsoft.z3.Context;
+import com.microsoft.z3.Solver;
+import com.microsoft.z3.Status;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Solver backend on top of Z3. Every variable of the CNF is a boolean constant,
+ * every clause a disjunction of these constants. Models are enumerated with
+ * blocking clauses over the projection variables like in the sat4j backend.
+ */
+public class Z3SolverBackend implements ISolverBackend {
+    private volatile Context _Context = new Context();
+    private final Logger _ApplicationLogger;
+    private Solver _Solver;
+    private BoolExpr[] _Variables = new BoolExpr[0];
+    private volatile boolean _Cancelled;
+
+    /**
+     * @param logger application logger for solver errors
+     */
+    public Z3SolverBackend(Logger logger) {
+        _ApplicationLogger = logger;
+    }
+
+    @Override
+    public String getName() {
+        return "z3";
+    }
+
+    @Override
+    public void load(List<int[]> cnfClauses) {
+        if (_Cancelled) {
+            // an interrupt can stay pending in the context and would drop clauses of the next CNF
+            _Context.close();
+            _Context = new Context();
+            _Cancelled = false;
+        }
+        var maxVariable = cnfClauses.getFirst()[0];
+        for (int i = 1; i < cnfClauses.size(); i++) {
+            for (var literal : cnfClauses.get(i)) {
+                maxVariable = Math.max(maxVariable, Math.abs(literal));
+            }
+        }
+        _Variables = new BoolExpr[maxVariable + 1];
+        _Solver = _Context.mkSolver();
+        // typed arrays, the generic varargs of Solver.add would create an unchecked array per call
+        var clauses = new BoolExpr[cnfClauses.size() - 1];
+        for (int i = 1; i < cnfClauses.size(); i++) {
+            var clause = cnfClauses.get(i);
+            var literals = new BoolExpr[clause.length];
+            for (int j = 0; j < clause.length; j++) {
+                literals[j] = toLiteral(clause[j]);
+            }
+            clauses[i - 1] = _Context.mkOr(literals);
+        }
+        _Solver.add(clauses);
+    }
+
+    @Override
+    public List<int[]> enumerate(int[] projection) {
+        var models = new ArrayList<int[]>();
+        var projectedVariables = Arrays.stream(projection).filter(x -> x > 0 && x < _Variables.length).toArray();
+        while (!_Cancelled) {
+            var status = _Solver.check();
+            if (status == Status.UNSATISFIABLE) {
+                return models;
+            }
+            if (status == Status.UNKNOWN) {
+                if (!_Cancelled) {
+                    _ApplicationLogger.fatal("There was an error calculating the models: " + _Solver.getReasonUnknown());
+                    return models;
+                }
+                break;
+            }
+            var model = _Solver.getModel();
+            var selected = new boolean[_Variables.length];
+            var positiveLiterals = 0;
+            for (int variable = 2; variable < _Variables.length; variable++) {
+                if (_Variables[variable] != null && model.eval(_Variables[variable], true).isTrue()) {
+                    selected[variable] = true;
+                    positiveLiterals++;
+                }
+            }
+            var positive = new int[positiveLiterals];
+            var position = 0;
+            for (int variable = 2; variable < _Variables.length; variable++) {
+                if (selected[variable]) {
+                    positive[position++] = variable;
+                }
+            }
+            models.add(positive);
+
+            if (projectedVariables.length == 0) {
+                return models;
+            }
+            var blockingClause = new BoolExpr[projectedVariables.length];
+            for (int i = 0; i < projectedVariables.length; i++) {
+                var variable = projectedVariables[i];
+                blockingClause[i] = toLiteral(selected[variable] ? -variable : variable);
+            }
+            _Solver.add(new BoolExpr[]{_Context.mkOr(blockingClause)});
+        }
+        throw new CancellationException(getName() + " was cancelled");
+    }
+
+    @Override
+    public void cancel() {
+        _Cancelled = true;
+        _Context.interrupt();
+    }
+
+    @Override
+    public void close() {
+        _Context.close();
+    }
+
+    private BoolExpr toLiteral(int literal) {
+        var variable = Math.abs(literal);
+        if (_Variables[variable] == null) {
+            _Variables[variable] = _Context.mkBoolConst(String.valueOf(variable));
+        }
+        return literal > 0 ? _Variables[variable] : _Context.mkNot(_Variables[variable]);
+    }
+}
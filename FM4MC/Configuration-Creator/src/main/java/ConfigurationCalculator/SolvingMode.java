@@ -0,0 +1,23 @@
+package ConfigurationCalculator;
+
+/**
+ * Defines how the {@link ConfigurationCalculator} uses the SAT solver for the
+ * abstract layer and the partial feature models.
+ */
+public enum SolvingMode {
+    /**
+     * The solver is reset and loaded with the clauses of every PFM on its own.
+     */
+    RESET,
+    /**
+     * The clauses of the whole sliced model are loaded once, every PFM is guarded
+     * by an activation literal and enumerated under its assumption, see {@link IncrementalSolver}.
+     */
+    INCREMENTAL,
+    /**
+     * Like {@link #RESET}, but the clauses of every PFM are simplified before they are
+     * loaded and the models are mapped back, see {@link CNFClauseGenerator.CNFSimplifier}.
+     * The configurations are the same, their order may differ.
+     */
+    SIMPLIFIED
+}
@@ -0,0 +1,91 @@
+package ConfigurationCalculator.Structures;
+
+import FeatureModelReader.Structures.Feature;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dense lookup table from CNF index and name to the features of a feature model.
+ * Also creates bitset masks over the feature indices that match the bitsets
+ * stored in {@link PartialConfiguration}.
+ */
+public class FeatureIndexTable {
+    private final Feature[] _FeaturesByIndex;
+    private final Map<String, Feature> _FeaturesByName;
+
+    /**
+     * Creates the table for the given features.
+     *
+     * @param features all features of the feature model
+     */
+    public FeatureIndexTable(List<Feature> features) {
+        var maxIndex = features.stream().mapToInt(Feature::getIndex).max().orElse(0);
+        _FeaturesByIndex = new Feature[Math.max(0, maxIndex) + 1];
+        _FeaturesByName = new HashMap<>(features.size() * 2);
+        for (var feature : features) {
+            if (feature.getIndex() >= 0) {
+                _FeaturesByIndex[feature.getIndex()] = feature;
+            }
+            _FeaturesByName.putIfAbsent(feature.getName(), feature);
+        }
+    }
+
+    /**
+     * @return feature with the given index or {@code null}
+     */
+    public Feature getFeature(int index) {
+        return index >= 0 && index < _FeaturesByIndex.length ? _FeaturesByIndex[index] : null;
+    }
+
+    /**
+     * @return feature with the given name or {@code null}
+     */
+    public Feature getFeature(String name) {
+        return _FeaturesByName.get(name);
+    }
+
+    /**
+     * @return highest feature index contained in the table
+     */
+    public int getMaxIndex() {
+        return _FeaturesByIndex.length - 1;
+    }
+
+    /**
+     * Creates an empty mask that can hold every feature index of the table.
+     */
+    public long[] createMask() {
+        return new long[(_FeaturesByIndex.length >>> 6) + 1];
+    }
+
+    /**
+     * Creates a mask with the bits of the given features set.
+     *
+     * @param features features to set
+     * @return bitset over feature indices
+     */
+    public long[] createMask(Collection<Feature> features) {
+        var mask = createMask();
+        features.forEach(feature -> set(mask, feature.getIndex()));
+        return mask;
+    }
+
+    /**
+     * Sets the bit of the given index, indices outside the mask are ignored.
+     */
+    public static void set(long[] mask, int index) {
+        if (index >= 0 && (index >>> 6) < mask.length) {
+            mask[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * @return {@code true} if the bit of the given index is set
+     */
+    public static boolean contains(long[] mask, int index) {
+        return index >= 0 && (index >>> 6) < mask.length && (mask[index >>> 6] & (1L << index)) != 0;
+    }
+}
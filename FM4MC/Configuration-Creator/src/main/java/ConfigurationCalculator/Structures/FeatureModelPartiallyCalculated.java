@@ -1,7 +1,9 @@
 package ConfigurationCalculator.Structures;
 
 import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.InterchangeableFeatures;
 import FeatureModelSlicer.Structures.FeatureModelSliced;
+import KnowledgeCompiler.BinaryDecisionDiagram;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,6 +18,10 @@ public class FeatureModelPartiallyCalculated extends FeatureModelSliced {
     public List<List<PartialConfiguration>> configurationsPerPartialFeatureModel = new ArrayList<>();
     /** configurations on the abstract layer */
     public List<List<Feature>> abstractConfigurations = new ArrayList<>();
+    /** compiled diagram for each partial feature model, empty if the PFMs are not compiled */
+    public List<BinaryDecisionDiagram> partialFeatureModelDiagrams = new ArrayList<>();
+    /** classes of interchangeable alternatives the configurations were reduced to, empty without reduction */
+    public InterchangeableFeatures interchangeableFeatures = new InterchangeableFeatures();
 
     /**
      * Creates a new instance based on a sliced model.
@@ -0,0 +1,124 @@
+package ConfigurationCalculator.Structures;
+
+import FeatureModelReader.Structures.Feature;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Configurations of one partial feature model that are decoded on first access.
+ * The index information (count, referenced features, features required by every
+ * configuration and abstract parents) is known without decoding, so a PFM that
+ * cannot be part of any merged configuration is dropped without reading it.
+ * After decoding the list behaves like an {@link ArrayList}.
+ */
+public class LazyPartialConfigurations extends AbstractList<PartialConfiguration> {
+    private final int _Count;
+    private final List<Feature> _ReferencedFeatures;
+    private final List<Feature> _RequiredFeatures;
+    private final List<Feature> _AbstractParents;
+    private Supplier<List<PartialConfiguration>> _Decoder;
+    private List<PartialConfiguration> _Configurations;
+
+    /**
+     * @param count              number of configurations
+     * @param referencedFeatures features contained in at least one configuration
+     * @param requiredFeatures   features contained in every configuration
+     * @param abstractParents    abstract parents of the configurations
+     * @param decoder            decodes the configurations, called at most once
+     */
+    public LazyPartialConfigurations(int count, List<Feature> referencedFeatures, List<Feature> requiredFeatures,
+                                     List<Feature> abstractParents, Supplier<List<PartialConfiguration>> decoder) {
+        _Count = count;
+        _ReferencedFeatures = referencedFeatures;
+        _RequiredFeatures = requiredFeatures;
+        _AbstractParents = abstractParents;
+        _Decoder = decoder;
+    }
+
+    /**
+     * @return {@code true} if the configurations have been decoded
+     */
+    public synchronized boolean isDecoded() {
+        return _Configurations != null;
+    }
+
+    /**
+     * @return abstract parents of all configurations as stored in the index
+     */
+    public List<Feature> getAbstractParents() {
+        return _AbstractParents;
+    }
+
+    /**
+     * @param mask bitset over feature indices
+     * @return {@code true} if at least one configuration contains a feature of the mask
+     */
+    public boolean referencesAnyOf(long[] mask) {
+        return containsAnyOf(_ReferencedFeatures, mask);
+    }
+
+    /**
+     * @param mask bitset over feature indices
+     * @return {@code true} if every configuration contains a feature of the mask
+     */
+    public boolean requiresAnyOf(long[] mask) {
+        return _Count > 0 && containsAnyOf(_RequiredFeatures, mask);
+    }
+
+    private boolean containsAnyOf(List<Feature> features, long[] mask) {
+        for (var feature : features) {
+            if (FeatureIndexTable.contains(mask, feature.getIndex())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized List<PartialConfiguration> configurations() {
+        if (_Configurations == null) {
+            _Configurations = new ArrayList<>(_Decoder.get());
+            _Decoder = null;
+        }
+        return _Configurations;
+    }
+
+    @Override
+    public PartialConfiguration get(int index) {
+        return configurations().get(index);
+    }
+
+    @Override
+    public synchronized int size() {
+        return _Configurations == null ? _Count : _Configurations.size();
+    }
+
+    @Override
+    public PartialConfiguration set(int index, PartialConfiguration configuration) {
+        return configurations().set(index, configuration);
+    }
+
+    @Override
+    public void add(int index, PartialConfiguration configuration) {
+        configurations().add(index, configuration);
+        modCount++;
+    }
+
+    @Override
+    public PartialConfiguration remove(int index) {
+        modCount++;
+        return configurations().remove(index);
+    }
+
+    /**
+     * Removes all configurations without decoding them.
+     */
+    @Override
+    public synchronized void clear() {
+        _Configurations = new ArrayList<>();
+        _Decoder = null;
+        modCount++;
+    }
+}
@@ -1,27 +1,39 @@
 package ConfigurationCalculator.Structures;
 
 import FeatureModelReader.Structures.Feature;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a partial configuration composed of a list of features.
  * Provides methods to get, set, add, and remove features.
+ * The features are kept in a compact array together with a bitset over their
+ * CNF indices, so that membership tests do not need to compare feature names.
  */
 public class PartialConfiguration {
+    private static final Feature[] NO_FEATURES = new Feature[0];
+    private static final long[] NO_BITS = new long[0];
+
+    /**
+     * The features in the partial configuration, only the first {@code _Size} entries are used.
+     */
+    private Feature[] _Features = NO_FEATURES;
+    private int _Size;
     /**
-     * The list of features in the partial configuration.
+     * Bitset over the indices of all features in the configuration.
      */
-    private List<Feature> _Features;
+    private long[] _Bits = NO_BITS;
+    private int _Hash;
+    private boolean _HashValid;
+    private final List<Feature> _FeatureView = new FeatureView();
     private List<Feature> _AbstractParents;
 
     /**
      * Default constructor that initializes an empty feature list.
      */
     public PartialConfiguration() {
-        _Features = new ArrayList<>();
         _AbstractParents = new ArrayList<>();
     }
 
@@ -32,7 +44,8 @@ public class PartialConfiguration {
      *                 if null, an empty list is used.
      */
     public PartialConfiguration(List<Feature> features) {
-        _Features = (features != null) ? new ArrayList<>(features) : new ArrayList<>();
+        this();
+        initFeatures(features);
     }
 
     /**
@@ -41,7 +54,7 @@ public class PartialConfiguration {
      * @return an unmodifiable list of features.
      */
     public List<Feature> getFeatures() {
-        return Collections.unmodifiableList(_Features);
+        return _FeatureView;
     }
 
     /**
@@ -50,7 +63,13 @@ public class PartialConfiguration {
      * @param features the new list of features; if null, an empty list is used.
      */
     public void setFeatures(List<Feature> features) {
-        _Features = (features != null) ? new ArrayList<>(features) : new ArrayList<>();
+        initFeatures(features);
+    }
+
+    private void initFeatures(List<Feature> features) {
+        _Features = (features != null) ? features.toArray(NO_FEATURES) : NO_FEATURES;
+        _Size = _Features.length;
+        rebuildBits();
     }
 
     /**
@@ -60,7 +79,12 @@ public class PartialConfiguration {
      */
     public void addFeature(Feature feature) {
         if (feature != null) {
-            _Features.add(feature);
+            if (_Size == _Features.length) {
+                _Features = Arrays.copyOf(_Features, Math.max(4, _Size * 2));
+            }
+            _Features[_Size++] = feature;
+            setBit(feature.getIndex());
+            _HashValid = false;
         }
     }
 
@@ -71,26 +95,118 @@ public class PartialConfiguration {
      * @return true if the feature was removed, false otherwise.
      */
     public boolean removeFeature(Feature feature) {
-        return _Features.remove(feature);
+        for (int i = 0; i < _Size; i++) {
+            if (_Features[i].equals(feature)) {
+                System.arraycopy(_Features, i + 1, _Features, i, _Size - i - 1);
+                _Features[--_Size] = null;
+                rebuildBits();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the feature is part of this configuration by its index.
+     *
+     * @param feature feature to look up
+     * @return true if a feature with the same index is selected
+     */
+    public boolean contains(Feature feature) {
+        return containsIndex(feature.getIndex());
+    }
+
+    /**
+     * Checks whether the feature with the given CNF index is part of this configuration.
+     *
+     * @param featureIndex index of the feature
+     * @return true if the feature is selected
+     */
+    public boolean containsIndex(int featureIndex) {
+        if (featureIndex < 0) {
+            return false;
+        }
+        var word = featureIndex >>> 6;
+        return word < _Bits.length && (_Bits[word] & (1L << featureIndex)) != 0;
+    }
+
+    /**
+     * Checks whether at least one feature of this configuration is set in the given mask.
+     *
+     * @param mask bitset over feature indices, see {@link FeatureIndexTable#createMask}
+     * @return true if mask and configuration share a feature
+     */
+    public boolean intersects(long[] mask) {
+        var words = Math.min(mask.length, _Bits.length);
+        for (int i = 0; i < words; i++) {
+            if ((mask[i] & _Bits[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the bits of all features of this configuration in the given mask.
+     *
+     * @param mask bitset over feature indices, bits beyond its length are dropped
+     */
+    public void addTo(long[] mask) {
+        var words = Math.min(mask.length, _Bits.length);
+        for (int i = 0; i < words; i++) {
+            mask[i] |= _Bits[i];
+        }
+    }
+
+    private void setBit(int featureIndex) {
+        if (featureIndex < 0) {
+            return;
+        }
+        var word = featureIndex >>> 6;
+        if (word >= _Bits.length) {
+            _Bits = Arrays.copyOf(_Bits, word + 1);
+        }
+        _Bits[word] |= 1L << featureIndex;
+    }
+
+    private void rebuildBits() {
+        _Bits = NO_BITS;
+        for (int i = 0; i < _Size; i++) {
+            setBit(_Features[i].getIndex());
+        }
+        _HashValid = false;
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (!(o instanceof PartialConfiguration)) return false;
-        PartialConfiguration that = (PartialConfiguration) o;
-        return Objects.equals(_Features, that._Features);
+        if (!(o instanceof PartialConfiguration that)) return false;
+        if (_Size != that._Size || hashCode() != that.hashCode()) return false;
+        for (int i = 0; i < _Size; i++) {
+            if (!_Features[i].equals(that._Features[i])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(_Features);
+        if (!_HashValid) {
+            int hash = 1;
+            for (int i = 0; i < _Size; i++) {
+                hash = 31 * hash + _Features[i].hashCode();
+            }
+            _Hash = 31 + hash;
+            _HashValid = true;
+        }
+        return _Hash;
     }
 
     @Override
     public String toString() {
         return "PartialConfiguration{" +
-                "features=" + _Features +
+                "features=" + _FeatureView +
                 '}';
     }
 
@@ -118,4 +234,30 @@ public class PartialConfiguration {
     public void addAbstractParent(Feature abstractParent) {
         _AbstractParents.add(abstractParent);
     }
+
+    /**
+     * Read-only list view on the feature array.
+     */
+    private class FeatureView extends AbstractList<Feature> {
+        @Override
+        public Feature get(int index) {
+            if (index < 0 || index >= _Size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return _Features[index];
+        }
+
+        @Override
+        public int size() {
+            return _Size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof Feature feature && feature.getIndex() >= 0 && !containsIndex(feature.getIndex())) {
+                return false;
+            }
+            return super.contains(o);
+        }
+    }
 }
@@ -0,0 +1,437 @@
+package ConfigurationSerializer;
+
+import ConfigurationCalculator.Structures.FeatureIndexTable;
+import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationCalculator.Structures.LazyPartialConfigurations;
+import ConfigurationCalculator.Structures.PartialConfiguration;
+import FeatureModelReader.Structures.CrossTreeConstraint;
+import FeatureModelReader.Structures.CrossTreeConstraintRelation;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRead;
+import FeatureModelSlicer.Structures.FeatureModelSliced;
+import IO.impl.DriveHandle;
+import org.apache.logging.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Binary, dictionary-encoded counterpart of the CSV format of the
+ * {@link ConfigurationSerializer}. Features are referenced by their id in a
+ * dictionary of feature names, all counts and ids are unsigned varints.
+ * Layout of a file:
+ * 1. header: magic number and format version (ints)
+ * 2. CTCs: count, then relation ordinal, source id and target id per constraint
+ * 3. one block per PFM: count of configurations, then per configuration the
+ * feature count and ids, followed by 0 if the configuration has the parents of
+ * the previous one or the parent count + 1 and the parent ids
+ * 4. abstract configurations: count, then feature count and ids per configuration
+ * 5. index: count of PFMs, then per PFM the absolute position of its block (long),
+ * the count of configurations, the referenced feature ids, the ids of the features
+ * contained in every configuration and the abstract parent ids
+ * 6. dictionary: count, then UTF-8 length and bytes per feature name
+ * 7. footer: positions of the abstract configurations, the index and the
+ * dictionary (longs) and the magic number
+ * <p>
+ * The dictionary is written last, so configurations can be written while they
+ * are calculated. The loader reads the footer first and maps every section with
+ * a {@link java.nio.MappedByteBuffer}. With the index a PFM can also be decoded
+ * lazily, when it is visited for the first time ({@link LazyPartialConfigurations}).
+ */
+public class BinaryConfigurationSerializer {
+
+    /** "FM4C" */
+    public static final int MAGIC_NUMBER = 0x464D3443;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int FOOTER_SIZE = 3 * Long.BYTES + Integer.BYTES;
+    private final Logger _ApplicationLogger;
+
+    /**
+     * Creates a new serializer instance.
+     *
+     * @param logger application logger used for error reporting
+     */
+    public BinaryConfigurationSerializer(Logger logger) {
+        _ApplicationLogger = logger;
+    }
+
+    /**
+     * @param filePath any file
+     * @return {@code true} if the file starts with the magic number of the binary format
+     */
+    public static boolean isBinaryConfigurationFile(String filePath) {
+        try (var channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ)) {
+            var buffer = ByteBuffer.allocate(Integer.BYTES);
+            return channel.read(buffer) == Integer.BYTES && buffer.getInt(0) == MAGIC_NUMBER;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Saves all calculated configurations of a (partial) feature model in the binary format.
+     *
+     * @param featureModelConfigurations FM with calculated configurations
+     * @param filePath                   path to the binary file
+     */
+    public void saveConfigurations(FeatureModelPartiallyCalculated featureModelConfigurations, String filePath) {
+        try (var writer = new SectionWriter(filePath)) {
+            writer.putHeader();
+            writer.putConstraints(featureModelConfigurations.crossTreeConstraints);
+            for (var partialConfigurations : featureModelConfigurations.configurationsPerPartialFeatureModel) {
+                writer.putBlock(partialConfigurations);
+            }
+            writer.putFooter(featureModelConfigurations.abstractConfigurations);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Saves configurations of a non-sliced feature model while they are calculated,
+     * every configuration is written as its own PFM.
+     *
+     * @param crossTreeConstraints CTCs that are not covered by the configurations
+     * @param configurations       stream of configurations with their abstract parents
+     * @param filePath             path to the binary file
+     */
+    public void saveConfigurations(List<CrossTreeConstraint> crossTreeConstraints, Stream<PartialConfiguration> configurations, String filePath) {
+        var abstractConfigurations = new LinkedHashSet<List<Feature>>();
+        try (var writer = new SectionWriter(filePath)) {
+            writer.putHeader();
+            writer.putConstraints(crossTreeConstraints);
+            configurations.forEachOrdered(configuration -> {
+                writer.putBlock(List.of(configuration));
+                if (!abstractConfigurations.contains(configuration.getAbstractParent())) {
+                    abstractConfigurations.add(new ArrayList<>(configuration.getAbstractParent()));
+                }
+            });
+            writer.putFooter(new ArrayList<>(abstractConfigurations));
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads precalculated configurations for the given feature model from the binary format.
+     * Feature names are resolved once per dictionary entry.
+     *
+     * @param featureModelRead      feature model
+     * @param configurationFilePath path to a binary file containing configurations for the given fm
+     * @return a (sliced) feature model with calculated configurations for abstract and concrete layer
+     */
+    public FeatureModelPartiallyCalculated loadConfigurations(FeatureModelRead featureModelRead, String configurationFilePath) {
+        return loadConfigurations(featureModelRead, configurationFilePath, false);
+    }
+
+    /**
+     * Loads precalculated configurations for the given feature model from the binary format,
+     * the configurations of a PFM are decoded from the mapped file when its list is accessed
+     * for the first time. Every list is a {@link LazyPartialConfigurations}.
+     *
+     * @param featureModelRead      feature model
+     * @param configurationFilePath path to a binary file containing configurations for the given fm
+     * @return a (sliced) feature model with lazily decoded configurations
+     */
+    public FeatureModelPartiallyCalculated loadConfigurationsLazily(FeatureModelRead featureModelRead, String configurationFilePath) {
+        return loadConfigurations(featureModelRead, configurationFilePath, true);
+    }
+
+    private FeatureModelPartiallyCalculated loadConfigurations(FeatureModelRead featureModelRead, String configurationFilePath, boolean lazy) {
+        var featureModel = new FeatureModelPartiallyCalculated(new FeatureModelSliced(featureModelRead));
+        var featureIndexTable = new FeatureIndexTable(featureModel.features);
+
+        try (var channel = FileChannel.open(Path.of(configurationFilePath), StandardOpenOption.READ)) {
+            var size = channel.size();
+            var header = map(channel, 0, HEADER_SIZE);
+            var footer = map(channel, size - FOOTER_SIZE, size);
+            if (header.getInt() != MAGIC_NUMBER || footer.getInt(FOOTER_SIZE - Integer.BYTES) != MAGIC_NUMBER) {
+                _ApplicationLogger.fatal(configurationFilePath + " is not a binary configuration file");
+                return featureModel;
+            }
+            var version = header.getInt();
+            if (version != VERSION) {
+                _ApplicationLogger.fatal(configurationFilePath + " has the unsupported binary configuration version " + version);
+                return featureModel;
+            }
+            var abstractOffset = footer.getLong();
+            var indexOffset = footer.getLong();
+            var dictionaryOffset = footer.getLong();
+
+            var dictionary = readDictionary(map(channel, dictionaryOffset, size - FOOTER_SIZE), featureIndexTable);
+            var index = map(channel, indexOffset, dictionaryOffset);
+            var blocks = readVarInt(index);
+            var entries = new ArrayList<IndexEntry>(blocks);
+            for (int i = 0; i < blocks; i++) {
+                entries.add(new IndexEntry(index.getLong(), readVarInt(index), readFeatures(index, dictionary),
+                        readFeatures(index, dictionary), readFeatures(index, dictionary)));
+            }
+
+            var constraints = map(channel, HEADER_SIZE, blocks > 0 ? entries.getFirst().offset() : abstractOffset);
+            var relations = CrossTreeConstraintRelation.values();
+            var constraintCount = readVarInt(constraints);
+            for (int i = 0; i < constraintCount; i++) {
+                var relation = relations[readVarInt(constraints)];
+                var source = dictionary[readVarInt(constraints)];
+                var target = dictionary[readVarInt(constraints)];
+                featureModel.crossTreeConstraints.add(new CrossTreeConstraint(source, target, relation));
+            }
+
+            for (int i = 0; i < blocks; i++) {
+                var entry = entries.get(i);
+                var block = map(channel, entry.offset(), i + 1 < blocks ? entries.get(i + 1).offset() : abstractOffset);
+                if (lazy) {
+                    // the mapping stays valid after the channel is closed
+                    featureModel.configurationsPerPartialFeatureModel.add(new LazyPartialConfigurations(entry.count(),
+                            entry.referencedFeatures(), entry.requiredFeatures(), entry.abstractParents(),
+                            () -> readBlock(block, dictionary)));
+                } else {
+                    featureModel.configurationsPerPartialFeatureModel.add(readBlock(block, dictionary));
+                }
+            }
+
+            var abstractConfigurations = map(channel, abstractOffset, indexOffset);
+            var abstractCount = readVarInt(abstractConfigurations);
+            for (int i = 0; i < abstractCount; i++) {
+                featureModel.abstractConfigurations.add(readFeatures(abstractConfigurations, dictionary));
+            }
+        } catch (IOException | RuntimeException e) {
+            _ApplicationLogger.fatal(e);
+        }
+        return featureModel;
+    }
+
+    private ByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    private Feature[] readDictionary(ByteBuffer buffer, FeatureIndexTable featureIndexTable) {
+        var dictionary = new Feature[readVarInt(buffer)];
+        for (int i = 0; i < dictionary.length; i++) {
+            var bytes = new byte[readVarInt(buffer)];
+            buffer.get(bytes);
+            dictionary[i] = featureIndexTable.getFeature(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return dictionary;
+    }
+
+    private List<PartialConfiguration> readBlock(ByteBuffer buffer, Feature[] dictionary) {
+        var count = readVarInt(buffer);
+        var configurations = new ArrayList<PartialConfiguration>(count);
+        List<Feature> parents = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            var configuration = new PartialConfiguration();
+            var features = readVarInt(buffer);
+            for (int j = 0; j < features; j++) {
+                configuration.addFeature(dictionary[readVarInt(buffer)]);
+            }
+            var parentMarker = readVarInt(buffer);
+            if (parentMarker > 0) {
+                parents = new ArrayList<>(parentMarker - 1);
+                for (int j = 1; j < parentMarker; j++) {
+                    parents.add(dictionary[readVarInt(buffer)]);
+                }
+            }
+            // configurations with the same parents share the list, as after the calculation
+            configuration.setAbstractParent(parents);
+            configurations.add(configuration);
+        }
+        return configurations;
+    }
+
+    private List<Feature> readFeatures(ByteBuffer buffer, Feature[] dictionary) {
+        var count = readVarInt(buffer);
+        var features = new ArrayList<Feature>(count);
+        for (int i = 0; i < count; i++) {
+            features.add(dictionary[readVarInt(buffer)]);
+        }
+        return features;
+    }
+
+    private record IndexEntry(long offset, int count, List<Feature> referencedFeatures, List<Feature> requiredFeatures, List<Feature> abstractParents) {
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            var current = buffer.get();
+            value |= (current & 0x7F) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Writes the sections through a file channel and keeps track of the
+     * absolute position, feature names are added to the dictionary on first use.
+     */
+    private static final class SectionWriter implements Closeable {
+        private final FileChannel _Channel;
+        private final ByteBuffer _Buffer = ByteBuffer.allocate(1 << 16);
+        private final Map<String, Integer> _Dictionary = new LinkedHashMap<>();
+        private final List<IndexEntry> _Index = new ArrayList<>();
+        private long _Position;
+
+        private SectionWriter(String filePath) throws IOException {
+            new DriveHandle().createFolderFromFile(filePath);
+            _Channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        private void putHeader() {
+            putInt(MAGIC_NUMBER);
+            putInt(VERSION);
+        }
+
+        private void putConstraints(List<CrossTreeConstraint> crossTreeConstraints) {
+            putVarInt(crossTreeConstraints.size());
+            for (var constraint : crossTreeConstraints) {
+                putVarInt(constraint.getRelation().ordinal());
+                putVarInt(idOf(constraint.getSource()));
+                putVarInt(idOf(constraint.getTarget()));
+            }
+        }
+
+        private void putBlock(List<PartialConfiguration> configurations) {
+            var offset = _Position;
+            var referencedFeatures = new LinkedHashSet<Feature>();
+            Set<Feature> requiredFeatures = null;
+            var abstractParents = new LinkedHashSet<Feature>();
+            putVarInt(configurations.size());
+            List<Feature> previousParents = null;
+            for (var configuration : configurations) {
+                putFeatures(configuration.getFeatures());
+                referencedFeatures.addAll(configuration.getFeatures());
+                if (requiredFeatures == null) {
+                    requiredFeatures = new LinkedHashSet<>(configuration.getFeatures());
+                } else {
+                    requiredFeatures.retainAll(configuration.getFeatures());
+                }
+                var parents = configuration.getAbstractParent();
+                if (parents == previousParents || parents.equals(previousParents)) {
+                    putVarInt(0);
+                } else {
+                    putVarInt(parents.size() + 1);
+                    for (var parent : parents) {
+                        putVarInt(idOf(parent));
+                    }
+                    abstractParents.addAll(parents);
+                    previousParents = parents;
+                }
+            }
+            _Index.add(new IndexEntry(offset, configurations.size(), List.copyOf(referencedFeatures),
+                    requiredFeatures == null ? List.of() : List.copyOf(requiredFeatures), List.copyOf(abstractParents)));
+        }
+
+        private void putFooter(List<List<Feature>> abstractConfigurations) {
+            var abstractOffset = _Position;
+            putVarInt(abstractConfigurations.size());
+            for (var abstractConfiguration : abstractConfigurations) {
+                putFeatures(abstractConfiguration);
+            }
+
+            var indexOffset = _Position;
+            putVarInt(_Index.size());
+            for (var entry : _Index) {
+                putLong(entry.offset());
+                putVarInt(entry.count());
+                putFeatures(entry.referencedFeatures());
+                putFeatures(entry.requiredFeatures());
+                putFeatures(entry.abstractParents());
+            }
+
+            var dictionaryOffset = _Position;
+            putVarInt(_Dictionary.size());
+            for (var name : _Dictionary.keySet()) {
+                var bytes = name.getBytes(StandardCharsets.UTF_8);
+                putVarInt(bytes.length);
+                putBytes(bytes);
+            }
+
+            putLong(abstractOffset);
+            putLong(indexOffset);
+            putLong(dictionaryOffset);
+            putInt(MAGIC_NUMBER);
+        }
+
+        private void putFeatures(List<Feature> features) {
+            putVarInt(features.size());
+            for (var feature : features) {
+                putVarInt(idOf(feature));
+            }
+        }
+
+        private int idOf(Feature feature) {
+            return _Dictionary.computeIfAbsent(feature.getName(), k -> _Dictionary.size());
+        }
+
+        private void putVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                _Buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+                _Position++;
+            }
+            _Buffer.put((byte) value);
+            _Position++;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(Integer.BYTES);
+            _Buffer.putInt(value);
+            _Position += Integer.BYTES;
+        }
+
+        private void putLong(long value) {
+            ensureCapacity(Long.BYTES);
+            _Buffer.putLong(value);
+            _Position += Long.BYTES;
+        }
+
+        private void putBytes(byte[] bytes) {
+            for (int written = 0; written < bytes.length; ) {
+                ensureCapacity(1);
+                var length = Math.min(_Buffer.remaining(), bytes.length - written);
+                _Buffer.put(bytes, written, length);
+                written += length;
+            }
+            _Position += bytes.length;
+        }
+
+        private void ensureCapacity(int bytes) {
+            if (_Buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            _Buffer.flip();
+            try {
+                while (_Buffer.hasRemaining()) {
+                    _Channel.write(_Buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            _Buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                _Channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ConfigurationSerializer;
+
+/**
+ * File format written by the {@link ConfigurationSerializer}. Loading detects
+ * the format of a file by the magic number of the binary format.
+ */
+public enum ConfigurationFormat {
+    /**
+     * One line per configuration with the names of its features, readable and
+     * compatible with older configuration files.
+     */
+    CSV,
+    /**
+     * Dictionary-encoded configurations with an offset table per PFM, see
+     * {@link BinaryConfigurationSerializer}.
+     */
+    BINARY
+}
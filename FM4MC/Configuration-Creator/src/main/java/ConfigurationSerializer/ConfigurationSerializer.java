@@ -1,5 +1,6 @@
 package ConfigurationSerializer;
 
+import ConfigurationCalculator.Structures.FeatureIndexTable;
 import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
 import ConfigurationCalculator.Structures.PartialConfiguration;
 import FeatureModelReader.Structures.CrossTreeConstraint;
@@ -7,18 +8,25 @@ import FeatureModelReader.Structures.Feature;
 import FeatureModelReader.Structures.FeatureModelRead;
 import FeatureModelReader.Structures.CrossTreeConstraintRelation;
 import FeatureModelSlicer.Structures.FeatureModelSliced;
-import IO.impl.DriveHandle;
+import IO.impl.CompressedFileHandle;
+import IO.impl.Compression;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Serializes and deserializes configuration results of the configuration
  * calculation. The serializer stores configurations and cross tree
  * constraints in a simple CSV based representation and can restore the
  * {@link FeatureModelPartiallyCalculated} structure from such files.
+ * With {@link ConfigurationFormat#BINARY} the {@link BinaryConfigurationSerializer}
+ * is used instead, files in that format are detected when loading.
+ * CSV files are written through a buffered file channel and may be DEFLATE or
+ * GZIP compressed, the loader detects the compression.
  */
 public class ConfigurationSerializer {
 
@@ -29,14 +37,60 @@ public class ConfigurationSerializer {
     private final String LINE_BREAK = "\n";
     private final Logger _ApplicationLogger;
     private final String _DELIMITER = ";";
+    private final ConfigurationFormat _Format;
+    private final Compression _Compression;
+    private final int _BufferSize;
 
     /**
-     * Creates a new serializer instance.
+     * Compression only applies to CSV files, binary files are never compressed.
+     *
+     * @param format      format of the written files
+     * @param compression compression of CSV files
+     * @return file extension of configuration files written in the format, e.g. {@code .csv.gz}
+     */
+    public static String fileExtensionFor(ConfigurationFormat format, Compression compression) {
+        if (format == ConfigurationFormat.BINARY) {
+            return ".bin";
+        }
+        return switch (compression) {
+            case NONE -> ".csv";
+            case DEFLATE -> ".csv.deflate";
+            case GZIP -> ".csv.gz";
+        };
+    }
+
+    /**
+     * Creates a new serializer instance that writes CSV files.
      *
      * @param logger application logger used for error reporting
      */
     public ConfigurationSerializer(Logger logger) {
+        this(logger, ConfigurationFormat.CSV);
+    }
+
+    /**
+     * Creates a new serializer instance.
+     *
+     * @param logger application logger used for error reporting
+     * @param format format of the written files
+     */
+    public ConfigurationSerializer(Logger logger, ConfigurationFormat format) {
+        this(logger, format, Compression.NONE, CompressedFileHandle.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new serializer instance.
+     *
+     * @param logger      application logger used for error reporting
+     * @param format      format of the written files
+     * @param compression compression of written CSV files, the binary format is not compressed
+     * @param bufferSize  size of the write buffer in bytes
+     */
+    public ConfigurationSerializer(Logger logger, ConfigurationFormat format, Compression compression, int bufferSize) {
         _ApplicationLogger = logger;
+        _Format = format;
+        _Compression = compression;
+        _BufferSize = bufferSize;
     }
 
     /**
@@ -50,31 +104,73 @@ public class ConfigurationSerializer {
      * @param filePath path to csv file
      */
     public void saveConfigurations(FeatureModelPartiallyCalculated featureModelConfigurations, String filePath) {
-        var stringBuilder = new StringBuilder();
-        saveCTCs(featureModelConfigurations.crossTreeConstraints, stringBuilder);
-        saveConcretePartialConfigurations(featureModelConfigurations.configurationsPerPartialFeatureModel, stringBuilder);
-        saveAbstractConfigurations(featureModelConfigurations.abstractConfigurations, stringBuilder);
-        saveToFile(filePath, stringBuilder);
+        if (_Format == ConfigurationFormat.BINARY) {
+            new BinaryConfigurationSerializer(_ApplicationLogger).saveConfigurations(featureModelConfigurations, filePath);
+            return;
+        }
+        try (var writer = openWriter(filePath)) {
+            saveCTCs(featureModelConfigurations.crossTreeConstraints, writer);
+            saveConcretePartialConfigurations(featureModelConfigurations.configurationsPerPartialFeatureModel, writer);
+            saveAbstractConfigurations(featureModelConfigurations.abstractConfigurations, writer);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
     /**
-     * Appends the abstract configurations to the given {@link StringBuilder}.
+     * saves configurations of a non-sliced feature model while they are calculated, see
+     * {@link ConfigurationCalculator.ConfigurationCalculator#streamConfigurationsForNonSlicedFM}.
+     * Every configuration is written as its own PFM as soon as the stream produces it, only the
+     * distinct abstract configurations are kept in memory and written at the end.
+     * The resulting file has the same format as {@link #saveConfigurations(FeatureModelPartiallyCalculated, String)}.
+     *
+     * @param crossTreeConstraints CTCs that are not covered by the configurations
+     * @param configurations stream of configurations with their abstract parents
+     * @param filePath path to csv file
+     */
+    public void saveConfigurations(List<CrossTreeConstraint> crossTreeConstraints, Stream<PartialConfiguration> configurations, String filePath) {
+        if (_Format == ConfigurationFormat.BINARY) {
+            new BinaryConfigurationSerializer(_ApplicationLogger).saveConfigurations(crossTreeConstraints, configurations, filePath);
+            return;
+        }
+        var abstractConfigurations = new LinkedHashSet<List<Feature>>();
+        try (var writer = openWriter(filePath)) {
+            saveCTCs(crossTreeConstraints, writer);
+            var id = new int[]{1};
+            configurations.forEachOrdered(configuration -> {
+                try {
+                    saveConfiguration(configuration, id[0]++, writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                if (!abstractConfigurations.contains(configuration.getAbstractParent())) {
+                    abstractConfigurations.add(new ArrayList<>(configuration.getAbstractParent()));
+                }
+            });
+            saveAbstractConfigurations(new ArrayList<>(abstractConfigurations), writer);
+        } catch (IOException | UncheckedIOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Appends the abstract configurations to the given writer.
      * Each configuration is written on a separate line prefixed with
      * {@code ABSTRACT_CONFIGURATION} and an id.
      *
      * @param abstractConfigurations configurations of the abstract layer
-     * @param stringBuilder          builder receiving the serialized output
+     * @param writer                 writer receiving the serialized output
      */
-    private void saveAbstractConfigurations(List<List<Feature>> abstractConfigurations, StringBuilder stringBuilder) {
+    private void saveAbstractConfigurations(List<List<Feature>> abstractConfigurations, Writer writer) throws IOException {
         int id = 1;
         for (var abstractConfiguration : abstractConfigurations) {
-            stringBuilder.append(ABSTRACT_CONFIGURATION)
-                    .append(_DELIMITER).append(id);
+            writer.append(ABSTRACT_CONFIGURATION)
+                    .append(_DELIMITER).append(String.valueOf(id));
             for (var abstractFeature : abstractConfiguration) {
-                stringBuilder.append(_DELIMITER)
+                writer.append(_DELIMITER)
                         .append(abstractFeature.getName());
             }
-            stringBuilder.append(LINE_BREAK);
+            writer.append(LINE_BREAK);
             id++;
         }
     }
@@ -83,38 +179,44 @@ public class ConfigurationSerializer {
      * Serializes all partial configurations for each partial feature model.
      *
      * @param configurationsPerPartialFeatureModel configurations per PFM
-     * @param stringBuilder                        builder receiving the serialized output
+     * @param writer                               writer receiving the serialized output
      */
-    private void saveConcretePartialConfigurations(List<List<PartialConfiguration>> configurationsPerPartialFeatureModel, StringBuilder stringBuilder) {
+    private void saveConcretePartialConfigurations(List<List<PartialConfiguration>> configurationsPerPartialFeatureModel, Writer writer) throws IOException {
         int id = 1;
         for (var partialConfigurations : configurationsPerPartialFeatureModel) {
             for (var configuration : partialConfigurations) {
-                stringBuilder.append(CONFIGURATION)
-                        .append(_DELIMITER).append(id);
-                for (var feature : configuration.getFeatures()) {
-
-                    stringBuilder.append(_DELIMITER)
-                            .append(feature.getName());
-                }
-                stringBuilder.append(_DELIMITER).append(PARENTS);
-                for (var parent : configuration.getAbstractParent()) {
-                    stringBuilder.append(_DELIMITER)
-                            .append(parent.getName());
-                }
-                stringBuilder.append(LINE_BREAK);
+                saveConfiguration(configuration, id, writer);
             }
             id++;
         }
     }
 
     /**
-     * Writes cross tree constraints to the {@link StringBuilder} in a simple
+     * Writes a single configuration line of the PFM with the given id.
+     */
+    private void saveConfiguration(PartialConfiguration configuration, int id, Writer writer) throws IOException {
+        writer.append(CONFIGURATION)
+                .append(_DELIMITER).append(String.valueOf(id));
+        for (var feature : configuration.getFeatures()) {
+            writer.append(_DELIMITER)
+                    .append(feature.getName());
+        }
+        writer.append(_DELIMITER).append(PARENTS);
+        for (var parent : configuration.getAbstractParent()) {
+            writer.append(_DELIMITER)
+                    .append(parent.getName());
+        }
+        writer.append(LINE_BREAK);
+    }
+
+    /**
+     * Writes cross tree constraints to the writer in a simple
      * textual format.
      *
      * @param crossTreeConstraints list of constraints to serialize
-     * @param stringBuilder        builder receiving the serialized output
+     * @param writer               writer receiving the serialized output
      */
-    private void saveCTCs(List<CrossTreeConstraint> crossTreeConstraints, StringBuilder stringBuilder) {
+    private void saveCTCs(List<CrossTreeConstraint> crossTreeConstraints, Writer writer) throws IOException {
         for (var constraint : crossTreeConstraints) {
             String relationString = null;
             switch (constraint.getRelation()) {
@@ -122,7 +224,7 @@ public class ConfigurationSerializer {
                 case EXCLUDES -> relationString = "excludes";
             }
 
-            stringBuilder.append(CROSS_TREE_CONSTRAINT).append(_DELIMITER)
+            writer.append(CROSS_TREE_CONSTRAINT).append(_DELIMITER)
                     .append(relationString).append(_DELIMITER)
                     .append(constraint.getSource().getName()).append(_DELIMITER)
                     .append(constraint.getTarget().getName())
@@ -131,7 +233,23 @@ public class ConfigurationSerializer {
     }
 
     /**
-     * loads precalculated configurations for the given feature model
+     * loads precalculated configurations for the given feature model, the PFMs of a binary file are only
+     * decoded when they are accessed for the first time (see {@link BinaryConfigurationSerializer#loadConfigurationsLazily}).
+     * CSV files are loaded completely.
+     *
+     * @param featureModelRead feature model
+     * @param configurationFilePath path to a csv or binary file containing configurations for the given fm
+     * @return a (sliced) feature model with calculated configurations for abstract and concrete layer
+     */
+    public FeatureModelPartiallyCalculated loadConfigurationsLazily(FeatureModelRead featureModelRead, String configurationFilePath) {
+        if (BinaryConfigurationSerializer.isBinaryConfigurationFile(configurationFilePath)) {
+            return new BinaryConfigurationSerializer(_ApplicationLogger).loadConfigurationsLazily(featureModelRead, configurationFilePath);
+        }
+        return loadConfigurations(featureModelRead, configurationFilePath);
+    }
+
+    /**
+     * loads precalculated configurations for the given feature model, CSV and binary files are supported
      * will lead to NullPointerExceptions when the loaded FM does not match the loaded configurations
      *
      * @param featureModelRead feature model
@@ -139,11 +257,14 @@ public class ConfigurationSerializer {
      * @return a (sliced) feature model with calculated configurations for abstract and concrete layer
      */
     public FeatureModelPartiallyCalculated loadConfigurations(FeatureModelRead featureModelRead, String configurationFilePath) {
+        if (BinaryConfigurationSerializer.isBinaryConfigurationFile(configurationFilePath)) {
+            return new BinaryConfigurationSerializer(_ApplicationLogger).loadConfigurations(featureModelRead, configurationFilePath);
+        }
         var featureModelTmp = new FeatureModelSliced(featureModelRead);
         var featureModel = new FeatureModelPartiallyCalculated(featureModelTmp);
+        var featureIndexTable = new FeatureIndexTable(featureModel.features);
 
-        try {
-            var bufferedReader = new BufferedReader(new FileReader(configurationFilePath));
+        try (var bufferedReader = new CompressedFileHandle().openReader(configurationFilePath)) {
             String line;
             var configurations = new ArrayList<PartialConfiguration>();
             var abstractConfiguration = new ArrayList<Feature>();
@@ -161,8 +282,8 @@ public class ConfigurationSerializer {
                             case "excludes" -> relation = CrossTreeConstraintRelation.EXCLUDES;
                         }
 
-                        var sourceFeature = getFeatureByName(featureModel.features, splitLine[2]);
-                        var targetFeature = getFeatureByName(featureModel.features, splitLine[3]);
+                        var sourceFeature = featureIndexTable.getFeature(splitLine[2]);
+                        var targetFeature = featureIndexTable.getFeature(splitLine[3]);
                         var crossTreeConstraint = new CrossTreeConstraint(sourceFeature, targetFeature, relation);
                         featureModel.crossTreeConstraints.add(crossTreeConstraint);
                     }
@@ -176,11 +297,11 @@ public class ConfigurationSerializer {
                         var configuration = new PartialConfiguration();
                         int i = 2;
                         for (; i < splitLine.length && !splitLine[i].equals(PARENTS); i++) {
-                            configuration.addFeature(getFeatureByName(featureModel.features, splitLine[i]));
+                            configuration.addFeature(featureIndexTable.getFeature(splitLine[i]));
                         }
                         i++;
                         for (; i < splitLine.length; i++) {
-                            configuration.addAbstractParent(getFeatureByName(featureModel.features, splitLine[i]));
+                            configuration.addAbstractParent(featureIndexTable.getFeature(splitLine[i]));
 
                         }
                         configurations.add(configuration);
@@ -193,7 +314,7 @@ public class ConfigurationSerializer {
                             abstractConfiguration = new ArrayList<>();
                         }
                         for (int i = 2; i < splitLine.length; i++) {
-                            abstractConfiguration.add(getFeatureByName(featureModel.features, splitLine[i]));
+                            abstractConfiguration.add(featureIndexTable.getFeature(splitLine[i]));
                         }
                     }
                 }
@@ -209,31 +330,13 @@ public class ConfigurationSerializer {
     }
 
     /**
-     * Finds a feature by name in the provided list.
-     *
-     * @param features    list of available features
-     * @param featureName name to look up
-     * @return matching feature or {@code null} if none exists
-     */
-    private Feature getFeatureByName(List<Feature> features, String featureName) {
-        return features.stream().filter(x -> x.getName().equals(featureName)).findFirst().orElse(null);
-    }
-
-    /**
-     * Writes the accumulated serialization to the specified file.
+     * Opens a writer for the specified file with the configured buffer size and compression
+     * and creates missing folders.
      *
      * @param fileToWriteTo destination file path
-     * @param stringBuilder serialized contents
+     * @return writer for the file
      */
-    private void saveToFile(String fileToWriteTo, StringBuilder stringBuilder) {
-        try {
-            new DriveHandle().createFolderFromFile(fileToWriteTo);
-            var writer = new BufferedWriter(new FileWriter(fileToWriteTo));
-            writer.write(stringBuilder.toString());
-            writer.flush();
-            writer.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    private Writer openWriter(String fileToWriteTo) throws IOException {
+        return new CompressedFileHandle().openWriter(fileToWriteTo, _BufferSize, _Compression);
     }
 }
@@ -0,0 +1,105 @@
+package ConfigurationSerializer;
+
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRead;
+import FeatureModelReader.Structures.InterchangeableFeatures;
+import IO.impl.DriveHandle;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Stores the classes of interchangeable alternatives next to a configuration
+ * file that only contains their representatives. Each class is one line:
+ * {@code class;representative;member;...}. A consumer that needs the concrete
+ * features loads the classes with the original feature model and expands the
+ * configurations, see {@link InterchangeableFeatures#expand}.
+ */
+public class InterchangeableFeaturesSerializer {
+
+    /** file extension appended to the path of the configuration file */
+    public static final String FILE_EXTENSION = ".sym";
+    private final String CLASS = "class";
+    private final String _DELIMITER = ";";
+    private final Logger _ApplicationLogger;
+
+    /**
+     * Creates a new serializer instance.
+     *
+     * @param logger application logger used for error reporting
+     */
+    public InterchangeableFeaturesSerializer(Logger logger) {
+        _ApplicationLogger = logger;
+    }
+
+    /**
+     * @return path of the classes that belong to the given configuration file
+     */
+    public static String classesPathFor(String configurationFilePath) {
+        return configurationFilePath + FILE_EXTENSION;
+    }
+
+    /**
+     * Saves the classes of interchangeable alternatives.
+     *
+     * @param interchangeableFeatures classes found by {@link FeatureModelReader.InterchangeableFeatureDetector}
+     * @param filePath                path of the file, see {@link #classesPathFor}
+     */
+    public void saveClasses(InterchangeableFeatures interchangeableFeatures, String filePath) {
+        new DriveHandle().createFolderFromFile(filePath);
+        try (var writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath), StandardCharsets.UTF_8))) {
+            for (var members : interchangeableFeatures.getClasses()) {
+                writer.append(CLASS);
+                for (var member : members) {
+                    writer.append(_DELIMITER).append(member.getName());
+                }
+                writer.append("\n");
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads the classes of interchangeable alternatives. A missing file means that no
+     * features were reduced.
+     *
+     * @param featureModelRead original feature model containing all members
+     * @param filePath         path of the file, see {@link #classesPathFor}
+     * @return classes with the features of the given model
+     */
+    public InterchangeableFeatures loadClasses(FeatureModelRead featureModelRead, String filePath) {
+        var interchangeableFeatures = new InterchangeableFeatures();
+        var file = new File(filePath);
+        if (!file.isFile()) {
+            return interchangeableFeatures;
+        }
+        var features = new HashMap<String, Feature>();
+        featureModelRead.features.forEach(feature -> features.put(feature.getName(), feature));
+        try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                var values = line.split(_DELIMITER);
+                if (values.length < 3 || !values[0].equals(CLASS)) {
+                    continue;
+                }
+                var members = new ArrayList<Feature>(values.length - 1);
+                for (int i = 1; i < values.length; i++) {
+                    var member = features.get(values[i]);
+                    if (member == null) {
+                        _ApplicationLogger.error(values[i] + " of " + filePath + " is not part of the feature model");
+                        return new InterchangeableFeatures();
+                    }
+                    members.add(member);
+                }
+                interchangeableFeatures.addClass(members);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return interchangeableFeatures;
+    }
+}
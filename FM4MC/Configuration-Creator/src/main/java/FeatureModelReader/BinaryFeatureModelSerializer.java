@@ -0,0 +1,306 @@
+package FeatureModelReader;
+
+import FeatureModelReader.Structures.*;
+import IO.impl.DriveHandle;
+import IO.impl.LshwClass;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Compact binary representation of a read feature model, so the online phase
+ * does not need to tokenize the JSON file again. All numbers are big-endian ints:
+ * 1. magic number and format version
+ * 2. string table: count, then length and UTF-8 bytes per string
+ * 3. hardware classes: count and string id per {@link LshwClass}
+ * 4. features: count, then per feature name id, parent name id, CNF index,
+ * relation ordinal and position of the parent feature ({@code -1} for none)
+ * 5. hardware requirements: per feature a flag if requirements are annotated,
+ * followed by one value per hardware class, which forms an int matrix over {@link LshwClass}
+ * 6. children and successors: count and feature positions per feature
+ * 7. connectivity map: count, then key string id, count and feature positions per entry
+ * 8. positions of the abstract start feature and the start feature
+ * 9. CTCs: count, then source position, target position and relation ordinal per constraint
+ * <p>
+ * Features are referenced by their dense position in the feature list, the
+ * file is loaded with a memory mapped buffer.
+ */
+public class BinaryFeatureModelSerializer {
+
+    /** file extension appended to the path of the JSON feature model */
+    public static final String FILE_EXTENSION = ".fmb";
+    /** "FM4B" */
+    public static final int MAGIC_NUMBER = 0x464D3442;
+    private static final int VERSION = 1;
+    private static final int NONE = -1;
+    private final Logger _ApplicationLogger;
+
+    /**
+     * Creates a new serializer instance.
+     *
+     * @param logger application logger used for error reporting
+     */
+    public BinaryFeatureModelSerializer(Logger logger) {
+        _ApplicationLogger = logger;
+    }
+
+    /**
+     * @return path of the binary file that belongs to the given JSON feature model
+     */
+    public static String binaryPathFor(String featureModelFilePath) {
+        return featureModelFilePath + FILE_EXTENSION;
+    }
+
+    /**
+     * Selects the file the online phase reads: the binary file of the JSON feature model if it
+     * exists and was written after the last change of the JSON file, otherwise the JSON file.
+     *
+     * @param featureModelFilePath path of the JSON feature model
+     * @return binary or JSON feature model file
+     */
+    public static File currentFileFor(String featureModelFilePath) {
+        var jsonFile = new File(featureModelFilePath);
+        var binaryFile = new File(binaryPathFor(featureModelFilePath));
+        // a missing JSON file has a modification time of 0, its binary file is used alone
+        if (binaryFile.exists() && binaryFile.lastModified() >= jsonFile.lastModified()) {
+            return binaryFile;
+        }
+        return jsonFile;
+    }
+
+    /**
+     * @param file any file
+     * @return {@code true} if the file starts with the magic number of the binary format
+     */
+    public static boolean isBinaryFeatureModel(File file) {
+        try (var inputStream = new DataInputStream(new FileInputStream(file))) {
+            return inputStream.readInt() == MAGIC_NUMBER;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Saves the feature model in the binary format.
+     *
+     * @param featureModel feature model as created by the {@link FeatureModelReader}
+     * @param filePath     path to the binary file
+     */
+    public void saveFeatureModel(FeatureModelRead featureModel, String filePath) {
+        var features = featureModel.features;
+        // features are equal by name, the positions are mapped by identity
+        var positions = new IdentityHashMap<Feature, Integer>(features.size() * 2);
+        for (int i = 0; i < features.size(); i++) {
+            positions.put(features.get(i), i);
+        }
+        var strings = new LinkedHashMap<String, Integer>();
+        var hardwareClasses = LshwClass.values();
+
+        try {
+            new DriveHandle().createFolderFromFile(filePath);
+            // the string table is written first, so the body is buffered until all strings are known
+            var body = new ByteArrayOutputStream();
+            var bodyWriter = new DataOutputStream(body);
+
+            bodyWriter.writeInt(hardwareClasses.length);
+            for (var hardwareClass : hardwareClasses) {
+                bodyWriter.writeInt(stringId(strings, hardwareClass.name()));
+            }
+
+            bodyWriter.writeInt(features.size());
+            for (var feature : features) {
+                bodyWriter.writeInt(stringId(strings, feature.getName()));
+                bodyWriter.writeInt(stringId(strings, feature.getParentFeatureName()));
+                bodyWriter.writeInt(feature.getIndex());
+                bodyWriter.writeInt(feature.getRelation() == null ? NONE : feature.getRelation().ordinal());
+                bodyWriter.writeInt(positionOf(positions, feature.getParentFeature()));
+            }
+            for (var feature : features) {
+                var hardwareRequirements = feature.getHardwareRequirements();
+                bodyWriter.writeInt(hardwareRequirements.isEmpty() ? 0 : 1);
+                if (hardwareRequirements.isEmpty()) {
+                    continue;
+                }
+                for (var hardwareClass : hardwareClasses) {
+                    bodyWriter.writeInt(hardwareRequirements.getOrDefault(hardwareClass, 0));
+                }
+            }
+            for (var feature : features) {
+                writePositions(bodyWriter, positions, feature.getChildren());
+                writePositions(bodyWriter, positions, feature.getSuccessiveFeatures());
+            }
+
+            var connectivity = featureModel.featureConnectivityInformation;
+            bodyWriter.writeInt(connectivity.featureConnectivityMap.size());
+            for (var entry : connectivity.featureConnectivityMap.entrySet()) {
+                bodyWriter.writeInt(stringId(strings, entry.getKey()));
+                writePositions(bodyWriter, positions, entry.getValue());
+            }
+            bodyWriter.writeInt(positionOf(positions, connectivity.abstractStartFeature));
+            bodyWriter.writeInt(positionOf(positions, connectivity.startFeature));
+
+            bodyWriter.writeInt(featureModel.crossTreeConstraints.size());
+            for (var constraint : featureModel.crossTreeConstraints) {
+                bodyWriter.writeInt(positionOf(positions, constraint.getSource()));
+                bodyWriter.writeInt(positionOf(positions, constraint.getTarget()));
+                bodyWriter.writeInt(constraint.getRelation().ordinal());
+            }
+            bodyWriter.flush();
+
+            try (var writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+                writer.writeInt(MAGIC_NUMBER);
+                writer.writeInt(VERSION);
+                writer.writeInt(strings.size());
+                for (var string : strings.keySet()) {
+                    var bytes = string.getBytes(StandardCharsets.UTF_8);
+                    writer.writeInt(bytes.length);
+                    writer.write(bytes);
+                }
+                body.writeTo(writer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int stringId(Map<String, Integer> strings, String string) {
+        if (string == null) {
+            return NONE;
+        }
+        return strings.computeIfAbsent(string, k -> strings.size());
+    }
+
+    private int positionOf(Map<Feature, Integer> positions, Feature feature) {
+        return feature == null ? NONE : positions.getOrDefault(feature, NONE);
+    }
+
+    private void writePositions(DataOutputStream writer, Map<Feature, Integer> positions, List<Feature> features) throws IOException {
+        writer.writeInt(features.size());
+        for (var feature : features) {
+            writer.writeInt(positionOf(positions, feature));
+        }
+    }
+
+    /**
+     * Loads a feature model from the binary format by mapping the file into memory.
+     *
+     * @param file binary feature model
+     * @return the feature model or {@code null} if the file cannot be read
+     */
+    public FeatureModelRead loadFeatureModel(File file) {
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC_NUMBER) {
+                _ApplicationLogger.error(file + " is not a binary feature model");
+                return null;
+            }
+            var version = buffer.getInt();
+            if (version != VERSION) {
+                _ApplicationLogger.error(file + " has the unsupported binary feature model version " + version);
+                return null;
+            }
+            return readFeatureModel(buffer);
+        } catch (IOException | RuntimeException e) {
+            _ApplicationLogger.error(e);
+            return null;
+        }
+    }
+
+    private FeatureModelRead readFeatureModel(ByteBuffer buffer) {
+        var strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            var bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        var hardwareClasses = new LshwClass[buffer.getInt()];
+        for (int i = 0; i < hardwareClasses.length; i++) {
+            hardwareClasses[i] = LshwClass.valueOf(strings[buffer.getInt()]);
+        }
+
+        var relations = FeatureModelRelation.values();
+        var featureCount = buffer.getInt();
+        var features = new ArrayList<Feature>(featureCount);
+        var parentPositions = new int[featureCount];
+        for (int i = 0; i < featureCount; i++) {
+            var feature = new Feature();
+            feature.setName(stringOf(strings, buffer.getInt()));
+            feature.setParentFeatureName(stringOf(strings, buffer.getInt()));
+            feature.setIndex(buffer.getInt());
+            var relation = buffer.getInt();
+            feature.setRelation(relation == NONE ? null : relations[relation]);
+            parentPositions[i] = buffer.getInt();
+            features.add(feature);
+        }
+        for (int i = 0; i < features.size(); i++) {
+            if (parentPositions[i] != NONE) {
+                features.get(i).setParentFeature(features.get(parentPositions[i]));
+            }
+        }
+
+        for (var feature : features) {
+            if (buffer.getInt() == 0) {
+                continue;
+            }
+            var hardwareRequirements = new HashMap<LshwClass, Integer>();
+            for (var lshwClass : LshwClass.values()) {
+                hardwareRequirements.put(lshwClass, 0);
+            }
+            for (var hardwareClass : hardwareClasses) {
+                hardwareRequirements.put(hardwareClass, buffer.getInt());
+            }
+            feature.setHardwareRequirements(hardwareRequirements);
+        }
+        for (var feature : features) {
+            readPositions(buffer, features).forEach(feature::addChild);
+            readPositions(buffer, features).forEach(feature::addSuccessiveFeature);
+        }
+
+        var featureConnectivityMap = new HashMap<String, List<Feature>>();
+        var entries = buffer.getInt();
+        for (int i = 0; i < entries; i++) {
+            var key = strings[buffer.getInt()];
+            featureConnectivityMap.put(key, readPositions(buffer, features));
+        }
+        var abstractStartFeature = featureAt(features, buffer.getInt());
+        var startFeature = featureAt(features, buffer.getInt());
+
+        var crossTreeConstraintRelations = CrossTreeConstraintRelation.values();
+        var constraints = buffer.getInt();
+        var crossTreeConstraints = new ArrayList<CrossTreeConstraint>(constraints);
+        for (int i = 0; i < constraints; i++) {
+            var source = featureAt(features, buffer.getInt());
+            var target = featureAt(features, buffer.getInt());
+            crossTreeConstraints.add(new CrossTreeConstraint(source, target, crossTreeConstraintRelations[buffer.getInt()]));
+        }
+
+        var featureModel = new FeatureModelRead();
+        featureModel.features = features;
+        featureModel.crossTreeConstraints = crossTreeConstraints;
+        featureModel.featureConnectivityInformation = new FeatureConnectivityInformation(featureConnectivityMap, abstractStartFeature, startFeature);
+        return featureModel;
+    }
+
+    private String stringOf(String[] strings, int id) {
+        return id == NONE ? null : strings[id];
+    }
+
+    private Feature featureAt(List<Feature> features, int position) {
+        return position == NONE ? null : features.get(position);
+    }
+
+    private List<Feature> readPositions(ByteBuffer buffer, List<Feature> features) {
+        var count = buffer.getInt();
+        var result = new ArrayList<Feature>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(featureAt(features, buffer.getInt()));
+        }
+        return result;
+    }
+}
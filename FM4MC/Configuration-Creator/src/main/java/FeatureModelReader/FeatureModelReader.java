@@ -3,28 +3,44 @@ package FeatureModelReader;
 import FeatureModelReader.Structures.*;
 import IO.impl.LshwClass;
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.apache.logging.log4j.Logger;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.*;
 
 public class FeatureModelReader {
     private final Logger _Logger;
+    private final ReadingMode _ReadingMode;
     private Map<String, List<String>> _FeatureConnectivityMap;
+    private Map<String, Feature> _FeaturesByName;
     public static final String ROOT_FEATURE_NAME = "root";
     public final Gson _GsonReader;
 
     /**
-     * Creates a new reader instance.
+     * Creates a new reader instance that parses the whole JSON tree.
      *
      * @param logger logger used for diagnostic messages
      */
     public FeatureModelReader(Logger logger) {
+        this(logger, ReadingMode.TREE);
+    }
+
+    /**
+     * Creates a new reader instance.
+     *
+     * @param logger      logger used for diagnostic messages
+     * @param readingMode how the JSON file is tokenized
+     */
+    public FeatureModelReader(Logger logger, ReadingMode readingMode) {
         _Logger = logger;
+        _ReadingMode = readingMode;
         _GsonReader = new Gson();
     }
 
@@ -45,11 +61,6 @@ public class FeatureModelReader {
             _Logger.error(e);
             return null;
         }
-        var featureModelJsonObject = _GsonReader.fromJson(fileReader, JsonObject.class);
-        var featuresJsonArray = featureModelJsonObject.getAsJsonArray("features");
-        var crossTreeConstraintsJsonArray = featureModelJsonObject.getAsJsonArray("crossTreeConstraints");
-
-        var rawFeatureModel = new FeatureModelRead();
 
         // Create Root-Feature
         var rootFeature = new Feature(ROOT_FEATURE_NAME, 1, null);
@@ -57,140 +68,315 @@ public class FeatureModelReader {
 
         var features = new ArrayList<Feature>();
         features.add(rootFeature);
+        var rawCrossTreeConstraints = new ArrayList<RawCrossTreeConstraint>();
+
+        try (fileReader) {
+            if (_ReadingMode == ReadingMode.STREAMING) {
+                var jsonReader = new JsonReader(new BufferedReader(fileReader));
+                // same leniency as Gson#fromJson
+                jsonReader.setLenient(true);
+                readStreaming(jsonReader, features, rawCrossTreeConstraints);
+            } else {
+                readTree(_GsonReader.fromJson(fileReader, JsonObject.class), features, rawCrossTreeConstraints);
+            }
+        } catch (IOException e) {
+            _Logger.error(e);
+            return null;
+        }
+
+        var rawFeatureModel = new FeatureModelRead();
+        _FeaturesByName = new HashMap<>(features.size() * 2);
+        for (var feature : features) {
+            _FeaturesByName.putIfAbsent(feature.getName(), feature);
+        }
+
+        // Set parent relationships based on parentName and build the hierarchical structure
+        for (var feature : features) {
+            if (feature.getParentFeatureName() != null) {
+                var parent = feature.getParentFeatureName().equals(ROOT_FEATURE_NAME) ? rootFeature : _FeaturesByName.get(feature.getParentFeatureName());
+                feature.setParentFeature(parent);
+                if (parent != null) {
+                    parent.addChild(feature);
+                }
+            }
+        }
+        // Add further connections from _FeatureConnectivityMap and validate in the same pass
+        for (var feature : features) {
+            buildHierarchyFromConnectivity(feature);
+            checkValidRelations(feature);
+        }
+
+        rawFeatureModel.features = features;
+        rawFeatureModel.crossTreeConstraints = createCrossTreeConstraints(rawCrossTreeConstraints);
+        var featureConnectivityMap = mapConnectivityInformationToFeatures();
+        var abstractStartFeature = getAbstractStartFeature(featureConnectivityMap);
+        var startFeature = rawFeatureModel.features.stream().filter(x -> x.getParentFeature() == abstractStartFeature).findFirst().orElse(null);
+        rawFeatureModel.featureConnectivityInformation = new FeatureConnectivityInformation(featureConnectivityMap, abstractStartFeature, startFeature);
+
+        return rawFeatureModel;
+    }
+
+    /**
+     * Reads a feature model that was converted into the binary format of the
+     * {@link BinaryFeatureModelSerializer}. The file is mapped into memory and no
+     * JSON tokenizer is involved, the relations were validated during the conversion.
+     *
+     * @param file binary feature model
+     * @return parsed feature model representation or {@code null} if an error occurs
+     */
+    public FeatureModelRead readFeatureModelBinary(File file) {
+        return new BinaryFeatureModelSerializer(_Logger).loadFeatureModel(file);
+    }
+
+    /**
+     * Reads a feature model in the binary or the JSON format, the format is
+     * detected by the magic number of the binary format.
+     *
+     * @param file binary or JSON feature model
+     * @return parsed feature model representation or {@code null} if an error occurs
+     * @throws InvalidFeatureModelRelationException if a JSON model contains invalid relations
+     */
+    public FeatureModelRead readFeatureModel(File file) throws InvalidFeatureModelRelationException {
+        if (BinaryFeatureModelSerializer.isBinaryFeatureModel(file)) {
+            return readFeatureModelBinary(file);
+        }
+        return readFeatureModelJson(file);
+    }
+
+    /**
+     * Reads the features and raw constraints from the parsed JSON tree.
+     */
+    private void readTree(JsonObject featureModelJsonObject, List<Feature> features, List<RawCrossTreeConstraint> rawCrossTreeConstraints) throws InvalidFeatureModelRelationException {
+        var featuresJsonArray = featureModelJsonObject.getAsJsonArray("features");
+        var crossTreeConstraintsJsonArray = featureModelJsonObject.getAsJsonArray("crossTreeConstraints");
 
-        int nextIndex = 2;
         // Read all Features
         for (var featureElement : featuresJsonArray) {
             var featureObject = featureElement.getAsJsonObject();
-            var feature = new Feature();
-            feature.setName(featureObject.get("name").getAsString());
 
             // Check for "parentName": if missing or null, set as null.
+            String parentName = null;
             if (featureObject.has("parentName") && !featureObject.get("parentName").isJsonNull()) {
-                feature.setParentFeatureName(featureObject.get("parentName").getAsString());
-            } else {
-                feature.setParentFeatureName(null);
-            }
-
-            feature.setIndex(nextIndex++);
-
-            var relationStr = featureObject.get("relation").getAsString();
-            switch (relationStr) {
-                case "MANDATORY" -> feature.setRelation(FeatureModelRelation.MANDATORY);
-                case "OPTIONAL" -> feature.setRelation(FeatureModelRelation.OPTIONAL);
-                case "ALTERNATIVE" -> feature.setRelation(FeatureModelRelation.ALTERNATIVE);
-                case "OR" -> feature.setRelation(FeatureModelRelation.OR);
-                default ->
-                        throw new InvalidFeatureModelRelationException("\"" + relationStr + "\" is not a valid relation");
+                parentName = featureObject.get("parentName").getAsString();
             }
 
             // Process reachableAbstractFeatures if available
+            List<String> reachableList = null;
             if (featureObject.has("reachableAbstractFeatures") && !featureObject.get("reachableAbstractFeatures").isJsonNull()) {
                 var reachableArray = featureObject.getAsJsonArray("reachableAbstractFeatures");
-                var reachableList = new ArrayList<String>();
+                reachableList = new ArrayList<>();
                 for (var abstractFeatureElem : reachableArray) {
                     reachableList.add(abstractFeatureElem.getAsString());
                 }
-                _FeatureConnectivityMap.put(feature.getName(), reachableList);
             }
 
             // Read hardwareRequirements
-            feature.setHardwareRequirements(readHardwareRequirements(featureObject.get("hardwareRequirements")));
+            var hardwareRequirements = readHardwareRequirements(featureObject.get("hardwareRequirements"));
+            features.add(createFeature(featureObject.get("name").getAsString(), parentName, featureObject.get("relation").getAsString(), reachableList, hardwareRequirements, features.size() + 1));
+        }
 
-            features.add(feature);
+        if (crossTreeConstraintsJsonArray != null) {
+            for (var crossTreeConstraintElement : crossTreeConstraintsJsonArray) {
+                var rawCrossTreeConstraint = crossTreeConstraintElement.getAsJsonObject();
+                rawCrossTreeConstraints.add(new RawCrossTreeConstraint(
+                        rawCrossTreeConstraint.get("sourceName").getAsString(),
+                        rawCrossTreeConstraint.get("targetName").getAsString(),
+                        rawCrossTreeConstraint.get("relation").getAsString()));
+            }
         }
+    }
 
-        // Set parent relationships based on parentName
-        for (var feature : features) {
-            if (feature.getParentFeatureName() != null) {
-                if (feature.getParentFeatureName().equals(ROOT_FEATURE_NAME)) {
-                    feature.setParentFeature(rootFeature);
-                    rootFeature.addChild(feature);
-                } else {
-                    var parent = getFeatureByName(features, feature.getParentFeatureName());
-                    feature.setParentFeature(parent);
+    /**
+     * Reads the features and raw constraints token by token.
+     */
+    private void readStreaming(JsonReader jsonReader, List<Feature> features, List<RawCrossTreeConstraint> rawCrossTreeConstraints) throws IOException, InvalidFeatureModelRelationException {
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "features" -> {
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        features.add(readFeatureStreaming(jsonReader, features.size() + 1));
+                    }
+                    jsonReader.endArray();
                 }
+                case "crossTreeConstraints" -> {
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        rawCrossTreeConstraints.add(readCrossTreeConstraintStreaming(jsonReader));
+                    }
+                    jsonReader.endArray();
+                }
+                default -> jsonReader.skipValue();
             }
         }
+        jsonReader.endObject();
+    }
 
-        // Build hierarchical structure: First explicitly via parentName
-        for (var feature : features) {
-            if (feature.getParentFeature() != null) {
-                var parent = feature.getParentFeature();
-                if (!parent.getChildren().contains(feature)) {
-                    parent.addChild(feature);
+    /**
+     * Reads a single feature object at the current position of the reader.
+     */
+    private Feature readFeatureStreaming(JsonReader jsonReader, int index) throws IOException, InvalidFeatureModelRelationException {
+        String name = null;
+        String parentName = null;
+        String relation = null;
+        List<String> reachableList = null;
+        var hardwareRequirements = readHardwareRequirements(List.of());
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            var key = jsonReader.nextName();
+            if (jsonReader.peek() == JsonToken.NULL) {
+                jsonReader.nextNull();
+                continue;
+            }
+            switch (key) {
+                case "name" -> name = jsonReader.nextString();
+                case "parentName" -> parentName = jsonReader.nextString();
+                case "relation" -> relation = jsonReader.nextString();
+                case "reachableAbstractFeatures" -> {
+                    reachableList = new ArrayList<>();
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        reachableList.add(jsonReader.nextString());
+                    }
+                    jsonReader.endArray();
                 }
+                case "hardwareRequirements" -> hardwareRequirements = readHardwareRequirements(readRawHardwareRequirementsStreaming(jsonReader));
+                default -> jsonReader.skipValue();
             }
         }
-        // If necessary, add further connections from _FeatureConnectivityMap
-        buildHierarchyFromConnectivity(features);
-        checkValidRelations(features);
+        jsonReader.endObject();
+        return createFeature(name, parentName, relation, reachableList, hardwareRequirements, index);
+    }
 
-        rawFeatureModel.features = features;
-        rawFeatureModel.crossTreeConstraints = readCrossTreeConstraints(crossTreeConstraintsJsonArray, rawFeatureModel.features);
-        var featureConnectivityMap = mapConnectivityInformationToFeatures(rawFeatureModel.features);
-        var abstractStartFeature = getAbstractStartFeature(featureConnectivityMap, rawFeatureModel.features);
-        var startFeature = rawFeatureModel.features.stream().filter(x -> x.getParentFeature() == abstractStartFeature).findFirst().orElse(null);
-        rawFeatureModel.featureConnectivityInformation = new FeatureConnectivityInformation(featureConnectivityMap, abstractStartFeature, startFeature);
+    /**
+     * Reads the hardware requirements of a feature as pairs of hardware type and requirement.
+     */
+    private List<String[]> readRawHardwareRequirementsStreaming(JsonReader jsonReader) throws IOException {
+        var hardwareRequirements = new ArrayList<String[]>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            String hardwareType = null;
+            String requirement = null;
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                var key = jsonReader.nextName();
+                if (jsonReader.peek() == JsonToken.NULL) {
+                    jsonReader.nextNull();
+                } else if (key.equals("hardwareType")) {
+                    hardwareType = jsonReader.nextString();
+                } else if (key.equals("requirement")) {
+                    requirement = jsonReader.nextString();
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+            hardwareRequirements.add(new String[]{hardwareType, requirement});
+        }
+        jsonReader.endArray();
+        return hardwareRequirements;
+    }
 
-        return rawFeatureModel;
+    /**
+     * Reads a single cross-tree constraint object at the current position of the reader.
+     */
+    private RawCrossTreeConstraint readCrossTreeConstraintStreaming(JsonReader jsonReader) throws IOException {
+        String sourceName = null;
+        String targetName = null;
+        String relation = null;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            switch (jsonReader.nextName()) {
+                case "sourceName" -> sourceName = jsonReader.nextString();
+                case "targetName" -> targetName = jsonReader.nextString();
+                case "relation" -> relation = jsonReader.nextString();
+                default -> jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return new RawCrossTreeConstraint(sourceName, targetName, relation);
+    }
+
+    /**
+     * Creates a feature from its raw attributes and remembers its reachable abstract features.
+     *
+     * @throws InvalidFeatureModelRelationException if the relation is unknown
+     */
+    private Feature createFeature(String name, String parentName, String relationStr, List<String> reachableList, Map<LshwClass, Integer> hardwareRequirements, int index) throws InvalidFeatureModelRelationException {
+        var feature = new Feature();
+        feature.setName(name);
+        feature.setParentFeatureName(parentName);
+        feature.setIndex(index);
+
+        switch (relationStr) {
+            case "MANDATORY" -> feature.setRelation(FeatureModelRelation.MANDATORY);
+            case "OPTIONAL" -> feature.setRelation(FeatureModelRelation.OPTIONAL);
+            case "ALTERNATIVE" -> feature.setRelation(FeatureModelRelation.ALTERNATIVE);
+            case "OR" -> feature.setRelation(FeatureModelRelation.OR);
+            case null, default ->
+                    throw new InvalidFeatureModelRelationException("\"" + relationStr + "\" is not a valid relation");
+        }
+
+        if (reachableList != null) {
+            _FeatureConnectivityMap.put(name, reachableList);
+        }
+        feature.setHardwareRequirements(hardwareRequirements);
+        return feature;
     }
 
     /**
-     * Validates that all relations between features adhere to the expected
-     * constraints of the feature model.
+     * Validates that all relations of the given feature adhere to the expected
+     * constraints of the feature model. Requires that all children are attached.
      *
-     * @param features list of features to validate
+     * @param feature feature to validate
      * @throws InvalidFeatureModelRelationException if the relations are invalid
      */
-    private void checkValidRelations(List<Feature> features) throws InvalidFeatureModelRelationException {
-        for (var feature : features) {
-            if (feature.getParentFeature() == null && !feature.getName().equals(ROOT_FEATURE_NAME)) {
-                throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" is not root and has no parent");
+    private void checkValidRelations(Feature feature) throws InvalidFeatureModelRelationException {
+        if (feature.getParentFeature() == null && !feature.getName().equals(ROOT_FEATURE_NAME)) {
+            throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" is not root and has no parent");
+        }
+        if (!feature.getChildren().isEmpty()) {
+            if (feature.getChildren().stream().anyMatch(child -> child.getRelation() == FeatureModelRelation.ALTERNATIVE || child.getRelation() == FeatureModelRelation.OR)) {
+                if (feature.getChildren().size() < 2) {
+                    throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" is parent of a feature group with less than 2 children");
+                }
+                if (!feature.getChildren().stream().allMatch(child -> child.getRelation() == FeatureModelRelation.ALTERNATIVE) && !feature.getChildren().stream().allMatch(child -> child.getRelation() == FeatureModelRelation.OR)) {
+                    throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" is parent of a mixed feature group");
+                }
             }
-            if (!feature.getChildren().isEmpty()) {
-                if (feature.getChildren().stream().anyMatch(child -> child.getRelation() == FeatureModelRelation.ALTERNATIVE || child.getRelation() == FeatureModelRelation.OR)) {
-                    if (feature.getChildren().size() < 2) {
-                        throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" is parent of a feature group with less than 2 children");
-                    }
-                    if (!feature.getChildren().stream().allMatch(child -> child.getRelation() == FeatureModelRelation.ALTERNATIVE) && !feature.getChildren().stream().allMatch(child -> child.getRelation() == FeatureModelRelation.OR)) {
-                        throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" is parent of a mixed feature group");
-                    }
+            //if the feature is an abstract parent of concrete features
+            if (feature.getChildren().stream().anyMatch(child -> child.getChildren().isEmpty())) {
+                if (!feature.getChildren().stream().allMatch(child -> child.getChildren().isEmpty())) {
+                    throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" has concrete and abstract children");
                 }
-                //if the feature is an abstract parent of concrete features
-                if (feature.getChildren().stream().anyMatch(child -> child.getChildren().isEmpty())) {
-                    if (!feature.getChildren().stream().allMatch(child -> child.getChildren().isEmpty())) {
-                        throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" has concrete and abstract children");
-                    }
-                    if (feature.getChildren().size() == 1) {
-                        if (feature.getChildren().getFirst().getRelation() != FeatureModelRelation.MANDATORY) {
-                            throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" has exactly one concrete child but this child is not MANDATORY");
-                        }
-                    } else if (!feature.getChildren().stream().allMatch(child -> child.getRelation() == FeatureModelRelation.ALTERNATIVE)) {
-                        throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" has concrete children but some are not ALTERNATIVE");
+                if (feature.getChildren().size() == 1) {
+                    if (feature.getChildren().getFirst().getRelation() != FeatureModelRelation.MANDATORY) {
+                        throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" has exactly one concrete child but this child is not MANDATORY");
                     }
+                } else if (!feature.getChildren().stream().allMatch(child -> child.getRelation() == FeatureModelRelation.ALTERNATIVE)) {
+                    throw new InvalidFeatureModelRelationException("\"" + feature.getName() + "\" has concrete children but some are not ALTERNATIVE");
                 }
             }
         }
     }
 
     /**
-     * Adds hierarchy information based on the connectivity map gathered while
-     * reading the feature model.
+     * Adds the successors of the given feature based on the connectivity map
+     * gathered while reading the feature model.
      *
-     * @param features list of all features of the model
+     * @param feature feature whose successors are resolved
      */
-    private void buildHierarchyFromConnectivity(List<Feature> features) {
-        for (var featureName : _FeatureConnectivityMap.keySet()) {
-            var feature = getFeatureByName(features, featureName);
-            if (feature != null) {
-                var reachable = _FeatureConnectivityMap.get(featureName);
-                for (var successorName : reachable) {
-                    var succeedingFeature = getFeatureByName(features, successorName);
-                    if (succeedingFeature != null && !feature.getSuccessiveFeatures().contains(succeedingFeature)) {
-                        feature.addSuccessiveFeature(succeedingFeature);
-                    }
-                }
+    private void buildHierarchyFromConnectivity(Feature feature) {
+        var reachable = _FeatureConnectivityMap.get(feature.getName());
+        if (reachable == null || _FeaturesByName.get(feature.getName()) != feature) {
+            return;
+        }
+        var successors = new HashSet<>(feature.getSuccessiveFeatures());
+        for (var successorName : reachable) {
+            var succeedingFeature = _FeaturesByName.get(successorName);
+            if (succeedingFeature != null && successors.add(succeedingFeature)) {
+                feature.addSuccessiveFeature(succeedingFeature);
             }
         }
     }
@@ -203,49 +389,65 @@ public class FeatureModelReader {
      * @return map containing the required values for each hardware class
      */
     private Map<LshwClass, Integer> readHardwareRequirements(JsonElement hardwareRequirements) {
-        var hardwareRequirementsMap = new HashMap<LshwClass, Integer>();
-        for (var lshwClass : LshwClass.values()) {
-            hardwareRequirementsMap.put(lshwClass, 0);
-        }
+        var rawHardwareRequirements = new ArrayList<String[]>();
         if (hardwareRequirements != null && !hardwareRequirements.isJsonNull()) {
-            var hardwareRequirementsArray = hardwareRequirements.getAsJsonArray();
             try {
-                for (var hardwareRequirementsElement : hardwareRequirementsArray) {
+                for (var hardwareRequirementsElement : hardwareRequirements.getAsJsonArray()) {
                     var hardwareRequirementsObject = hardwareRequirementsElement.getAsJsonObject();
                     if (hardwareRequirementsObject.get("hardwareType") != null) {
-                        var lshwClass = LshwClass.valueOf(hardwareRequirementsObject.get("hardwareType").getAsString());
-                        int requiredValue = hardwareRequirementsObject.get("requirement").getAsInt();
-                        hardwareRequirementsMap.put(lshwClass, requiredValue);
+                        rawHardwareRequirements.add(new String[]{hardwareRequirementsObject.get("hardwareType").getAsString(), String.valueOf(hardwareRequirementsObject.get("requirement").getAsInt())});
                     }
                 }
             } catch (Exception e) {
                 _Logger.error(e);
             }
         }
+        return readHardwareRequirements(rawHardwareRequirements);
+    }
+
+    /**
+     * Creates the hardware requirements of a feature from pairs of hardware type and requirement.
+     *
+     * @param rawHardwareRequirements hardware type and required value per requirement
+     * @return map containing the required values for each hardware class
+     */
+    private Map<LshwClass, Integer> readHardwareRequirements(List<String[]> rawHardwareRequirements) {
+        var hardwareRequirementsMap = new HashMap<LshwClass, Integer>();
+        for (var lshwClass : LshwClass.values()) {
+            hardwareRequirementsMap.put(lshwClass, 0);
+        }
+        try {
+            for (var hardwareRequirement : rawHardwareRequirements) {
+                if (hardwareRequirement[0] != null) {
+                    var lshwClass = LshwClass.valueOf(hardwareRequirement[0]);
+                    int requiredValue = Integer.parseInt(hardwareRequirement[1]);
+                    hardwareRequirementsMap.put(lshwClass, requiredValue);
+                }
+            }
+        } catch (Exception e) {
+            _Logger.error(e);
+        }
         return hardwareRequirementsMap;
     }
 
     /**
-     * Reads cross-tree constraints from the given JSON array and maps them to
-     * feature instances.
+     * Maps the raw cross-tree constraints to feature instances.
      *
-     * @param crossTreeConstraintsJsonArray JSON array containing the constraints
-     * @param features                      list of all features of the model
+     * @param rawCrossTreeConstraints constraints with the names of their features
      * @return list of parsed cross-tree constraints
      * @throws InvalidFeatureModelRelationException if an unknown relation type is encountered
      */
-    private List<CrossTreeConstraint> readCrossTreeConstraints(JsonArray crossTreeConstraintsJsonArray, List<Feature> features) throws InvalidFeatureModelRelationException {
-        var crossTreeConstraints = new ArrayList<CrossTreeConstraint>();
-        for (var crossTreeConstraintElement : crossTreeConstraintsJsonArray) {
-            var rawCrossTreeConstraint = crossTreeConstraintElement.getAsJsonObject();
-            var source = getFeatureByName(features, rawCrossTreeConstraint.get("sourceName").getAsString());
-            var target = getFeatureByName(features, rawCrossTreeConstraint.get("targetName").getAsString());
-            var relationString = rawCrossTreeConstraint.get("relation").getAsString();
+    private List<CrossTreeConstraint> createCrossTreeConstraints(List<RawCrossTreeConstraint> rawCrossTreeConstraints) throws InvalidFeatureModelRelationException {
+        var crossTreeConstraints = new ArrayList<CrossTreeConstraint>(rawCrossTreeConstraints.size());
+        for (var rawCrossTreeConstraint : rawCrossTreeConstraints) {
+            var source = _FeaturesByName.get(rawCrossTreeConstraint.sourceName());
+            var target = _FeaturesByName.get(rawCrossTreeConstraint.targetName());
+            var relationString = rawCrossTreeConstraint.relation();
             CrossTreeConstraintRelation relation;
             switch (relationString) {
                 case "requires" -> relation = CrossTreeConstraintRelation.REQUIRES;
                 case "excludes" -> relation = CrossTreeConstraintRelation.EXCLUDES;
-                default ->
+                case null, default ->
                         throw new InvalidFeatureModelRelationException("\"" + relationString + "\" is not a valid cross tree constraint");
             }
             crossTreeConstraints.add(new CrossTreeConstraint(source, target, relation));
@@ -253,32 +455,24 @@ public class FeatureModelReader {
         return crossTreeConstraints;
     }
 
-    /**
-     * Retrieves a feature by its name from the provided feature list.
-     *
-     * @param features    list of features to search in
-     * @param featureName name of the feature to find
-     * @return the matching feature or {@code null} if it does not exist
-     */
-    private Feature getFeatureByName(List<Feature> features, String featureName) {
-        return features.stream().filter(x -> x.getName().equals(featureName)).findFirst().orElse(null);
-    }
-
     /**
      * Converts the connectivity information read from the JSON file into actual
      * feature references.
      *
-     * @param features list of all features in the model
-     * @return map assigning each feature to its reachable abstract features
+     * @return map assigning each feature to its reachable abstract features in feature order
      */
-    private Map<String, List<Feature>> mapConnectivityInformationToFeatures(List<Feature> features) {
+    private Map<String, List<Feature>> mapConnectivityInformationToFeatures() {
         var featureConnectivityMap = new HashMap<String, List<Feature>>();
-        for (var key : _FeatureConnectivityMap.keySet()) {
+        for (var entry : _FeatureConnectivityMap.entrySet()) {
             var abstractFeatures = new ArrayList<Feature>();
-            features.stream()
-                    .filter(x -> _FeatureConnectivityMap.get(key).contains(x.getName()))
-                    .forEach(abstractFeatures::add);
-            featureConnectivityMap.put(key, abstractFeatures);
+            for (var featureName : new LinkedHashSet<>(entry.getValue())) {
+                var feature = _FeaturesByName.get(featureName);
+                if (feature != null) {
+                    abstractFeatures.add(feature);
+                }
+            }
+            abstractFeatures.sort(Comparator.comparingInt(Feature::getIndex));
+            featureConnectivityMap.put(entry.getKey(), abstractFeatures);
         }
         return featureConnectivityMap;
     }
@@ -288,10 +482,9 @@ public class FeatureModelReader {
      * process should start.
      *
      * @param featureConnectivityMap connectivity information between features
-     * @param features               list of all features
      * @return the abstract start feature or {@code null} if none can be determined
      */
-    private Feature getAbstractStartFeature(Map<String, List<Feature>> featureConnectivityMap, List<Feature> features) {
+    private Feature getAbstractStartFeature(Map<String, List<Feature>> featureConnectivityMap) {
         var featuresWithOutgoing = featureConnectivityMap.keySet();
         var featuresWithIncoming = new HashSet<String>();
         for (var list : featureConnectivityMap.values()) {
@@ -301,9 +494,16 @@ public class FeatureModelReader {
         }
         for (var featureName : featuresWithOutgoing) {
             if (!featuresWithIncoming.contains(featureName)) {
-                return getFeatureByName(features, featureName);
+                return _FeaturesByName.get(featureName);
             }
         }
         return null;
     }
+
+    /**
+     * Cross-tree constraint as read from the file, the features are resolved
+     * once all features are known.
+     */
+    private record RawCrossTreeConstraint(String sourceName, String targetName, String relation) {
+    }
 }
@@ -0,0 +1,93 @@
+package FeatureModelReader;
+
+import FeatureModelReader.Structures.*;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * Finds alternatives that cannot be told apart by any later stage and keeps one
+ * representative per equivalence class. Two concrete features are interchangeable
+ * if they belong to the same alternative group and have equal hardware
+ * requirements, response times, successors and CTC participation (same relation
+ * to the same other features). Enumeration, serialization and merging then run
+ * over the representatives, {@link InterchangeableFeatures} expands them again
+ * where a consumer needs the concrete features and weights exact counts.
+ */
+public class InterchangeableFeatureDetector {
+    private final Logger _ApplicationLogger;
+
+    /**
+     * @param logger application logger used for progress output
+     */
+    public InterchangeableFeatureDetector(Logger logger) {
+        _ApplicationLogger = logger;
+    }
+
+    /**
+     * Detects the classes of interchangeable alternatives without changing the model.
+     *
+     * @param featureModel read feature model
+     * @return classes with at least two members
+     */
+    public InterchangeableFeatures detect(FeatureModelRead featureModel) {
+        var participation = new HashMap<Feature, Set<List<Object>>>();
+        for (var constraint : featureModel.crossTreeConstraints) {
+            participation.computeIfAbsent(constraint.getSource(), k -> new HashSet<>())
+                    .add(List.of("source", constraint.getTarget().getName(), constraint.getRelation()));
+            participation.computeIfAbsent(constraint.getTarget(), k -> new HashSet<>())
+                    .add(List.of("target", constraint.getSource().getName(), constraint.getRelation()));
+        }
+        var connectivity = featureModel.featureConnectivityInformation;
+
+        var interchangeableFeatures = new InterchangeableFeatures();
+        for (var parent : featureModel.features) {
+            var classes = new LinkedHashMap<List<Object>, List<Feature>>();
+            for (var child : parent.getChildren()) {
+                if (child.getRelation() != FeatureModelRelation.ALTERNATIVE || !child.getChildren().isEmpty()
+                        || child == connectivity.startFeature || child == connectivity.abstractStartFeature) {
+                    continue;
+                }
+                var signature = Arrays.<Object>asList(child.getHardwareRequirements(), child.getResponseTimes(),
+                        child.getSuccessiveFeatures().stream().map(Feature::getName).toList(),
+                        participation.getOrDefault(child, Set.of()));
+                classes.computeIfAbsent(signature, k -> new ArrayList<>()).add(child);
+            }
+            classes.values().stream().filter(members -> members.size() > 1).forEach(interchangeableFeatures::addClass);
+        }
+        return interchangeableFeatures;
+    }
+
+    /**
+     * Detects the classes of interchangeable alternatives and removes every member
+     * except the representative from the model. CTCs of removed members are
+     * dropped, they equal the CTCs of the representative. The CNF indices of the
+     * remaining features are kept.
+     *
+     * @param featureModel read feature model, reduced in place
+     * @return classes of the removed features
+     */
+    public InterchangeableFeatures reduce(FeatureModelRead featureModel) {
+        var interchangeableFeatures = detect(featureModel);
+        if (interchangeableFeatures.isEmpty()) {
+            return interchangeableFeatures;
+        }
+        var removed = Collections.newSetFromMap(new IdentityHashMap<Feature, Boolean>());
+        for (var members : interchangeableFeatures.getClasses()) {
+            removed.addAll(members.subList(1, members.size()));
+        }
+        featureModel.features.removeIf(removed::contains);
+        for (var feature : featureModel.features) {
+            feature.getChildren().removeIf(removed::contains);
+            feature.getSuccessiveFeatures().removeIf(removed::contains);
+        }
+        featureModel.crossTreeConstraints.removeIf(constraint -> removed.contains(constraint.getSource()) || removed.contains(constraint.getTarget()));
+        var connectivityMap = featureModel.featureConnectivityInformation.featureConnectivityMap;
+        removed.forEach(feature -> connectivityMap.remove(feature.getName()));
+        connectivityMap.replaceAll((name, successors) -> new ArrayList<>(successors.stream().filter(successor -> !removed.contains(successor)).toList()));
+
+        _ApplicationLogger.info("Found " + interchangeableFeatures.getClasses().size() + " classes of interchangeable alternatives, "
+                + interchangeableFeatures.getRepresentedFeatureCount() + " features are represented");
+        return interchangeableFeatures;
+    }
+}
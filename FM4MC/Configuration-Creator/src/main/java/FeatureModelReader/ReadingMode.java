@@ -0,0 +1,17 @@
+package FeatureModelReader;
+
+/**
+ * Defines how the {@link FeatureModelReader} tokenizes the JSON file. Both modes
+ * resolve the references between features through a name index in linear time.
+ */
+public enum ReadingMode {
+    /**
+     * The whole file is parsed into a Gson {@code JsonObject} tree first.
+     */
+    TREE,
+    /**
+     * The file is tokenized with a Gson {@code JsonReader}, only the features and
+     * constraints are kept in memory, which suits very large feature models.
+     */
+    STREAMING
+}
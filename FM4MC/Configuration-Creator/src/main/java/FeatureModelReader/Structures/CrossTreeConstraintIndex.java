@@ -0,0 +1,126 @@
+package FeatureModelReader.Structures;
+
+import java.util.*;
+
+/**
+ * Read-only index over cross-tree constraints. The constraints are bucketed by
+ * the CNF index of their source and target feature, separately for
+ * {@link CrossTreeConstraintRelation#REQUIRES} and {@link CrossTreeConstraintRelation#EXCLUDES}.
+ * The features of a partial feature model are given as a bit set of feature
+ * indices, the constraints local to it are found by intersecting that set with
+ * the sources of all constraints, so the lookup only touches the features of
+ * the PFM and their constraints instead of every constraint of the model.
+ * The index is not modified after creation and can be shared between threads.
+ */
+public class CrossTreeConstraintIndex {
+    private final Map<CrossTreeConstraintRelation, Map<Integer, List<CrossTreeConstraint>>> _BySource = new EnumMap<>(CrossTreeConstraintRelation.class);
+    private final Map<CrossTreeConstraintRelation, Map<Integer, List<CrossTreeConstraint>>> _ByTarget = new EnumMap<>(CrossTreeConstraintRelation.class);
+    private final BitSet _Sources = new BitSet();
+    private final BitSet _Targets = new BitSet();
+    private final int _Size;
+
+    /**
+     * Creates the index.
+     *
+     * @param crossTreeConstraints constraints to index, the collection is not modified
+     */
+    public CrossTreeConstraintIndex(Collection<CrossTreeConstraint> crossTreeConstraints) {
+        for (var relation : CrossTreeConstraintRelation.values()) {
+            _BySource.put(relation, new HashMap<>());
+            _ByTarget.put(relation, new HashMap<>());
+        }
+        for (var constraint : crossTreeConstraints) {
+            var source = constraint.getSource().getIndex();
+            var target = constraint.getTarget().getIndex();
+            _BySource.get(constraint.getRelation()).computeIfAbsent(source, k -> new ArrayList<>()).add(constraint);
+            _ByTarget.get(constraint.getRelation()).computeIfAbsent(target, k -> new ArrayList<>()).add(constraint);
+            _Sources.set(source);
+            _Targets.set(target);
+        }
+        _Size = crossTreeConstraints.size();
+    }
+
+    /**
+     * @return number of indexed constraints
+     */
+    public int size() {
+        return _Size;
+    }
+
+    /**
+     * @param featureIndex CNF index of the source feature
+     * @param relation     relation of the constraints
+     * @return constraints with the given source, empty if there is none
+     */
+    public List<CrossTreeConstraint> getBySource(int featureIndex, CrossTreeConstraintRelation relation) {
+        return Collections.unmodifiableList(_BySource.get(relation).getOrDefault(featureIndex, List.of()));
+    }
+
+    /**
+     * @param featureIndex CNF index of the target feature
+     * @param relation     relation of the constraints
+     * @return constraints with the given target, empty if there is none
+     */
+    public List<CrossTreeConstraint> getByTarget(int featureIndex, CrossTreeConstraintRelation relation) {
+        return Collections.unmodifiableList(_ByTarget.get(relation).getOrDefault(featureIndex, List.of()));
+    }
+
+    /**
+     * Collects all constraints whose source and target are part of the given features.
+     *
+     * @param features CNF indices of the features, see {@link #toBitSet(Collection)}
+     * @return local constraints ordered by source index
+     */
+    public List<CrossTreeConstraint> getLocalConstraints(BitSet features) {
+        var localConstraints = new ArrayList<CrossTreeConstraint>();
+        if (!_Targets.intersects(features)) {
+            return localConstraints;
+        }
+        var sources = (BitSet) _Sources.clone();
+        sources.and(features);
+        for (int source = sources.nextSetBit(0); source >= 0; source = sources.nextSetBit(source + 1)) {
+            for (var bucket : _BySource.values()) {
+                for (var constraint : bucket.getOrDefault(source, List.of())) {
+                    if (features.get(constraint.getTarget().getIndex())) {
+                        localConstraints.add(constraint);
+                    }
+                }
+            }
+        }
+        return localConstraints;
+    }
+
+    /**
+     * @param features CNF indices of the features, see {@link #toBitSet(Collection)}
+     * @return {@code true} if at least one constraint has source and target in the given features
+     */
+    public boolean hasLocalConstraint(BitSet features) {
+        if (!_Sources.intersects(features) || !_Targets.intersects(features)) {
+            return false;
+        }
+        var sources = (BitSet) _Sources.clone();
+        sources.and(features);
+        for (int source = sources.nextSetBit(0); source >= 0; source = sources.nextSetBit(source + 1)) {
+            for (var bucket : _BySource.values()) {
+                for (var constraint : bucket.getOrDefault(source, List.of())) {
+                    if (features.get(constraint.getTarget().getIndex())) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param features features of a (partial) feature model
+     * @return bit set of the CNF indices of the features
+     */
+    public static BitSet toBitSet(Collection<Feature> features) {
+        var bitSet = new BitSet();
+        for (var feature : features) {
+            bitSet.set(feature.getIndex());
+        }
+        return bitSet;
+    }
+}
@@ -0,0 +1,105 @@
+package FeatureModelReader.Structures;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Equivalence classes of interchangeable alternatives, see
+ * {@link FeatureModelReader.InterchangeableFeatureDetector}. Only the representative
+ * of a class stays in the reduced feature model; a configuration that selects a
+ * representative stands for one configuration per member of its class.
+ * Features without a class are their own representative with multiplicity 1.
+ */
+public class InterchangeableFeatures {
+    private final Map<Feature, List<Feature>> _Members = new LinkedHashMap<>();
+
+    /**
+     * Adds a class, its first member is the representative.
+     *
+     * @param members interchangeable features, at least two
+     */
+    public void addClass(List<Feature> members) {
+        _Members.put(members.getFirst(), List.copyOf(members));
+    }
+
+    /**
+     * @return members per class, the first member is the representative
+     */
+    public Collection<List<Feature>> getClasses() {
+        return Collections.unmodifiableCollection(_Members.values());
+    }
+
+    /**
+     * @return {@code true} if no interchangeable features were found
+     */
+    public boolean isEmpty() {
+        return _Members.isEmpty();
+    }
+
+    /**
+     * @return number of features that are represented by another feature
+     */
+    public int getRepresentedFeatureCount() {
+        return _Members.values().stream().mapToInt(members -> members.size() - 1).sum();
+    }
+
+    /**
+     * @param feature any feature of the reduced model
+     * @return the features the given feature stands for, including itself
+     */
+    public List<Feature> getMembers(Feature feature) {
+        return _Members.getOrDefault(feature, List.of(feature));
+    }
+
+    /**
+     * @return number of features the given feature stands for
+     */
+    public int multiplicity(Feature feature) {
+        return getMembers(feature).size();
+    }
+
+    /**
+     * @param configuration selected features of the reduced model
+     * @return number of configurations of the original model the configuration stands for
+     */
+    public BigInteger multiplicity(Collection<Feature> configuration) {
+        var multiplicity = BigInteger.ONE;
+        for (var feature : configuration) {
+            multiplicity = multiplicity.multiply(BigInteger.valueOf(multiplicity(feature)));
+        }
+        return multiplicity;
+    }
+
+    /**
+     * @return multiplicity per CNF index of every representative, the weights of an exact count
+     */
+    public Map<Integer, BigInteger> getWeights() {
+        var weights = new HashMap<Integer, BigInteger>();
+        _Members.forEach((representative, members) -> weights.put(representative.getIndex(), BigInteger.valueOf(members.size())));
+        return weights;
+    }
+
+    /**
+     * Expands a configuration of the reduced model into the configurations of the
+     * original model it stands for. The configurations are created while the stream is consumed.
+     *
+     * @param configuration selected features of the reduced model
+     * @return configurations with every representative replaced by one of its members
+     */
+    public Stream<List<Feature>> expand(List<Feature> configuration) {
+        return expand(configuration, 0, new ArrayList<>(configuration.size()));
+    }
+
+    private Stream<List<Feature>> expand(List<Feature> configuration, int position, List<Feature> prefix) {
+        if (position == configuration.size()) {
+            return Stream.of(List.copyOf(prefix));
+        }
+        return getMembers(configuration.get(position)).stream().flatMap(member -> {
+            var extended = new ArrayList<Feature>(prefix.size() + 1);
+            extended.addAll(prefix);
+            extended.add(member);
+            return expand(configuration, position + 1, extended);
+        });
+    }
+}
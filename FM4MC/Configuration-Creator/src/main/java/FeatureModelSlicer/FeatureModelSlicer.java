@@ -1,23 +1,35 @@
 package FeatureModelSlicer;
 
+import FeatureModelReader.Structures.CrossTreeConstraintIndex;
 import FeatureModelReader.Structures.Feature;
 import FeatureModelReader.Structures.FeatureModelRead;
-import FeatureModelReader.Structures.FeatureModelRelation;
 import FeatureModelSlicer.Structures.FeatureModelSliced;
 import org.apache.logging.log4j.Logger;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
 /**
  * Splits a feature model into smaller slices based on connectivity and
  * estimated configuration counts. The slicer operates on abstract features and
- * creates partial feature models when a threshold is exceeded.
+ * creates partial feature models when a threshold is exceeded, or where the
+ * {@link SlicingCostModel} predicts the lowest cost.
  */
 public class FeatureModelSlicer {
+    /** threshold that lets the {@link SlicingCostModel} choose the slice boundaries */
+    public static final int AUTOMATIC_THRESHOLD = -1;
+
     private FeatureModelSliced m_FeatureModelSliced;
+    private CrossTreeConstraintIndex m_CrossTreeConstraints;
 
     private final Logger _Logger;
+    private final int _Parallelism;
+    private final SlicingCostModel _CostModel;
 
     /**
      * Creates a new slicer.
@@ -25,25 +37,50 @@ public class FeatureModelSlicer {
      * @param logger logger for diagnostic output
      */
     public FeatureModelSlicer(Logger logger) {
+        this(logger, 1);
+    }
+
+    /**
+     * Creates a new slicer that slices the branches after a fan-out in parallel.
+     *
+     * @param logger      logger for diagnostic output
+     * @param parallelism number of threads used for the branches, 1 slices them sequentially
+     */
+    public FeatureModelSlicer(Logger logger, int parallelism) {
+        this(logger, parallelism, new SlicingCostModel());
+    }
+
+    /**
+     * Creates a new slicer with the cost model used for {@link #AUTOMATIC_THRESHOLD}.
+     *
+     * @param logger      logger for diagnostic output
+     * @param parallelism number of threads used for the branches, 1 slices them sequentially
+     * @param costModel   predicts the cost of candidate slices
+     */
+    public FeatureModelSlicer(Logger logger, int parallelism, SlicingCostModel costModel) {
         _Logger = logger;
+        _Parallelism = Math.max(1, parallelism);
+        _CostModel = costModel;
     }
 
     /**
      * Slices the given feature model according to the threshold.
      *
      * @param readFeatureModel feature model to slice
-     * @param threshold        maximum estimated configuration count per slice
+     * @param threshold        maximum estimated configuration count per slice or
+     *                         {@link #AUTOMATIC_THRESHOLD} to minimize the predicted cost
      * @return sliced feature model representation
      */
     public FeatureModelSliced sliceFeatureModel(FeatureModelRead readFeatureModel, int threshold) {
         // List of slices; each slice is a list of features representing a sequential chain.
         m_FeatureModelSliced = new FeatureModelSliced(readFeatureModel);
+        m_CrossTreeConstraints = threshold == AUTOMATIC_THRESHOLD ? new CrossTreeConstraintIndex(readFeatureModel.crossTreeConstraints) : null;
 
         // Find the start feature using your connectivity info.
         Feature startFeature = readFeatureModel.featureConnectivityInformation.abstractStartFeature;
         m_FeatureModelSliced.abstractLayerFeatureModels = buildAbstractLayerNonRecursive(readFeatureModel);
 
-        // Use recursive slicing based on the call graph.
+        // Slice along the call graph.
         m_FeatureModelSliced.partialConcreteFeatureModels = sliceFeatureModelByCallGraph(startFeature, threshold);
 
         // Optionally, you can log or process m_SlicedFeatureModels.
@@ -58,102 +95,240 @@ public class FeatureModelSlicer {
     }
 
     /**
-     * Recursively slice the feature model based on call graph rules.
-     * Each slice is a list of features forming a sequential chain.
+     * Slices the feature model based on call graph rules without recursion.
+     * Each slice is a list of features forming a sequential chain. Sequentially
+     * the branches are processed depth first with an explicit stack, in parallel
+     * every branch after a fan-out is a task of a fork-join pool.
      */
     private List<List<Feature>> sliceFeatureModelByCallGraph(Feature startFeature, int threshold) {
-        var result = new ArrayList<List<Feature>>();
-        // Start recursive slicing with an empty current slice and estimated configs = 1.
-        sliceRecursively(startFeature, threshold, new ArrayList<>(), 1, result, new HashSet<Feature>());
+        var callGraph = new CallGraph(m_FeatureModelSliced);
+        var slices = _Parallelism > 1
+                ? sliceInParallel(startFeature, threshold, callGraph)
+                : sliceSequentially(startFeature, threshold, callGraph);
+
+        var result = new ArrayList<List<Feature>>(slices.size());
+        for (var slice : slices) {
+            result.add(slice.features());
+            m_FeatureModelSliced.estimatedConfigurationsPerPartialFeatureModel.add(slice.estimate());
+        }
         return result;
     }
 
     /**
-     * Helper method to recursively slice the feature chain.
-     *
-     * @param current         The current abstract feature.
-     * @param threshold       The threshold for estimated configuration complexity.
-     * @param currentSlice    The current slice being built.
-     * @param currentEstimate The estimated configuration count so far.
-     * @param result          The global list of slices.
+     * Slices all branches depth first in the calling thread.
      */
-    private void sliceRecursively(Feature current, int threshold, List<Feature> currentSlice, int currentEstimate, List<List<Feature>> result, Set<Feature> visited) {
-        if (visited.contains(current)) {
-            return;
+    private List<Slice> sliceSequentially(Feature startFeature, int threshold, CallGraph callGraph) {
+        var visited = new BitSet();
+        IntPredicate claim = index -> {
+            if (visited.get(index)) {
+                return false;
+            }
+            visited.set(index);
+            return true;
+        };
+
+        var slices = new ArrayList<Slice>();
+        var branches = new ArrayDeque<Feature>();
+        branches.push(startFeature);
+        while (!branches.isEmpty()) {
+            var successors = sliceBranch(branches.pop(), threshold, callGraph, claim, slices);
+            // pushed in reverse so that the first successor is sliced first
+            for (int i = successors.size() - 1; i >= 0; i--) {
+                branches.push(successors.get(i));
+            }
         }
-        // Add the current feature to the current slice.
-        currentSlice.add(current);
-        visited.add(current);
-        currentEstimate = estimateConfigs(currentEstimate, current);
-
-        // Get the successors from connectivity (reachableAbstractFeatures) of the current feature.
-        var successors = m_FeatureModelSliced.featureConnectivityInformation.featureConnectivityMap.get(current.getName());
-        if (successors == null || successors.isEmpty()) {
-            // No successors: end this slice.
-            result.add(new ArrayList<>(currentSlice));
-            return;
+        return slices;
+    }
+
+    /**
+     * Slices every branch as an own task. The tasks are forked without waiting
+     * for each other, the slices are collected afterward in the depth first order
+     * of the branches, so deep nesting of fan-outs does not nest joins.
+     * A feature reachable from several branches is sliced by the branch that
+     * claims it first, therefore the position of its slices can differ between runs.
+     */
+    private List<Slice> sliceInParallel(Feature startFeature, int threshold, CallGraph callGraph) {
+        var visited = new AtomicIntegerArray(callGraph.size());
+        IntPredicate claim = index -> visited.compareAndSet(index, 0, 1);
+
+        var pool = new ForkJoinPool(_Parallelism);
+        try {
+            var slices = new ArrayList<Slice>();
+            var branches = new ArrayDeque<ForkJoinTask<BranchResult>>();
+            branches.push(pool.submit(new BranchTask(startFeature, threshold, callGraph, claim)));
+            while (!branches.isEmpty()) {
+                var result = branches.pop().join();
+                slices.addAll(result.slices());
+                for (int i = result.branches().size() - 1; i >= 0; i--) {
+                    branches.push(result.branches().get(i));
+                }
+            }
+            return slices;
+        } finally {
+            pool.shutdown();
         }
-        // If more than one successor: rule 1 (parallel execution) - end current slice and start new slices for each successor.
-        if (successors.size() > 1) {
-            result.add(new ArrayList<>(currentSlice));
-            for (var successor : successors) {
-                // Start a new slice for each successor.
-                sliceRecursively(successor, threshold, new ArrayList<>(), 1, result, visited);
+    }
+
+    /**
+     * Slices one branch starting at the given feature and follows it as long as
+     * the call graph stays sequential. A chain ends if the next feature has more
+     * than one predecessor, then the chain is partitioned into slices, see
+     * {@link #partitionChain(List, int, List)}.
+     *
+     * @param start     first feature of the branch
+     * @param threshold the threshold for estimated configuration complexity
+     * @param callGraph successors and predecessor counts of the abstract features
+     * @param claim     marks a feature as visited, false if it was visited before
+     * @param slices    finished slices of the branch are added to this list
+     * @return successors of a fan-out at the end of the branch, each starts a new branch
+     */
+    private List<Feature> sliceBranch(Feature start, int threshold, CallGraph callGraph, IntPredicate claim, List<Slice> slices) {
+        var current = start;
+        var chain = new ArrayList<Feature>();
+        List<Feature> fanOut = List.of();
+        // the loop ends if the next feature was already sliced by another branch or closes a cycle
+        while (claim.test(current.getIndex())) {
+            chain.add(current);
+
+            var successors = callGraph.successorsOf(current);
+            if (successors.isEmpty()) {
+                // No successors: end this slice.
+                break;
             }
-            return;
+            // If more than one successor: rule 1 (parallel execution) - end current slice and start new slices for each successor.
+            if (successors.size() > 1) {
+                fanOut = successors;
+                break;
+            }
+            var next = successors.getFirst();
+            // Rule 2: next has more than one predecessor.
+            if (callGraph.predecessorsOf(next) > 1) {
+                partitionChain(chain, threshold, slices);
+                chain = new ArrayList<>();
+            }
+            // Continue with the next feature, either in the same or in a new chain.
+            current = next;
         }
-        // Only one successor.
-        var next = successors.getFirst();
-        // Check rule 2: if next has more than one predecessor.
-        if (moreThanOnePredecessorForSuccessor(next)) {
-            result.add(new ArrayList<>(currentSlice));
-            // Start new slice with next.
-            sliceRecursively(next, threshold, new ArrayList<>(), 1, result, visited);
+        partitionChain(chain, threshold, slices);
+        return fanOut;
+    }
+
+    /**
+     * Partitions a sequential chain into slices. Rule 3: with a threshold a new
+     * slice is started as soon as the estimated configurations exceed it. With
+     * {@link #AUTOMATIC_THRESHOLD} the cost model picks the boundaries.
+     */
+    private void partitionChain(List<Feature> chain, int threshold, List<Slice> slices) {
+        if (chain.isEmpty()) {
             return;
         }
-        // Check rule 3: if estimated configs with next exceeds threshold.
-        if (estimateConfigs(currentEstimate, next) > threshold) {
-            result.add(new ArrayList<>(currentSlice));
-            sliceRecursively(next, threshold, new ArrayList<>(), 1, result, visited);
+        if (threshold == AUTOMATIC_THRESHOLD) {
+            for (var slice : _CostModel.partition(chain, m_CrossTreeConstraints)) {
+                slices.add(new Slice(slice, _CostModel.estimateConfigurations(slice, m_CrossTreeConstraints)));
+            }
             return;
         }
-        // Continue the same slice with next feature.
-        sliceRecursively(next, threshold, currentSlice, currentEstimate, result, visited);
+        var currentSlice = new ArrayList<Feature>();
+        var currentEstimate = 1L;
+        for (var feature : chain) {
+            var estimate = SlicingCostModel.multiply(currentEstimate, SlicingCostModel.estimateConfigurations(feature));
+            if (!currentSlice.isEmpty() && estimate > threshold) {
+                slices.add(new Slice(currentSlice, currentEstimate));
+                currentSlice = new ArrayList<>();
+                estimate = SlicingCostModel.estimateConfigurations(feature);
+            }
+            currentSlice.add(feature);
+            currentEstimate = estimate;
+        }
+        slices.add(new Slice(currentSlice, currentEstimate));
     }
 
     /**
-     * Estimate the number of valid configurations when adding the current abstract feature.
-     * This is based on the relation of the child features.
+     * Fork-join task slicing one branch, the successors of a fan-out are forked immediately.
      */
-    private int estimateConfigs(int currentEstimatedConfigs, Feature abstractFeature) {
-        var childFeatures = abstractFeature.getChildren();
-        // If there are no direct child features, return current estimate.
-        if (childFeatures.isEmpty()) {
-            return currentEstimatedConfigs;
+    private class BranchTask extends RecursiveTask<BranchResult> {
+        private final Feature _Start;
+        private final int _Threshold;
+        private final CallGraph _CallGraph;
+        private final IntPredicate _Claim;
+
+        private BranchTask(Feature start, int threshold, CallGraph callGraph, IntPredicate claim) {
+            _Start = start;
+            _Threshold = threshold;
+            _CallGraph = callGraph;
+            _Claim = claim;
         }
-        // We assume all child features of the abstract feature share the same relation.
-        var relation = childFeatures.getFirst().getRelation();
-        if (relation.equals(FeatureModelRelation.ALTERNATIVE)) {
-            return currentEstimatedConfigs * childFeatures.size();
-        } else {
-            return currentEstimatedConfigs;
+
+        @Override
+        protected BranchResult compute() {
+            var slices = new ArrayList<Slice>();
+            var successors = sliceBranch(_Start, _Threshold, _CallGraph, _Claim, slices);
+            var branches = new ArrayList<ForkJoinTask<BranchResult>>(successors.size());
+            for (var successor : successors) {
+                branches.add(new BranchTask(successor, _Threshold, _CallGraph, _Claim).fork());
+            }
+            return new BranchResult(slices, branches);
         }
     }
 
     /**
-     * Checks whether a successor has more than one predecessor in the connectivity map.
+     * Slices of a branch and the tasks of the branches following its fan-out.
      */
-    private boolean moreThanOnePredecessorForSuccessor(Feature successor) {
-        var keySet = m_FeatureModelSliced.featureConnectivityInformation.featureConnectivityMap.keySet();
-        int predecessors = 0;
-        for (var key : keySet) {
-            if (m_FeatureModelSliced.featureConnectivityInformation.featureConnectivityMap.get(key).contains(successor)) {
-                predecessors++;
+    private record BranchResult(List<Slice> slices, List<ForkJoinTask<BranchResult>> branches) {
+    }
+
+    /**
+     * A finished slice and its estimated configuration count.
+     */
+    private record Slice(List<Feature> features, long estimate) {
+    }
+
+    /**
+     * Successors and number of predecessors of every feature, indexed by the
+     * feature index. Computed once per slicing run from the connectivity map,
+     * so the slicing rules do not scan the map for every feature.
+     */
+    private static class CallGraph {
+        private final List<List<Feature>> _Successors;
+        private final int[] _Predecessors;
+
+        private CallGraph(FeatureModelRead featureModel) {
+            var size = 1;
+            for (var feature : featureModel.features) {
+                size = Math.max(size, feature.getIndex() + 1);
             }
-            if (predecessors > 1) {
-                return true;
+            var connectivityMap = featureModel.featureConnectivityInformation.featureConnectivityMap;
+            _Successors = new ArrayList<>(Collections.nCopies(size, List.of()));
+            for (var feature : featureModel.features) {
+                var successors = connectivityMap.get(feature.getName());
+                if (successors != null) {
+                    _Successors.set(feature.getIndex(), successors);
+                }
             }
+            _Predecessors = new int[size];
+            var counted = new BitSet(size);
+            for (var successors : connectivityMap.values()) {
+                // a predecessor is counted once even if it lists a successor twice
+                counted.clear();
+                for (var successor : successors) {
+                    if (!counted.get(successor.getIndex())) {
+                        counted.set(successor.getIndex());
+                        _Predecessors[successor.getIndex()]++;
+                    }
+                }
+            }
+        }
+
+        private int size() {
+            return _Predecessors.length;
+        }
+
+        private List<Feature> successorsOf(Feature feature) {
+            return _Successors.get(feature.getIndex());
+        }
+
+        private int predecessorsOf(Feature feature) {
+            return _Predecessors[feature.getIndex()];
         }
-        return false;
     }
 }
@@ -0,0 +1,248 @@
+package FeatureModelSlicer;
+
+import FeatureModelReader.Structures.CrossTreeConstraint;
+import FeatureModelReader.Structures.CrossTreeConstraintIndex;
+import FeatureModelReader.Structures.CrossTreeConstraintRelation;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRelation;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Predicts the offline cost of a candidate slice, i.e. a sequential chain of
+ * abstract features that becomes one partial feature model. The configuration
+ * count of an abstract feature follows from the groups of its children:
+ * mandatory children do not add configurations, each optional child doubles
+ * them, an alternative group of n children multiplies them by n and an OR group
+ * by 2^n - 1. Cross-tree constraints whose source and target are part of the
+ * slice remove the share of configurations that violate them, assuming the
+ * features are selected independently.
+ * <p>
+ * The predicted cost of a slice is a fixed overhead (CNF generation, solver
+ * setup), the SAT effort (one solver call per configuration, each growing with
+ * the literals of the PFM) and the serialized size of the configurations. All
+ * counts use saturating long arithmetic, so wide chains do not overflow.
+ */
+public class SlicingCostModel {
+    /** default cost of one literal in one solver call, roughly in nanoseconds */
+    public static final double DEFAULT_SOLVING_COST = 50;
+    /** default cost of one serialized byte, roughly in nanoseconds */
+    public static final double DEFAULT_SIZE_COST = 10;
+    /** default fixed cost of a slice, roughly in nanoseconds */
+    public static final double DEFAULT_SLICE_OVERHEAD = 200_000;
+    /** candidate slices with more estimated configurations are not considered, unless they consist of one abstract feature */
+    public static final long MAX_CANDIDATE_CONFIGURATIONS = 1L << 24;
+    /** candidate slices are not longer than this number of abstract features */
+    public static final int MAX_CANDIDATE_LENGTH = 128;
+    private static final int BYTES_PER_FEATURE = 8;
+
+    private final double _SolvingCost;
+    private final double _SizeCost;
+    private final double _SliceOverhead;
+
+    /**
+     * Creates a cost model with the default weights.
+     */
+    public SlicingCostModel() {
+        this(DEFAULT_SOLVING_COST, DEFAULT_SIZE_COST, DEFAULT_SLICE_OVERHEAD);
+    }
+
+    /**
+     * Creates a cost model with the given weights.
+     *
+     * @param solvingCost   cost of one literal in one solver call
+     * @param sizeCost      cost of one serialized byte
+     * @param sliceOverhead fixed cost of every slice
+     */
+    public SlicingCostModel(double solvingCost, double sizeCost, double sliceOverhead) {
+        _SolvingCost = solvingCost;
+        _SizeCost = sizeCost;
+        _SliceOverhead = sliceOverhead;
+    }
+
+    /**
+     * Estimates the configurations of a single abstract feature from the groups of its children.
+     *
+     * @param abstractFeature abstract feature
+     * @return estimated configurations, at least 1 and at most {@link Long#MAX_VALUE}
+     */
+    public static long estimateConfigurations(Feature abstractFeature) {
+        int optional = 0, alternative = 0, or = 0;
+        for (var child : abstractFeature.getChildren()) {
+            if (child.getRelation() == null) {
+                continue;
+            }
+            switch (child.getRelation()) {
+                case OPTIONAL -> optional++;
+                case ALTERNATIVE -> alternative++;
+                case OR -> or++;
+                default -> {
+                }
+            }
+        }
+        var configurations = powerOfTwo(optional);
+        if (alternative > 0) {
+            configurations = multiply(configurations, alternative);
+        }
+        if (or > 0) {
+            var orConfigurations = powerOfTwo(or);
+            configurations = multiply(configurations, orConfigurations == Long.MAX_VALUE ? orConfigurations : orConfigurations - 1);
+        }
+        return configurations;
+    }
+
+    /**
+     * Estimates the configurations of a slice including the local cross-tree constraints.
+     *
+     * @param slice                abstract features of the slice
+     * @param crossTreeConstraints index over all cross-tree constraints of the model
+     * @return estimated configurations, at least 1
+     */
+    public long estimateConfigurations(List<Feature> slice, CrossTreeConstraintIndex crossTreeConstraints) {
+        var configurations = 1L;
+        for (var abstractFeature : slice) {
+            configurations = multiply(configurations, estimateConfigurations(abstractFeature));
+        }
+        return applyConstraints(configurations, crossTreeConstraints.getLocalConstraints(concreteFeatures(slice)));
+    }
+
+    /**
+     * Predicts the offline time plus the serialized size of a slice.
+     *
+     * @param slice                abstract features of the slice
+     * @param crossTreeConstraints index over all cross-tree constraints of the model
+     * @return predicted cost
+     */
+    public double predictCost(List<Feature> slice, CrossTreeConstraintIndex crossTreeConstraints) {
+        var configurations = 1L;
+        for (var abstractFeature : slice) {
+            configurations = multiply(configurations, estimateConfigurations(abstractFeature));
+        }
+        return predictCost(slice, configurations, concreteFeatures(slice), crossTreeConstraints);
+    }
+
+    /**
+     * Splits a sequential chain of abstract features into slices with minimal
+     * predicted cost. Every cut position of the chain is considered, limited to
+     * candidates within {@link #MAX_CANDIDATE_LENGTH} and {@link #MAX_CANDIDATE_CONFIGURATIONS}.
+     *
+     * @param chain                abstract features that may be sliced arbitrarily
+     * @param crossTreeConstraints index over all cross-tree constraints of the model
+     * @return slices of the chain in order
+     */
+    public List<List<Feature>> partition(List<Feature> chain, CrossTreeConstraintIndex crossTreeConstraints) {
+        var size = chain.size();
+        var best = new double[size + 1];
+        var start = new int[size + 1];
+        for (int end = 1; end <= size; end++) {
+            best[end] = Double.POSITIVE_INFINITY;
+            var configurations = 1L;
+            var features = new BitSet();
+            for (int first = end - 1; first >= 0 && end - first <= MAX_CANDIDATE_LENGTH; first--) {
+                configurations = multiply(configurations, estimateConfigurations(chain.get(first)));
+                if (first < end - 1 && configurations > MAX_CANDIDATE_CONFIGURATIONS) {
+                    break;
+                }
+                for (var child : chain.get(first).getChildren()) {
+                    features.set(child.getIndex());
+                }
+                var cost = best[first] + predictCost(chain.subList(first, end), configurations, features, crossTreeConstraints);
+                if (cost < best[end]) {
+                    best[end] = cost;
+                    start[end] = first;
+                }
+            }
+        }
+
+        var slices = new ArrayList<List<Feature>>();
+        for (int end = size; end > 0; end = start[end]) {
+            slices.addFirst(new ArrayList<>(chain.subList(start[end], end)));
+        }
+        return slices;
+    }
+
+    private double predictCost(List<Feature> slice, long configurations, BitSet features, CrossTreeConstraintIndex crossTreeConstraints) {
+        var localConstraints = crossTreeConstraints.getLocalConstraints(features);
+        var validConfigurations = applyConstraints(configurations, localConstraints);
+        var literals = features.cardinality() + 2.0 * localConstraints.size();
+        // every configuration is found by one solver call, which also explores the excluded configurations
+        var solving = (double) configurations * literals * _SolvingCost;
+        var size = (double) validConfigurations * slice.size() * BYTES_PER_FEATURE * _SizeCost;
+        return _SliceOverhead + solving + size;
+    }
+
+    private long applyConstraints(long configurations, List<CrossTreeConstraint> localConstraints) {
+        var share = 1.0;
+        for (var constraint : localConstraints) {
+            share *= 1 - violatedShare(constraint);
+        }
+        if (share >= 1.0) {
+            return configurations;
+        }
+        return Math.max(1L, (long) (configurations * share));
+    }
+
+    /**
+     * @return share of configurations violating the constraint if source and target are selected independently
+     */
+    private double violatedShare(CrossTreeConstraint constraint) {
+        var source = constraint.getSource();
+        var target = constraint.getTarget();
+        var pSource = selectionProbability(source);
+        var pTarget = selectionProbability(target);
+        var sameAlternativeGroup = source.getParentFeature() != null && source.getParentFeature() == target.getParentFeature()
+                && source.getRelation() == FeatureModelRelation.ALTERNATIVE && target.getRelation() == FeatureModelRelation.ALTERNATIVE;
+        if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES) {
+            return sameAlternativeGroup ? pSource : pSource * (1 - pTarget);
+        }
+        return sameAlternativeGroup ? 0 : pSource * pTarget;
+    }
+
+    private double selectionProbability(Feature feature) {
+        var parent = feature.getParentFeature();
+        if (parent == null || feature.getRelation() == null) {
+            return 1;
+        }
+        var groupSize = 0;
+        for (var sibling : parent.getChildren()) {
+            if (sibling.getRelation() == feature.getRelation()) {
+                groupSize++;
+            }
+        }
+        return switch (feature.getRelation()) {
+            case MANDATORY -> 1;
+            case OPTIONAL -> 0.5;
+            case ALTERNATIVE -> 1.0 / Math.max(1, groupSize);
+            // 2^(n-1) of the 2^n - 1 selections contain the feature
+            case OR -> 1.0 / (2 - Math.pow(2, 1 - Math.max(1, groupSize)));
+        };
+    }
+
+    private BitSet concreteFeatures(List<Feature> slice) {
+        var features = new BitSet();
+        for (var abstractFeature : slice) {
+            for (var child : abstractFeature.getChildren()) {
+                features.set(child.getIndex());
+            }
+        }
+        return features;
+    }
+
+    /**
+     * @return a * b, or {@link Long#MAX_VALUE} if the product overflows
+     */
+    public static long multiply(long a, long b) {
+        var high = Math.multiplyHigh(a, b);
+        var low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static long powerOfTwo(int exponent) {
+        return exponent >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << exponent;
+    }
+}
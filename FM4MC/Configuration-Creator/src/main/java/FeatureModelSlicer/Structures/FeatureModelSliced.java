@@ -19,6 +19,8 @@ public class FeatureModelSliced extends FeatureModelRead {
     public List<List<int[]>> partialFeatureModelClauses = new ArrayList<>();
     /** CNF clauses for the abstract layer */
     public List<List<int[]>> abstractLayerClauses = new ArrayList<>();
+    /** estimated configuration count of each partial feature model, same order as the partial feature models */
+    public List<Long> estimatedConfigurationsPerPartialFeatureModel = new ArrayList<>();
 
     /**
      * Creates a new sliced model based on the read model.
@@ -36,6 +38,7 @@ public class FeatureModelSliced extends FeatureModelRead {
         this.abstractLayerFeatureModels = new ArrayList<>(featureModelSliced.abstractLayerFeatureModels);
         this.partialFeatureModelClauses = new ArrayList<>(featureModelSliced.partialFeatureModelClauses);
         this.abstractLayerClauses = new ArrayList<>(featureModelSliced.abstractLayerClauses);
+        this.estimatedConfigurationsPerPartialFeatureModel = new ArrayList<>(featureModelSliced.estimatedConfigurationsPerPartialFeatureModel);
     }
 
 }
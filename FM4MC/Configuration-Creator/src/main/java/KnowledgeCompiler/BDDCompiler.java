@@ -0,0 +1,94 @@
+package KnowledgeCompiler;
+
+import FeatureModelReader.Structures.Feature;
+
+import java.util.*;
+
+/**
+ * Compiles the CNF clauses of a partial feature model, as created by
+ * {@link CNFClauseGenerator.CNFClauseGenerator#createConcretePFMClauses}, into a
+ * {@link BinaryDecisionDiagram}. The abstract parents of the PFM are fixed to true
+ * and the diagram is projected onto the children of the parents, so its models
+ * are exactly the configurations the solver enumerates for the PFM.
+ */
+public class BDDCompiler {
+
+    /**
+     * Compiles the clauses of a single partial feature model.
+     *
+     * @param clauses CNF clauses of the PFM, the first entry is the DIMACS header
+     * @param parents abstract parents of the PFM
+     * @return diagram over the children of the parents in the order of the parents
+     */
+    public BinaryDecisionDiagram compile(List<int[]> clauses, List<Feature> parents) {
+        var parentIndices = parents.stream().mapToInt(Feature::getIndex).toArray();
+        var parentSet = new HashSet<Integer>();
+        Arrays.stream(parentIndices).forEach(parentSet::add);
+
+        // the children are ordered first, so siblings of a group stay next to each other
+        var variables = new LinkedHashSet<Integer>();
+        for (var parent : parents) {
+            for (var child : parent.getChildren()) {
+                if (!parentSet.contains(child.getIndex())) {
+                    variables.add(child.getIndex());
+                }
+            }
+        }
+        var projectedVariables = variables.size();
+
+        var simplifiedClauses = new ArrayList<int[]>();
+        for (int i = 1; i < clauses.size(); i++) {
+            var simplified = simplify(clauses.get(i), parentSet);
+            if (simplified == null) {
+                continue;
+            }
+            if (simplified.length == 0) {
+                var contradiction = new BinaryDecisionDiagram(toArray(variables), parentIndices);
+                contradiction.setRoot(BinaryDecisionDiagram.FALSE);
+                return contradiction;
+            }
+            simplifiedClauses.add(simplified);
+        }
+        // remaining variables, e.g. deeper concrete features, are only needed for the consistency check
+        simplifiedClauses.stream().flatMapToInt(Arrays::stream).map(Math::abs).sorted().forEach(variables::add);
+
+        var diagram = new BinaryDecisionDiagram(toArray(variables), parentIndices);
+        var root = BinaryDecisionDiagram.TRUE;
+        for (var clause : simplifiedClauses) {
+            var clauseNode = BinaryDecisionDiagram.FALSE;
+            for (var literal : clause) {
+                clauseNode = diagram.or(clauseNode, diagram.literal(literal));
+            }
+            root = diagram.and(root, clauseNode);
+            if (root == BinaryDecisionDiagram.FALSE) {
+                break;
+            }
+        }
+        diagram.setRoot(root);
+        return diagram.project(projectedVariables);
+    }
+
+    /**
+     * Removes the parents from a clause, they are always selected within their PFM.
+     *
+     * @return the reduced clause or {@code null} if the clause is satisfied by a parent
+     */
+    private int[] simplify(int[] clause, Set<Integer> parents) {
+        var reduced = new int[clause.length];
+        var position = 0;
+        for (var literal : clause) {
+            if (parents.contains(Math.abs(literal))) {
+                if (literal > 0) {
+                    return null;
+                }
+            } else {
+                reduced[position++] = literal;
+            }
+        }
+        return Arrays.copyOf(reduced, position);
+    }
+
+    private int[] toArray(Collection<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
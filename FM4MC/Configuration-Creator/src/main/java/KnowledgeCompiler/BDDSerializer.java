@@ -0,0 +1,137 @@
+package KnowledgeCompiler;
+
+import IO.impl.DriveHandle;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores the compiled diagrams of all partial feature models next to the
+ * configuration file. Format:
+ * 1. {@code bdd;id;root;variables...;parents;parents...} per diagram
+ * 2. {@code node;level;low;high} for every inner node of the diagram in id order
+ */
+public class BDDSerializer {
+
+    /** file extension appended to the path of the configuration file */
+    public static final String FILE_EXTENSION = ".bdd";
+    private final String DIAGRAM = "bdd";
+    private final String NODE = "node";
+    private final String PARENTS = "parents";
+    private final String LINE_BREAK = "\n";
+    private final String _DELIMITER = ";";
+    private final Logger _ApplicationLogger;
+
+    /**
+     * Creates a new serializer instance.
+     *
+     * @param logger application logger used for error reporting
+     */
+    public BDDSerializer(Logger logger) {
+        _ApplicationLogger = logger;
+    }
+
+    /**
+     * @return path of the diagram file that belongs to the given configuration file
+     */
+    public static String diagramPathFor(String configurationFilePath) {
+        return configurationFilePath + FILE_EXTENSION;
+    }
+
+    /**
+     * Saves the diagrams in the order of the partial feature models.
+     *
+     * @param diagrams diagrams per PFM
+     * @param filePath path to the diagram file
+     */
+    public void saveDiagrams(List<BinaryDecisionDiagram> diagrams, String filePath) {
+        try {
+            new DriveHandle().createFolderFromFile(filePath);
+            try (var writer = new BufferedWriter(new FileWriter(filePath))) {
+                int id = 1;
+                for (var diagram : diagrams) {
+                    saveDiagram(diagram, id++, writer);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void saveDiagram(BinaryDecisionDiagram diagram, int id, Writer writer) throws IOException {
+        writer.append(DIAGRAM)
+                .append(_DELIMITER).append(String.valueOf(id))
+                .append(_DELIMITER).append(String.valueOf(diagram.getRoot()));
+        for (var variable : diagram.getVariables()) {
+            writer.append(_DELIMITER).append(String.valueOf(variable));
+        }
+        writer.append(_DELIMITER).append(PARENTS);
+        for (var parent : diagram.getParents()) {
+            writer.append(_DELIMITER).append(String.valueOf(parent));
+        }
+        writer.append(LINE_BREAK);
+
+        for (int node = 2; node < diagram.getNodeCount(); node++) {
+            writer.append(NODE)
+                    .append(_DELIMITER).append(String.valueOf(diagram.getLevel(node)))
+                    .append(_DELIMITER).append(String.valueOf(diagram.getLow(node)))
+                    .append(_DELIMITER).append(String.valueOf(diagram.getHigh(node)))
+                    .append(LINE_BREAK);
+        }
+    }
+
+    /**
+     * Loads all diagrams of a diagram file.
+     *
+     * @param filePath path to the diagram file
+     * @return diagrams in the order of the partial feature models, empty if the file cannot be read
+     */
+    public List<BinaryDecisionDiagram> loadDiagrams(String filePath) {
+        var diagrams = new ArrayList<BinaryDecisionDiagram>();
+        try (var bufferedReader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            BinaryDecisionDiagram current = null;
+            var root = BinaryDecisionDiagram.TRUE;
+            while ((line = bufferedReader.readLine()) != null) {
+                var splitLine = line.split(_DELIMITER);
+                switch (splitLine[0]) {
+                    case DIAGRAM -> {
+                        if (current != null) {
+                            current.setRoot(root);
+                            diagrams.add(current);
+                        }
+                        root = Integer.parseInt(splitLine[2]);
+                        var parentsStart = Arrays.asList(splitLine).indexOf(PARENTS);
+                        var variables = parseIndices(splitLine, 3, parentsStart);
+                        var parents = parseIndices(splitLine, parentsStart + 1, splitLine.length);
+                        current = new BinaryDecisionDiagram(variables, parents);
+                    }
+                    case NODE -> {
+                        if (current != null) {
+                            current.makeNode(Integer.parseInt(splitLine[1]), Integer.parseInt(splitLine[2]), Integer.parseInt(splitLine[3]));
+                        }
+                    }
+                }
+            }
+            if (current != null) {
+                current.setRoot(root);
+                diagrams.add(current);
+            }
+        } catch (IOException e) {
+            _ApplicationLogger.fatal(e);
+            diagrams.clear();
+        }
+        return diagrams;
+    }
+
+    private int[] parseIndices(String[] splitLine, int from, int to) {
+        var indices = new int[Math.max(0, to - from)];
+        for (int i = from; i < to; i++) {
+            indices[i - from] = Integer.parseInt(splitLine[i]);
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,415 @@
+package KnowledgeCompiler;
+
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Reduced ordered binary decision diagram over the concrete features of a
+ * partial feature model. The variables are CNF feature indices in a fixed
+ * order, every node stores the level of its variable and the ids of its low
+ * (variable false) and high (variable true) successors. The ids 0 and 1 are
+ * the terminals false and true.
+ * Counting and enumerating the models take time linear in the number of nodes
+ * (plus the size of the output for enumeration). After counting, a uniformly
+ * distributed model is drawn in time linear in the number of variables.
+ */
+public class BinaryDecisionDiagram {
+    public static final int FALSE = 0;
+    public static final int TRUE = 1;
+
+    private final int[] _Variables;
+    private final int[] _Parents;
+    /**
+     * Level of every CNF variable of the diagram, shared by conditioned copies.
+     */
+    private final Map<Integer, Integer> _LevelOfVariable;
+    /**
+     * Levels whose variable was conditioned to false, they are not counted as free.
+     */
+    private final boolean[] _FalseLevels;
+    private int[] _Level = new int[16];
+    private int[] _Low = new int[16];
+    private int[] _High = new int[16];
+    private int _NodeCount = 2;
+    private int _Root = TRUE;
+    private final Map<NodeKey, Integer> _UniqueTable = new HashMap<>();
+
+    /**
+     * Creates a diagram that accepts every assignment of the given variables.
+     *
+     * @param variables CNF indices of the concrete features in diagram order
+     * @param parents   CNF indices of the abstract parents the diagram belongs to
+     */
+    public BinaryDecisionDiagram(int[] variables, int[] parents) {
+        this(variables.clone(), parents.clone(), levelsOf(variables));
+    }
+
+    private BinaryDecisionDiagram(int[] variables, int[] parents, Map<Integer, Integer> levelOfVariable) {
+        _Variables = variables;
+        _Parents = parents;
+        _LevelOfVariable = levelOfVariable;
+        _FalseLevels = new boolean[_Variables.length];
+        _Level[FALSE] = _Variables.length;
+        _Level[TRUE] = _Variables.length;
+    }
+
+    /**
+     * @return CNF indices of the variables in diagram order
+     */
+    public int[] getVariables() {
+        return _Variables.clone();
+    }
+
+    /**
+     * @return CNF indices of the abstract parents of the PFM
+     */
+    public int[] getParents() {
+        return _Parents.clone();
+    }
+
+    /**
+     * @return id of the root node
+     */
+    public int getRoot() {
+        return _Root;
+    }
+
+    /**
+     * Sets the root node, used while compiling or loading the diagram.
+     */
+    void setRoot(int root) {
+        _Root = root;
+    }
+
+    /**
+     * @return number of nodes including both terminals
+     */
+    public int getNodeCount() {
+        return _NodeCount;
+    }
+
+    public int getLevel(int node) {
+        return _Level[node];
+    }
+
+    public int getLow(int node) {
+        return _Low[node];
+    }
+
+    public int getHigh(int node) {
+        return _High[node];
+    }
+
+    /**
+     * @return {@code true} if no assignment is accepted
+     */
+    public boolean isFalse() {
+        return _Root == FALSE;
+    }
+
+    /**
+     * Returns the node for the given level and successors, creating it if needed.
+     * Redundant tests are skipped and equal nodes are shared.
+     */
+    int makeNode(int level, int low, int high) {
+        if (low == high) {
+            return low;
+        }
+        var key = new NodeKey(level, low, high);
+        var existing = _UniqueTable.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (_NodeCount == _Level.length) {
+            var size = _NodeCount * 2;
+            _Level = Arrays.copyOf(_Level, size);
+            _Low = Arrays.copyOf(_Low, size);
+            _High = Arrays.copyOf(_High, size);
+        }
+        var node = _NodeCount++;
+        _Level[node] = level;
+        _Low[node] = low;
+        _High[node] = high;
+        _UniqueTable.put(key, node);
+        return node;
+    }
+
+    /**
+     * @return node representing the given literal or {@code -1} if its variable is not part of the diagram
+     */
+    int literal(int literal) {
+        var level = levelOf(Math.abs(literal));
+        if (level < 0) {
+            return -1;
+        }
+        return literal > 0 ? makeNode(level, FALSE, TRUE) : makeNode(level, TRUE, FALSE);
+    }
+
+    /**
+     * @return conjunction of both nodes
+     */
+    int and(int first, int second) {
+        return apply(first, second, true, new HashMap<>());
+    }
+
+    /**
+     * @return disjunction of both nodes
+     */
+    int or(int first, int second) {
+        return apply(first, second, false, new HashMap<>());
+    }
+
+    private int apply(int first, int second, boolean conjunction, Map<Long, Integer> memo) {
+        if (conjunction) {
+            if (first == FALSE || second == FALSE) return FALSE;
+            if (first == TRUE) return second;
+            if (second == TRUE) return first;
+        } else {
+            if (first == TRUE || second == TRUE) return TRUE;
+            if (first == FALSE) return second;
+            if (second == FALSE) return first;
+        }
+        if (first == second) return first;
+        var key = ((long) Math.min(first, second) << 32) | Math.max(first, second);
+        var cached = memo.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        var level = Math.min(_Level[first], _Level[second]);
+        var firstLow = _Level[first] == level ? _Low[first] : first;
+        var firstHigh = _Level[first] == level ? _High[first] : first;
+        var secondLow = _Level[second] == level ? _Low[second] : second;
+        var secondHigh = _Level[second] == level ? _High[second] : second;
+        var result = makeNode(level,
+                apply(firstLow, secondLow, conjunction, memo),
+                apply(firstHigh, secondHigh, conjunction, memo));
+        memo.put(key, result);
+        return result;
+    }
+
+    /**
+     * Conditions the diagram on the given variables being false, e.g. features
+     * that are not available on the current hardware. Variables that are not
+     * part of the diagram are ignored.
+     *
+     * @param falseVariables CNF indices of the deselected features
+     * @return new diagram over the same variables
+     */
+    public BinaryDecisionDiagram condition(Collection<Integer> falseVariables) {
+        var conditioned = new BinaryDecisionDiagram(_Variables, _Parents, _LevelOfVariable);
+        System.arraycopy(_FalseLevels, 0, conditioned._FalseLevels, 0, _FalseLevels.length);
+        for (var variable : falseVariables) {
+            var level = levelOf(variable);
+            if (level >= 0) {
+                conditioned._FalseLevels[level] = true;
+            }
+        }
+        conditioned.setRoot(copyConditioned(_Root, conditioned._FalseLevels, conditioned, new HashMap<>()));
+        return conditioned;
+    }
+
+    private int copyConditioned(int node, boolean[] falseLevels, BinaryDecisionDiagram target, Map<Integer, Integer> memo) {
+        if (node == FALSE || node == TRUE) {
+            return node;
+        }
+        var cached = memo.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        int result;
+        if (falseLevels[_Level[node]]) {
+            result = copyConditioned(_Low[node], falseLevels, target, memo);
+        } else {
+            result = target.makeNode(_Level[node],
+                    copyConditioned(_Low[node], falseLevels, target, memo),
+                    copyConditioned(_High[node], falseLevels, target, memo));
+        }
+        memo.put(node, result);
+        return result;
+    }
+
+    /**
+     * Existentially quantifies all variables from the given level on. Those
+     * variables must be ordered behind the variables that are kept, so every
+     * node below the cut that is not the false terminal has a model.
+     *
+     * @param keptVariables number of leading variables that stay in the diagram
+     * @return new diagram over the leading variables
+     */
+    BinaryDecisionDiagram project(int keptVariables) {
+        var projected = new BinaryDecisionDiagram(Arrays.copyOf(_Variables, keptVariables), _Parents);
+        projected.setRoot(copyProjected(_Root, keptVariables, projected, new HashMap<>()));
+        return projected;
+    }
+
+    private int copyProjected(int node, int keptVariables, BinaryDecisionDiagram target, Map<Integer, Integer> memo) {
+        if (node == FALSE || node == TRUE) {
+            return node;
+        }
+        if (_Level[node] >= keptVariables) {
+            return TRUE;
+        }
+        var cached = memo.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        var result = target.makeNode(_Level[node],
+                copyProjected(_Low[node], keptVariables, target, memo),
+                copyProjected(_High[node], keptVariables, target, memo));
+        memo.put(node, result);
+        return result;
+    }
+
+    /**
+     * Counts the accepted assignments of the diagram variables. Variables that
+     * were conditioned to false only take that value.
+     *
+     * @return number of accepted assignments
+     */
+    public BigInteger count() {
+        var freeBelow = new int[_Variables.length + 1];
+        for (int level = _Variables.length - 1; level >= 0; level--) {
+            freeBelow[level] = freeBelow[level + 1] + (_FalseLevels[level] ? 0 : 1);
+        }
+        var memo = new HashMap<Integer, BigInteger>();
+        return countNode(_Root, freeBelow, memo).shiftLeft(freeBelow[0] - freeBelow[_Level[_Root]]);
+    }
+
+    private BigInteger countNode(int node, int[] freeBelow, Map<Integer, BigInteger> memo) {
+        if (node == FALSE) return BigInteger.ZERO;
+        if (node == TRUE) return BigInteger.ONE;
+        var cached = memo.get(node);
+        if (cached != null) {
+            return cached;
+        }
+        var level = _Level[node];
+        var low = countNode(_Low[node], freeBelow, memo).shiftLeft(freeBelow[level + 1] - freeBelow[_Level[_Low[node]]]);
+        var high = countNode(_High[node], freeBelow, memo).shiftLeft(freeBelow[level + 1] - freeBelow[_Level[_High[node]]]);
+        var result = low.add(high);
+        memo.put(node, result);
+        return result;
+    }
+
+    /**
+     * Draws accepted assignments uniformly at random, with replacement. Every node
+     * follows its low or high successor with a probability proportional to the
+     * number of models below it, variables skipped by the diagram are selected
+     * with probability 1/2 unless they were conditioned to false.
+     *
+     * @param samples number of assignments to draw
+     * @param random  source of randomness
+     * @return selected variables per assignment in diagram order, empty if no assignment is accepted
+     */
+    public List<int[]> sample(int samples, Random random) {
+        var result = new ArrayList<int[]>(samples);
+        if (isFalse()) {
+            return result;
+        }
+        var freeBelow = new int[_Variables.length + 1];
+        for (int level = _Variables.length - 1; level >= 0; level--) {
+            freeBelow[level] = freeBelow[level + 1] + (_FalseLevels[level] ? 0 : 1);
+        }
+        var memo = new HashMap<Integer, BigInteger>();
+        var selection = new boolean[_Variables.length];
+        for (int i = 0; i < samples; i++) {
+            var node = _Root;
+            for (int level = 0; level < _Variables.length; level++) {
+                if (_Level[node] > level) {
+                    selection[level] = !_FalseLevels[level] && random.nextBoolean();
+                    continue;
+                }
+                var low = countNode(_Low[node], freeBelow, memo).shiftLeft(freeBelow[level + 1] - freeBelow[_Level[_Low[node]]]);
+                var high = countNode(_High[node], freeBelow, memo).shiftLeft(freeBelow[level + 1] - freeBelow[_Level[_High[node]]]);
+                selection[level] = randomBelow(low.add(high), random).compareTo(high) < 0;
+                node = selection[level] ? _High[node] : _Low[node];
+            }
+            result.add(selectedVariables(selection));
+        }
+        return result;
+    }
+
+    /**
+     * @return uniformly distributed number in [0, bound)
+     */
+    private BigInteger randomBelow(BigInteger bound, Random random) {
+        BigInteger value;
+        do {
+            value = new BigInteger(bound.bitLength(), random);
+        } while (value.compareTo(bound) >= 0);
+        return value;
+    }
+
+    /**
+     * Enumerates all accepted assignments. Each model is handed over as the
+     * CNF indices of the selected variables in diagram order. Variables that are
+     * skipped by the diagram take both values unless they were conditioned to false.
+     *
+     * @param consumer receives the selected variables of each model
+     */
+    public void forEachModel(Consumer<int[]> consumer) {
+        enumerate(_Root, 0, new boolean[_Variables.length], consumer);
+    }
+
+    private void enumerate(int node, int level, boolean[] selection, Consumer<int[]> consumer) {
+        if (node == FALSE) {
+            return;
+        }
+        if (level == _Variables.length) {
+            consumer.accept(selectedVariables(selection));
+            return;
+        }
+        if (_Level[node] > level) {
+            selection[level] = false;
+            enumerate(node, level + 1, selection, consumer);
+            if (!_FalseLevels[level]) {
+                selection[level] = true;
+                enumerate(node, level + 1, selection, consumer);
+                selection[level] = false;
+            }
+            return;
+        }
+        selection[level] = false;
+        enumerate(_Low[node], level + 1, selection, consumer);
+        selection[level] = true;
+        enumerate(_High[node], level + 1, selection, consumer);
+        selection[level] = false;
+    }
+
+    private int[] selectedVariables(boolean[] selection) {
+        var model = new int[countSelected(selection)];
+        var position = 0;
+        for (int i = 0; i < selection.length; i++) {
+            if (selection[i]) {
+                model[position++] = _Variables[i];
+            }
+        }
+        return model;
+    }
+
+    private int countSelected(boolean[] selection) {
+        var selected = 0;
+        for (var value : selection) {
+            if (value) selected++;
+        }
+        return selected;
+    }
+
+    /**
+     * @return level of the CNF variable or {@code -1} if it is not part of the diagram
+     */
+    private int levelOf(int variable) {
+        return _LevelOfVariable.getOrDefault(variable, -1);
+    }
+
+    private static Map<Integer, Integer> levelsOf(int[] variables) {
+        var levels = new HashMap<Integer, Integer>(variables.length * 2);
+        for (int i = 0; i < variables.length; i++) {
+            levels.putIfAbsent(variables[i], i);
+        }
+        return levels;
+    }
+
+    private record NodeKey(int level, int low, int high) {
+    }
+}
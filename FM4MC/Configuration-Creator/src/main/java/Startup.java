@@ -1,9 +1,20 @@
+import BusinessLogic.BatchPreProcessor;
 import BusinessLogic.FeatureModelPreProcessor;
+import BusinessLogic.PreProcessingOptions;
+import ConfigurationCalculator.PFMSolutionCache;
+import ConfigurationCalculator.SamplingMode;
+import ConfigurationCalculator.Solver.SolverBackendType;
+import ConfigurationCalculator.SolvingMode;
+import ConfigurationSerializer.ConfigurationFormat;
+import FeatureModelReader.ReadingMode;
+import FeatureModelSlicer.FeatureModelSlicer;
+import IO.impl.Compression;
 import Monitoring.Event.Logging.impl.LogInformation;
 import logging.MyLogManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
@@ -12,6 +23,7 @@ import java.util.HashMap;
  */
 public class Startup {
     private static final Logger _Logger = LogManager.getLogger("executionLog");
+    private static final long DEFAULT_CACHE_SIZE_IN_MEGABYTES = 1024;
 
     /**
      * Application entry point.
@@ -24,14 +36,52 @@ public class Startup {
         qorLogManager.start();
 
         var arguments = getTestbedParameters(args);
-        var threshold = arguments.containsKey("threshold") ? Integer.parseInt(arguments.get("threshold")) : 250;
+        var threshold = 250;
+        if (arguments.containsKey("threshold")) {
+            threshold = parseThreshold(arguments.get("threshold"));
+        }
         var slicing = arguments.containsKey("slicing");
         if (!slicing)
             threshold = Integer.MAX_VALUE;
 
 
-        var processLogic = new FeatureModelPreProcessor(_Logger);
-        if (!arguments.containsKey("configurations")) {
+        var readingMode = arguments.containsKey("streamingReader") ? ReadingMode.STREAMING : ReadingMode.TREE;
+        var configurationFormat = arguments.containsKey("binaryConfigurations") ? ConfigurationFormat.BINARY : ConfigurationFormat.CSV;
+        var compression = arguments.containsKey("compression") ? Compression.valueOf(arguments.get("compression").toUpperCase()) : Compression.NONE;
+        PFMSolutionCache solutionCache = null;
+        if (arguments.containsKey("cache")) {
+            var cacheSizeInMegaBytes = arguments.containsKey("cacheSize") ? Long.parseLong(arguments.get("cacheSize")) : DEFAULT_CACHE_SIZE_IN_MEGABYTES;
+            solutionCache = new PFMSolutionCache(_Logger, arguments.get("cache"), cacheSizeInMegaBytes << 20);
+        }
+        var options = new PreProcessingOptions()
+                .withReadingMode(readingMode)
+                .withConfigurationFormat(configurationFormat)
+                .withCompression(compression)
+                .withSolutionCache(solutionCache)
+                .withInterchangeableReduction(arguments.containsKey("interchangeable"))
+                .withSolvingMode(arguments.containsKey("simplify") ? SolvingMode.SIMPLIFIED : SolvingMode.RESET)
+                .withSolverBackend(arguments.containsKey("solver") ? SolverBackendType.valueOf(arguments.get("solver").toUpperCase()) : SolverBackendType.SAT4J_DEFAULT)
+                .withCompilation(arguments.containsKey("compile"))
+                .withIncrementalProcessing(arguments.containsKey("incremental"));
+        var processLogic = new FeatureModelPreProcessor(_Logger, options);
+        if (arguments.containsKey("fmDirectory") && arguments.containsKey("configurations")) {
+            var thresholds = arguments.containsKey("thresholds")
+                    ? Arrays.stream(arguments.get("thresholds").split(",")).mapToInt(Startup::parseThreshold).toArray()
+                    : new int[]{threshold};
+            var readers = arguments.containsKey("readers") ? Integer.parseInt(arguments.get("readers")) : 1;
+            var solvers = arguments.containsKey("solvers") ? Integer.parseInt(arguments.get("solvers")) : Runtime.getRuntime().availableProcessors();
+            new BatchPreProcessor(_Logger, options, readers, solvers, BatchPreProcessor.DEFAULT_QUEUE_CAPACITY)
+                    .processDirectory(arguments.get("fmDirectory"), arguments.get("configurations"), slicing, thresholds);
+        } else if (arguments.containsKey("binaryFm") && arguments.containsKey("fmFile")) {
+            processLogic.convertToBinary(arguments.get("fmFile"), arguments.get("binaryFm"));
+        } else if (arguments.containsKey("count") && arguments.containsKey("fmFile")) {
+            processLogic.startCountForFile(arguments.get("fmFile"), threshold, slicing);
+        } else if (arguments.containsKey("samples") && arguments.containsKey("fmFile") && arguments.containsKey("configurations")) {
+            var samplingMode = arguments.containsKey("sampling") ? SamplingMode.valueOf(arguments.get("sampling").toUpperCase()) : SamplingMode.UNIFORM;
+            var seed = arguments.containsKey("seed") ? Long.parseLong(arguments.get("seed")) : System.nanoTime();
+            processLogic.startSamplingForFile(arguments.get("fmFile"), threshold, arguments.get("configurations"),
+                    Integer.parseInt(arguments.get("samples")), samplingMode, seed);
+        } else if (!arguments.containsKey("configurations")) {
             _Logger.error("Missing argument for configuration output path");
         } else if (!arguments.containsKey("fmFile")){
             _Logger.error("Missing argument for Feature Model input path");
@@ -40,6 +90,13 @@ public class Startup {
         }
     }
 
+    /**
+     * Parses a slicing threshold, {@code auto} selects {@link FeatureModelSlicer#AUTOMATIC_THRESHOLD}.
+     */
+    private static int parseThreshold(String threshold) {
+        return threshold.trim().equalsIgnoreCase("auto") ? FeatureModelSlicer.AUTOMATIC_THRESHOLD : Integer.parseInt(threshold.trim());
+    }
+
     /**
      * Parses the command line arguments into a key/value map.
      */
@@ -49,11 +106,56 @@ public class Startup {
         for (int i = 0; i < args.length; i += 2) {
             if (args[i].equalsIgnoreCase("-fmFile")) {
                 parameters.put("fmFile", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-fmDirectory")) {
+                parameters.put("fmDirectory", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-thresholds")) {
+                parameters.put("thresholds", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-readers")) {
+                parameters.put("readers", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-solvers")) {
+                parameters.put("solvers", args[i + 1]);
             } else if (args[i].equalsIgnoreCase("-threshold")) {
                 parameters.put("threshold", args[i + 1]);
             } else if (args[i].equalsIgnoreCase("-slicing")) {
                 parameters.put("slicing", "true");
                 i--;
+            } else if (args[i].equalsIgnoreCase("-count")) {
+                parameters.put("count", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-compile")) {
+                parameters.put("compile", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-streamingReader")) {
+                parameters.put("streamingReader", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-binaryConfigurations")) {
+                parameters.put("binaryConfigurations", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-compression")) {
+                parameters.put("compression", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-incremental")) {
+                parameters.put("incremental", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-simplify")) {
+                parameters.put("simplify", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-solver")) {
+                parameters.put("solver", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-interchangeable")) {
+                parameters.put("interchangeable", "true");
+                i--;
+            } else if (args[i].equalsIgnoreCase("-samples")) {
+                parameters.put("samples", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-sampling")) {
+                parameters.put("sampling", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-seed")) {
+                parameters.put("seed", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-cache")) {
+                parameters.put("cache", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-cacheSize")) {
+                parameters.put("cacheSize", args[i + 1]);
+            } else if (args[i].equalsIgnoreCase("-binaryFm")) {
+                parameters.put("binaryFm", args[i + 1]);
             } else if (args[i].equalsIgnoreCase("-configurations")) {
                 parameters.put("configurations", args[i + 1]);
             }
@@ -0,0 +1,120 @@
+package testBusinessLogic;
+
+import BusinessLogic.BatchPreProcessor;
+import BusinessLogic.PreProcessingOptions;
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.PFMSolutionCache;
+import ConfigurationSerializer.ConfigurationFormat;
+import ConfigurationSerializer.ConfigurationSerializer;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPreProcessorTest {
+    private static final Logger logger = LogManager.getLogger(BatchPreProcessorTest.class);
+    private static final String FM_DIRECTORY = "../TestData/TestGraphs/TestFMJsons/";
+    private static final List<String> FM_FILES = List.of(
+            "FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json",
+            "FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json",
+            "FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+
+    @TempDir
+    Path inputDirectory;
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testBatchMatchesSequentialPreprocessing() throws Exception {
+        for (var fmFile : FM_FILES) {
+            Files.copy(Path.of(FM_DIRECTORY, fmFile), inputDirectory.resolve(fmFile));
+        }
+        var batchPreProcessor = new BatchPreProcessor(logger, new PreProcessingOptions(), 2, 2, 1);
+        var processed = batchPreProcessor.processDirectory(inputDirectory.toString(), outputDirectory.toString(), true, 250);
+        assertEquals(FM_FILES.size(), processed);
+
+        var reader = new FeatureModelReader(logger);
+        var serializer = new ConfigurationSerializer(logger);
+        for (var fmFile : FM_FILES) {
+            var file = new File(FM_DIRECTORY, fmFile);
+            var expectedFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(
+                    new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(file), 250));
+            var expectedPath = outputDirectory.resolve(fmFile + "_expected.csv");
+            serializer.saveConfigurations(expectedFM, expectedPath.toString());
+
+            var batchPath = BatchPreProcessor.configurationPathFor(outputDirectory.toString(), file, 250, new PreProcessingOptions());
+            assertEquals(Files.readAllLines(expectedPath), Files.readAllLines(Path.of(batchPath)), fmFile);
+        }
+    }
+
+    @Test
+    void testBatchWritesEveryThresholdAndSkipsInvalidModels() throws Exception {
+        var fmFile = FM_FILES.get(1);
+        Files.copy(Path.of(FM_DIRECTORY, fmFile), inputDirectory.resolve(fmFile));
+        Files.writeString(inputDirectory.resolve("invalid.json"), "{");
+
+        var batchPreProcessor = new BatchPreProcessor(logger, new PreProcessingOptions(), 1, 2, 1);
+        var processed = batchPreProcessor.processDirectory(inputDirectory.toString(), outputDirectory.toString(), true, 0, 250);
+        assertEquals(1, processed);
+
+        var file = inputDirectory.resolve(fmFile).toFile();
+        var reader = new FeatureModelReader(logger);
+        var serializer = new ConfigurationSerializer(logger);
+        for (var threshold : new int[]{0, 250}) {
+            var batchPath = BatchPreProcessor.configurationPathFor(outputDirectory.toString(), file, threshold, new PreProcessingOptions());
+            assertTrue(new File(batchPath).isFile());
+            var loadedFM = serializer.loadConfigurations(reader.readFeatureModelJson(file), batchPath);
+            var expectedFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(
+                    new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(file), threshold));
+            assertEquals(expectedFM.configurationsPerPartialFeatureModel.size(), loadedFM.configurationsPerPartialFeatureModel.size());
+        }
+        assertFalse(new File(BatchPreProcessor.configurationPathFor(outputDirectory.toString(), new File("invalid.json"), 0, new PreProcessingOptions())).exists());
+    }
+
+    @Test
+    void testNonSlicedBatchWritesTheConfiguredFormat() throws Exception {
+        var fmFile = FM_FILES.getFirst();
+        Files.copy(Path.of(FM_DIRECTORY, fmFile), inputDirectory.resolve(fmFile));
+        var options = new PreProcessingOptions().withConfigurationFormat(ConfigurationFormat.BINARY);
+
+        var processed = new BatchPreProcessor(logger, options, 1, 1, 1).processDirectory(inputDirectory.toString(), outputDirectory.toString(), false);
+        assertEquals(1, processed);
+
+        var file = inputDirectory.resolve(fmFile).toFile();
+        var batchPath = BatchPreProcessor.configurationPathFor(outputDirectory.toString(), file, Integer.MAX_VALUE, options);
+        assertTrue(batchPath.endsWith(".bin"));
+        var reader = new FeatureModelReader(logger);
+        var loadedFM = new ConfigurationSerializer(logger).loadConfigurations(reader.readFeatureModelJson(file), batchPath);
+        var expectedFM = new ConfigurationCalculator(logger).calculatedConfigurationForNonSlicedFM(reader.readFeatureModelJson(file));
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel.size(), loadedFM.configurationsPerPartialFeatureModel.size());
+    }
+
+    @Test
+    void testBatchFinishesWhenASolverThrowsAnError() throws Exception {
+        var fmFile = FM_FILES.get(2);
+        Files.copy(Path.of(FM_DIRECTORY, fmFile), inputDirectory.resolve(fmFile));
+        var failingCache = new PFMSolutionCache(logger, outputDirectory.resolve("cache").toString(), 1 << 20) {
+            @Override
+            public synchronized List<int[]> get(String key, int projectionSize) {
+                throw new StackOverflowError("solver failed");
+            }
+        };
+
+        var batchPreProcessor = new BatchPreProcessor(logger, new PreProcessingOptions().withSolutionCache(failingCache), 1, 1, 1);
+        var processed = assertTimeoutPreemptively(Duration.ofMinutes(1),
+                () -> batchPreProcessor.processDirectory(inputDirectory.toString(), outputDirectory.toString(), true, 250));
+        assertEquals(0, processed);
+        assertFalse(new File(BatchPreProcessor.configurationPathFor(outputDirectory.toString(), new File(fmFile), 250, new PreProcessingOptions())).exists());
+    }
+}
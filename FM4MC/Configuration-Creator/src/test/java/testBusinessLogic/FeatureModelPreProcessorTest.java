@@ -0,0 +1,34 @@
+package testBusinessLogic;
+
+import BusinessLogic.FeatureModelPreProcessor;
+import BusinessLogic.PreProcessingOptions;
+import KnowledgeCompiler.BDDSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureModelPreProcessorTest {
+    private static final Logger logger = LogManager.getLogger(FeatureModelPreProcessorTest.class);
+    private static final String FM_FILE = "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json";
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testRunWithoutCompilationRemovesStaleDiagrams() {
+        var outputPath = outputDirectory.resolve("configurations.csv").toString();
+        var diagramFile = new File(BDDSerializer.diagramPathFor(outputPath));
+        new FeatureModelPreProcessor(logger, new PreProcessingOptions().withCompilation(true)).startTestForFile(FM_FILE, 250, true, outputPath);
+        assertTrue(diagramFile.isFile());
+
+        new FeatureModelPreProcessor(logger).startTestForFile(FM_FILE, 250, true, outputPath);
+        assertTrue(new File(outputPath).isFile());
+        assertFalse(diagramFile.exists(), "the online phase would load the diagrams of the earlier run");
+    }
+}
@@ -1,15 +1,21 @@
 package testCNFClauseGenerator;
 
+import CNFClauseGenerator.AtMostOneEncoding;
 import CNFClauseGenerator.CNFClauseGenerator;
+import CNFClauseGenerator.CNFClauseSerializer;
+import ConfigurationCalculator.ModelCounter;
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.Structures.Feature;
 import FeatureModelSlicer.FeatureModelSlicer;
+import IO.impl.CompressedFileHandle;
+import IO.impl.Compression;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.math.BigInteger;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -517,4 +523,80 @@ public class CNFClauseGeneratorTest {
         assertEquals(orClauses, expectedORClauses);
         tempFile.delete();
     }
+
+    @Test
+    public void testAtMostOneEncodingsKeepModelCount() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        for (var alternatives : new int[]{2, 5, 7, 20, 40}) {
+            var tempFile = File.createTempFile("testAtMostOneEncoding", ".json");
+            try (var writer = new FileWriter(tempFile)) {
+                writer.write(createSingleTaskJson(alternatives));
+            }
+            for (var encoding : AtMostOneEncoding.values()) {
+                var model = reader.readFeatureModelJson(tempFile);
+                var clauses = new CNFClauseGenerator(logger, encoding).createClausesForNonSlicedFM(model);
+                var header = clauses.get(0);
+                var maxFeature = model.features.stream().mapToInt(Feature::getIndex).max().getAsInt();
+                var maxLiteral = clauses.subList(1, clauses.size()).stream().flatMapToInt(Arrays::stream).map(Math::abs).max().getAsInt();
+
+                assertEquals(maxFeature, header[0], "the first parameter of the header excludes auxiliary variables (" + encoding + ", " + alternatives + ")");
+                assertEquals(clauses.size() - 1, header[1], "the second parameter of the header is number of clauses");
+                assertEquals(maxLiteral, CNFClauseGenerator.variableCount(header), "auxiliary variables follow the features (" + encoding + ", " + alternatives + ")");
+                if (encoding.forGroupSize(alternatives) == AtMostOneEncoding.PAIRWISE) {
+                    assertEquals(0, header[2], "the pairwise encoding needs no auxiliary variables");
+                }
+                assertEquals(BigInteger.valueOf(alternatives), new ModelCounter().count(clauses), "exactly one alternative is selected (" + encoding + ", " + alternatives + ")");
+            }
+            tempFile.delete();
+        }
+    }
+
+    @Test
+    public void testAutomaticEncodingChoosesCompactEncodingsForLargeGroups() {
+        assertEquals(AtMostOneEncoding.PAIRWISE, AtMostOneEncoding.AUTOMATIC.forGroupSize(3));
+        assertEquals(AtMostOneEncoding.SEQUENTIAL, AtMostOneEncoding.AUTOMATIC.forGroupSize(20));
+        assertEquals(AtMostOneEncoding.COMMANDER, AtMostOneEncoding.AUTOMATIC.forGroupSize(100));
+        assertEquals(AtMostOneEncoding.PRODUCT, AtMostOneEncoding.AUTOMATIC.forGroupSize(1000));
+        assertEquals(AtMostOneEncoding.SEQUENTIAL, AtMostOneEncoding.SEQUENTIAL.forGroupSize(3));
+    }
+
+    private String createSingleTaskJson(int alternatives) {
+        var json = new StringBuilder();
+        json.append("{\"crossTreeConstraints\": [], \"features\": [");
+        json.append("{\"name\": \"task\", \"parentName\": \"root\", \"reachableAbstractFeatures\": [], \"relation\": \"MANDATORY\"}");
+        for (int i = 1; i <= alternatives; i++) {
+            json.append(", {\"hardwareRequirements\": [], \"name\": \"v").append(i).append("\", \"parentName\": \"task\", \"relation\": \"ALTERNATIVE\"}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    @Test
+    public void testCompressedDIMACSMatchesPlainDIMACS() throws Exception {
+        var readFile = new File("../Configuration-Creator/src/test/resources/FMForAbstractLayerTesting.json");
+        var reader = new FeatureModelReader(logger);
+        var clauseGenerator = new CNFClauseGenerator(logger);
+        var slicedModel = new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(readFile), 0);
+        for (var pfm : slicedModel.partialConcreteFeatureModels) {
+            var parents = pfm.stream().filter(feature -> !feature.getChildren().isEmpty()).toList();
+            slicedModel.partialFeatureModelClauses.add(clauseGenerator.createConcretePFMClauses(parents, slicedModel.crossTreeConstraints));
+        }
+
+        var fileHandle = new CompressedFileHandle();
+        var contents = new ArrayList<List<String>>();
+        for (var compression : Compression.values()) {
+            var tempFile = File.createTempFile("clauses", ".cnf");
+            new CNFClauseSerializer(compression, 1024).saveClausesAsDIMACS(slicedModel, tempFile.getPath());
+            assertEquals(compression, fileHandle.detectCompression(tempFile.getPath()));
+            try (var fileReader = fileHandle.openReader(tempFile.getPath())) {
+                contents.add(fileReader.lines().toList());
+            }
+            tempFile.delete();
+        }
+
+        var plain = contents.getFirst();
+        assertTrue(plain.getFirst().startsWith("p cnf "));
+        assertEquals(Integer.parseInt(plain.getFirst().split(" ")[3]), plain.size() - 1, "the header counts all clauses");
+        contents.forEach(content -> assertEquals(plain, content));
+    }
 }
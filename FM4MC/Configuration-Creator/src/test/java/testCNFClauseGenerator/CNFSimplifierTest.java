@@ -0,0 +1,173 @@
+package testCNFClauseGenerator;
+
+import CNFClauseGenerator.CNFClauseGenerator;
+import CNFClauseGenerator.CNFClauseSerializer;
+import CNFClauseGenerator.CNFSimplifier;
+import ConfigurationCalculator.CalculationOptions;
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.SolvingMode;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelSlicer.FeatureModelSlicer;
+import IO.impl.CompressedFileHandle;
+import IO.impl.Compression;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CNFSimplifierTest {
+    private static final Logger logger = LogManager.getLogger(CNFSimplifierTest.class);
+
+    @Test
+    public void testUnitsEquivalencesAndExcludesAreEliminated() {
+        // parent 2 with mandatory 3, optional 4 and 5, 3 excludes 5
+        var clauses = List.of(new int[]{5, 6, 0}, new int[]{2}, new int[]{3, -2}, new int[]{-3, 2}, new int[]{-4, 2},
+                new int[]{-5, 2}, new int[]{-3, -5});
+        var simplified = new CNFSimplifier().simplify(clauses, new int[]{3, 4, 5});
+
+        assertFalse(simplified.isUnsatisfiable());
+        assertEquals(0, simplified.getClauseCount(), "all clauses are satisfied by the units");
+        assertEquals(0, simplified.getProjection().length, "3 and 5 are fixed, 4 is free");
+        assertEquals(Set.of(List.of(3), List.of(3, 4)), asSets(simplified.reconstruct(List.of(new int[0]))));
+    }
+
+    @Test
+    public void testConflictIsDetected() {
+        var clauses = List.of(new int[]{3, 3, 0}, new int[]{2}, new int[]{-2, 3}, new int[]{-3, -2});
+        var simplified = new CNFSimplifier().simplify(clauses, new int[]{2, 3});
+
+        assertTrue(simplified.isUnsatisfiable());
+        assertTrue(simplified.reconstruct(List.of(new int[0])).isEmpty());
+    }
+
+    @Test
+    public void testRandomFormulasKeepTheirProjectedModels() {
+        var random = new Random(42);
+        var simplifier = new CNFSimplifier();
+        for (int formula = 0; formula < 300; formula++) {
+            var variables = 3 + random.nextInt(6);
+            var clauses = new ArrayList<int[]>();
+            clauses.add(new int[]{variables, 0, 0});
+            var clauseCount = 1 + random.nextInt(3 * variables);
+            for (int i = 0; i < clauseCount; i++) {
+                var clause = new int[1 + random.nextInt(i % 4 == 0 ? 1 : 3)];
+                for (int j = 0; j < clause.length; j++) {
+                    clause[j] = (1 + random.nextInt(variables)) * (random.nextBoolean() ? 1 : -1);
+                }
+                clauses.add(clause);
+                // the other half of an equivalence
+                if (clause.length == 2 && random.nextBoolean()) {
+                    clauses.add(new int[]{-clause[0], -clause[1]});
+                }
+            }
+            clauses.set(0, new int[]{variables, clauses.size() - 1, 0});
+            var projection = new int[1 + random.nextInt(variables)];
+            for (int i = 0; i < projection.length; i++) {
+                projection[i] = variables - i;
+            }
+
+            var expected = projectedModels(clauses, variables, projection);
+            var simplified = simplifier.simplify(clauses, projection);
+            assertTrue(simplified.getClauseCount() <= clauses.size() - 1);
+            if (simplified.isUnsatisfiable()) {
+                assertTrue(expected.isEmpty(), "formula " + formula + " has models");
+                continue;
+            }
+            var simplifiedModels = new ArrayList<int[]>();
+            projectedModels(simplified.getClauses(), variables, simplified.getProjection()).forEach(model -> simplifiedModels.add(model.stream().mapToInt(Integer::intValue).toArray()));
+            var reconstructed = simplified.reconstruct(simplifiedModels);
+            assertEquals(expected.size(), reconstructed.size(), "formula " + formula + " has distinct projected models");
+            assertEquals(expected, asSets(reconstructed), "formula " + formula);
+            assertEquals(expected, projectedModels(simplified.toEquivalentClauses(), variables, projection), "formula " + formula);
+        }
+    }
+
+    @Test
+    public void testSimplifiedSolvingMatchesReset() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        for (var fileName : List.of("FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json", "FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json")) {
+            var file = new File("../TestData/TestGraphs/TestFMJsons/" + fileName);
+            var resetFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolvingMode(SolvingMode.RESET)).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(file), 250));
+            var simplifiedFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolvingMode(SolvingMode.SIMPLIFIED)).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(file), 250));
+
+            assertEquals(resetFM.configurationsPerPartialFeatureModel.size(), simplifiedFM.configurationsPerPartialFeatureModel.size());
+            for (int i = 0; i < resetFM.configurationsPerPartialFeatureModel.size(); i++) {
+                var resetConfigurations = resetFM.configurationsPerPartialFeatureModel.get(i);
+                var simplifiedConfigurations = simplifiedFM.configurationsPerPartialFeatureModel.get(i);
+                assertEquals(resetConfigurations.size(), simplifiedConfigurations.size());
+                assertEquals(new HashSet<>(resetConfigurations), new HashSet<>(simplifiedConfigurations), fileName + " PFM " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testSimplifiedDIMACSIsSmaller() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var clauseGenerator = new CNFClauseGenerator(logger);
+        var slicedModel = new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(new File("../Configuration-Creator/src/test/resources/FMForAbstractLayerTesting.json")), 0);
+        for (var pfm : slicedModel.partialConcreteFeatureModels) {
+            var parents = pfm.stream().filter(feature -> !feature.getChildren().isEmpty()).toList();
+            slicedModel.partialFeatureModelClauses.add(clauseGenerator.createConcretePFMClauses(parents, slicedModel.crossTreeConstraints));
+        }
+
+        var plainFile = File.createTempFile("clauses", ".cnf");
+        var simplifiedFile = File.createTempFile("simplified", ".cnf");
+        new CNFClauseSerializer().saveClausesAsDIMACS(slicedModel, plainFile.getPath());
+        new CNFClauseSerializer(Compression.NONE, CompressedFileHandle.DEFAULT_BUFFER_SIZE, true).saveClausesAsDIMACS(slicedModel, simplifiedFile.getPath());
+        var plain = Files.readAllLines(plainFile.toPath());
+        var simplified = Files.readAllLines(simplifiedFile.toPath());
+        plainFile.delete();
+        simplifiedFile.delete();
+
+        assertEquals(plain.getFirst().split(" ")[2], simplified.getFirst().split(" ")[2], "the variables keep their numbers");
+        assertEquals(Integer.parseInt(simplified.getFirst().split(" ")[3]), simplified.size() - 1, "the header counts all clauses");
+        assertTrue(simplified.size() < plain.size(), "satisfied clauses are not written");
+    }
+
+    /**
+     * Enumerates all assignments of the variables and projects the models of the clauses.
+     */
+    private Set<List<Integer>> projectedModels(List<int[]> clauses, int variables, int[] projection) {
+        var models = new HashSet<List<Integer>>();
+        for (long assignment = 0; assignment < 1L << variables; assignment++) {
+            if (satisfies(clauses, assignment)) {
+                var model = new ArrayList<Integer>();
+                for (var variable : Arrays.stream(projection).sorted().toArray()) {
+                    if ((assignment & (1L << (variable - 1))) != 0) {
+                        model.add(variable);
+                    }
+                }
+                models.add(model);
+            }
+        }
+        return models;
+    }
+
+    private boolean satisfies(List<int[]> clauses, long assignment) {
+        for (var clause : clauses.subList(1, clauses.size())) {
+            var satisfied = false;
+            for (var literal : clause) {
+                if (((assignment & (1L << (Math.abs(literal) - 1))) != 0) == literal > 0) {
+                    satisfied = true;
+                    break;
+                }
+            }
+            if (!satisfied) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Set<List<Integer>> asSets(List<int[]> models) {
+        var sets = new HashSet<List<Integer>>();
+        models.forEach(model -> sets.add(Arrays.stream(model).sorted().boxed().toList()));
+        return sets;
+    }
+}
@@ -0,0 +1,65 @@
+package testConfigurationCalculator.structures;
+
+import ConfigurationCalculator.CartesianConfigurationGenerator;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CartesianConfigurationGeneratorTest {
+    private static final Logger logger = LogManager.getLogger(CartesianConfigurationGeneratorTest.class);
+
+    @Test
+    void testAlternativeChainIsGeneratedWithoutSolver() throws Exception {
+        var readFile = new File("../Configuration-Creator/src/test/resources/FMForLocalRequireCTCTest.json");
+        var model = new FeatureModelReader(logger).readFeatureModelJson(readFile);
+        var slicedFM = new FeatureModelSlicer(logger).sliceFeatureModel(model, 1);
+        var generator = new CartesianConfigurationGenerator();
+
+        var partialModelA = slicedFM.partialConcreteFeatureModels.stream()
+                .filter(pfm -> pfm.stream().anyMatch(f -> f.getName().equals("A")))
+                .findFirst().orElseThrow();
+        var parents = partialModelA.stream().filter(f -> !f.getChildren().isEmpty()).toList();
+
+        assertTrue(generator.isApplicable(parents, slicedFM.crossTreeConstraints), "The CTCs are not local to the PFM of A");
+        var configurations = generator.generate(parents);
+        assertEquals(2, configurations.size(), "A has an alternative group with 2 children");
+        assertEquals(List.of("a1"), configurations.get(0).stream().map(Feature::getName).toList());
+        assertEquals(List.of("a2"), configurations.get(1).stream().map(Feature::getName).toList());
+    }
+
+    @Test
+    void testLocalCTCRequiresSolver() throws Exception {
+        var readFile = new File("../Configuration-Creator/src/test/resources/FMForLocalRequireCTCTest.json");
+        var model = new FeatureModelReader(logger).readFeatureModelJson(readFile);
+        var slicedFM = new FeatureModelSlicer(logger).sliceFeatureModel(model, 4);
+        var generator = new CartesianConfigurationGenerator();
+
+        var partialModel = slicedFM.partialConcreteFeatureModels.getFirst();
+        var parents = partialModel.stream().filter(f -> !f.getChildren().isEmpty()).toList();
+
+        assertFalse(generator.isApplicable(parents, slicedFM.crossTreeConstraints), "Both CTCs are local to the PFM and need the solver");
+    }
+
+    @Test
+    void testMixedRadixProduct() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var model = new FeatureModelReader(logger).readFeatureModelJson(readFile);
+        var slicedFM = new FeatureModelSlicer(logger).sliceFeatureModel(model, 4096);
+        var generator = new CartesianConfigurationGenerator();
+
+        var parents = slicedFM.partialConcreteFeatureModels.stream().flatMap(List::stream).filter(f -> !f.getChildren().isEmpty()).toList();
+
+        assertTrue(generator.isApplicable(parents, slicedFM.crossTreeConstraints));
+        var configurations = generator.generate(parents);
+        assertEquals(4096, configurations.size());
+        assertEquals(4096, configurations.stream().distinct().count(), "Each configuration should be generated once");
+    }
+}
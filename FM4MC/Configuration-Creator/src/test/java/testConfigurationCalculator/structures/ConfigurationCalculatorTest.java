@@ -1,6 +1,8 @@
 package testConfigurationCalculator.structures;
 
+import ConfigurationCalculator.CalculationOptions;
 import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.SolvingMode;
 import ConfigurationCalculator.Structures.PartialConfiguration;
 import ConfigurationSerializer.ConfigurationSerializer;
 import FeatureModelReader.FeatureModelReader;
@@ -13,7 +15,10 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.math.BigInteger;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -362,6 +367,19 @@ public class ConfigurationCalculatorTest {
         assertEquals(7, max, "The largest configuration has 7 abstract features, 'start, 1 mandatory, 1 optional, 2 OR, 1 XOR, end'");
     }
 
+    @Test
+    void testProjectedEnumerationReturnsDistinctConfigurations() throws Exception {
+        var readFile = new File("../Configuration-Creator/src/test/resources/FMForAbstractLayerTesting.json");
+        var reader = new FeatureModelReader(logger);
+        var model = reader.readFeatureModelJson(readFile);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var calculatedFM = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(model, 1));
+
+        assertEquals(calculatedFM.abstractConfigurations.size(), calculatedFM.abstractConfigurations.stream().distinct().count(), "Each abstract configuration should be returned once");
+        assertTrue(calculatedFM.configurationsPerPartialFeatureModel.stream().allMatch(list -> list.size() == list.stream().distinct().count()), "Each concrete configuration should be returned once per PFM");
+    }
+
     @Test
     void testConfigurationWithChain() throws Exception {
         var readFile = new File("../Configuration-Creator/src/test/resources/FMForSequenceDetectionTest.json");
@@ -483,4 +501,118 @@ public class ConfigurationCalculatorTest {
 
 
     }
+
+    @Test
+    void testParallelCalculationMatchesSequential() throws Exception {
+        // excludes across the PFMs are resolved while the PFMs are calculated
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+
+        int threshold = 250;
+        var sequentialFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), threshold));
+        var parallelFM = new ConfigurationCalculator(logger, new CalculationOptions().withParallelism(4)).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), threshold));
+
+        assertEquals(sequentialFM.abstractConfigurations, parallelFM.abstractConfigurations);
+        assertEquals(sequentialFM.configurationsPerPartialFeatureModel, parallelFM.configurationsPerPartialFeatureModel);
+        assertFalse(sequentialFM.crossTreeConstraints.isEmpty());
+        assertEquals(describe(sequentialFM.crossTreeConstraints), describe(parallelFM.crossTreeConstraints));
+    }
+
+    private List<String> describe(List<CrossTreeConstraint> crossTreeConstraints) {
+        return crossTreeConstraints.stream()
+                .map(ctc -> ctc.getSource().getName() + " " + ctc.getRelation() + " " + ctc.getTarget().getName())
+                .toList();
+    }
+
+    @Test
+    void testIncrementalModeIsOnlyUsedSequentially() {
+        assertEquals(SolvingMode.INCREMENTAL, new CalculationOptions().withSolvingMode(SolvingMode.INCREMENTAL).getEffectiveSolvingMode());
+        assertEquals(SolvingMode.RESET, new CalculationOptions().withSolvingMode(SolvingMode.INCREMENTAL).withParallelism(4).getEffectiveSolvingMode());
+        assertEquals(SolvingMode.SIMPLIFIED, new CalculationOptions().withSolvingMode(SolvingMode.SIMPLIFIED).withParallelism(4).getEffectiveSolvingMode());
+    }
+
+    @Test
+    void testIncrementalCalculationMatchesReset() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+
+        for (var fmFile : List.of("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json",
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json")) {
+            var readFile = new File(fmFile);
+            var resetFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+            var incrementalFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolvingMode(SolvingMode.INCREMENTAL)).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+
+            assertEquals(new HashSet<>(resetFM.abstractConfigurations), new HashSet<>(incrementalFM.abstractConfigurations));
+            assertEquals(resetFM.configurationsPerPartialFeatureModel.size(), incrementalFM.configurationsPerPartialFeatureModel.size());
+            for (int i = 0; i < resetFM.configurationsPerPartialFeatureModel.size(); i++) {
+                assertEquals(new HashSet<>(resetFM.configurationsPerPartialFeatureModel.get(i)), new HashSet<>(incrementalFM.configurationsPerPartialFeatureModel.get(i)));
+            }
+            assertEquals(resetFM.crossTreeConstraints.size(), incrementalFM.crossTreeConstraints.size());
+        }
+    }
+
+    @Test
+    void testCountingMatchesEnumeration() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+
+        var model = reader.readFeatureModelJson(new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json"));
+        assertEquals(BigInteger.valueOf(4096), calculator.countConfigurationsForNonSlicedFM(model));
+        assertEquals(BigInteger.valueOf(4096), calculator.countPartialConfigurations(slicer.sliceFeatureModel(model, 250)));
+
+        var deepModel = reader.readFeatureModelJson(new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json"));
+        assertEquals(BigInteger.valueOf(37120), calculator.countConfigurationsForNonSlicedFM(deepModel));
+        assertEquals(BigInteger.valueOf(37120), calculator.countPartialConfigurations(slicer.sliceFeatureModel(deepModel, 250)));
+    }
+
+    @Test
+    void testCountingWithCrossTreeConstraints() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var model = reader.readFeatureModelJson(new File("../Configuration-Creator/src/test/resources/FMForLocalRequireCTCTest.json"));
+
+        // a1 requires b1 and a2 requires b2 leave 2 of the 4 combinations
+        assertEquals(BigInteger.TWO, calculator.countConfigurationsForNonSlicedFM(model));
+        assertEquals(2, model.crossTreeConstraints.size(), "Counting must not remove CTCs from the given model");
+        assertEquals(BigInteger.TWO, calculator.countPartialConfigurations(slicer.sliceFeatureModel(model, 1)), "CTCs between PFMs use the full CNF");
+        assertEquals(BigInteger.TWO, calculator.countPartialConfigurations(slicer.sliceFeatureModel(model, 4)), "Local CTCs are counted within the PFM");
+    }
+
+    @Test
+    void testThresholdSweepMatchesDirectCalculation() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var thresholds = new int[]{0, 1, 4, 8, 64, 250, FeatureModelSlicer.AUTOMATIC_THRESHOLD};
+
+        for (var fmFile : List.of("../Configuration-Creator/src/test/resources/FMForLocalRequireCTCTest.json",
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json",
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json")) {
+            var model = reader.readFeatureModelJson(new File(fmFile));
+            var sweep = calculator.calculatePartialConfigurationsForThresholds(model, thresholds);
+            assertEquals(thresholds.length, sweep.size());
+
+            for (var threshold : thresholds) {
+                var expected = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(model, threshold));
+                var actual = sweep.get(threshold);
+                assertEquals(new HashSet<>(expected.abstractConfigurations), new HashSet<>(actual.abstractConfigurations));
+                assertEquals(expected.configurationsPerPartialFeatureModel.size(), actual.configurationsPerPartialFeatureModel.size(), fmFile + " " + threshold);
+                for (int i = 0; i < expected.configurationsPerPartialFeatureModel.size(); i++) {
+                    assertEquals(new HashSet<>(expected.configurationsPerPartialFeatureModel.get(i)), new HashSet<>(actual.configurationsPerPartialFeatureModel.get(i)), fmFile + " " + threshold);
+                }
+                assertEquals(constraintNames(expected.crossTreeConstraints), constraintNames(actual.crossTreeConstraints));
+                assertEquals(expected.partialFeatureModelClauses.size(), actual.partialFeatureModelClauses.size());
+            }
+        }
+    }
+
+    private Set<String> constraintNames(List<CrossTreeConstraint> constraints) {
+        var names = new HashSet<String>();
+        constraints.forEach(constraint -> names.add(constraint.getSource().getName() + " " + constraint.getRelation() + " " + constraint.getTarget().getName()));
+        return names;
+    }
 }
@@ -0,0 +1,105 @@
+package testConfigurationCalculator.structures;
+
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.ConfigurationSampler;
+import ConfigurationCalculator.SamplingMode;
+import ConfigurationCalculator.Structures.PartialConfiguration;
+import ConfigurationSerializer.ConfigurationSerializer;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConfigurationSamplerTest {
+    private static final Logger logger = LogManager.getLogger(ConfigurationSamplerTest.class);
+    private static final File FM_FILE = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+    private static final int SAMPLES = 5;
+
+    @Test
+    void testSampledConfigurationsAreValidAndBounded() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var expectedFM = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250));
+        var sampledFM = calculator.samplePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250), SAMPLES, SamplingMode.UNIFORM, 42);
+
+        assertEquals(expectedFM.abstractConfigurations, sampledFM.abstractConfigurations);
+        assertEquals(expectedFM.crossTreeConstraints.size(), sampledFM.crossTreeConstraints.size());
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel.size(), sampledFM.configurationsPerPartialFeatureModel.size());
+        for (int i = 0; i < sampledFM.configurationsPerPartialFeatureModel.size(); i++) {
+            var expected = expectedFM.configurationsPerPartialFeatureModel.get(i);
+            var sampled = sampledFM.configurationsPerPartialFeatureModel.get(i);
+            assertEquals(Math.min(SAMPLES, expected.size()), sampled.size());
+            assertEquals(sampled.size(), new HashSet<>(sampled).size(), "samples are distinct");
+            assertTrue(new HashSet<>(expected).containsAll(sampled), "every sample is a valid configuration");
+            assertEquals(expected.getFirst().getAbstractParent(), sampled.getFirst().getAbstractParent());
+        }
+
+        var sampledAgain = calculator.samplePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250), SAMPLES, SamplingMode.UNIFORM, 42);
+        assertEquals(sampledFM.configurationsPerPartialFeatureModel, sampledAgain.configurationsPerPartialFeatureModel, "equal seeds draw equal samples");
+    }
+
+    @Test
+    void testPairwiseSampleCoversAllPairs() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var samples = 40;
+        var expectedFM = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250));
+        var sampledFM = calculator.samplePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250), samples, SamplingMode.PAIRWISE, 42);
+
+        var coveredBeforeBound = 0;
+        for (int i = 0; i < sampledFM.configurationsPerPartialFeatureModel.size(); i++) {
+            var expected = expectedFM.configurationsPerPartialFeatureModel.get(i);
+            var sampled = sampledFM.configurationsPerPartialFeatureModel.get(i);
+            assertTrue(sampled.size() <= samples);
+            assertTrue(new HashSet<>(expected).containsAll(sampled));
+            // the candidate pool holds every configuration of these PFMs, a sample below the bound covers all of their pairs
+            if (expected.size() <= 2 * samples * ConfigurationSampler.CANDIDATES_PER_SAMPLE && sampled.size() < Math.min(samples, expected.size())) {
+                var features = expected.stream().flatMap(configuration -> configuration.getFeatures().stream()).distinct().toList();
+                assertEquals(coveredPairs(expected, features), coveredPairs(sampled, features));
+                coveredBeforeBound++;
+            }
+        }
+        assertTrue(coveredBeforeBound > 0, "the pairwise sample is smaller than the bound");
+    }
+
+    @Test
+    void testSampledFileCanBeLoaded() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var sampledFM = new ConfigurationCalculator(logger).samplePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250), SAMPLES, SamplingMode.UNIFORM, 7);
+        var tempFile = File.createTempFile("testSampledConfigurations", ".csv");
+        tempFile.deleteOnExit();
+
+        var serializer = new ConfigurationSerializer(logger);
+        serializer.saveConfigurations(sampledFM, tempFile.getPath());
+        var loadedFM = serializer.loadConfigurations(reader.readFeatureModelJson(FM_FILE), tempFile.getPath());
+        assertEquals(sampledFM.configurationsPerPartialFeatureModel, loadedFM.configurationsPerPartialFeatureModel);
+    }
+
+    /**
+     * @return pairs of feature selections as (first feature, selected, second feature, selected)
+     */
+    private Set<List<Object>> coveredPairs(List<PartialConfiguration> configurations, List<Feature> features) {
+        var pairs = new HashSet<List<Object>>();
+        for (var configuration : configurations) {
+            for (int i = 0; i < features.size(); i++) {
+                for (int j = i + 1; j < features.size(); j++) {
+                    pairs.add(List.of(features.get(i).getName(), configuration.contains(features.get(i)),
+                            features.get(j).getName(), configuration.contains(features.get(j))));
+                }
+            }
+        }
+        return pairs;
+    }
+}
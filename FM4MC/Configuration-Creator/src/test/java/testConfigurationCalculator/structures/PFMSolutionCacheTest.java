@@ -0,0 +1,86 @@
+package testConfigurationCalculator.structures;
+
+import ConfigurationCalculator.CalculationOptions;
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.PFMSolutionCache;
+import ConfigurationCalculator.SolvingMode;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PFMSolutionCacheTest {
+    private static final Logger logger = LogManager.getLogger(PFMSolutionCacheTest.class);
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    void testCachedCalculationMatchesSolving() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+        var expectedFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+
+        var cache = new PFMSolutionCache(logger, cacheDirectory.toString(), Long.MAX_VALUE);
+        var firstFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolutionStore(cache))
+                .calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+        assertEquals(0, cache.getHits());
+        assertTrue(cache.getMisses() > 0, "the PFMs with local CTCs need the solver");
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel, firstFM.configurationsPerPartialFeatureModel);
+
+        // a new cache instance reads the entries of the previous run
+        var reopenedCache = new PFMSolutionCache(logger, cacheDirectory.toString(), Long.MAX_VALUE);
+        for (var solvingMode : List.of(SolvingMode.RESET, SolvingMode.INCREMENTAL)) {
+            var cachedFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolvingMode(solvingMode).withSolutionStore(reopenedCache))
+                    .calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+            assertEquals(expectedFM.configurationsPerPartialFeatureModel, cachedFM.configurationsPerPartialFeatureModel);
+            assertEquals(expectedFM.crossTreeConstraints.size(), cachedFM.crossTreeConstraints.size());
+        }
+        assertEquals(0, reopenedCache.getMisses());
+        assertEquals(2 * cache.getMisses(), reopenedCache.getHits());
+    }
+
+    @Test
+    void testKeyIsIndependentOfVariableNumbering() {
+        // the first element is the DIMACS header
+        var clauses = List.of(new int[]{3, 3}, new int[]{1}, new int[]{-2, -3}, new int[]{-1, 2});
+        var renumberedClauses = List.of(new int[]{12, 3}, new int[]{10}, new int[]{-12, -11}, new int[]{11, -10});
+        var otherClauses = List.of(new int[]{3, 3}, new int[]{1}, new int[]{-2, -3}, new int[]{-1, 3});
+
+        var key = PFMSolutionCache.keyOf(clauses, new int[]{2, 3});
+        assertEquals(key, PFMSolutionCache.keyOf(renumberedClauses, new int[]{11, 12}));
+        assertNotEquals(key, PFMSolutionCache.keyOf(otherClauses, new int[]{2, 3}));
+        assertNotEquals(key, PFMSolutionCache.keyOf(clauses, new int[]{3, 2}), "the projection order is part of the key");
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvicted() {
+        var configurations = List.of(new int[]{0, 2}, new int[]{1});
+        var cache = new PFMSolutionCache(logger, cacheDirectory.toString(), Long.MAX_VALUE);
+        cache.put("first", 3, configurations);
+        var entrySize = cache.getSizeInBytes();
+
+        var boundedCache = new PFMSolutionCache(logger, cacheDirectory.toString(), 2 * entrySize);
+        boundedCache.put("second", 3, configurations);
+        assertNotNull(boundedCache.get("first", 3));
+        boundedCache.put("third", 3, configurations);
+
+        assertEquals(1, boundedCache.getEvictions());
+        assertNull(boundedCache.get("second", 3), "the least recently used entry is evicted");
+        var cachedConfigurations = boundedCache.get("first", 3);
+        assertArrayEquals(configurations.get(0), cachedConfigurations.get(0));
+        assertArrayEquals(configurations.get(1), cachedConfigurations.get(1));
+        assertNotNull(boundedCache.get("third", 3));
+        assertNull(boundedCache.get("first", 4), "entries of a different projection are rejected");
+        assertTrue(boundedCache.getSizeInBytes() <= 2 * entrySize);
+    }
+}
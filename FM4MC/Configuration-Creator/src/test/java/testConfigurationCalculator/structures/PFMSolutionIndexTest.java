@@ -0,0 +1,92 @@
+package testConfigurationCalculator.structures;
+
+import ConfigurationCalculator.CalculationOptions;
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.PFMSolutionCache;
+import ConfigurationCalculator.PFMSolutionIndex;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PFMSolutionIndexTest {
+    private static final Logger logger = LogManager.getLogger(PFMSolutionIndexTest.class);
+    private static final File FM_FILE = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testOnlyChangedPFMsAreSolvedAgain() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var indexPath = PFMSolutionIndex.indexPathFor(outputDirectory.resolve("configurations.csv").toString());
+
+        var firstIndex = new PFMSolutionIndex(new PFMSolutionCache(logger, indexPath, Long.MAX_VALUE));
+        new ConfigurationCalculator(logger, new CalculationOptions().withSolutionStore(firstIndex))
+                .calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250));
+        assertEquals(0, firstIndex.getReused());
+        assertTrue(firstIndex.getSolved() > 1, "several PFMs need the solver");
+        firstIndex.retainCurrentPFMs();
+
+        // unchanged model: nothing is solved
+        var unchangedIndex = new PFMSolutionIndex(new PFMSolutionCache(logger, indexPath, Long.MAX_VALUE));
+        new ConfigurationCalculator(logger, new CalculationOptions().withSolutionStore(unchangedIndex))
+                .calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250));
+        assertEquals(firstIndex.getSolved(), unchangedIndex.getReused());
+        assertEquals(0, unchangedIndex.getSolved());
+
+        // dropping one CTC changes the PFM that contains it, the other PFMs are reused
+        var editedFM = reader.readFeatureModelJson(FM_FILE);
+        editedFM.crossTreeConstraints.removeFirst();
+        var expectedFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(slicer.sliceFeatureModel(editedFM, 250));
+
+        var editedIndex = new PFMSolutionIndex(new PFMSolutionCache(logger, indexPath, Long.MAX_VALUE));
+        editedFM = reader.readFeatureModelJson(FM_FILE);
+        editedFM.crossTreeConstraints.removeFirst();
+        var incrementalFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolutionStore(editedIndex))
+                .calculatePartialConfigurations(slicer.sliceFeatureModel(editedFM, 250));
+        assertTrue(editedIndex.getReused() > 0);
+        assertTrue(editedIndex.getReused() < firstIndex.getSolved());
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel, incrementalFM.configurationsPerPartialFeatureModel);
+        assertEquals(expectedFM.crossTreeConstraints.size(), incrementalFM.crossTreeConstraints.size());
+
+        // the entry of the changed PFM of the first run is deleted
+        var entriesBefore = entryCount(indexPath);
+        editedIndex.retainCurrentPFMs();
+        assertTrue(entryCount(indexPath) < entriesBefore);
+        assertEquals(editedIndex.getReused() + editedIndex.getSolved(), entryCount(indexPath));
+    }
+
+    @Test
+    void testInvalidEntryIsSolvedAgain() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var indexPath = PFMSolutionIndex.indexPathFor(outputDirectory.resolve("invalid.csv").toString());
+
+        var firstIndex = new PFMSolutionIndex(new PFMSolutionCache(logger, indexPath, Long.MAX_VALUE));
+        var expectedFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolutionStore(firstIndex))
+                .calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250));
+        var entries = new File(indexPath).listFiles((dir, name) -> name.endsWith(PFMSolutionCache.FILE_EXTENSION));
+        Files.writeString(entries[0].toPath(), "not an entry");
+
+        var secondIndex = new PFMSolutionIndex(new PFMSolutionCache(logger, indexPath, Long.MAX_VALUE));
+        var secondFM = new ConfigurationCalculator(logger, new CalculationOptions().withSolutionStore(secondIndex))
+                .calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(FM_FILE), 250));
+        assertEquals(1, secondIndex.getSolved());
+        assertEquals(firstIndex.getSolved() - 1, secondIndex.getReused());
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel, secondFM.configurationsPerPartialFeatureModel);
+    }
+
+    private long entryCount(String indexPath) {
+        return new File(indexPath).listFiles((dir, name) -> name.endsWith(PFMSolutionCache.FILE_EXTENSION)).length;
+    }
+}
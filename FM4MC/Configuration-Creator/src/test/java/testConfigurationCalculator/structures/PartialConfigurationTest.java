@@ -1,5 +1,6 @@
 package testConfigurationCalculator.structures;
 
+import ConfigurationCalculator.Structures.FeatureIndexTable;
 import ConfigurationCalculator.Structures.PartialConfiguration;
 import FeatureModelReader.Structures.Feature;
 import org.junit.jupiter.api.BeforeEach;
@@ -94,4 +95,41 @@ class PartialConfigurationTest {
         // Attempting to modify the unmodifiable list should throw an exception.
         assertThrows(UnsupportedOperationException.class, () -> featuresFromGetter.add(feature2));
     }
+
+    /**
+     * Test the index based membership checks.
+     */
+    @Test
+    void testBitsetMembership() {
+        var farFeature = new Feature("Feature130", 130, null);
+        config.addFeature(feature1);
+        config.addFeature(farFeature);
+
+        assertTrue(config.contains(feature1));
+        assertTrue(config.containsIndex(130));
+        assertFalse(config.contains(feature2));
+
+        var table = new FeatureIndexTable(Arrays.asList(feature1, feature2, farFeature));
+        assertTrue(config.intersects(table.createMask(Arrays.asList(farFeature))));
+        assertFalse(config.intersects(table.createMask(Arrays.asList(feature2))));
+
+        config.removeFeature(farFeature);
+        assertFalse(config.containsIndex(130));
+        assertFalse(config.getFeatures().contains(farFeature));
+    }
+
+    /**
+     * Test that equality and hash code follow the feature list.
+     */
+    @Test
+    void testEqualityFollowsFeatureList() {
+        config.addFeature(feature1);
+        config.addFeature(feature2);
+        var other = new PartialConfiguration(Arrays.asList(feature1, feature2));
+        assertEquals(config, other);
+        assertEquals(config.hashCode(), other.hashCode());
+
+        other.setFeatures(Arrays.asList(feature2, feature1));
+        assertNotEquals(config, other);
+    }
 }
@@ -0,0 +1,143 @@
+package testConfigurationCalculator.structures;
+
+import ConfigurationCalculator.CalculationOptions;
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Solver.ISolverBackend;
+import ConfigurationCalculator.Solver.PortfolioSolverBackend;
+import ConfigurationCalculator.Solver.SolverBackendType;
+import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelSlicer.Structures.FeatureModelSliced;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolverBackendTest {
+    private static final Logger logger = LogManager.getLogger(SolverBackendTest.class);
+
+    // root (1) with the mandatory abstract parent 2 and its alternative children 3, 4, 5
+    private final List<int[]> alternativeClauses = List.of(
+            new int[]{5, 9},
+            new int[]{1},
+            new int[]{-2, 1}, new int[]{2, -1},
+            new int[]{3, 4, 5, -2},
+            new int[]{-3, -4}, new int[]{-3, -5}, new int[]{-4, -5},
+            new int[]{-3, 2}, new int[]{-4, 2}, new int[]{-5, 2});
+
+    @Test
+    void testAllBackendsEnumerateTheSameModels() {
+        for (var type : SolverBackendType.values()) {
+            try (var backend = type.create(logger)) {
+                backend.load(alternativeClauses);
+                var models = backend.enumerate(new int[]{3, 4, 5}).stream().map(this::projected).collect(Collectors.toSet());
+                assertEquals(Set.of(Set.of(3), Set.of(4), Set.of(5)), models, type.name());
+
+                backend.load(alternativeClauses);
+                assertEquals(BigInteger.valueOf(3), backend.count(new int[]{3, 4, 5}), type.name());
+            }
+        }
+    }
+
+    @Test
+    void testPortfolioReportsWinner() {
+        try (var backend = SolverBackendType.PORTFOLIO.create(logger)) {
+            backend.load(alternativeClauses);
+            assertEquals(3, backend.enumerate(new int[]{3, 4, 5}).size());
+            assertNotNull(((PortfolioSolverBackend) backend).getLastWinner());
+
+            // the members are reusable after the losers were cancelled
+            backend.load(alternativeClauses);
+            assertEquals(3, backend.enumerate(new int[]{3, 4, 5}).size());
+        }
+    }
+
+    @Test
+    void testPortfolioThrowsWhenEveryMemberFails() {
+        var failingMember = new ISolverBackend() {
+            @Override
+            public String getName() {
+                return "failing";
+            }
+
+            @Override
+            public void load(List<int[]> cnfClauses) {
+            }
+
+            @Override
+            public List<int[]> enumerate(int[] projection) {
+                throw new IllegalArgumentException("no models");
+            }
+
+            @Override
+            public void cancel() {
+            }
+        };
+        try (var backend = new PortfolioSolverBackend(List.of(failingMember, failingMember), logger)) {
+            backend.load(alternativeClauses);
+            var exception = assertThrows(IllegalStateException.class, () -> backend.enumerate(new int[]{3, 4, 5}));
+            assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void testCancelledBackendThrows() {
+        for (var type : List.of(SolverBackendType.SAT4J_DEFAULT, SolverBackendType.Z3)) {
+            try (var backend = type.create(logger)) {
+                backend.load(alternativeClauses);
+                backend.cancel();
+                assertThrows(CancellationException.class, () -> backend.enumerate(new int[]{3, 4, 5}), type.name());
+
+                backend.load(alternativeClauses);
+                assertEquals(3, backend.enumerate(new int[]{3, 4, 5}).size(), type.name());
+            }
+        }
+    }
+
+    @Test
+    void testCalculatorWithBackends() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+
+        var defaultFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+        for (var type : List.of(SolverBackendType.SAT4J_GLUCOSE, SolverBackendType.Z3, SolverBackendType.PORTFOLIO)) {
+            var calculator = new ConfigurationCalculator(logger, new CalculationOptions().withSolverBackend(type));
+            var calculatedFM = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+
+            assertEquals(new HashSet<>(defaultFM.abstractConfigurations), new HashSet<>(calculatedFM.abstractConfigurations), type.name());
+            for (int i = 0; i < defaultFM.configurationsPerPartialFeatureModel.size(); i++) {
+                assertEquals(new HashSet<>(defaultFM.configurationsPerPartialFeatureModel.get(i)),
+                        new HashSet<>(calculatedFM.configurationsPerPartialFeatureModel.get(i)), type.name());
+            }
+        }
+    }
+
+    @Test
+    void testNonSlicedStreamWithBackend() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var reader = new FeatureModelReader(logger);
+
+        var defaultFM = new ConfigurationCalculator(logger).calculatedConfigurationForNonSlicedFM(reader.readFeatureModelJson(readFile));
+        var calculator = new ConfigurationCalculator(logger, new CalculationOptions().withSolverBackend(SolverBackendType.Z3));
+        var streamedFM = new FeatureModelPartiallyCalculated(new FeatureModelSliced(reader.readFeatureModelJson(readFile)));
+        try (var configurations = calculator.streamConfigurationsForNonSlicedFM(streamedFM)) {
+            assertEquals(defaultFM.configurationsPerPartialFeatureModel.size(), configurations.count());
+        }
+    }
+
+    private Set<Integer> projected(int[] model) {
+        return Arrays.stream(model).filter(x -> x >= 3 && x <= 5).boxed().collect(Collectors.toSet());
+    }
+}
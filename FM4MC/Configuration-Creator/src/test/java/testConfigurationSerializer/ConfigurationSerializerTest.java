@@ -1,9 +1,26 @@
 package testConfigurationSerializer;
 
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Structures.FeatureIndexTable;
+import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationCalculator.Structures.LazyPartialConfigurations;
+import ConfigurationSerializer.BinaryConfigurationSerializer;
+import ConfigurationSerializer.ConfigurationFormat;
+import ConfigurationSerializer.ConfigurationSerializer;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelSlicer.FeatureModelSlicer;
+import FeatureModelSlicer.Structures.FeatureModelSliced;
+import IO.impl.Compression;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class ConfigurationSerializerTest {
     private static final Logger logger = LogManager.getLogger(ConfigurationSerializerTest.class);
 
@@ -21,4 +38,149 @@ public class ConfigurationSerializerTest {
     public void testConfigurationSerializationAndLoading() {
 
     }
+
+    @Test
+    public void testStreamedConfigurationSerializationAndLoading() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var reader = new FeatureModelReader(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var serializer = new ConfigurationSerializer(logger);
+
+        var expectedFM = calculator.calculatedConfigurationForNonSlicedFM(reader.readFeatureModelJson(readFile));
+
+        var streamedFM = new FeatureModelPartiallyCalculated(new FeatureModelSliced(reader.readFeatureModelJson(readFile)));
+        var tempFile = File.createTempFile("streamedConfigurations", ".csv");
+        try (var configurations = calculator.streamConfigurationsForNonSlicedFM(streamedFM)) {
+            serializer.saveConfigurations(streamedFM.crossTreeConstraints, configurations, tempFile.getPath());
+        }
+
+        var loadedFM = serializer.loadConfigurations(reader.readFeatureModelJson(readFile), tempFile.getPath());
+        tempFile.delete();
+
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel.size(), loadedFM.configurationsPerPartialFeatureModel.size());
+        assertEquals(expectedFM.abstractConfigurations.size(), loadedFM.abstractConfigurations.size());
+        assertEquals(new HashSet<>(expectedFM.configurationsPerPartialFeatureModel), new HashSet<>(loadedFM.configurationsPerPartialFeatureModel));
+        assertEquals(0, loadedFM.crossTreeConstraints.size());
+    }
+
+    @Test
+    public void testBinaryConfigurationSerializationAndLoading() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+        var reader = new FeatureModelReader(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var csvSerializer = new ConfigurationSerializer(logger);
+        var binarySerializer = new ConfigurationSerializer(logger, ConfigurationFormat.BINARY);
+
+        var calculatedFM = calculator.calculatePartialConfigurations(new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+        var csvFile = File.createTempFile("configurations", ".csv");
+        var binaryFile = File.createTempFile("configurations", ".bin");
+        csvSerializer.saveConfigurations(calculatedFM, csvFile.getPath());
+        binarySerializer.saveConfigurations(calculatedFM, binaryFile.getPath());
+
+        assertTrue(BinaryConfigurationSerializer.isBinaryConfigurationFile(binaryFile.getPath()));
+        assertFalse(BinaryConfigurationSerializer.isBinaryConfigurationFile(csvFile.getPath()));
+        assertTrue(binaryFile.length() < csvFile.length());
+
+        var csvFM = csvSerializer.loadConfigurations(reader.readFeatureModelJson(readFile), csvFile.getPath());
+        var binaryFM = csvSerializer.loadConfigurations(reader.readFeatureModelJson(readFile), binaryFile.getPath());
+        csvFile.delete();
+        binaryFile.delete();
+
+        assertEquals(csvFM.configurationsPerPartialFeatureModel, binaryFM.configurationsPerPartialFeatureModel);
+        assertEquals(csvFM.abstractConfigurations, binaryFM.abstractConfigurations);
+        for (int i = 0; i < csvFM.configurationsPerPartialFeatureModel.size(); i++) {
+            for (int j = 0; j < csvFM.configurationsPerPartialFeatureModel.get(i).size(); j++) {
+                assertEquals(csvFM.configurationsPerPartialFeatureModel.get(i).get(j).getAbstractParent(), binaryFM.configurationsPerPartialFeatureModel.get(i).get(j).getAbstractParent());
+            }
+        }
+        assertEquals(csvFM.crossTreeConstraints.size(), binaryFM.crossTreeConstraints.size());
+        for (int i = 0; i < csvFM.crossTreeConstraints.size(); i++) {
+            assertEquals(csvFM.crossTreeConstraints.get(i).getSource(), binaryFM.crossTreeConstraints.get(i).getSource());
+            assertEquals(csvFM.crossTreeConstraints.get(i).getTarget(), binaryFM.crossTreeConstraints.get(i).getTarget());
+            assertEquals(csvFM.crossTreeConstraints.get(i).getRelation(), binaryFM.crossTreeConstraints.get(i).getRelation());
+        }
+    }
+
+    @Test
+    public void testStreamedBinaryConfigurationSerializationAndLoading() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var reader = new FeatureModelReader(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var serializer = new ConfigurationSerializer(logger, ConfigurationFormat.BINARY);
+
+        var expectedFM = calculator.calculatedConfigurationForNonSlicedFM(reader.readFeatureModelJson(readFile));
+
+        var streamedFM = new FeatureModelPartiallyCalculated(new FeatureModelSliced(reader.readFeatureModelJson(readFile)));
+        var tempFile = File.createTempFile("streamedConfigurations", ".bin");
+        try (var configurations = calculator.streamConfigurationsForNonSlicedFM(streamedFM)) {
+            serializer.saveConfigurations(streamedFM.crossTreeConstraints, configurations, tempFile.getPath());
+        }
+
+        var loadedFM = serializer.loadConfigurations(reader.readFeatureModelJson(readFile), tempFile.getPath());
+        tempFile.delete();
+
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel.size(), loadedFM.configurationsPerPartialFeatureModel.size());
+        assertEquals(expectedFM.abstractConfigurations.size(), loadedFM.abstractConfigurations.size());
+        assertEquals(new HashSet<>(expectedFM.configurationsPerPartialFeatureModel), new HashSet<>(loadedFM.configurationsPerPartialFeatureModel));
+    }
+
+    @Test
+    public void testLazyBinaryConfigurationLoading() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var reader = new FeatureModelReader(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var serializer = new ConfigurationSerializer(logger, ConfigurationFormat.BINARY);
+
+        var tempFile = File.createTempFile("lazyConfigurations", ".bin");
+        serializer.saveConfigurations(calculator.calculatePartialConfigurations(new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(readFile), 10)), tempFile.getPath());
+        var expectedFM = serializer.loadConfigurations(reader.readFeatureModelJson(readFile), tempFile.getPath());
+        var lazyFM = serializer.loadConfigurationsLazily(reader.readFeatureModelJson(readFile), tempFile.getPath());
+        tempFile.delete();
+
+        var featureIndexTable = new FeatureIndexTable(lazyFM.features);
+        assertEquals(expectedFM.configurationsPerPartialFeatureModel.size(), lazyFM.configurationsPerPartialFeatureModel.size());
+        for (int i = 0; i < expectedFM.configurationsPerPartialFeatureModel.size(); i++) {
+            var expectedConfigurations = expectedFM.configurationsPerPartialFeatureModel.get(i);
+            var lazyConfigurations = (LazyPartialConfigurations) lazyFM.configurationsPerPartialFeatureModel.get(i);
+            assertEquals(expectedConfigurations.size(), lazyConfigurations.size());
+            assertFalse(lazyConfigurations.isDecoded());
+
+            var requiredFeature = featureIndexTable.getFeature(expectedConfigurations.getFirst().getFeatures().getFirst().getName());
+            var requiredByAll = expectedConfigurations.stream().allMatch(configuration -> configuration.contains(requiredFeature));
+            var mask = featureIndexTable.createMask(List.of(requiredFeature));
+            assertTrue(lazyConfigurations.referencesAnyOf(mask));
+            assertEquals(requiredByAll, lazyConfigurations.requiresAnyOf(mask));
+            assertEquals(expectedConfigurations.getFirst().getAbstractParent(), lazyConfigurations.getAbstractParents());
+            assertFalse(lazyConfigurations.isDecoded(), "the index is used without decoding the PFM");
+
+            assertEquals(expectedConfigurations, lazyConfigurations);
+            assertTrue(lazyConfigurations.isDecoded());
+        }
+    }
+
+    @Test
+    public void testCompressedConfigurationSerializationAndLoading() throws Exception {
+        var readFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json");
+        var reader = new FeatureModelReader(logger);
+        var calculatedFM = new ConfigurationCalculator(logger).calculatePartialConfigurations(new FeatureModelSlicer(logger).sliceFeatureModel(reader.readFeatureModelJson(readFile), 250));
+
+        var plainFile = File.createTempFile("configurations", ".csv");
+        var plainSerializer = new ConfigurationSerializer(logger);
+        plainSerializer.saveConfigurations(calculatedFM, plainFile.getPath());
+        var expectedFM = plainSerializer.loadConfigurations(reader.readFeatureModelJson(readFile), plainFile.getPath());
+
+        for (var compression : List.of(Compression.DEFLATE, Compression.GZIP)) {
+            var compressedFile = File.createTempFile("configurations", ".csv");
+            var serializer = new ConfigurationSerializer(logger, ConfigurationFormat.CSV, compression, 4096);
+            serializer.saveConfigurations(calculatedFM, compressedFile.getPath());
+            assertTrue(compressedFile.length() < plainFile.length(), compression + " should be smaller than the plain file");
+
+            var loadedFM = plainSerializer.loadConfigurations(reader.readFeatureModelJson(readFile), compressedFile.getPath());
+            compressedFile.delete();
+            assertEquals(expectedFM.configurationsPerPartialFeatureModel, loadedFM.configurationsPerPartialFeatureModel);
+            assertEquals(expectedFM.abstractConfigurations, loadedFM.abstractConfigurations);
+            assertEquals(expectedFM.crossTreeConstraints.size(), loadedFM.crossTreeConstraints.size());
+        }
+        plainFile.delete();
+    }
 }
@@ -1,15 +1,20 @@
 package testFeatureModelReader;
 
+import FeatureModelReader.BinaryFeatureModelSerializer;
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
+import FeatureModelReader.ReadingMode;
 import FeatureModelReader.Structures.CrossTreeConstraint;
 import FeatureModelReader.Structures.CrossTreeConstraintRelation;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRead;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -584,5 +589,126 @@ class FeatureModelReaderTest {
         tempFile.delete();
     }
 
+    @Test
+    void testStreamingModeReadsTheSameModel() throws Exception {
+        var treeReader = new FeatureModelReader(logger);
+        var streamingReader = new FeatureModelReader(logger, ReadingMode.STREAMING);
+        var files = new String[]{
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json",
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json",
+                "../Configuration-Creator/src/test/resources/FMForLocalRequireCTCTest.json"
+        };
+        for (var fileName : files) {
+            var expected = treeReader.readFeatureModelJson(new File(fileName));
+            var actual = streamingReader.readFeatureModelJson(new File(fileName));
+
+            assertSameFeatureModel(expected, actual, fileName);
+        }
+    }
 
+    @Test
+    void testStreamingModeValidatesRelations() throws Exception {
+        var json = """
+                {
+                    "crossTreeConstraints": [],
+                    "features": [
+                        {
+                            "name": "A",
+                            "parentName": "root",
+                            "reachableAbstractFeatures": [],
+                            "relation": "MANDATORY"
+                        },
+                        {
+                            "hardwareRequirements": [],
+                            "name": "a",
+                            "parentName": "A",
+                            "relation": "ALTERNATIVE"
+                        }
+                    ]
+                }
+                """;
+        var tempFile = File.createTempFile("streamingSmallGroup", ".json");
+        try (var writer = new FileWriter(tempFile)) {
+            writer.write(json);
+        }
+        var reader = new FeatureModelReader(logger, ReadingMode.STREAMING);
+        var exception = assertThrows(InvalidFeatureModelRelationException.class, () -> reader.readFeatureModelJson(tempFile));
+        assertEquals("\"A\" is parent of a feature group with less than 2 children", exception.getMessage());
+        tempFile.delete();
+    }
+
+    @Test
+    void testBinaryFormatLoadsTheSameModel() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var serializer = new BinaryFeatureModelSerializer(logger);
+        var files = new String[]{
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json",
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json",
+                "../Configuration-Creator/src/test/resources/FMForLocalRequireCTCTest.json"
+        };
+        for (var fileName : files) {
+            var expected = reader.readFeatureModelJson(new File(fileName));
+            var binaryFile = File.createTempFile("binaryFeatureModel", BinaryFeatureModelSerializer.FILE_EXTENSION);
+            serializer.saveFeatureModel(expected, binaryFile.getPath());
+
+            assertTrue(BinaryFeatureModelSerializer.isBinaryFeatureModel(binaryFile));
+            assertFalse(BinaryFeatureModelSerializer.isBinaryFeatureModel(new File(fileName)));
+            var actual = reader.readFeatureModel(binaryFile);
+            assertSameFeatureModel(expected, actual, fileName);
+            for (int i = 0; i < expected.features.size(); i++) {
+                var expectedParent = expected.features.get(i).getParentFeature();
+                var actualParent = actual.features.get(i).getParentFeature();
+                assertEquals(expectedParent == null ? null : expectedParent.getName(), actualParent == null ? null : actualParent.getName());
+            }
+            for (var entry : expected.featureConnectivityInformation.featureConnectivityMap.entrySet()) {
+                assertEquals(names(entry.getValue()), names(actual.featureConnectivityInformation.featureConnectivityMap.get(entry.getKey())));
+            }
+            binaryFile.delete();
+        }
+    }
+
+    @Test
+    void testStaleBinaryFormatIsNotUsed() throws Exception {
+        var jsonFile = File.createTempFile("featureModel", ".json");
+        var binaryFile = new File(BinaryFeatureModelSerializer.binaryPathFor(jsonFile.getPath()));
+        assertEquals(jsonFile, BinaryFeatureModelSerializer.currentFileFor(jsonFile.getPath()));
+
+        new BinaryFeatureModelSerializer(logger).saveFeatureModel(new FeatureModelReader(logger).readFeatureModelJson(
+                new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json")), binaryFile.getPath());
+        assertTrue(jsonFile.setLastModified(binaryFile.lastModified() - 1000));
+        assertEquals(binaryFile, BinaryFeatureModelSerializer.currentFileFor(jsonFile.getPath()));
+
+        // the JSON file was edited after the conversion
+        assertTrue(jsonFile.setLastModified(binaryFile.lastModified() + 1000));
+        assertEquals(jsonFile, BinaryFeatureModelSerializer.currentFileFor(jsonFile.getPath()));
+        jsonFile.delete();
+        binaryFile.delete();
+    }
+
+    private void assertSameFeatureModel(FeatureModelRead expected, FeatureModelRead actual, String fileName) {
+        assertEquals(expected.features.size(), actual.features.size(), fileName);
+        for (int i = 0; i < expected.features.size(); i++) {
+            var expectedFeature = expected.features.get(i);
+            var actualFeature = actual.features.get(i);
+            assertEquals(expectedFeature.getName(), actualFeature.getName());
+            assertEquals(expectedFeature.getIndex(), actualFeature.getIndex());
+            assertEquals(expectedFeature.getRelation(), actualFeature.getRelation());
+            assertEquals(expectedFeature.getHardwareRequirements(), actualFeature.getHardwareRequirements());
+            assertEquals(names(expectedFeature.getChildren()), names(actualFeature.getChildren()));
+            assertEquals(names(expectedFeature.getSuccessiveFeatures()), names(actualFeature.getSuccessiveFeatures()));
+        }
+        assertEquals(expected.crossTreeConstraints.size(), actual.crossTreeConstraints.size());
+        for (int i = 0; i < expected.crossTreeConstraints.size(); i++) {
+            assertEquals(expected.crossTreeConstraints.get(i).getSource().getName(), actual.crossTreeConstraints.get(i).getSource().getName());
+            assertEquals(expected.crossTreeConstraints.get(i).getTarget().getName(), actual.crossTreeConstraints.get(i).getTarget().getName());
+            assertEquals(expected.crossTreeConstraints.get(i).getRelation(), actual.crossTreeConstraints.get(i).getRelation());
+        }
+        assertEquals(expected.featureConnectivityInformation.startFeature.getName(), actual.featureConnectivityInformation.startFeature.getName());
+        assertEquals(expected.featureConnectivityInformation.abstractStartFeature.getName(), actual.featureConnectivityInformation.abstractStartFeature.getName());
+        assertEquals(expected.featureConnectivityInformation.featureConnectivityMap.keySet(), actual.featureConnectivityInformation.featureConnectivityMap.keySet());
+    }
+
+    private List<String> names(List<Feature> features) {
+        return features.stream().map(Feature::getName).toList();
+    }
 }
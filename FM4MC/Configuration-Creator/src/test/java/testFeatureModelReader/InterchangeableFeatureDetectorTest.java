@@ -0,0 +1,128 @@
+package testFeatureModelReader;
+
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationSerializer.InterchangeableFeaturesSerializer;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.InterchangeableFeatureDetector;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRead;
+import FeatureModelSlicer.FeatureModelSlicer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterchangeableFeatureDetectorTest {
+    private static final Logger logger = LogManager.getLogger(InterchangeableFeatureDetectorTest.class);
+    private static final String FM_PATH = "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json";
+
+    @Test
+    void testReducedCountsAreExact() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var model = readSymmetricModel(reader);
+        var featureCount = model.features.size();
+
+        var interchangeableFeatures = new InterchangeableFeatureDetector(logger).reduce(model);
+        assertEquals(2, interchangeableFeatures.getClasses().size());
+        assertEquals(3, interchangeableFeatures.getRepresentedFeatureCount());
+        assertEquals(featureCount - interchangeableFeatures.getRepresentedFeatureCount(), model.features.size());
+        for (var members : interchangeableFeatures.getClasses()) {
+            var representative = members.getFirst();
+            assertTrue(model.features.contains(representative));
+            assertEquals(members.size(), interchangeableFeatures.multiplicity(representative));
+            members.subList(1, members.size()).forEach(member -> assertFalse(representative.getParentFeature().getChildren().contains(member)));
+        }
+
+        assertTrue(calculator.countConfigurationsForNonSlicedFM(model).compareTo(BigInteger.valueOf(37120)) < 0);
+        assertEquals(BigInteger.valueOf(37120), calculator.countConfigurationsForNonSlicedFM(model, interchangeableFeatures));
+        assertEquals(BigInteger.valueOf(37120), calculator.countPartialConfigurations(slicer.sliceFeatureModel(model, 250), interchangeableFeatures));
+    }
+
+    @Test
+    void testExpandedConfigurationsEqualOriginalConfigurations() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var original = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(readSymmetricModel(reader), 1));
+
+        var model = readSymmetricModel(reader);
+        var interchangeableFeatures = new InterchangeableFeatureDetector(logger).reduce(model);
+        var reduced = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(model, 1));
+        assertTrue(configurationCount(reduced) < configurationCount(original));
+
+        var weightedCount = BigInteger.ZERO;
+        var expanded = new HashSet<Set<String>>();
+        for (var configurations : reduced.configurationsPerPartialFeatureModel) {
+            for (var configuration : configurations) {
+                weightedCount = weightedCount.add(interchangeableFeatures.multiplicity(configuration.getFeatures()));
+                interchangeableFeatures.expand(configuration.getFeatures()).forEach(features -> expanded.add(namesOf(features)));
+            }
+        }
+        var expected = new HashSet<Set<String>>();
+        original.configurationsPerPartialFeatureModel.forEach(configurations -> configurations.forEach(configuration -> expected.add(namesOf(configuration.getFeatures()))));
+        assertEquals(BigInteger.valueOf(configurationCount(original)), weightedCount);
+        assertEquals(expected, expanded);
+    }
+
+    @Test
+    void testSerializedClassesAreRestored() throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var original = readSymmetricModel(reader);
+        var model = readSymmetricModel(reader);
+        var interchangeableFeatures = new InterchangeableFeatureDetector(logger).reduce(model);
+
+        var serializer = new InterchangeableFeaturesSerializer(logger);
+        var path = InterchangeableFeaturesSerializer.classesPathFor("build/tmp/interchangeableTest.csv");
+        serializer.saveClasses(interchangeableFeatures, path);
+        var loaded = serializer.loadClasses(original, path);
+
+        assertEquals(interchangeableFeatures.getClasses().stream().map(this::namesInOrder).toList(),
+                loaded.getClasses().stream().map(this::namesInOrder).toList());
+        for (var members : loaded.getClasses()) {
+            members.forEach(member -> assertTrue(original.features.contains(member)));
+        }
+        assertTrue(new File(path).delete());
+        assertTrue(serializer.loadClasses(original, path).isEmpty(), "A missing file means no reduction");
+    }
+
+    /**
+     * The test models have no interchangeable alternatives, so some variants get the
+     * hardware requirements of a sibling: t1v2, t1v3 and t1v4 as well as t2v2 and t2v3
+     * become interchangeable. The configurations of the model do not change.
+     */
+    private FeatureModelRead readSymmetricModel(FeatureModelReader reader) throws Exception {
+        var model = reader.readFeatureModelJson(new File(FM_PATH));
+        var features = new HashMap<String, Feature>();
+        model.features.forEach(feature -> features.put(feature.getName(), feature));
+        for (var name : List.of("t1v3", "t1v4")) {
+            features.get(name).setHardwareRequirements(new HashMap<>(features.get("t1v2").getHardwareRequirements()));
+        }
+        features.get("t2v3").setHardwareRequirements(new HashMap<>(features.get("t2v2").getHardwareRequirements()));
+        return model;
+    }
+
+    private long configurationCount(FeatureModelPartiallyCalculated calculatedFM) {
+        return calculatedFM.configurationsPerPartialFeatureModel.stream().mapToLong(List::size).sum();
+    }
+
+    private Set<String> namesOf(List<Feature> features) {
+        var names = new HashSet<String>();
+        features.forEach(feature -> names.add(feature.getName()));
+        return names;
+    }
+
+    private List<String> namesInOrder(List<Feature> features) {
+        return features.stream().map(Feature::getName).toList();
+    }
+}
@@ -0,0 +1,55 @@
+package testFeatureModelReader.structures;
+
+import FeatureModelReader.Structures.CrossTreeConstraint;
+import FeatureModelReader.Structures.CrossTreeConstraintIndex;
+import FeatureModelReader.Structures.CrossTreeConstraintRelation;
+import FeatureModelReader.Structures.Feature;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrossTreeConstraintIndexTest {
+
+    private Feature createFeature(String name, int index) {
+        var feature = new Feature();
+        feature.setName(name);
+        feature.setIndex(index);
+        return feature;
+    }
+
+    @Test
+    public void testConstraintsAreBucketedByRelation() {
+        var a = createFeature("a", 2);
+        var b = createFeature("b", 3);
+        var c = createFeature("c", 4);
+        var requires = new CrossTreeConstraint(a, b, CrossTreeConstraintRelation.REQUIRES);
+        var excludes = new CrossTreeConstraint(a, c, CrossTreeConstraintRelation.EXCLUDES);
+        var index = new CrossTreeConstraintIndex(List.of(requires, excludes));
+
+        assertEquals(2, index.size());
+        assertEquals(List.of(requires), index.getBySource(2, CrossTreeConstraintRelation.REQUIRES));
+        assertEquals(List.of(excludes), index.getBySource(2, CrossTreeConstraintRelation.EXCLUDES));
+        assertEquals(List.of(requires), index.getByTarget(3, CrossTreeConstraintRelation.REQUIRES));
+        assertTrue(index.getByTarget(3, CrossTreeConstraintRelation.EXCLUDES).isEmpty());
+        assertTrue(index.getBySource(3, CrossTreeConstraintRelation.REQUIRES).isEmpty());
+    }
+
+    @Test
+    public void testLocalConstraintsNeedSourceAndTarget() {
+        var a = createFeature("a", 2);
+        var b = createFeature("b", 3);
+        var c = createFeature("c", 4);
+        var d = createFeature("d", 70);
+        var requires = new CrossTreeConstraint(a, b, CrossTreeConstraintRelation.REQUIRES);
+        var excludes = new CrossTreeConstraint(c, d, CrossTreeConstraintRelation.EXCLUDES);
+        var index = new CrossTreeConstraintIndex(List.of(requires, excludes));
+
+        assertEquals(List.of(requires), index.getLocalConstraints(CrossTreeConstraintIndex.toBitSet(List.of(a, b, c))));
+        assertTrue(index.hasLocalConstraint(CrossTreeConstraintIndex.toBitSet(List.of(a, b))));
+        assertFalse(index.hasLocalConstraint(CrossTreeConstraintIndex.toBitSet(List.of(a, c))), "only the sources are part of the features");
+        assertFalse(index.hasLocalConstraint(CrossTreeConstraintIndex.toBitSet(List.of(b, d))), "only the targets are part of the features");
+        assertEquals(List.of(requires, excludes), index.getLocalConstraints(CrossTreeConstraintIndex.toBitSet(List.of(a, b, c, d))));
+    }
+}
@@ -3,14 +3,18 @@ package testFeatureModelSlicer;
 import ConfigurationCalculator.ConfigurationCalculator;
 import ConfigurationSerializer.ConfigurationSerializer;
 import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.Structures.Feature;
 import FeatureModelReader.Structures.FeatureModelRead;
 import FeatureModelSlicer.FeatureModelSlicer;
+import FeatureModelSlicer.Structures.FeatureModelSliced;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -123,4 +127,60 @@ public class FeatureModelSlicerTest {
 
         tempFile.delete();
     }
+
+    @Test
+    void testParallelSlicingCreatesTheSameSlices() throws Exception {
+        var files = new String[]{
+                "../Configuration-Creator/src/test/resources/FMForAbstractLayerTesting.json",
+                "../Configuration-Creator/src/test/resources/FMForSequenceDetectionTest.json",
+                "../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json"
+        };
+        var reader = new FeatureModelReader(logger);
+        for (var fileName : files) {
+            var model = reader.readFeatureModelJson(new File(fileName));
+            for (var threshold : new int[]{0, 4, 64}) {
+                var sequential = new FeatureModelSlicer(logger).sliceFeatureModel(model, threshold);
+                var parallel = new FeatureModelSlicer(logger, 4).sliceFeatureModel(model, threshold);
+                assertEquals(slicesWithEstimates(sequential), slicesWithEstimates(parallel), fileName + " " + threshold);
+            }
+        }
+    }
+
+    @Test
+    void testSlicingVeryLongChain() throws Exception {
+        var tasks = 100_000;
+        var json = new StringBuilder("{\n\"crossTreeConstraints\": [],\n\"features\": [\n");
+        for (int t = 1; t <= tasks; t++) {
+            json.append("{\"name\": \"task").append(t).append("\", \"parentName\": \"root\", \"relation\": \"MANDATORY\", \"reachableAbstractFeatures\": [");
+            if (t < tasks) {
+                json.append("\"task").append(t + 1).append("\"");
+            }
+            json.append("]},\n");
+            for (int a = 1; a <= 2; a++) {
+                json.append("{\"name\": \"t").append(t).append("v").append(a).append("\", \"parentName\": \"task").append(t).append("\", \"relation\": \"ALTERNATIVE\", \"hardwareRequirements\": []}");
+                json.append(t == tasks && a == 2 ? "\n" : ",\n");
+            }
+        }
+        json.append("]\n}");
+        var tempFile = File.createTempFile("testSlicingLongChain", ".json");
+        try (var writer = new FileWriter(tempFile)) {
+            writer.write(json.toString());
+        }
+        var model = new FeatureModelReader(logger).readFeatureModelJson(tempFile);
+        var slicedFM = new FeatureModelSlicer(logger).sliceFeatureModel(model, 4);
+        assertEquals(tasks / 2, slicedFM.partialConcreteFeatureModels.size());
+        assertTrue(slicedFM.estimatedConfigurationsPerPartialFeatureModel.stream().allMatch(estimate -> estimate == 4));
+        assertEquals("task1", slicedFM.partialConcreteFeatureModels.getFirst().getFirst().getName());
+        tempFile.delete();
+    }
+
+    private Set<String> slicesWithEstimates(FeatureModelSliced slicedFM) {
+        var slices = new HashSet<String>();
+        for (int i = 0; i < slicedFM.partialConcreteFeatureModels.size(); i++) {
+            var names = slicedFM.partialConcreteFeatureModels.get(i).stream().map(Feature::getName).toList();
+            slices.add(names + "=" + slicedFM.estimatedConfigurationsPerPartialFeatureModel.get(i));
+        }
+        assertEquals(slicedFM.partialConcreteFeatureModels.size(), slices.size());
+        return slices;
+    }
 }
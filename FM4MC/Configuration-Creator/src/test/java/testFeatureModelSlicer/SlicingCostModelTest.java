@@ -0,0 +1,96 @@
+package testFeatureModelSlicer;
+
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.Structures.CrossTreeConstraint;
+import FeatureModelReader.Structures.CrossTreeConstraintIndex;
+import FeatureModelReader.Structures.CrossTreeConstraintRelation;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelReader.Structures.FeatureModelRelation;
+import FeatureModelSlicer.FeatureModelSlicer;
+import FeatureModelSlicer.SlicingCostModel;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlicingCostModelTest {
+    private static final Logger logger = LogManager.getLogger(SlicingCostModelTest.class);
+    private int _NextIndex = 1;
+
+    private Feature createTask(String name, FeatureModelRelation relation, int children) {
+        var task = new Feature(name, _NextIndex++, null);
+        for (int i = 0; i < children; i++) {
+            var child = new Feature(name + "v" + i, _NextIndex++, task);
+            child.setRelation(relation);
+            task.addChild(child);
+        }
+        return task;
+    }
+
+    @Test
+    void testGroupEstimates() {
+        assertEquals(5, SlicingCostModel.estimateConfigurations(createTask("a", FeatureModelRelation.ALTERNATIVE, 5)));
+        assertEquals(7, SlicingCostModel.estimateConfigurations(createTask("o", FeatureModelRelation.OR, 3)));
+        assertEquals(8, SlicingCostModel.estimateConfigurations(createTask("p", FeatureModelRelation.OPTIONAL, 3)));
+        assertEquals(1, SlicingCostModel.estimateConfigurations(createTask("m", FeatureModelRelation.MANDATORY, 3)));
+        assertEquals(Long.MAX_VALUE, SlicingCostModel.estimateConfigurations(createTask("wide", FeatureModelRelation.OR, 70)));
+    }
+
+    @Test
+    void testEstimatesSaturateInsteadOfOverflowing() {
+        assertEquals(Long.MAX_VALUE, SlicingCostModel.multiply(1L << 40, 1L << 40));
+        assertEquals(Long.MAX_VALUE, SlicingCostModel.multiply(Long.MAX_VALUE, 2));
+        assertEquals(1L << 62, SlicingCostModel.multiply(1L << 31, 1L << 31));
+
+        var chain = new ArrayList<Feature>();
+        for (int i = 0; i < 40; i++) {
+            chain.add(createTask("t" + i, FeatureModelRelation.ALTERNATIVE, 10));
+        }
+        var costModel = new SlicingCostModel();
+        assertEquals(Long.MAX_VALUE, costModel.estimateConfigurations(chain, new CrossTreeConstraintIndex(List.of())));
+    }
+
+    @Test
+    void testLocalConstraintsReduceTheEstimate() {
+        var a = createTask("a", FeatureModelRelation.ALTERNATIVE, 4);
+        var b = createTask("b", FeatureModelRelation.ALTERNATIVE, 4);
+        var excludes = new CrossTreeConstraint(a.getChildren().getFirst(), b.getChildren().getFirst(), CrossTreeConstraintRelation.EXCLUDES);
+        var costModel = new SlicingCostModel();
+
+        // exactly one of the 16 combinations selects both features
+        assertEquals(15, costModel.estimateConfigurations(List.of(a, b), new CrossTreeConstraintIndex(List.of(excludes))));
+        assertEquals(4, costModel.estimateConfigurations(List.of(a), new CrossTreeConstraintIndex(List.of(excludes))), "the constraint is not local to the slice");
+    }
+
+    @Test
+    void testPartitionMergesCheapAndSplitsExpensiveTasks() {
+        var costModel = new SlicingCostModel();
+        var noConstraints = new CrossTreeConstraintIndex(List.of());
+
+        var cheapChain = List.of(createTask("a", FeatureModelRelation.MANDATORY, 1), createTask("b", FeatureModelRelation.ALTERNATIVE, 2), createTask("c", FeatureModelRelation.ALTERNATIVE, 2));
+        assertEquals(List.of(cheapChain), costModel.partition(cheapChain, noConstraints));
+
+        var expensiveChain = List.of(createTask("x", FeatureModelRelation.ALTERNATIVE, 200), createTask("y", FeatureModelRelation.ALTERNATIVE, 200));
+        var slices = costModel.partition(expensiveChain, noConstraints);
+        assertEquals(2, slices.size());
+        assertTrue(costModel.predictCost(expensiveChain, noConstraints) > costModel.predictCost(slices.get(0), noConstraints) + costModel.predictCost(slices.get(1), noConstraints));
+    }
+
+    @Test
+    void testAutomaticThresholdCoversAllAbstractFeatures() throws Exception {
+        var model = new FeatureModelReader(logger).readFeatureModelJson(new File("../Configuration-Creator/src/test/resources/FMForSequenceDetectionTest.json"));
+        var withThreshold = new FeatureModelSlicer(logger).sliceFeatureModel(model, 0);
+        var automatic = new FeatureModelSlicer(logger).sliceFeatureModel(model, FeatureModelSlicer.AUTOMATIC_THRESHOLD);
+
+        var expected = withThreshold.partialConcreteFeatureModels.stream().flatMap(List::stream).map(Feature::getName).sorted().toList();
+        var actual = automatic.partialConcreteFeatureModels.stream().flatMap(List::stream).map(Feature::getName).sorted().toList();
+        assertEquals(expected, actual);
+        assertEquals(automatic.partialConcreteFeatureModels.size(), automatic.estimatedConfigurationsPerPartialFeatureModel.size());
+        assertTrue(automatic.partialConcreteFeatureModels.size() <= withThreshold.partialConcreteFeatureModels.size());
+    }
+}
@@ -0,0 +1,167 @@
+package testKnowledgeCompiler;
+
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationCalculator.Structures.PartialConfiguration;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelSlicer.FeatureModelSlicer;
+import KnowledgeCompiler.BDDSerializer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BDDCompilerTest {
+    private static final Logger logger = LogManager.getLogger(BDDCompilerTest.class);
+
+    private FeatureModelPartiallyCalculated compile(String fmFile, int threshold) throws Exception {
+        var reader = new FeatureModelReader(logger);
+        var slicer = new FeatureModelSlicer(logger);
+        var calculator = new ConfigurationCalculator(logger);
+        var calculatedFM = calculator.calculatePartialConfigurations(slicer.sliceFeatureModel(reader.readFeatureModelJson(new File(fmFile)), threshold));
+        calculator.compilePartialFeatureModels(calculatedFM);
+        return calculatedFM;
+    }
+
+    @Test
+    void testDiagramCountMatchesConfigurations() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json", 250);
+
+        assertEquals(calculatedFM.configurationsPerPartialFeatureModel.size(), calculatedFM.partialFeatureModelDiagrams.size());
+        for (int i = 0; i < calculatedFM.partialFeatureModelDiagrams.size(); i++) {
+            var configurations = calculatedFM.configurationsPerPartialFeatureModel.get(i);
+            var diagram = calculatedFM.partialFeatureModelDiagrams.get(i);
+            assertEquals(BigInteger.valueOf(configurations.size()), diagram.count());
+
+            var expected = configurations.stream().map(this::toIndices).collect(Collectors.toSet());
+            var models = new HashSet<Set<Integer>>();
+            diagram.forEachModel(model -> models.add(toIndices(model)));
+            assertEquals(expected, models);
+        }
+    }
+
+    @Test
+    void testDiagramWithLocalCrossTreeConstraints() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json", 250);
+
+        for (int i = 0; i < calculatedFM.partialFeatureModelDiagrams.size(); i++) {
+            assertEquals(BigInteger.valueOf(calculatedFM.configurationsPerPartialFeatureModel.get(i).size()),
+                    calculatedFM.partialFeatureModelDiagrams.get(i).count());
+        }
+    }
+
+    @Test
+    void testConditioningMatchesFiltering() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json", 250);
+
+        for (int i = 0; i < calculatedFM.partialFeatureModelDiagrams.size(); i++) {
+            var configurations = calculatedFM.configurationsPerPartialFeatureModel.get(i);
+            var diagram = calculatedFM.partialFeatureModelDiagrams.get(i);
+            var unavailable = configurations.getFirst().getFeatures().getFirst();
+
+            var conditioned = diagram.condition(List.of(unavailable.getIndex()));
+            var expected = configurations.stream().filter(configuration -> !configuration.contains(unavailable))
+                    .map(this::toIndices).collect(Collectors.toSet());
+            assertEquals(BigInteger.valueOf(expected.size()), conditioned.count());
+
+            var models = new HashSet<Set<Integer>>();
+            conditioned.forEachModel(model -> models.add(toIndices(model)));
+            assertEquals(expected, models);
+            assertEquals(diagram.count(), diagram.condition(List.of()).count(), "conditioning must not change the original diagram");
+        }
+    }
+
+    @Test
+    void testConditioningAllVariables() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json", 250);
+
+        var diagram = calculatedFM.partialFeatureModelDiagrams.getFirst();
+        var conditioned = diagram.condition(Arrays.stream(diagram.getVariables()).boxed().toList());
+        var emptyConfigurations = calculatedFM.configurationsPerPartialFeatureModel.getFirst().stream()
+                .filter(configuration -> configuration.getFeatures().isEmpty()).count();
+        assertEquals(BigInteger.valueOf(emptyConfigurations), conditioned.count());
+        assertEquals(emptyConfigurations == 0, conditioned.isFalse());
+    }
+
+    @Test
+    void testSerializerRoundTrip() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json", 250);
+        var tempFile = File.createTempFile("testBDDRoundTrip", ".csv");
+        tempFile.deleteOnExit();
+        var diagramPath = BDDSerializer.diagramPathFor(tempFile.getPath());
+        new File(diagramPath).deleteOnExit();
+
+        var serializer = new BDDSerializer(logger);
+        serializer.saveDiagrams(calculatedFM.partialFeatureModelDiagrams, diagramPath);
+        var loaded = serializer.loadDiagrams(diagramPath);
+
+        assertEquals(calculatedFM.partialFeatureModelDiagrams.size(), loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            var original = calculatedFM.partialFeatureModelDiagrams.get(i);
+            assertArrayEquals(original.getVariables(), loaded.get(i).getVariables());
+            assertArrayEquals(original.getParents(), loaded.get(i).getParents());
+            assertEquals(original.getNodeCount(), loaded.get(i).getNodeCount());
+            assertEquals(original.count(), loaded.get(i).count());
+        }
+    }
+
+    @Test
+    void testSamplesAreUniformlyDistributedModels() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_16_Services_Excludes_1.520.640_configs.json", 250);
+        var random = new Random(42);
+
+        for (var diagram : calculatedFM.partialFeatureModelDiagrams) {
+            var models = new HashSet<Set<Integer>>();
+            diagram.forEachModel(model -> models.add(toIndices(model)));
+            if (models.size() < 2 || models.size() > 64) {
+                continue;
+            }
+            var expectedFrequency = 500;
+            var frequencies = new HashMap<Set<Integer>, Integer>();
+            for (var sample : diagram.sample(expectedFrequency * models.size(), random)) {
+                assertTrue(models.contains(toIndices(sample)), "every sample is a model of the diagram");
+                frequencies.merge(toIndices(sample), 1, Integer::sum);
+            }
+            assertEquals(models.size(), frequencies.size(), "every model is drawn");
+            for (var frequency : frequencies.values()) {
+                assertTrue(Math.abs(frequency - expectedFrequency) < expectedFrequency * 0.3, "frequency " + frequency);
+            }
+        }
+    }
+
+    @Test
+    void testSamplesOfConditionedDiagram() throws Exception {
+        var calculatedFM = compile("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_57.344_configs.json", 250);
+        var diagram = calculatedFM.partialFeatureModelDiagrams.getFirst();
+        var unavailable = diagram.getVariables()[0];
+
+        var conditioned = diagram.condition(List.of(unavailable));
+        for (var sample : conditioned.sample(1000, new Random(42))) {
+            assertFalse(toIndices(sample).contains(unavailable));
+        }
+        var contradiction = diagram.condition(Arrays.stream(diagram.getVariables()).boxed().toList());
+        if (contradiction.isFalse()) {
+            assertTrue(contradiction.sample(10, new Random(42)).isEmpty());
+        }
+    }
+
+    private Set<Integer> toIndices(PartialConfiguration configuration) {
+        return configuration.getFeatures().stream().map(Feature::getIndex).collect(Collectors.toSet());
+    }
+
+    private Set<Integer> toIndices(int[] model) {
+        return Arrays.stream(model).boxed().collect(Collectors.toSet());
+    }
+}
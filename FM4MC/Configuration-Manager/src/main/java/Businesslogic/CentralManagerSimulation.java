@@ -1,13 +1,16 @@
 package Businesslogic;
 
 import ConfigurationSerializer.ConfigurationSerializer;
+import ConfigurationSerializer.InterchangeableFeaturesSerializer;
 import CreatorTestData.TestGraphCreator;
 import FeatureModelMerger.HardwareSensitiveFeatureModelMerger;
 import FeatureModelMerger.Structures.AvailableEdgeHardware;
+import FeatureModelReader.BinaryFeatureModelSerializer;
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
 import GraphSerializer.GraphOnlineParser;
 import IO.impl.LshwClass;
+import KnowledgeCompiler.BDDSerializer;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
@@ -28,7 +31,17 @@ public class CentralManagerSimulation {
             var fmReader = new FeatureModelReader(_Logger);
             var fmSerializer = new ConfigurationSerializer(_Logger);
             try {
-                var featureModelWithConfigurations = fmSerializer.loadConfigurations(fmReader.readFeatureModelJson(new File(fmFilePath)), configurationsPath);
+                // a converted binary feature model next to the JSON file is mapped instead of parsing the JSON again,
+                // unless the JSON file was edited after the conversion
+                var fmFile = BinaryFeatureModelSerializer.currentFileFor(fmFilePath);
+                var featureModelWithConfigurations = fmSerializer.loadConfigurationsLazily(fmReader.readFeatureModel(fmFile), configurationsPath);
+                var diagramsPath = BDDSerializer.diagramPathFor(configurationsPath);
+                if (new File(diagramsPath).exists()) {
+                    featureModelWithConfigurations.partialFeatureModelDiagrams = new BDDSerializer(_Logger).loadDiagrams(diagramsPath);
+                }
+                // configurations over representatives of interchangeable alternatives are expanded and weighted by the merger
+                featureModelWithConfigurations.interchangeableFeatures = new InterchangeableFeaturesSerializer(_Logger)
+                        .loadClasses(featureModelWithConfigurations, InterchangeableFeaturesSerializer.classesPathFor(configurationsPath));
 
                 var merger = new HardwareSensitiveFeatureModelMerger(_Logger);
                 _Logger.info("Graph generation started");
@@ -1,12 +1,16 @@
 package FeatureModelMerger;
 
+import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Structures.FeatureIndexTable;
 import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationCalculator.Structures.LazyPartialConfigurations;
 import ConfigurationCalculator.Structures.PartialConfiguration;
 import FeatureModelMerger.Structures.AvailableEdgeHardware;
 import FeatureModelMerger.Structures.MergedConfiguration;
 import FeatureModelReader.Structures.CrossTreeConstraintRelation;
 import FeatureModelReader.Structures.Feature;
 import FeatureModelReader.Structures.FeatureConnectivityInformation;
+import FeatureModelReader.Structures.InterchangeableFeatures;
 import Filter.FeatureFilter;
 import GraphGenerator.GraphGenerator;
 import GraphGenerator.IGraphGenerator;
@@ -14,6 +18,7 @@ import IO.impl.LshwClass;
 import Structures.Graph.Graph;
 import org.apache.logging.log4j.Logger;
 
+import java.math.BigInteger;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -23,7 +28,12 @@ public class HardwareSensitiveFeatureModelMerger {
     private FeatureModelPartiallyCalculated partiallyCalculatedFeatureModel;
     private IGraphGenerator graphGenerator;
     private Graph combinedGraph;
-    public int validConfigurations = 0;
+    private FeatureIndexTable featureIndexTable;
+    private int[][] excludeConstraints;
+    private int[][] requireConstraints;
+    private InterchangeableFeatures interchangeableFeatures;
+    /** number of valid configurations of the original feature model, also if the configurations were reduced */
+    public long validConfigurations = 0;
 
     public HardwareSensitiveFeatureModelMerger(Logger logger) {
         this(logger, new GraphGenerator());
@@ -45,6 +55,7 @@ public class HardwareSensitiveFeatureModelMerger {
 
     public Graph start(FeatureModelPartiallyCalculated fm, AvailableEdgeHardware edgeHardwareInformation, int maxRequirements) {
         partiallyCalculatedFeatureModel = fm;
+        interchangeableFeatures = fm.interchangeableFeatures;
         if (graphGenerator == null) {
             graphGenerator = new GraphGenerator();
         }
@@ -52,17 +63,91 @@ public class HardwareSensitiveFeatureModelMerger {
 
         var featureFilter = new FeatureFilter(_Logger);
         var nonAvailableFeatures = featureFilter.filterFeaturesAgainstEdge(fm.features, edgeHardwareInformation, maxRequirements);
+        featureIndexTable = new FeatureIndexTable(fm.features);
+        excludeConstraints = constraintIndices(CrossTreeConstraintRelation.EXCLUDES);
+        requireConstraints = constraintIndices(CrossTreeConstraintRelation.REQUIRES);
 
         var configurationsPerFeatureModel = new ArrayList<>(partiallyCalculatedFeatureModel.configurationsPerPartialFeatureModel);
         var mergedConfiguration = new MergedConfiguration();
         var changesToLastConfiguration = new MergedConfiguration();
 
-        mergeConfigurationsRecursive(mergedConfiguration, configurationsPerFeatureModel, changesToLastConfiguration, 0,
-                nonAvailableFeatures);
+        var nonAvailableMask = featureIndexTable.createMask(nonAvailableFeatures);
+        if (applyDiagrams(configurationsPerFeatureModel, nonAvailableFeatures)) {
+            // all PFMs are already restricted to the available features
+            nonAvailableMask = featureIndexTable.createMask();
+        }
+        if (!configurationsPerFeatureModel.isEmpty()) {
+            mergeConfigurationsRecursive(mergedConfiguration, configurationsPerFeatureModel, changesToLastConfiguration, 0,
+                    nonAvailableMask);
+        }
         addConditionalWeights();
         return combinedGraph;
     }
 
+    /**
+     * Conditions the compiled diagram of every PFM on the non available features. A PFM whose diagram
+     * has no model left is removed together with its parents, a PFM whose diagram keeps all models is
+     * not touched and the configurations of all other PFMs are enumerated from their conditioned diagram,
+     * so the work depends on the size of the diagrams instead of the number of stored configurations.
+     * Lazily loaded configurations are not decoded for this.
+     *
+     * @return {@code true} if diagrams matching the PFMs exist and were applied
+     */
+    private boolean applyDiagrams(List<List<PartialConfiguration>> slicedConfigurations, Collection<Feature> nonAvailableFeatures) {
+        var diagrams = partiallyCalculatedFeatureModel.partialFeatureModelDiagrams;
+        if (diagrams.size() != slicedConfigurations.size()) {
+            return false;
+        }
+        for (int i = 0; i < diagrams.size(); i++) {
+            var configurations = slicedConfigurations.get(i);
+            if (configurations.isEmpty() || !hasParents(abstractParentsOf(configurations), diagrams.get(i).getParents())) {
+                return false;
+            }
+        }
+
+        var configurationCalculator = new ConfigurationCalculator(_Logger);
+        var nonAvailableIndices = nonAvailableFeatures.stream().map(Feature::getIndex).toList();
+        var parentsToBeRemoved = new HashSet<Feature>();
+        var iterator = slicedConfigurations.listIterator();
+        for (var diagram : diagrams) {
+            var configurations = iterator.next();
+            var conditioned = diagram.condition(nonAvailableIndices);
+            if (conditioned.isFalse()) {
+                Arrays.stream(diagram.getParents()).mapToObj(featureIndexTable::getFeature).forEach(parentsToBeRemoved::add);
+                configurations.clear();
+                iterator.remove();
+            } else if (conditioned.count().compareTo(BigInteger.valueOf(configurations.size())) != 0) {
+                iterator.set(configurationCalculator.calculateConfigurationsFromDiagram(partiallyCalculatedFeatureModel, conditioned));
+            }
+        }
+        if (!parentsToBeRemoved.isEmpty()) {
+            removeParentsFromConnectivityMap(partiallyCalculatedFeatureModel, parentsToBeRemoved);
+        }
+        return true;
+    }
+
+    /**
+     * @return abstract parents of the configurations of a PFM, lazily loaded configurations are not decoded
+     */
+    private List<Feature> abstractParentsOf(List<PartialConfiguration> configurations) {
+        if (configurations instanceof LazyPartialConfigurations lazyConfigurations) {
+            return lazyConfigurations.getAbstractParents();
+        }
+        return configurations.getFirst().getAbstractParent();
+    }
+
+    private boolean hasParents(List<Feature> parents, int[] parentIndices) {
+        if (parents.size() != parentIndices.length) {
+            return false;
+        }
+        for (int i = 0; i < parentIndices.length; i++) {
+            if (parents.get(i).getIndex() != parentIndices[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void removeParentsFromConnectivityMap(FeatureModelPartiallyCalculated fm, Set<Feature> parents) {
         var featureConnectivityMap = fm.featureConnectivityInformation.featureConnectivityMap;
         var precedingFeaturesToBeRemoved = new HashSet<Feature>();
@@ -92,17 +177,25 @@ public class HardwareSensitiveFeatureModelMerger {
     private void mergeConfigurationsRecursive(MergedConfiguration currentConfiguration,
                                               List<List<PartialConfiguration>> slicedConfigurations,
                                               MergedConfiguration changesToLastConfiguration,
-                                              int index, List<Feature> nonAvailableFeatures) {
+                                              int index, long[] nonAvailableFeatures) {
         var slicedConfiguration = slicedConfigurations.get(index);
         synchronized (slicedConfiguration) {
             var abstractParents = new HashSet<Feature>();
-            // find all not available partial configurations, to delete them from the list of pfms.
-            var iterator = slicedConfiguration.iterator();
-            while (iterator.hasNext()) {
-                var config = iterator.next();
-                if (config.getFeatures().stream().anyMatch(nonAvailableFeatures::contains)) {
-                    abstractParents.addAll(config.getAbstractParent());
-                    iterator.remove();
+            if (slicedConfiguration instanceof LazyPartialConfigurations lazyConfigurations && !lazyConfigurations.isDecoded()
+                    && lazyConfigurations.requiresAnyOf(nonAvailableFeatures)) {
+                // every configuration contains a not available feature, the pfm is removed without decoding it
+                abstractParents.addAll(lazyConfigurations.getAbstractParents());
+                slicedConfiguration.clear();
+            } else if (!(slicedConfiguration instanceof LazyPartialConfigurations lazyConfigurations)
+                    || lazyConfigurations.referencesAnyOf(nonAvailableFeatures)) {
+                // find all not available partial configurations, to delete them from the list of pfms.
+                var iterator = slicedConfiguration.iterator();
+                while (iterator.hasNext()) {
+                    var config = iterator.next();
+                    if (config.intersects(nonAvailableFeatures)) {
+                        abstractParents.addAll(config.getAbstractParent());
+                        iterator.remove();
+                    }
                 }
             }
 
@@ -119,7 +212,7 @@ public class HardwareSensitiveFeatureModelMerger {
             for (var partialConfiguration : slicedConfiguration) {
                 // Check if the configuration fits with the current abstract configuration.
                 // For concrete configurations, ensure that hardware requirements are met.
-                if (noContradictingCrossTreeConstraints(currentConfiguration._PartialConfigurations, partialConfiguration.getFeatures())) {
+                if (noContradictingCrossTreeConstraints(currentConfiguration._PartialConfigurations, partialConfiguration)) {
                     // (Optional) For abstract configurations: add additional checks if needed.
                     // e.g., if abstract configuration does not match the current abstract layer, skip it.
 
@@ -140,13 +233,15 @@ public class HardwareSensitiveFeatureModelMerger {
                         changesToLastConfiguration._PartialConfigurations.remove(partialConfiguration);
                         currentConfiguration._PartialConfigurations.remove(partialConfiguration);
                     } else {
-                        validConfigurations++;
-                        var graphForConfiguration = graphGenerator.generateGraph(changesToLastConfiguration._PartialConfigurations,
-                                partiallyCalculatedFeatureModel.featureConnectivityInformation);
-                        if (combinedGraph == null) {
-                            combinedGraph = graphForConfiguration;
-                        } else {
-                            combinedGraph.uniteWithGraph(graphForConfiguration);
+                        validConfigurations += multiplicityOf(currentConfiguration._PartialConfigurations);
+                        for (var expandedConfiguration : expand(changesToLastConfiguration._PartialConfigurations)) {
+                            var graphForConfiguration = graphGenerator.generateGraph(expandedConfiguration,
+                                    partiallyCalculatedFeatureModel.featureConnectivityInformation);
+                            if (combinedGraph == null) {
+                                combinedGraph = graphForConfiguration;
+                            } else {
+                                combinedGraph.uniteWithGraph(graphForConfiguration);
+                            }
                         }
                         changesToLastConfiguration._PartialConfigurations = new ArrayList<>();
                         currentConfiguration._PartialConfigurations.remove(partialConfiguration);
@@ -156,6 +251,52 @@ public class HardwareSensitiveFeatureModelMerger {
         }
     }
 
+    /**
+     * @return number of configurations of the original feature model the merged configuration stands for
+     */
+    private long multiplicityOf(List<PartialConfiguration> configurations) {
+        if (interchangeableFeatures.isEmpty()) {
+            return 1;
+        }
+        var multiplicity = BigInteger.ONE;
+        for (var configuration : configurations) {
+            multiplicity = multiplicity.multiply(interchangeableFeatures.multiplicity(configuration.getFeatures()));
+        }
+        return multiplicity.longValueExact();
+    }
+
+    /**
+     * Replaces the representatives of interchangeable alternatives by each of their members, so
+     * the graph gets a vertex for every member like without the reduction.
+     *
+     * @return one list of configurations per combination of members
+     */
+    private List<List<PartialConfiguration>> expand(List<PartialConfiguration> configurations) {
+        if (interchangeableFeatures.isEmpty()) {
+            return List.of(configurations);
+        }
+        List<List<PartialConfiguration>> expanded = List.of(List.of());
+        for (var configuration : configurations) {
+            var members = interchangeableFeatures.multiplicity(configuration.getFeatures()).equals(BigInteger.ONE) ? List.of(configuration)
+                    : interchangeableFeatures.expand(configuration.getFeatures()).map(features -> {
+                        var expandedConfiguration = new PartialConfiguration(features);
+                        expandedConfiguration.setAbstractParent(configuration.getAbstractParent());
+                        return expandedConfiguration;
+                    }).toList();
+            var combinations = new ArrayList<List<PartialConfiguration>>(expanded.size() * members.size());
+            for (var prefix : expanded) {
+                for (var member : members) {
+                    var combination = new ArrayList<PartialConfiguration>(prefix.size() + 1);
+                    combination.addAll(prefix);
+                    combination.add(member);
+                    combinations.add(combination);
+                }
+            }
+            expanded = combinations;
+        }
+        return expanded;
+    }
+
     private List<PartialConfiguration> getPredecessorConfigurations(
             List<PartialConfiguration> currentConfiguration,
             PartialConfiguration configurationToMerge,
@@ -208,12 +349,15 @@ public class HardwareSensitiveFeatureModelMerger {
         return clone;
     }
 
-    private boolean noContradictingCrossTreeConstraints(List<PartialConfiguration> alreadyMergedConfigurations, List<Feature> configurationToMerge) {
-        Set<Feature> featuresToCheckAgainst = new HashSet<>();
+    private boolean noContradictingCrossTreeConstraints(List<PartialConfiguration> alreadyMergedConfigurations, PartialConfiguration configurationToMerge) {
+        if (excludeConstraints.length == 0 && requireConstraints.length == 0) {
+            return true;
+        }
+        var featuresToCheckAgainst = featureIndexTable.createMask();
         for (PartialConfiguration pc : alreadyMergedConfigurations) {
-            featuresToCheckAgainst.addAll(pc.getFeatures());
+            pc.addTo(featuresToCheckAgainst);
         }
-        featuresToCheckAgainst.addAll(configurationToMerge);
+        configurationToMerge.addTo(featuresToCheckAgainst);
 
         if (findExcludes(featuresToCheckAgainst)) {
             return false;
@@ -221,39 +365,61 @@ public class HardwareSensitiveFeatureModelMerger {
         return requiresFulfilled(featuresToCheckAgainst);
     }
 
-    private boolean findExcludes(Set<Feature> featuresToCheck) {
+    private boolean findExcludes(long[] featuresToCheck) {
         //TODO Excludes and Requires are no longer limited to the gaps between segments! this code has to change! SAME FOR THE CREATION of excludes for merging!
-
-        var firstIterationExcludes = this.partiallyCalculatedFeatureModel.crossTreeConstraints.stream().filter(crossTreeConstraint -> crossTreeConstraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES).filter(constraint -> featuresToCheck.contains(constraint.getSource())).toList();
-        if (firstIterationExcludes.isEmpty()) return false;
-
-        var secondIterationExcludes = firstIterationExcludes.stream().filter(constraint -> featuresToCheck.contains(constraint.getTarget())).toList();
-        return !secondIterationExcludes.isEmpty();
+        for (var constraint : excludeConstraints) {
+            if (FeatureIndexTable.contains(featuresToCheck, constraint[0]) && FeatureIndexTable.contains(featuresToCheck, constraint[1])) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private boolean requiresFulfilled(Set<Feature> featuresToCheck) {
+    private boolean requiresFulfilled(long[] featuresToCheck) {
         //TODO Change Logic to search for parents/children
-        var unfulfilledRequires = partiallyCalculatedFeatureModel.crossTreeConstraints.stream().filter(crossTreeConstraint -> crossTreeConstraint.getRelation() == CrossTreeConstraintRelation.REQUIRES).filter(constraint -> featuresToCheck.contains(constraint.getSource()) && !featuresToCheck.contains(constraint.getTarget())).toList();
-        return unfulfilledRequires.isEmpty();
+        for (var constraint : requireConstraints) {
+            if (FeatureIndexTable.contains(featuresToCheck, constraint[0]) && !FeatureIndexTable.contains(featuresToCheck, constraint[1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects source and target index of all CTCs with the given relation.
+     */
+    private int[][] constraintIndices(CrossTreeConstraintRelation relation) {
+        return partiallyCalculatedFeatureModel.crossTreeConstraints.stream()
+                .filter(constraint -> constraint.getRelation() == relation)
+                .map(constraint -> new int[]{constraint.getSource().getIndex(), constraint.getTarget().getIndex()})
+                .toArray(int[][]::new);
     }
 
     private void addConditionalWeights() {
+        // the CTCs of a reduced model only name the representatives, every member has the same CTCs
         for (var constraint : partiallyCalculatedFeatureModel.crossTreeConstraints) {
             if (constraint.getRelation() == CrossTreeConstraintRelation.EXCLUDES) {
-                var sourceVertex = combinedGraph.getVertexByIdentifier(constraint.getSource().getName());
-                var targetVertex = combinedGraph.getVertexByIdentifier(constraint.getTarget().getName());
-                if (sourceVertex != null && targetVertex != null) {
-                    sourceVertex.addConditionalWeight(targetVertex);
+                for (var source : interchangeableFeatures.getMembers(constraint.getSource())) {
+                    for (var target : interchangeableFeatures.getMembers(constraint.getTarget())) {
+                        var sourceVertex = combinedGraph.getVertexByIdentifier(source.getName());
+                        var targetVertex = combinedGraph.getVertexByIdentifier(target.getName());
+                        if (sourceVertex != null && targetVertex != null) {
+                            sourceVertex.addConditionalWeight(targetVertex);
+                        }
+                    }
                 }
             } else if (constraint.getRelation() == CrossTreeConstraintRelation.REQUIRES) {
-                var sourceVertex = combinedGraph.getVertexByIdentifier(constraint.getSource().getName());
+                var requiredFeatures = interchangeableFeatures.getMembers(constraint.getTarget());
                 var targetVertices = partiallyCalculatedFeatureModel.features.stream().filter(x -> x.getParentFeature() == constraint.getTarget().getParentFeature()).toList();
 
-                for (var target : targetVertices) {
-                    if (target != constraint.getTarget()) {
-                        var targetVertex = combinedGraph.getVertexByIdentifier(target.getName());
-                        if (sourceVertex != null && targetVertex != null) {
-                            sourceVertex.addConditionalWeight(targetVertex);
+                for (var source : interchangeableFeatures.getMembers(constraint.getSource())) {
+                    var sourceVertex = combinedGraph.getVertexByIdentifier(source.getName());
+                    for (var target : targetVertices) {
+                        if (!requiredFeatures.contains(target)) {
+                            var targetVertex = combinedGraph.getVertexByIdentifier(target.getName());
+                            if (sourceVertex != null && targetVertex != null) {
+                                sourceVertex.addConditionalWeight(targetVertex);
+                            }
                         }
                     }
                 }
@@ -87,7 +87,7 @@ public class FeatureFilter {
                             if (ProgramHelper.DEBUG)
                                 _Logger.info("Removing feature " + feature.getName() + " - requires " + required +
                                     " but only " + available + " available for " + currentClass);
-                            configuration.getFeatures().remove(feature);
+                            configuration.removeFeature(feature);
                             break; // No need to check further for this feature.
                         }
                     }
@@ -4,16 +4,25 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import CNFClauseGenerator.CNFClauseGenerator;
 import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Structures.LazyPartialConfigurations;
 import ConfigurationCalculator.Structures.PartialConfiguration;
+import ConfigurationSerializer.ConfigurationFormat;
 import ConfigurationSerializer.ConfigurationSerializer;
+import ConfigurationSerializer.InterchangeableFeaturesSerializer;
 import CreatorTestData.TestGraphCreator;
 import FeatureModelMerger.HardwareSensitiveFeatureModelMerger;
 import FeatureModelMerger.Structures.AvailableEdgeHardware;
 import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.InterchangeableFeatureDetector;
 import FeatureModelReader.InvalidFeatureModelRelationException;
 import FeatureModelReader.Structures.Feature;
 import FeatureModelReader.Structures.FeatureConnectivityInformation;
+import FeatureModelReader.Structures.FeatureModelRead;
 import FeatureModelSlicer.FeatureModelSlicer;
+import IO.impl.LshwClass;
+import KnowledgeCompiler.BDDSerializer;
+import Structures.Graph.Graph;
+import Structures.Graph.interfaces.IVertex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +32,8 @@ import java.io.File;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 class GraphGeneratorTest {
     private final Logger _Logger = LogManager.getLogger("executionLog");
@@ -223,6 +234,96 @@ class GraphGeneratorTest {
 
     }
 
+    @Test
+    void testGenerateGraph_withCompiledDiagrams_shouldMatchFiltering() throws InvalidFeatureModelRelationException {
+        // Arrange
+        var smallEdge = new AvailableEdgeHardware(2);
+        smallEdge.edgeHardware.put(LshwClass.DISPLAY, 1);
+        smallEdge.edgeHardware.put(LshwClass.PROCESSOR, 3);
+        smallEdge.edgeHardware.put(LshwClass.MEMORY, 2);
+        var fmFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+
+        var filteredConfigurations = configurationCalculator.calculatePartialConfigurations(fmSlicer.sliceFeatureModel(fmReader.readFeatureModelJson(fmFile), 250));
+        var compiledConfigurations = configurationCalculator.calculatePartialConfigurations(fmSlicer.sliceFeatureModel(fmReader.readFeatureModelJson(fmFile), 250));
+        configurationCalculator.compilePartialFeatureModels(compiledConfigurations);
+
+        // Act
+        var filteringMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var filteredGraph = filteringMerger.startForTesting(filteredConfigurations, smallEdge, 2);
+        var compiledMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var compiledGraph = compiledMerger.startForTesting(compiledConfigurations, smallEdge, 2);
+
+        // Assert
+        assertTrue(filteringMerger.validConfigurations > 0);
+        assertEquals(filteringMerger.validConfigurations, compiledMerger.validConfigurations);
+        assertEquals(filteredGraph.getAllVertices().size(), compiledGraph.getAllVertices().size());
+    }
+
+    @Test
+    void testGenerateGraph_withLazyConfigurations_shouldMatchEagerLoading() throws Exception {
+        // Arrange
+        var smallEdge = new AvailableEdgeHardware(2);
+        smallEdge.edgeHardware.put(LshwClass.DISPLAY, 1);
+        smallEdge.edgeHardware.put(LshwClass.PROCESSOR, 3);
+        smallEdge.edgeHardware.put(LshwClass.MEMORY, 2);
+        var fmFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var configurationFile = File.createTempFile("configurations", ".bin");
+        var binarySerializer = new ConfigurationSerializer(_Logger, ConfigurationFormat.BINARY);
+        binarySerializer.saveConfigurations(configurationCalculator.calculatePartialConfigurations(fmSlicer.sliceFeatureModel(fmReader.readFeatureModelJson(fmFile), 10)), configurationFile.getPath());
+
+        var eagerConfigurations = binarySerializer.loadConfigurations(fmReader.readFeatureModelJson(fmFile), configurationFile.getPath());
+        var lazyConfigurations = binarySerializer.loadConfigurationsLazily(fmReader.readFeatureModelJson(fmFile), configurationFile.getPath());
+
+        // Act
+        var eagerMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var eagerGraph = eagerMerger.startForTesting(eagerConfigurations, smallEdge, 2);
+        var lazyMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var lazyGraph = lazyMerger.startForTesting(lazyConfigurations, smallEdge, 2);
+        configurationFile.delete();
+
+        // Assert
+        assertTrue(eagerMerger.validConfigurations > 0);
+        assertEquals(eagerMerger.validConfigurations, lazyMerger.validConfigurations);
+        assertEquals(eagerGraph.getAllVertices().size(), lazyGraph.getAllVertices().size());
+    }
+
+    @Test
+    void testGenerateGraph_withLazyConfigurationsAndDiagrams_shouldMatchFilteringWithoutDecoding() throws Exception {
+        // Arrange
+        var smallEdge = new AvailableEdgeHardware(2);
+        smallEdge.edgeHardware.put(LshwClass.DISPLAY, 1);
+        smallEdge.edgeHardware.put(LshwClass.PROCESSOR, 3);
+        smallEdge.edgeHardware.put(LshwClass.MEMORY, 2);
+        var fmFile = new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json");
+        var configurationFile = File.createTempFile("configurations", ".bin");
+        var diagramFile = new File(BDDSerializer.diagramPathFor(configurationFile.getPath()));
+        var binarySerializer = new ConfigurationSerializer(_Logger, ConfigurationFormat.BINARY);
+        var calculatedConfigurations = configurationCalculator.calculatePartialConfigurations(fmSlicer.sliceFeatureModel(fmReader.readFeatureModelJson(fmFile), 10));
+        configurationCalculator.compilePartialFeatureModels(calculatedConfigurations);
+        binarySerializer.saveConfigurations(calculatedConfigurations, configurationFile.getPath());
+        new BDDSerializer(_Logger).saveDiagrams(calculatedConfigurations.partialFeatureModelDiagrams, diagramFile.getPath());
+
+        var eagerConfigurations = binarySerializer.loadConfigurations(fmReader.readFeatureModelJson(fmFile), configurationFile.getPath());
+        var lazyConfigurations = binarySerializer.loadConfigurationsLazily(fmReader.readFeatureModelJson(fmFile), configurationFile.getPath());
+        lazyConfigurations.partialFeatureModelDiagrams = new BDDSerializer(_Logger).loadDiagrams(diagramFile.getPath());
+        var configurationsPerPartialFeatureModel = List.copyOf(lazyConfigurations.configurationsPerPartialFeatureModel);
+        configurationFile.delete();
+        diagramFile.delete();
+
+        // Act
+        var eagerMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var eagerGraph = eagerMerger.startForTesting(eagerConfigurations, smallEdge, 2);
+        var lazyMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var lazyGraph = lazyMerger.startForTesting(lazyConfigurations, smallEdge, 2);
+
+        // Assert
+        assertTrue(eagerMerger.validConfigurations > 0);
+        assertEquals(eagerMerger.validConfigurations, lazyMerger.validConfigurations);
+        assertEquals(eagerGraph.getAllVertices().size(), lazyGraph.getAllVertices().size());
+        // PFMs restricted by their diagram are enumerated from the diagram instead of decoding the stored configurations
+        assertTrue(configurationsPerPartialFeatureModel.stream().anyMatch(configurations -> !((LazyPartialConfigurations) configurations).isDecoded()));
+    }
+
     @Test
     void testUnreachableEnd()  throws InvalidFeatureModelRelationException {
 
@@ -262,4 +363,65 @@ class GraphGeneratorTest {
     void testRequires()  throws InvalidFeatureModelRelationException {
 
     }
+
+    @Test
+    void testGenerateGraph_withInterchangeableFeatures_shouldMatchUnreducedModel() throws Exception {
+        // Arrange
+        var smallEdge = new AvailableEdgeHardware(2);
+        smallEdge.edgeHardware.put(LshwClass.DISPLAY, 1);
+        smallEdge.edgeHardware.put(LshwClass.PROCESSOR, 3);
+        smallEdge.edgeHardware.put(LshwClass.MEMORY, 2);
+        var originalConfigurations = configurationCalculator.calculatePartialConfigurations(fmSlicer.sliceFeatureModel(readSymmetricModel(), 250));
+
+        var reducedModel = readSymmetricModel();
+        var interchangeableFeatures = new InterchangeableFeatureDetector(_Logger).reduce(reducedModel);
+        assertFalse(interchangeableFeatures.isEmpty());
+        var configurationFile = File.createTempFile("configurations", ".csv");
+        var classesPath = InterchangeableFeaturesSerializer.classesPathFor(configurationFile.getPath());
+        fmSerializer.saveConfigurations(configurationCalculator.calculatePartialConfigurations(fmSlicer.sliceFeatureModel(reducedModel, 250)), configurationFile.getPath());
+        new InterchangeableFeaturesSerializer(_Logger).saveClasses(interchangeableFeatures, classesPath);
+
+        // like in the online phase, the reduced configurations are loaded with the unreduced model
+        var reducedConfigurations = fmSerializer.loadConfigurations(readSymmetricModel(), configurationFile.getPath());
+        reducedConfigurations.interchangeableFeatures = new InterchangeableFeaturesSerializer(_Logger).loadClasses(reducedConfigurations, classesPath);
+        configurationFile.delete();
+        new File(classesPath).delete();
+
+        // Act
+        var originalMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var originalGraph = originalMerger.startForTesting(originalConfigurations, smallEdge, 2);
+        var reducedMerger = new HardwareSensitiveFeatureModelMerger(_Logger);
+        var reducedGraph = reducedMerger.startForTesting(reducedConfigurations, smallEdge, 2);
+
+        // Assert
+        assertTrue(originalMerger.validConfigurations > 0);
+        assertEquals(originalMerger.validConfigurations, reducedMerger.validConfigurations);
+        assertEquals(labelsOf(originalGraph), labelsOf(reducedGraph));
+        // the graph of the original model is built from the changes between configurations and may miss
+        // edges to unchanged alternatives, the expanded configurations only add such edges
+        assertTrue(edgesOf(reducedGraph).containsAll(edgesOf(originalGraph)));
+    }
+
+    /**
+     * Gives t1v2 and t1v3 the hardware requirements of t1v1 and t2v2 those of t2v1, so
+     * these alternatives become interchangeable and the smaller edge keeps all of them.
+     */
+    private FeatureModelRead readSymmetricModel() throws InvalidFeatureModelRelationException {
+        var model = fmReader.readFeatureModelJson(new File("../TestData/TestGraphs/TestFMJsons/FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json"));
+        var features = new HashMap<String, Feature>();
+        model.features.forEach(feature -> features.put(feature.getName(), feature));
+        for (var name : List.of("t1v2", "t1v3")) {
+            features.get(name).setHardwareRequirements(new HashMap<>(features.get("t1v1").getHardwareRequirements()));
+        }
+        features.get("t2v2").setHardwareRequirements(new HashMap<>(features.get("t2v1").getHardwareRequirements()));
+        return model;
+    }
+
+    private Set<String> labelsOf(Graph graph) {
+        return graph.getAllVertices().stream().map(IVertex::getLabel).collect(Collectors.toSet());
+    }
+
+    private Set<String> edgesOf(Graph graph) {
+        return graph.getAllEdges().stream().map(edge -> edge.getSource().getLabel() + "->" + edge.getDestination().getLabel()).collect(Collectors.toSet());
+    }
 }
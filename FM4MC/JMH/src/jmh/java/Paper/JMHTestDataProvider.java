@@ -48,6 +48,18 @@ public class JMHTestDataProvider {
         return new String[] {"3", "4", "5", "6", "7", "8", "9", "10"};
     }
 
+    public String[] getSolverThreads() {
+        return new String[] {"1", "2", "4", "8"};
+    }
+
+    public String[] getSolvingModes() {
+        return new String[] {"RESET", "INCREMENTAL"};
+    }
+
+    public String[] getSolverBackends() {
+        return new String[] {"SAT4J_DEFAULT", "SAT4J_GLUCOSE", "Z3", "PORTFOLIO"};
+    }
+
     public String[] getMaxRequirements() {
         return new String[] {"14", "13", "12", "11", "10", "9", "8", "7", "6", "5", "4", "3", "2", "1"};
     }
@@ -1,6 +1,9 @@
 package Paper.Offline;
 
+import ConfigurationCalculator.CalculationOptions;
 import ConfigurationCalculator.ConfigurationCalculator;
+import ConfigurationCalculator.Solver.SolverBackendType;
+import ConfigurationCalculator.SolvingMode;
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
 import FeatureModelSlicer.FeatureModelSlicer;
@@ -23,12 +26,30 @@ public class ConfigurationCalculatorBenchmark {
     @Param({"2"})
     public int _Thresholds;
 
+    @Param({"1"})
+    public int _Threads;
+
+    @Param({"RESET"})
+    public SolvingMode _SolvingMode;
+
+    @Param({"SAT4J_DEFAULT"})
+    public SolverBackendType _SolverBackend;
+
     private final FeatureModelReader fmReader = new FeatureModelReader(_Logger);
     private final FeatureModelSlicer fmSlicer = new FeatureModelSlicer(_Logger);
     private FeatureModelSliced _SlicedFeatureModel = null;
+    private CalculationOptions _Options = null;
 
     @Setup(Level.Trial)
     public void initTests() throws InvalidFeatureModelRelationException {
+        _Options = new CalculationOptions()
+                .withParallelism(_Threads)
+                .withSolvingMode(_SolvingMode)
+                .withSolverBackend(_SolverBackend);
+        // otherwise the results would be reported under a solving mode that was not used
+        if (_Options.getEffectiveSolvingMode() != _SolvingMode) {
+            throw new IllegalArgumentException("The " + _SolvingMode + " solving mode is not used with " + _Threads + " threads");
+        }
         var _ReadFeatureModel = fmReader.readFeatureModelJson(new File(_FilePathFM));
         _SlicedFeatureModel = fmSlicer.sliceFeatureModel(_ReadFeatureModel, _Thresholds);
     }
@@ -37,7 +58,7 @@ public class ConfigurationCalculatorBenchmark {
     @BenchmarkMode(Mode.SingleShotTime)
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
     public void partialFeatureClauseGenerationBenchmark(Blackhole blackhole) {
-        var calculator = new ConfigurationCalculator(_Logger);
+        var calculator = new ConfigurationCalculator(_Logger, _Options);
         blackhole.consume(calculator.calculatePartialConfigurations(_SlicedFeatureModel));
         blackhole.consume(calculator);
     }
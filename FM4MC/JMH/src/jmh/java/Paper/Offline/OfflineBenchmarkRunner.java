@@ -18,6 +18,9 @@ public class OfflineBenchmarkRunner {
                 .include(ConfigurationCalculatorBenchmark.class.getSimpleName())
                 .param("_FilePathFM", testDataProvider.getTestFilesWithPath())
                 .param("_Thresholds", testDataProvider.getThresholds())
+                .param("_Threads", testDataProvider.getSolverThreads())
+                .param("_SolvingMode", testDataProvider.getSolvingModes())
+                .param("_SolverBackend", testDataProvider.getSolverBackends())
                 // Specify the output file for the results
                 .result("configurationCalculator.csv")
                 .measurementIterations(30)
@@ -2,8 +2,10 @@ package Paper.Offline;
 
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
+import FeatureModelReader.ReadingMode;
 import FeatureModelReader.Structures.FeatureModelRead;
 import FeatureModelSlicer.FeatureModelSlicer;
+import Helper.LinearFMBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.openjdk.jmh.annotations.*;
@@ -37,4 +39,32 @@ public class SlicerBenchmark {
         blackhole.consume(slicer.sliceFeatureModel(_ReadFeatureModel, _Thresholds));
         blackhole.consume(slicer);
     }
+
+    /**
+     * Linear chains of tasks with two alternatives each, used to show that the
+     * slicing time grows linearly with the length of the chain.
+     */
+    @State(Scope.Benchmark)
+    public static class LongChain {
+        private final Logger _Logger = LogManager.getLogger("executionLog");
+        private final LinearFMBuilder _LinearFMBuilder = new LinearFMBuilder();
+        private FeatureModelRead _ReadFeatureModel = null;
+
+        @Param({"10000", "100000", "1000000"})
+        public int _Tasks;
+
+        @Setup(Level.Trial)
+        public void initTests() throws InvalidFeatureModelRelationException {
+            _LinearFMBuilder.createLinearFM(_Tasks, 2);
+            _ReadFeatureModel = new FeatureModelReader(_Logger, ReadingMode.STREAMING).readFeatureModelJson(_LinearFMBuilder.FM_FILE);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void sliceLongChainBenchmark(LongChain chain, Blackhole blackhole) {
+        var slicer = new FeatureModelSlicer(_Logger);
+        blackhole.consume(slicer.sliceFeatureModel(chain._ReadFeatureModel, _Thresholds));
+    }
 }
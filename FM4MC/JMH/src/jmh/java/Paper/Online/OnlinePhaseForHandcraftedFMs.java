@@ -2,8 +2,10 @@ package Paper.Online;
 
 import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
 import ConfigurationSerializer.ConfigurationSerializer;
+import ConfigurationSerializer.InterchangeableFeaturesSerializer;
 import FeatureModelMerger.Structures.AvailableEdgeHardware;
 import FeatureModelMerger.HardwareSensitiveFeatureModelMerger;
+import FeatureModelReader.BinaryFeatureModelSerializer;
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
 import FeatureModelReader.Structures.FeatureModelRead;
@@ -52,7 +54,7 @@ public class OnlinePhaseForHandcraftedFMs {
     @Setup(Level.Trial)
     public void initTests() throws InvalidFeatureModelRelationException {
         var currentFile = new File(_FilePathFM);
-        _ReadFeatureModel = fmReader.readFeatureModelJson(currentFile);
+        _ReadFeatureModel = fmReader.readFeatureModel(BinaryFeatureModelSerializer.currentFileFor(_FilePathFM));
 
         switch (currentFile.getName()) {
             case "FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json" -> _FilePathConfiguration = "../TestData/TestGraphs/TestConfigurationFiles/temporaryConfigurationFile_FM_BenchmarkGraph_6_Services_NoExcludes_4.096_configs.json_10.csv";
@@ -96,6 +98,8 @@ public class OnlinePhaseForHandcraftedFMs {
         }
 
         _FeatureModelWithConfigurations = fmSerializer.loadConfigurations(_ReadFeatureModel, _FilePathConfiguration);
+        _FeatureModelWithConfigurations.interchangeableFeatures = new InterchangeableFeaturesSerializer(_Logger)
+                .loadClasses(_FeatureModelWithConfigurations, InterchangeableFeaturesSerializer.classesPathFor(_FilePathConfiguration));
     }
 
     private void saveBaseInformation(File featureModelFile, HardwareSensitiveFeatureModelMerger merger) {
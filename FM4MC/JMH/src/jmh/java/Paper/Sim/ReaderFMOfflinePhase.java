@@ -2,6 +2,7 @@ package Paper.Sim;
 
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
+import FeatureModelReader.ReadingMode;
 import Helper.LinearFMBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -22,6 +23,9 @@ public class ReaderFMOfflinePhase {
     @Param({"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15"})
     public int _Alternatives;
 
+    @Param({"TREE", "STREAMING"})
+    public ReadingMode _ReadingMode;
+
     private final LinearFMBuilder _LinearFMBuilder = new LinearFMBuilder();
 
     @Setup(Level.Trial)
@@ -35,7 +39,7 @@ public class ReaderFMOfflinePhase {
     @Measurement(iterations = 30)
     @OutputTimeUnit(TimeUnit.MICROSECONDS)
     public void readFMBenchmark(Blackhole blackhole) throws InvalidFeatureModelRelationException {
-        var reader = new FeatureModelReader(_Logger);
+        var reader = new FeatureModelReader(_Logger, _ReadingMode);
         blackhole.consume(reader.readFeatureModelJson(_LinearFMBuilder.FM_FILE));
         blackhole.consume(reader);
     }
@@ -0,0 +1,67 @@
+package Paper.Sim;
+
+import CNFClauseGenerator.AtMostOneEncoding;
+import CNFClauseGenerator.CNFClauseGenerator;
+import ConfigurationCalculator.Solver.SolverBackendType;
+import FeatureModelReader.FeatureModelReader;
+import FeatureModelReader.InvalidFeatureModelRelationException;
+import FeatureModelReader.Structures.Feature;
+import FeatureModelSlicer.FeatureModelSlicer;
+import FeatureModelSlicer.Structures.FeatureModelSliced;
+import Helper.LinearFMBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@Fork(value = 1)
+public class Sim_AlternativeEncodingFMOfflinePhase {
+    private final Logger _Logger = LogManager.getLogger("executionLog");
+
+    // Params
+    @Param({"10"})
+    public int _Tasks;
+
+    @Param({"1", "2", "5", "10", "25", "50", "100", "250", "500", "750", "1000"})
+    public int _Alternatives;
+
+    @Param({"PAIRWISE", "SEQUENTIAL", "COMMANDER", "PRODUCT", "AUTOMATIC"})
+    public AtMostOneEncoding _Encoding;
+
+    private final FeatureModelReader fmReader = new FeatureModelReader(_Logger);
+    private final FeatureModelSlicer fmSlicer = new FeatureModelSlicer(_Logger);
+
+    private final LinearFMBuilder _LinearFMBuilder = new LinearFMBuilder();
+    private FeatureModelSliced _SlicedFeatureModel = null;
+
+    @Setup(Level.Trial)
+    public void initTests() throws InvalidFeatureModelRelationException {
+        // Setup test data, every task ends up in its own PFM
+        _LinearFMBuilder.createLinearFM(_Tasks, _Alternatives);
+
+        var _ReadFeatureModel = fmReader.readFeatureModelJson(_LinearFMBuilder.FM_FILE);
+        _SlicedFeatureModel = fmSlicer.sliceFeatureModel(_ReadFeatureModel, 2);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime) //Mode.All
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 30)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void alternativeEncodingBenchmark(Blackhole blackhole) {
+        var cnfClauseGenerator = new CNFClauseGenerator(_Logger, _Encoding);
+        var crossTreeConstraints = new ArrayList<>(_SlicedFeatureModel.crossTreeConstraints);
+        try (var solverBackend = SolverBackendType.SAT4J_DEFAULT.create(_Logger)) {
+            for (var pfm : _SlicedFeatureModel.partialConcreteFeatureModels) {
+                var parents = pfm.stream().filter(feature -> !feature.getChildren().isEmpty()).toList();
+                var projection = parents.stream().flatMap(parent -> parent.getChildren().stream()).mapToInt(Feature::getIndex).toArray();
+                solverBackend.load(cnfClauseGenerator.createConcretePFMClauses(parents, crossTreeConstraints));
+                blackhole.consume(solverBackend.enumerate(projection));
+            }
+        }
+    }
+}
@@ -2,12 +2,15 @@ package SlicingBenchmark;
 
 import ConfigurationCalculator.ConfigurationCalculator;
 import ConfigurationCalculator.Structures.FeatureModelPartiallyCalculated;
+import ConfigurationSerializer.ConfigurationFormat;
 import ConfigurationSerializer.ConfigurationSerializer;
 import FeatureModelReader.FeatureModelReader;
 import FeatureModelReader.InvalidFeatureModelRelationException;
 import FeatureModelReader.Structures.FeatureModelRead;
 import FeatureModelSlicer.FeatureModelSlicer;
 import Helper.LinearFMBuilder;
+import IO.impl.CompressedFileHandle;
+import IO.impl.Compression;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -28,7 +31,7 @@ public class NoJmhSlicingBenchmark {
     private final int MAX_TASKS = 100;
     private final int MIN_ALTERNATIVES = 1;
     private final int MAX_ALTERNATIVES = 15;
-    private final int[] THRESHOLDS = new int[]{10, 25, 50, 75, 100, 150, 200, 250, 300, 350, 400, 450, 500, 550, 600, 650, 700, 750, 800, 850, 900, 950, 1000};
+    private final int[] THRESHOLDS = new int[]{10, 25, 50, 75, 100, 150, 200, 250, 300, 350, 400, 450, 500, 550, 600, 650, 700, 750, 800, 850, 900, 950, 1000, FeatureModelSlicer.AUTOMATIC_THRESHOLD};
     private final int TIMEOUT_IN_SECONDS = 7200;
 
     public void executeBenchmark(boolean useSlicing, boolean useDirectory, String directory) {
@@ -89,6 +92,112 @@ public class NoJmhSlicingBenchmark {
         saveResults(sb);
     }
 
+    /**
+     * Same measurements as {@link #executeSlicingBenchmarkForFiles(String)}, but the finest slicing is solved once
+     * and the configurations of all thresholds are joined from it, see {@link ConfigurationCalculator#joinPartialConfigurations}.
+     * The solving time of the finest slicing is reported as threshold 0.
+     */
+    public void executeSweepBenchmarkForFiles(String directory) {
+        var sb = new StringBuilder();
+        sb.append("inputFile;validConfigurations;threshold;fileSizeInByte;timeReadingFM;timeSlicingFM;timeCalculatingConfigurations;timeSavingConfigurations\n");
+
+        var fileFolder = new File(directory);
+        for (var fileEntry : Objects.requireNonNull(fileFolder.listFiles())) {
+            if (!fileEntry.isDirectory()) {
+                var reader = new FeatureModelReader(_Logger);
+                FeatureModelRead fmRead;
+
+                var startTimeReading = System.nanoTime();
+                try {
+                    fmRead = reader.readFeatureModelJson(fileEntry);
+                } catch (InvalidFeatureModelRelationException e) {
+                    throw new RuntimeException(e);
+                }
+                var totalTimeReading = System.nanoTime() - startTimeReading;
+
+                var slicer = new FeatureModelSlicer(_Logger);
+                var configurationCalculator = new ConfigurationCalculator(_Logger);
+                var startTimeFinestSlicing = System.nanoTime();
+                var finestSliced = slicer.sliceFeatureModel(fmRead, 0);
+                var totalTimeFinestSlicing = System.nanoTime() - startTimeFinestSlicing;
+                var startTimeFinest = System.nanoTime();
+                var finest = configurationCalculator.calculatePartialConfigurations(finestSliced);
+                var totalTimeFinest = System.nanoTime() - startTimeFinest;
+                sb.append(fileEntry.getName()).append(";").append(0).append(";").append(0).append(";").append(-1).append(";").append(totalTimeReading).append(";").append(totalTimeFinestSlicing).append(";").append(totalTimeFinest).append(";").append(-1).append("\n");
+
+                for (int threshold : THRESHOLDS) {
+                    var startTimeSlicing = System.nanoTime();
+                    var fmSliced = slicer.sliceFeatureModel(fmRead, threshold);
+                    var totalTimeSlicing = System.nanoTime() - startTimeSlicing;
+
+                    var startTimeConfigurationCalculation = System.nanoTime();
+                    var fmPartiallyCalculated = configurationCalculator.joinPartialConfigurations(finest, fmSliced);
+                    var totalTimeConfigurationCalculation = System.nanoTime() - startTimeConfigurationCalculation;
+
+                    var configurationSerializer = new ConfigurationSerializer(_Logger);
+                    var startTimeSerializer = System.nanoTime();
+                    var filePath = CONFIGURATION_FILENAME + "_" + fileEntry.getName() + "_" + threshold + FILE_ENDING;
+                    configurationSerializer.saveConfigurations(fmPartiallyCalculated, filePath);
+                    var totalTimeSerializer = System.nanoTime() - startTimeSerializer;
+                    var file = new File(filePath);
+                    var fileSizeInByte = file.length();
+                    _Logger.info("file :" + fileEntry.getName() + " threshold: " + threshold + " fileSize: " + fileSizeInByte);
+                    sb.append(fileEntry.getName()).append(";").append(0).append(";").append(threshold).append(";").append(fileSizeInByte).append(";").append(totalTimeReading).append(";").append(totalTimeSlicing).append(";").append(totalTimeConfigurationCalculation).append(";").append(totalTimeSerializer).append("\n");
+                    file.delete();
+                }
+            }
+        }
+
+        saveResults(sb);
+    }
+
+    /**
+     * Measures size, saving and loading time of the CSV configuration files per threshold for every
+     * {@link Compression}, so the trade-off can be compared against the uncompressed storage measurements.
+     */
+    public void executeCompressionBenchmarkForFiles(String directory) {
+        var sb = new StringBuilder();
+        sb.append("inputFile;compression;threshold;fileSizeInByte;timeSavingConfigurations;timeLoadingConfigurations\n");
+
+        var fileFolder = new File(directory);
+        for (var fileEntry : Objects.requireNonNull(fileFolder.listFiles())) {
+            if (!fileEntry.isDirectory()) {
+                var reader = new FeatureModelReader(_Logger);
+                FeatureModelRead fmRead;
+                try {
+                    fmRead = reader.readFeatureModelJson(fileEntry);
+                } catch (InvalidFeatureModelRelationException e) {
+                    throw new RuntimeException(e);
+                }
+
+                for (int threshold : THRESHOLDS) {
+                    var fmSliced = new FeatureModelSlicer(_Logger).sliceFeatureModel(fmRead, threshold);
+                    var fmPartiallyCalculated = new ConfigurationCalculator(_Logger).calculatePartialConfigurations(fmSliced);
+
+                    for (var compression : Compression.values()) {
+                        var configurationSerializer = new ConfigurationSerializer(_Logger, ConfigurationFormat.CSV, compression, CompressedFileHandle.DEFAULT_BUFFER_SIZE);
+                        var filePath = CONFIGURATION_FILENAME + "_" + fileEntry.getName() + "_" + threshold + "_" + compression + FILE_ENDING;
+                        var startTimeSerializer = System.nanoTime();
+                        configurationSerializer.saveConfigurations(fmPartiallyCalculated, filePath);
+                        var totalTimeSerializer = System.nanoTime() - startTimeSerializer;
+
+                        var startTimeLoading = System.nanoTime();
+                        configurationSerializer.loadConfigurations(fmRead, filePath);
+                        var totalTimeLoading = System.nanoTime() - startTimeLoading;
+
+                        var file = new File(filePath);
+                        var fileSizeInByte = file.length();
+                        _Logger.info("file :" + fileEntry.getName() + " threshold: " + threshold + " compression: " + compression + " fileSize: " + fileSizeInByte);
+                        sb.append(fileEntry.getName()).append(";").append(compression).append(";").append(threshold).append(";").append(fileSizeInByte).append(";").append(totalTimeSerializer).append(";").append(totalTimeLoading).append("\n");
+                        file.delete();
+                    }
+                }
+            }
+        }
+
+        saveResults(sb);
+    }
+
     private void executeNoSlicingBenchmarkForFiles(String directory) {
         var sb = new StringBuilder();
         sb.append("inputFile;validConfigurations;threshold;fileSizeInByte;timeReadingFM;timeSlicingFM;timeCalculatingConfigurations;timeSavingConfigurations\n");
@@ -4,6 +4,12 @@ public class SlicingBenchmarkRunner {
     public static void main(String[] args) {
         var path = "TestData/TestGraphs/TestFMJsons/";
         var test = new NoJmhSlicingBenchmark();
-        test.executeBenchmark(true, true, path);
+        if (args.length > 0 && args[0].equalsIgnoreCase("-sweep")) {
+            test.executeSweepBenchmarkForFiles(path);
+        } else if (args.length > 0 && args[0].equalsIgnoreCase("-compression")) {
+            test.executeCompressionBenchmarkForFiles(path);
+        } else {
+            test.executeBenchmark(true, true, path);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package IO.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Output stream that collects bytes in a heap buffer of fixed size and writes
+ * them to a {@link FileChannel} whenever the buffer is full. Writes larger than
+ * the buffer are passed to the channel directly.
+ */
+public class ChannelOutputStream extends OutputStream {
+    private final FileChannel _Channel;
+    private final ByteBuffer _Buffer;
+
+    /**
+     * Creates or truncates the file.
+     *
+     * @param filePath   destination file path
+     * @param bufferSize size of the buffer in bytes
+     */
+    public ChannelOutputStream(String filePath, int bufferSize) throws IOException {
+        new DriveHandle().createFolderFromFile(filePath);
+        _Channel = FileChannel.open(Path.of(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        _Buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!_Buffer.hasRemaining()) {
+            drain();
+        }
+        _Buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length > _Buffer.remaining()) {
+            drain();
+            if (length > _Buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes, offset, length));
+                return;
+            }
+        }
+        _Buffer.put(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            _Channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        _Buffer.flip();
+        writeFully(_Buffer);
+        _Buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            _Channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package IO.impl;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Opens text files for streaming writes through a {@link ChannelOutputStream},
+ * optionally with DEFLATE or GZIP framing. Readers detect the framing from the
+ * first two bytes, so compressed and plain files are read the same way.
+ */
+public class CompressedFileHandle {
+    /** default size of the write buffer in bytes */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+    private static final int GZIP_MAGIC = 0x1F8B;
+    private static final int ZLIB_DEFLATE = 0x78;
+
+    /**
+     * Opens a UTF-8 writer, the file is created or truncated.
+     *
+     * @param filePath    destination file path
+     * @param bufferSize  size of the write buffer in bytes
+     * @param compression framing of the written bytes
+     * @return writer for the file
+     */
+    public Writer openWriter(String filePath, int bufferSize, Compression compression) throws IOException {
+        OutputStream outputStream = new ChannelOutputStream(filePath, bufferSize);
+        outputStream = switch (compression) {
+            case NONE -> outputStream;
+            case DEFLATE -> deflate(outputStream, bufferSize);
+            case GZIP -> new GZIPOutputStream(outputStream, bufferSize);
+        };
+        return new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+    }
+
+    private OutputStream deflate(OutputStream outputStream, int bufferSize) {
+        var deflater = new Deflater();
+        return new DeflaterOutputStream(outputStream, deflater, bufferSize) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // a deflater passed to the stream is not released by the stream itself
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Opens a UTF-8 reader for a plain, DEFLATE or GZIP framed file.
+     *
+     * @param filePath file path
+     * @return reader for the decompressed content
+     */
+    public BufferedReader openReader(String filePath) throws IOException {
+        var inputStream = new BufferedInputStream(new FileInputStream(filePath));
+        InputStream decompressed = switch (detectCompression(inputStream)) {
+            case NONE -> inputStream;
+            case DEFLATE -> new InflaterInputStream(inputStream);
+            case GZIP -> new GZIPInputStream(inputStream);
+        };
+        return new BufferedReader(new InputStreamReader(decompressed, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param filePath any file
+     * @return framing of the file, {@link Compression#NONE} if it cannot be read
+     */
+    public Compression detectCompression(String filePath) {
+        try (var inputStream = new BufferedInputStream(new FileInputStream(filePath))) {
+            return detectCompression(inputStream);
+        } catch (IOException e) {
+            return Compression.NONE;
+        }
+    }
+
+    private Compression detectCompression(BufferedInputStream inputStream) throws IOException {
+        inputStream.mark(2);
+        var first = inputStream.read();
+        var second = inputStream.read();
+        inputStream.reset();
+        if (first < 0 || second < 0) {
+            return Compression.NONE;
+        }
+        var header = (first << 8) | second;
+        if (header == GZIP_MAGIC) {
+            return Compression.GZIP;
+        }
+        // zlib header: compression method 8 with a 32K window and a check value that makes the header divisible by 31
+        if (first == ZLIB_DEFLATE && header % 31 == 0) {
+            return Compression.DEFLATE;
+        }
+        return Compression.NONE;
+    }
+}
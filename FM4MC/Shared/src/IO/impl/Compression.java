@@ -0,0 +1,13 @@
+package IO.impl;
+
+/**
+ * Framing of files written through the {@link CompressedFileHandle}.
+ */
+public enum Compression {
+    /** plain bytes */
+    NONE,
+    /** zlib framed DEFLATE stream ({@link java.util.zip.DeflaterOutputStream}) */
+    DEFLATE,
+    /** GZIP file ({@link java.util.zip.GZIPOutputStream}) */
+    GZIP
+}
@@ -0,0 +1,47 @@
+package IO;
+
+import IO.impl.CompressedFileHandle;
+import IO.impl.Compression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedFileHandle_Test {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void openReader_ReadsEveryCompression() throws IOException {
+        var content = "conf;1;a;b;parents;x\n".repeat(10_000);
+        var fileHandle = new CompressedFileHandle();
+        for (var compression : Compression.values()) {
+            var file = tempDir.resolve("nested/" + compression + ".csv").toString();
+            try (var writer = fileHandle.openWriter(file, 128, compression)) {
+                writer.write(content);
+            }
+            assertEquals(compression, fileHandle.detectCompression(file));
+            try (var reader = fileHandle.openReader(file)) {
+                var builder = new StringBuilder();
+                reader.lines().forEach(line -> builder.append(line).append('\n'));
+                assertEquals(content, builder.toString());
+            }
+        }
+    }
+
+    @Test
+    public void openWriter_WritesLargerThanBuffer() throws IOException {
+        var file = tempDir.resolve("large.txt");
+        var content = "x".repeat(1000);
+        try (var writer = new CompressedFileHandle().openWriter(file.toString(), 16, Compression.NONE)) {
+            writer.write(content);
+            writer.write('y');
+        }
+        assertEquals(content + "y", Files.readString(file));
+    }
+}